@@ -22,37 +22,44 @@ import static java.lang.System.out;
 import static java.nio.file.Files.createDirectories;
 import static java.nio.file.Files.exists;
 import static java.nio.file.Files.isRegularFile;
-import static java.nio.file.Files.newOutputStream;
-import static java.util.Locale.ROOT;
+import static java.time.temporal.ChronoUnit.DAYS;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
 import static java.util.Objects.nonNull;
 import static org.apiguardian.api.API.Status.STABLE;
-import static org.tquadrat.bloodpressure.Configuration.COLUMN_BLOODPRESSURE_DATA_PRIMARY_KEY;
-import static org.tquadrat.bloodpressure.Configuration.TABLE_BLOODPRESSURE_DATA;
 import static org.tquadrat.bloodpressure.DataImporter.retrieveDataImporter;
+import static org.tquadrat.bloodpressure.DataStore.isValidPerson;
+import static org.tquadrat.bloodpressure.DataStore.retrieveDataStore;
 import static org.tquadrat.bloodpressure.Report.retrieveReport;
 import static org.tquadrat.bloodpressure.spi.DataImporterBase.registerImporter;
+import static org.tquadrat.bloodpressure.spi.DataStoreBase.registerDataStore;
+import static org.tquadrat.bloodpressure.spi.Guideline.parseBounds;
 import static org.tquadrat.bloodpressure.spi.ReportBase.registerReport;
-import static org.tquadrat.foundation.lang.CommonConstants.UTF8;
-import static org.tquadrat.foundation.lang.CommonConstants.ZONE_UTC;
 import static org.tquadrat.foundation.lang.DebugOutput.isDebug;
 import static org.tquadrat.foundation.lang.DebugOutput.isTest;
 import static org.tquadrat.foundation.lang.Objects.isNull;
 import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
-import static org.tquadrat.foundation.util.StringUtils.format;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
-import java.io.PrintWriter;
 import java.sql.SQLException;
-import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatterBuilder;
+import java.time.LocalDate;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.apiguardian.api.API;
 import org.tquadrat.bloodpressure.importer.BlutdruckdatenCSVImporter;
+import org.tquadrat.bloodpressure.internal.ArrowExporter;
+import org.tquadrat.bloodpressure.internal.DataDumper;
+import org.tquadrat.bloodpressure.internal.DataRestorer;
+import org.tquadrat.bloodpressure.internal.TransferProgress.Statistics;
 import org.tquadrat.bloodpressure.report.CompareReport;
+import org.tquadrat.bloodpressure.report.PeriodCompareReport;
 import org.tquadrat.bloodpressure.report.SimpleReport;
 import org.tquadrat.bloodpressure.report.StandardReport;
+import org.tquadrat.bloodpressure.spi.Guideline;
+import org.tquadrat.bloodpressure.spi.OutlierDetector;
+import org.tquadrat.bloodpressure.store.H2DataStore;
+import org.tquadrat.bloodpressure.store.SegmentDataStore;
 import org.tquadrat.foundation.annotation.ClassVersion;
 import org.tquadrat.foundation.annotation.ProgramClass;
 import org.tquadrat.foundation.exception.ApplicationError;
@@ -93,6 +100,20 @@ public final class Application
     )
     public static final int MSG_CreateFolderFailed = 7;
 
+    /**
+     *  Message: Measurements were downsampled.
+     */
+    @Message
+    (
+        description = "The message about measurements that were downsampled to daily values.",
+        translations =
+        {
+            @Translation( language = "de", text = "%1$,d Messwerte vor dem %2$s wurden zu Tageswerten zusammengefasst" ),
+            @Translation( language = "en", text = "%1$,d measurements before %2$s were condensed to daily values" )
+        }
+    )
+    public static final int MSG_DataDownsampled = 21;
+
     /**
      *  Message: An attempt to perform a database operation failed.
      */
@@ -107,6 +128,34 @@ public final class Application
     )
     public static final int MSG_DatabaseAccessFailed = 4;
 
+    /**
+     *  Message: Downsampling failed.
+     */
+    @Message
+    (
+        description = "The error message about a failed downsampling of old measurements.",
+        translations =
+        {
+            @Translation( language = "de", text = "Die Messwerte vor dem %1$s konnten nicht zu Tageswerten zusammengefasst werden" ),
+            @Translation( language = "en", text = "Could not condense the measurements before %1$s to daily values" )
+        }
+    )
+    public static final int MSG_DownsamplingFailed = 22;
+
+    /**
+     *  Message: Progress of a database dump.
+     */
+    @Message
+    (
+        description = "The message about the progress of a database dump.",
+        translations =
+        {
+            @Translation( language = "de", text = "%1$,d Zeilen geschrieben (%2$,.0f Zeilen/s)" ),
+            @Translation( language = "en", text = "%1$,d rows written (%2$,.0f rows/s)" )
+        }
+    )
+    public static final int MSG_DumpProgress = 13;
+
     /**
      *  Message: Import file is missing.
      */
@@ -149,6 +198,48 @@ public final class Application
     )
     public static final int MSG_InvalidFolder = 10;
 
+    /**
+     *  Message: Guideline is invalid.
+     */
+    @Message
+    (
+        description = "The error message about an unknown guideline or invalid thresholds for the custom guideline.",
+        translations =
+        {
+            @Translation( language = "de", text = "Die Richtlinie '%1$s' ist unbekannt oder hat unzulässige Grenzwerte" ),
+            @Translation( language = "en", text = "The guideline '%1$s' is unknown or has invalid thresholds" )
+        }
+    )
+    public static final int MSG_InvalidGuideline = 25;
+
+    /**
+     *  Message: Periods for the comparison are invalid.
+     */
+    @Message
+    (
+        description = "The error message about invalid periods for the comparison report.",
+        translations =
+        {
+            @Translation( language = "de", text = "Die Zeiträume '%1$s' für den Vergleich sind unzulässig" ),
+            @Translation( language = "en", text = "The periods '%1$s' for the comparison are invalid" )
+        }
+    )
+    public static final int MSG_InvalidPeriods = 26;
+
+    /**
+     *  Message: Key for the person is invalid.
+     */
+    @Message
+    (
+        description = "The error message about an invalid key for the person.",
+        translations =
+        {
+            @Translation( language = "de", text = "Der Schlüssel '%1$s' für die Person ist unzulässig" ),
+            @Translation( language = "en", text = "The key '%1$s' for the person is invalid" )
+        }
+    )
+    public static final int MSG_InvalidPerson = 18;
+
     /**
      *  Message: Birthdate is missing.
      */
@@ -163,6 +254,20 @@ public final class Application
     )
     public static final int MSG_NoBirthdate = 11;
 
+    /**
+     *  Message: Storage engine is missing.
+     */
+    @Message
+    (
+        description = "The error message about an unknown storage engine.",
+        translations =
+        {
+            @Translation( language = "de", text = "Die Speicherung '%1$s' ist unbekannt" ),
+            @Translation( language = "en", text = "There is no storage engine '%1$s'" )
+        }
+    )
+    public static final int MSG_NoDataStore = 17;
+
     /**
      *  Message: Importer is missing.
      */
@@ -205,6 +310,63 @@ public final class Application
     )
     public static final int MSG_NoReport = 8;
 
+    /**
+     *  Message: Imported measurements were flagged as outliers.
+     */
+    @Message
+    (
+        description = "The message about imported measurements that were flagged as outliers.",
+        translations =
+        {
+            @Translation( language = "de", text = "%1$,d der importierten Messwerte wurden als Ausreißer markiert" ),
+            @Translation( language = "en", text = "%1$,d of the imported measurements were flagged as outliers" )
+        }
+    )
+    public static final int MSG_OutliersFlagged = 24;
+
+    /**
+     *  Message: Partition was archived.
+     */
+    @Message
+    (
+        description = "The message about an archived partition.",
+        translations =
+        {
+            @Translation( language = "de", text = "Die Daten für das Jahr %1$d wurden nach '%2$s' archiviert" ),
+            @Translation( language = "en", text = "The data for the year %1$d was archived to '%2$s'" )
+        }
+    )
+    public static final int MSG_PartitionArchived = 19;
+
+    /**
+     *  Message: Maintenance of a partition failed.
+     */
+    @Message
+    (
+        description = "The error message about a failed maintenance operation on a partition.",
+        translations =
+        {
+            @Translation( language = "de", text = "Die Wartung der Daten für das Jahr %1$d ist fehlgeschlagen" ),
+            @Translation( language = "en", text = "The maintenance of the data for the year %1$d failed" )
+        }
+    )
+    public static final int MSG_PartitionMaintenanceFailed = 20;
+
+    /**
+     *  Message: An operation that modifies the data was requested for a
+     *  read-only database.
+     */
+    @Message
+    (
+        description = "The error message about an operation that modifies the data on a read-only database.",
+        translations =
+        {
+            @Translation( language = "de", text = "Die Datenbank ist nur zum Lesen geöffnet; Wiederherstellung, Import, Archivierung, Kompaktierung und Aufbewahrungsfrist sind nicht möglich" ),
+            @Translation( language = "en", text = "The database is opened read-only; restore, import, archive, compaction and retention period are not possible" )
+        }
+    )
+    public static final int MSG_ReadOnlyConflict = 23;
+
     /**
      *  Message: Reading failed.
      */
@@ -233,6 +395,48 @@ public final class Application
     )
     public static final int MSG_ReportGenerationFailed = 9;
 
+    /**
+     *  Message: Reading the dump file for a restore failed.
+     */
+    @Message
+    (
+        description = "The error message about a failed restore.",
+        translations =
+        {
+            @Translation( language = "de", text = "Der Datenbank-Auszug '%1$s' konnte nicht eingespielt werden" ),
+            @Translation( language = "en", text = "Could not restore the database dump '%1$s'" )
+        }
+    )
+    public static final int MSG_RestoreFailed = 15;
+
+    /**
+     *  Message: Dump file for a restore is missing.
+     */
+    @Message
+    (
+        description = "The error message about a missing dump file.",
+        translations =
+        {
+            @Translation( language = "de", text = "Der Datenbank-Auszug '%1$s' existiert nicht" ),
+            @Translation( language = "en", text = "Database dump '%1$s' is missing" )
+        }
+    )
+    public static final int MSG_RestoreFileIsMissing = 14;
+
+    /**
+     *  Message: Progress of a restore.
+     */
+    @Message
+    (
+        description = "The message about the progress of a restore.",
+        translations =
+        {
+            @Translation( language = "de", text = "%1$,d Zeilen eingespielt (%2$,.0f Zeilen/s)" ),
+            @Translation( language = "en", text = "%1$,d rows restored (%2$,.0f rows/s)" )
+        }
+    )
+    public static final int MSG_RestoreProgress = 16;
+
     /**
      *  Message: Writing to file failed.
      */
@@ -247,6 +451,12 @@ public final class Application
         )
     public static final int MSG_WriteToFileFailed = 6;
 
+    /**
+     *  The number of days before the first imported measurement whose
+     *  measurements are used to prime the outlier detection: {@value}.
+     */
+    private static final int OUTLIER_SEED_DAYS = 90;
+
         /*------------*\
     ====** Attributes **=======================================================
         \*------------*/
@@ -255,6 +465,11 @@ public final class Application
      */
     private final Configuration m_Configuration;
 
+    /**
+     *  The storage for the blood pressure data.
+     */
+    private DataStore m_DataStore;
+
         /*------------------------*\
     ====** Static Initialisations **===========================================
         \*------------------------*/
@@ -263,10 +478,16 @@ public final class Application
         //---* Creates the importer and adds them to the registry *------------
         registerImporter( new BlutdruckdatenCSVImporter() );
 
+        //---* Creates the storage engines and adds them to the registry *-----
+        registerDataStore( new H2DataStore( false ) );
+        registerDataStore( new H2DataStore( true ) );
+        registerDataStore( new SegmentDataStore() );
+
         //---* Creates the reports and adds them to the registry *-------------
         registerReport( new SimpleReport() );
         registerReport( new StandardReport() );
         registerReport( new CompareReport() );
+        registerReport( new PeriodCompareReport() );
     }
 
         /*--------------*\
@@ -279,13 +500,94 @@ public final class Application
     {
         //---* Retrieve the configuration bean *-------------------------------
         m_Configuration = Configuration.getInstance();
+        m_DataStore = null;
     }   //  Application()
 
         /*---------*\
     ====** Methods **==========================================================
         \*---------*/
     /**
-     *  Dumps the data from the database to the given file.
+     *  Downsamples the measurements of the configured person that are older
+     *  than the
+     *  {@linkplain Configuration#getRetentionYears() retention period}.
+     */
+    private final void applyRetentionPolicy()
+    {
+        final var timezone = m_Configuration.getTimezone();
+        final var cutoff = retrieveRetentionCutoff();
+        try
+        {
+            final var count = m_DataStore.downsample( m_Configuration.getPerson(), cutoff.atStartOfDay( timezone ).toInstant(), timezone );
+            if( count > 0 ) out.println( m_Configuration.getMessage( MSG_DataDownsampled, count, cutoff.toString() ) );
+        }
+        catch( final IOException e )
+        {
+            throw new ApplicationError( m_Configuration.getMessage( MSG_DownsamplingFailed, cutoff.toString() ), e );
+        }
+    }   //  applyRetentionPolicy()
+
+    /**
+     *  Archives the partition for the given year to the folder
+     *  {@code archive} in the data folder, and removes it from the storage.
+     *
+     *  @param  year    The year.
+     */
+    private final void archivePartition( final Integer year )
+    {
+        try
+        {
+            final var archive = m_DataStore.archivePartition( year.intValue(), m_Configuration.getDataFolder().resolve( "archive" ) );
+            out.println( m_Configuration.getMessage( MSG_PartitionArchived, year, archive.toString() ) );
+        }
+        catch( final IOException | UnsupportedOperationException e )
+        {
+            throw new ApplicationError( m_Configuration.getMessage( MSG_PartitionMaintenanceFailed, year ), e );
+        }
+    }   //  archivePartition()
+
+    /**
+     *  Waits until the given background maintenance task is finished.
+     *
+     *  @param  maintenance The task.
+     */
+    private final void awaitMaintenance( final Future<?> maintenance )
+    {
+        try
+        {
+            maintenance.get();
+        }
+        catch( final InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new ApplicationError( m_Configuration.getMessage( MSG_DownsamplingFailed, retrieveRetentionCutoff().toString() ), e );
+        }
+        catch( final ExecutionException e )
+        {
+            if( e.getCause() instanceof ApplicationError applicationError ) throw applicationError;
+            throw new ApplicationError( m_Configuration.getMessage( MSG_DownsamplingFailed, retrieveRetentionCutoff().toString() ), e.getCause() );
+        }
+    }   //  awaitMaintenance()
+
+    /**
+     *  Compacts the partition for the given year.
+     *
+     *  @param  year    The year.
+     */
+    private final void compactPartition( final Integer year )
+    {
+        try
+        {
+            m_DataStore.compactPartition( year.intValue() );
+        }
+        catch( final IOException | UnsupportedOperationException e )
+        {
+            throw new ApplicationError( m_Configuration.getMessage( MSG_PartitionMaintenanceFailed, year ), e );
+        }
+    }   //  compactPartition()
+
+    /**
+     *  Dumps the data from the database to the given file, in the
+     *  {@linkplain Configuration#getDumpFormat() configured format}.
      *
      *  @param  dumpFile    The destination for the data.
      */
@@ -307,61 +609,23 @@ public final class Application
             }
         }
 
-        final var timestampFormatter = new DateTimeFormatterBuilder()
-            .appendPattern( "yyyy-MM-dd HH:mm:ssX" )
-            .toFormatter( ROOT );
-
-        try( final var writer = new PrintWriter( new OutputStreamWriter( newOutputStream( file ), UTF8 ) ) )
+        try
         {
-            writer.printf(
-                """
-                MERGE INTO %1$s
-                KEY( %2$s )
-                VALUES
-                """, TABLE_BLOODPRESSURE_DATA, COLUMN_BLOODPRESSURE_DATA_PRIMARY_KEY
-            );
-            try( final var connection = m_Configuration.retrieveConnection() )
-            {
-                try( final var statement = connection.createStatement() )
+            final var statistics = switch( m_Configuration.getDumpFormat() )
                 {
-                    final var sql = format(
-                        """
-                        SELECT * FROM %1$s
-                        """, TABLE_BLOODPRESSURE_DATA );
-                    try( final var resultSet = statement.executeQuery( sql ) )
-                    {
-                        var isFirst = true;
-                        while( resultSet.next() )
-                        {
-                            if( isFirst )
-                            {
-                                isFirst = false;
-                            }
-                            else
-                            {
-                                writer.println( "," );
-                            }
-                            final var timestamp = resultSet.getObject( 1, ZonedDateTime.class ).withZoneSameInstant( ZONE_UTC );
-                            final var systolic = resultSet.getInt( 2 );
-                            final var diastolic = resultSet.getInt( 3 );
-                            final var isIgnored = resultSet.getBoolean( 4 );
-
-                            writer.printf( "('%s', %d, %d, %B )", timestamp.format( timestampFormatter ), systolic, diastolic, isIgnored );
-                        }
-                        writer.println();
-                    }
-                }
-            }
-        }
-        catch( final SQLException e )
-        {
-            throw new ApplicationError( m_Configuration.getMessage( MSG_DatabaseAccessFailed ), e );
+                    case ARROW -> new ArrowExporter( ArrowExporter.DEFAULT_BATCH_SIZE, m_Configuration.getDumpFetchSize(), this::reportDumpProgress )
+                        .export( m_DataStore, m_Configuration.getPerson(), file );
+                    case SQL -> new DataDumper( m_Configuration.getDumpCompression(), m_Configuration.getDumpPartitions(), m_Configuration.getDumpFetchSize(), this::reportDumpProgress )
+                        .dump( m_DataStore, m_Configuration.getPerson(), file );
+                };
+            reportDumpProgress( statistics );
         }
         catch( final IOException e )
         {
             throw new ApplicationError( m_Configuration.getMessage( MSG_WriteToFileFailed, dumpFile.getAbsolutePath() ), e );
         }
     }   //  dumpData()
+
     /**
      *  Does the programs work.
      *
@@ -370,16 +634,69 @@ public final class Application
     @SuppressWarnings( "RedundantThrows" )
     private final void execute() throws IOException
     {
+        //---* Restore a dump *------------------------------------------------
+        m_Configuration.getRestoreFile().ifPresent( this::restoreData );
+
         //---* Import more data *----------------------------------------------
         m_Configuration.getImportFile().ifPresent( this::importData );
 
+        //---* Maintain the partitions *---------------------------------------
+        m_Configuration.getArchiveYear().ifPresent( this::archivePartition );
+        m_Configuration.getCompactYear().ifPresent( this::compactPartition );
+
         //---* Dump the existing data *----------------------------------------
         m_Configuration.getDumpFile().ifPresent( this::dumpData );
 
-        //---* Create a report *-----------------------------------------------
-        m_Configuration.getReportFile().ifPresent( this::generateReport );
+        //---* Apply the retention policy in the background *------------------
+        final var executor = newSingleThreadExecutor();
+        try
+        {
+            final var maintenance = m_Configuration.getRetentionYears() > 0 ? executor.submit( this::applyRetentionPolicy ) : null;
+
+            //---* Create a report *-------------------------------------------
+            m_Configuration.getReportFile().ifPresent( this::generateReport );
+
+            //---* Wait for the maintenance *----------------------------------
+            if( nonNull( maintenance ) ) awaitMaintenance( maintenance );
+        }
+        finally
+        {
+            executor.shutdown();
+        }
     }   //  execute()
 
+    /**
+     *  Flags the outliers in the given measurements. The detector is primed
+     *  with the stored measurements of the configured person from the
+     *  {@value #OUTLIER_SEED_DAYS} days before the earliest of the given
+     *  measurements, so these are not checked against an empty window.
+     *
+     *  @param  data    The measurements to import.
+     *  @param  windowSize  The number of measurements in the window of the
+     *      detector.
+     *  @return The number of outliers.
+     *  @throws IOException Problems when reading the stored measurements.
+     *
+     *  @see Configuration#getOutlierWindow()
+     */
+    private final int flagOutliers( final DataStore.Batch data, final int windowSize ) throws IOException
+    {
+        final var detector = new OutlierDetector( windowSize, OutlierDetector.DEFAULT_THRESHOLD );
+        final var earliest = data.getEarliestTimestamp();
+        if( earliest.isPresent() )
+        {
+            final var end = earliest.get();
+            m_DataStore.scan( m_Configuration.getPerson(), end.minus( OUTLIER_SEED_DAYS, DAYS ), end, ( epochSecond, systolic, diastolic, isIgnored, isOutlier ) ->
+            {
+                if( !isIgnored ) detector.add( systolic, diastolic );
+            } );
+        }
+        final var retValue = data.flagOutliers( detector );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  flagOutliers()
+
     /**
      *  <p>{@summary Generates a report and writes it to the given
      *  destination.} Whether this destination denotes a folder or a file
@@ -424,38 +741,29 @@ public final class Application
         final var importer = retrieveDataImporter( m_Configuration.getImportSource(), m_Configuration.getImportFormat() )
             .orElseThrow( () -> new ApplicationError( m_Configuration.getMessage( MSG_NoImporter, m_Configuration.getImportSource(), m_Configuration.getImportFormat() ) ) );
 
-        //---* Get the data *--------------------------------------------------
-        try( final var connection = m_Configuration.retrieveConnection() )
+        //---* Get the data from the import file *-----------------------------
+        final DataStore.Batch data;
+        try
         {
-            //---* Get the data from the import file *-------------------------
-            final var data = importer.parse( importFile.toURI(), m_Configuration.getImportTimeZone().orElseGet( m_Configuration::getTimezone ), m_Configuration.getImportCharset().orElse( null ) );
-
-            //---* Prepare the insert statement *------------------------------
-            final var sql = format(
-                """
-                MERGE INTO %1$s
-                KEY( %2$s )
-                VALUES( ?, ?, ?, ? )\
-                """, TABLE_BLOODPRESSURE_DATA, COLUMN_BLOODPRESSURE_DATA_PRIMARY_KEY );
-            try( final var statement = connection.prepareStatement( sql ) )
-            {
-                //---* Insert the data *---------------------------------------
-                for( final var r : data )
-                {
-                    statement.setObject( 1, r.timestamp() );
-                    statement.setInt( 2, r.getSystolicPressure() );
-                    statement.setInt( 3, r.getDiastolicPressure() );
-                    statement.setBoolean( 4, r.isIgnored() );
-
-                    statement.execute();
-                }
-            }
+            data = DataStore.Batch.of( importer.parse( importFile.toURI(), m_Configuration.getImportTimeZone().orElseGet( m_Configuration::getTimezone ), m_Configuration.getImportCharset().orElse( null ) ) );
         }
         catch( final IOException e )
         {
             throw new ApplicationError( m_Configuration.getMessage( MSG_ReadingFailed, importFile.getAbsolutePath() ), e );
         }
-        catch( SQLException e )
+
+        //---* Store the data *------------------------------------------------
+        try
+        {
+            final var windowSize = m_Configuration.getOutlierWindow();
+            if( windowSize > 0 )
+            {
+                final var outliers = flagOutliers( data, Math.max( windowSize, OutlierDetector.WARM_UP ) );
+                if( outliers > 0 ) out.println( m_Configuration.getMessage( MSG_OutliersFlagged, outliers ) );
+            }
+            m_DataStore.append( m_Configuration.getPerson(), data );
+        }
+        catch( final IOException e )
         {
             throw new ApplicationError( m_Configuration.getMessage( MSG_DatabaseAccessFailed ), e );
         }
@@ -468,11 +776,10 @@ public final class Application
      *  @return {@code true} if the initialisation was successful and the
      *      application may proceed, {@code false} if it failed and the
      *      application needs to terminate.
-     *  @throws IOException An I/O issue occurred.
-     *  @throws java.sql.SQLException   A problem occurred when initialising
-     *      the database.
+     *  @throws IOException An I/O issue occurred, or the initialisation of
+     *      the storage failed.
      */
-    private final boolean initialize( final String [] args ) throws IOException, SQLException
+    private final boolean initialize( final String [] args ) throws IOException
     {
         //---* Read the INIFile *----------------------------------------------
         m_Configuration.loadINIFile();
@@ -486,47 +793,28 @@ public final class Application
         }
         else
         {
-            //---* Check the database *----------------------------------------
-            try( final var connection = m_Configuration.retrieveConnection() )
+            //---* Check the person *------------------------------------------
+            final var person = m_Configuration.getPerson();
+            if( !isValidPerson( person ) ) throw new ApplicationError( m_Configuration.getMessage( MSG_InvalidPerson, person ) );
+
+            //---* Check for modifications on a read-only database *-----------
+            if( m_Configuration.isReadOnly() && (m_Configuration.getRestoreFile().isPresent()
+                || m_Configuration.getImportFile().isPresent()
+                || m_Configuration.getArchiveYear().isPresent()
+                || m_Configuration.getCompactYear().isPresent()
+                || (m_Configuration.getRetentionYears() > 0)) )
             {
-                var sql = format(
-                    """
-                    SELECT * FROM information_schema.tables
-                      WHERE TABLE_NAME = '%s'
-                        AND TABLE_SCHEMA = 'PUBLIC'\
-                    """, TABLE_BLOODPRESSURE_DATA );
-
-                @SuppressWarnings( "UnusedAssignment" )
-                boolean databaseIsInitialized = false;
-                try( final var sqlStatement = connection.createStatement() )
-                {
-                    try( final var resultSet = sqlStatement.executeQuery( sql ) )
-                    {
-                        databaseIsInitialized = resultSet.next(); // The table exists …
-                    }
-                }
+                throw new ApplicationError( m_Configuration.getMessage( MSG_ReadOnlyConflict ) );
+            }
 
-                if( isDebug() )
-                {
-                    sql = format(
-                        """
-                        SELECT table_schema, table_name FROM information_schema.tables\
-                        """, TABLE_BLOODPRESSURE_DATA );
-
-                    try( final var sqlStatement = connection.createStatement() )
-                    {
-                        try( final var resultSet = sqlStatement.executeQuery( sql ) )
-                        {
-                            while( resultSet.next() )
-                            {
-                                out.printf( "Schema: %s – Name: %s%n", resultSet.getString( 1 ), resultSet.getString( 2 ) );
-                            }
-                        }
-                    }
-                }
+            //---* Check the storage *-----------------------------------------
+            final var storage = m_Configuration.getStorage();
+            m_DataStore = retrieveDataStore( storage )
+                .orElseThrow( () -> new ApplicationError( m_Configuration.getMessage( MSG_NoDataStore, storage ) ) );
+            m_DataStore.initialize();
 
-                if( !databaseIsInitialized ) m_Configuration.initializeDatabase( connection );
-            }
+            //---* Set the guideline for the classification *------------------
+            Diagnosis.setGuideline( retrieveGuideline() );
 
             //---* Check the name and birthdate *------------------------------
             if( isNull( m_Configuration.getName() )  ) throw new ApplicationError( m_Configuration.getMessage( MSG_NoName ) );
@@ -584,6 +872,90 @@ public final class Application
             t.printStackTrace( err );
         }
     }   //  main()
+
+    /**
+     *  Reports the progress of a database dump.
+     *
+     *  @param  statistics  The current state of the dump.
+     */
+    private final void reportDumpProgress( final Statistics statistics )
+    {
+        out.println( m_Configuration.getMessage( MSG_DumpProgress, statistics.rowCount(), statistics.rowsPerSecond() ) );
+    }   //  reportDumpProgress()
+
+    /**
+     *  Reports the progress of a restore.
+     *
+     *  @param  statistics  The current state of the restore.
+     */
+    private final void reportRestoreProgress( final Statistics statistics )
+    {
+        out.println( m_Configuration.getMessage( MSG_RestoreProgress, statistics.rowCount(), statistics.rowsPerSecond() ) );
+    }   //  reportRestoreProgress()
+
+    /**
+     *  Restores the data from the given dump file to the database.
+     *
+     *  @param  dumpFile    The dump file.
+     */
+    private final void restoreData( final File dumpFile )
+    {
+        if( !dumpFile.exists() )
+        {
+            throw new ApplicationError( m_Configuration.getMessage( MSG_RestoreFileIsMissing, dumpFile.getAbsolutePath() ) );
+        }
+
+        final var restorer = new DataRestorer( DataRestorer.DEFAULT_BATCH_SIZE, m_Configuration.getDumpPartitions(), m_Configuration.getOutlierWindow(), this::reportRestoreProgress );
+        try
+        {
+            reportRestoreProgress( restorer.restore( m_DataStore, m_Configuration.getPerson(), dumpFile.toPath() ) );
+        }
+        catch( final IOException e )
+        {
+            throw new ApplicationError( m_Configuration.getMessage( MSG_RestoreFailed, dumpFile.getAbsolutePath() ), e );
+        }
+    }   //  restoreData()
+
+    /**
+     *  Returns the guideline for the classification of the measurements
+     *  that is selected by the configuration.
+     *
+     *  @return The guideline.
+     *
+     *  @see Configuration#getGuideline()
+     */
+    private final Guideline retrieveGuideline()
+    {
+        final var id = m_Configuration.getGuideline();
+        final Guideline retValue;
+        try
+        {
+            retValue = Guideline.CUSTOM_ID.equalsIgnoreCase( id )
+                ? Guideline.of( parseBounds( m_Configuration.getGuidelineSystolicBounds() ), parseBounds( m_Configuration.getGuidelineDiastolicBounds() ) )
+                : Guideline.forId( id ).orElseThrow( () -> new ApplicationError( m_Configuration.getMessage( MSG_InvalidGuideline, id ) ) );
+        }
+        catch( final IllegalArgumentException e )
+        {
+            throw new ApplicationError( m_Configuration.getMessage( MSG_InvalidGuideline, id ), e );
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  retrieveGuideline()
+
+    /**
+     *  Returns the first day whose measurements are kept by the
+     *  {@linkplain Configuration#getRetentionYears() retention policy}.
+     *
+     *  @return The first day.
+     */
+    private final LocalDate retrieveRetentionCutoff()
+    {
+        final var retValue = LocalDate.now( m_Configuration.getClock() ).minusYears( m_Configuration.getRetentionYears() );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  retrieveRetentionCutoff()
 }
 //  class Application
 
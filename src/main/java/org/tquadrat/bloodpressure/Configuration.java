@@ -36,6 +36,7 @@ import java.util.Optional;
 
 import org.apiguardian.api.API;
 import org.tquadrat.bloodpressure.internal.ConfigurationBase;
+import org.tquadrat.bloodpressure.spi.AggregationPyramid.Resolution;
 import org.tquadrat.foundation.annotation.ClassVersion;
 import org.tquadrat.foundation.config.CLIBeanSpec;
 import org.tquadrat.foundation.config.ConfigBeanSpec;
@@ -80,7 +81,19 @@ public interface Configuration extends CLIBeanSpec, ConfigBeanSpec, I18nSupport,
     public static final String BASE_BUNDLE_NAME = "org.tquadrat.bloodpressure.TextsAndMessages";
 
     /**
-     *  The name for the key column of the blood pressure data table: {@value}.
+     *  The name for the column of the blood pressure data table that holds
+     *  the key for the person: {@value}. It leads the primary key, so the
+     *  measurements of a person are kept together in the index.
+     *
+     *  @see #TABLE_BLOODPRESSURE_DATA
+     */
+    public static final String COLUMN_BLOODPRESSURE_DATA_PERSON = "PERSON_ID";
+
+    /**
+     *  The name for the timestamp column of the blood pressure data table:
+     *  {@value}. Together with
+     *  {@link #COLUMN_BLOODPRESSURE_DATA_PERSON},
+     *  it forms the primary key.
      *
      *  @see #TABLE_BLOODPRESSURE_DATA
      */
@@ -93,15 +106,71 @@ public interface Configuration extends CLIBeanSpec, ConfigBeanSpec, I18nSupport,
     @MessagePrefix
     public static final String MESSAGE_PREFIX = "BPS";
 
+    /**
+     *  The table name for the log of changes to the blood pressure data:
+     *  {@value}. The schema is the default schema.
+     *
+     *  @see org.tquadrat.bloodpressure.internal.DataChangeLog
+     */
+    public static final String TABLE_BLOODPRESSURE_CHANGES = "BLOODPRESSURE_CHANGES";
+
+    /**
+     *  The table name for the end of the downsampled range for each person:
+     *  {@value}. The schema is the default schema.
+     *
+     *  @see org.tquadrat.bloodpressure.DataStore#downsample(String, java.time.Instant, ZoneId)
+     */
+    public static final String TABLE_BLOODPRESSURE_CUTOFF = "BLOODPRESSURE_CUTOFF";
+
+    /**
+     *  The table name for the daily aggregates of the downsampled blood
+     *  pressure data: {@value}. The schema is the default schema.
+     *
+     *  @see org.tquadrat.bloodpressure.DataStore#downsample(String, java.time.Instant, ZoneId)
+     */
+    public static final String TABLE_BLOODPRESSURE_DAILY = "BLOODPRESSURE_DAILY";
+
     /**
      *  The table name for the blood pressure data: {@value}. The schema is the
      *  default schema.
      */
     public static final String TABLE_BLOODPRESSURE_DATA = "BLOODPRESSURE_DATA";
 
+    /**
+     *  The table name for the identity of the database: {@value}. The schema
+     *  is the default schema.
+     *
+     *  @see org.tquadrat.bloodpressure.DataStore#getStoreId()
+     */
+    public static final String TABLE_BLOODPRESSURE_STORE = "BLOODPRESSURE_STORE";
+
         /*---------*\
     ====** Methods **==========================================================
         \*---------*/
+    /**
+     *  Returns the year whose partition should be archived to the folder
+     *  {@code archive} in the
+     *  {@linkplain #getDataFolder() data folder},
+     *  and removed from the storage afterwards. This is supported only by
+     *  storage engines that partition the data by year.
+     *
+     *  @return An instance of
+     *      {@link Optional}
+     *      that holds the year.
+     */
+    @Text(
+        description = "The usage text for the --archiveYear option",
+        use = USAGE,
+        id = "ArchiveYear",
+        translations =
+        {
+            @Translation( language = "de", text = "Das Jahr, dessen Daten (für alle Personen) archiviert und aus der Speicherung entfernt werden" ),
+            @Translation( language = "en", text = "The year whose data (for all persons) is archived and removed from the storage" )
+        }
+    )
+    @Option( name = "--archiveYear", metaVar = "YEAR", usageKey = "org.tquadrat.bloodpressure.Configuration.USAGE_ArchiveYear" )
+    public Optional<Integer> getArchiveYear();
+
     /**
      *  Returns the birthdate of the person whose blood pressure data is
      *  processed.
@@ -122,6 +191,28 @@ public interface Configuration extends CLIBeanSpec, ConfigBeanSpec, I18nSupport,
     @INIValue( group = "Owner", key = "birthdate", comment = "The birthdate of the person whose blood pressure data is processed" )
     public LocalDate getBirthdate();
 
+    /**
+     *  Returns the size of the page cache for the H2 database, in KiB. A
+     *  negative value means that the size from the
+     *  {@linkplain #getStorageProfile() storage profile}
+     *  is used.
+     *
+     *  @return The cache size.
+     */
+    @Text(
+        description = "The usage text for the --cacheSize option",
+        use = USAGE,
+        id = "CacheSize",
+        translations =
+        {
+            @Translation( language = "de", text = "Die Größe des Seiten-Caches für die H2-Datenbank in KiB (ein negativer Wert verwendet den Wert aus dem Speicher-Profil)" ),
+            @Translation( language = "en", text = "The size of the page cache for the H2 database in KiB (a negative value uses the value from the storage profile)" )
+        }
+    )
+    @Option( name = "--cacheSize", metaVar = "KIB", usageKey = "org.tquadrat.bloodpressure.Configuration.USAGE_CacheSize" )
+    @INIValue( group = "Database", key = "cacheSize", comment = "The size of the page cache for the H2 database in KiB (a negative value uses the value from the storage profile)" )
+    public int getCacheSize();
+
     /**
      *  <p>{@summary Returns the clock that is used by this program.}</p>
      *  <p>It can be adjusted for testing purposes.</p>
@@ -131,6 +222,101 @@ public interface Configuration extends CLIBeanSpec, ConfigBeanSpec, I18nSupport,
     @SpecialProperty( CONFIG_PROPERTY_CLOCK )
     public Clock getClock();
 
+    /**
+     *  Returns the year whose partition should be compacted. This is
+     *  supported only by storage engines that partition the data by year.
+     *
+     *  @return An instance of
+     *      {@link Optional}
+     *      that holds the year.
+     */
+    @Text(
+        description = "The usage text for the --compactYear option",
+        use = USAGE,
+        id = "CompactYear",
+        translations =
+        {
+            @Translation( language = "de", text = "Das Jahr, dessen Daten für schnelleres Lesen reorganisiert werden" ),
+            @Translation( language = "en", text = "The year whose data is reorganised for faster reading" )
+        }
+    )
+    @Option( name = "--compactYear", metaVar = "YEAR", usageKey = "org.tquadrat.bloodpressure.Configuration.USAGE_CompactYear" )
+    public Optional<Integer> getCompactYear();
+
+    /**
+     *  Returns the number of the periods that are compared by the
+     *  {@link org.tquadrat.bloodpressure.report.PeriodCompareReport};
+     *  the last of them is the current period.
+     *
+     *  @return The number of periods.
+     *
+     *  @see #getCompareResolution()
+     */
+    @Text(
+        description = "The usage text for the --compareCount option",
+        use = USAGE,
+        id = "CompareCount",
+        translations =
+        {
+            @Translation( language = "de", text = "Die Anzahl der Zeiträume, die im Report PERIODS verglichen werden" ),
+            @Translation( language = "en", text = "The number of periods that are compared by the report PERIODS" )
+        }
+    )
+    @Option( name = "--compareCount", metaVar = "COUNT", usageKey = "org.tquadrat.bloodpressure.Configuration.USAGE_CompareCount" )
+    @INIValue( group = "Compare", key = "count", comment = "The number of periods that are compared by the report PERIODS" )
+    public int getCompareCount();
+
+    /**
+     *  Returns the periods that are compared by the
+     *  {@link org.tquadrat.bloodpressure.report.PeriodCompareReport},
+     *  as a comma separated list of ranges like
+     *  &quot;2022-01-01..2022-03-15&quot;. If set, the
+     *  {@linkplain #getCompareResolution() resolution}
+     *  and the
+     *  {@linkplain #getCompareCount() number of periods}
+     *  are ignored.
+     *
+     *  @return An instance of
+     *      {@link Optional}
+     *      that holds the periods.
+     *
+     *  @see org.tquadrat.bloodpressure.spi.PeriodBuckets#parse(String)
+     */
+    @Text(
+        description = "The usage text for the --comparePeriods option",
+        use = USAGE,
+        id = "ComparePeriods",
+        translations =
+        {
+            @Translation( language = "de", text = "Die Zeiträume, die im Report PERIODS verglichen werden, wie '2022-01-01..2022-03-15,2022-04-01..2022-06-15'" ),
+            @Translation( language = "en", text = "The periods that are compared by the report PERIODS, like '2022-01-01..2022-03-15,2022-04-01..2022-06-15'" )
+        }
+    )
+    @Option( name = "--comparePeriods", metaVar = "PERIODS", usageKey = "org.tquadrat.bloodpressure.Configuration.USAGE_ComparePeriods" )
+    public Optional<String> getComparePeriods();
+
+    /**
+     *  Returns the length of the periods that are compared by the
+     *  {@link org.tquadrat.bloodpressure.report.PeriodCompareReport}.
+     *
+     *  @return The resolution of the periods.
+     *
+     *  @see #getCompareCount()
+     */
+    @Text(
+        description = "The usage text for the --compareResolution option",
+        use = USAGE,
+        id = "CompareResolution",
+        translations =
+        {
+            @Translation( language = "de", text = "Die Länge der Zeiträume, die im Report PERIODS verglichen werden (WEEK, MONTH, QUARTER oder YEAR)" ),
+            @Translation( language = "en", text = "The length of the periods that are compared by the report PERIODS (WEEK, MONTH, QUARTER, or YEAR)" )
+        }
+    )
+    @Option( name = "--compareResolution", metaVar = "RESOLUTION", usageKey = "org.tquadrat.bloodpressure.Configuration.USAGE_CompareResolution" )
+    @INIValue( group = "Compare", key = "resolution", comment = "The length of the periods that are compared by the report PERIODS (WEEK, MONTH, QUARTER, or YEAR)" )
+    public Resolution getCompareResolution();
+
     /**
      *  Returns the name of the database.
      *
@@ -174,6 +360,85 @@ public interface Configuration extends CLIBeanSpec, ConfigBeanSpec, I18nSupport,
     @Option( name = "--dump", metaVar = "FILE", usageKey = "org.tquadrat.bloodpressure.Configuration.USAGE_Dump" )
     public Optional<File> getDumpFile();
 
+    /**
+     *  Returns the compression for a dump from the database.
+     *
+     *  @return The dump compression.
+     */
+    @Text(
+        description = "The usage text for the --dumpCompression option",
+        use = USAGE,
+        id = "DumpCompression",
+        translations =
+        {
+            @Translation( language = "de", text = "Die Komprimierung für den Datenbank-Auszug (NONE oder GZIP)" ),
+            @Translation( language = "en", text = "The compression for the database dump (NONE or GZIP)" )
+        }
+    )
+    @Option( name = "--dumpCompression", metaVar = "COMPRESSION", usageKey = "org.tquadrat.bloodpressure.Configuration.USAGE_DumpCompression" )
+    @INIValue( group = "Dump", key = "compression", comment = "The compression for the database dump (NONE or GZIP)" )
+    public DumpCompression getDumpCompression();
+
+    /**
+     *  Returns the number of rows that will be fetched from the database at
+     *  once when writing a dump.
+     *
+     *  @return The fetch size.
+     */
+    @Text(
+        description = "The usage text for the --dumpFetchSize option",
+        use = USAGE,
+        id = "DumpFetchSize",
+        translations =
+        {
+            @Translation( language = "de", text = "Die Anzahl der Zeilen, die für den Datenbank-Auszug auf einmal gelesen werden" ),
+            @Translation( language = "en", text = "The number of rows that are read at once for the database dump" )
+        }
+    )
+    @Option( name = "--dumpFetchSize", metaVar = "ROWS", usageKey = "org.tquadrat.bloodpressure.Configuration.USAGE_DumpFetchSize" )
+    @INIValue( group = "Dump", key = "fetchSize", comment = "The number of rows that are read at once for the database dump" )
+    public int getDumpFetchSize();
+
+    /**
+     *  Returns the format for a dump from the database.
+     *
+     *  @return The dump format.
+     */
+    @Text(
+        description = "The usage text for the --dumpFormat option",
+        use = USAGE,
+        id = "DumpFormat",
+        translations =
+        {
+            @Translation( language = "de", text = "Das Format für den Datenbank-Auszug (SQL oder ARROW)" ),
+            @Translation( language = "en", text = "The format for the database dump (SQL or ARROW)" )
+        }
+    )
+    @Option( name = "--dumpFormat", metaVar = "FORMAT", usageKey = "org.tquadrat.bloodpressure.Configuration.USAGE_DumpFormat" )
+    @INIValue( group = "Dump", key = "format", comment = "The format for the database dump (SQL or ARROW)" )
+    public DumpFormat getDumpFormat();
+
+    /**
+     *  Returns the number of partitions for a dump or a restore. The
+     *  timestamp range of the data is split into that many partitions that
+     *  are processed concurrently, each on its own database connection.
+     *
+     *  @return The number of partitions.
+     */
+    @Text(
+        description = "The usage text for the --dumpPartitions option",
+        use = USAGE,
+        id = "DumpPartitions",
+        translations =
+        {
+            @Translation( language = "de", text = "Die Anzahl der Partitionen, die beim Erstellen oder Einspielen eines Datenbank-Auszugs parallel verarbeitet werden" ),
+            @Translation( language = "en", text = "The number of partitions that are processed concurrently when writing or restoring a database dump" )
+        }
+    )
+    @Option( name = "--dumpPartitions", metaVar = "COUNT", usageKey = "org.tquadrat.bloodpressure.Configuration.USAGE_DumpPartitions" )
+    @INIValue( group = "Dump", key = "partitions", comment = "The number of partitions that are processed concurrently when writing or restoring a database dump" )
+    public int getDumpPartitions();
+
     /**
      *  Returns the end date for a report.
      *
@@ -192,6 +457,61 @@ public interface Configuration extends CLIBeanSpec, ConfigBeanSpec, I18nSupport,
     @Option( name = "--reportEnd", metaVar = "DATE", usageKey = "org.tquadrat.bloodpressure.Configuration.USAGE_ReportEnd" )
     public LocalDate getEndDate();
 
+    /**
+     *  Returns the id of the guideline that is used for the classification
+     *  of the measurements: &quot;ESC&quot;, &quot;AHA&quot;, or
+     *  &quot;{@value org.tquadrat.bloodpressure.spi.Guideline#CUSTOM_ID}&quot;
+     *  for the thresholds from
+     *  {@link #getGuidelineSystolicBounds()}
+     *  and
+     *  {@link #getGuidelineDiastolicBounds()}.
+     *
+     *  @return The id of the guideline.
+     *
+     *  @see org.tquadrat.bloodpressure.spi.Guideline
+     */
+    @Text(
+        description = "The usage text for the --guideline option",
+        use = USAGE,
+        id = "Guideline",
+        translations =
+            {
+                @Translation( language = "de", text = "Die Richtlinie für die Einstufung der Messwerte: ESC, AHA oder CUSTOM für die Grenzwerte aus der Konfiguration" ),
+                @Translation( language = "en", text = "The guideline for the classification of the measurements: ESC, AHA, or CUSTOM for the thresholds from the configuration" )
+            }
+    )
+    @Option( name = "--guideline", metaVar = "GUIDELINE", usageKey = "org.tquadrat.bloodpressure.Configuration.USAGE_Guideline" )
+    @INIValue( group = "Guideline", key = "guideline", comment = "The guideline for the classification of the measurements: ESC, AHA, or CUSTOM for the thresholds below" )
+    public String getGuideline();
+
+    /**
+     *  Returns the lower bounds of the diastolic categories from
+     *  {@link org.tquadrat.bloodpressure.Diagnosis#OPTIMAL}
+     *  to
+     *  {@link org.tquadrat.bloodpressure.Diagnosis#HIGH3}
+     *  for the custom guideline, as a comma separated list.
+     *
+     *  @return The bounds.
+     *
+     *  @see #getGuideline()
+     */
+    @INIValue( group = "Guideline", key = "diastolicBounds", comment = "The lower bounds of the diastolic categories from OPTIMAL to HIGH3 for the CUSTOM guideline" )
+    public String getGuidelineDiastolicBounds();
+
+    /**
+     *  Returns the lower bounds of the systolic categories from
+     *  {@link org.tquadrat.bloodpressure.Diagnosis#OPTIMAL}
+     *  to
+     *  {@link org.tquadrat.bloodpressure.Diagnosis#HIGH3}
+     *  for the custom guideline, as a comma separated list.
+     *
+     *  @return The bounds.
+     *
+     *  @see #getGuideline()
+     */
+    @INIValue( group = "Guideline", key = "systolicBounds", comment = "The lower bounds of the systolic categories from OPTIMAL to HIGH3 for the CUSTOM guideline" )
+    public String getGuidelineSystolicBounds();
+
     /**
      *  Returns the file to import.
      *
@@ -287,6 +607,28 @@ public interface Configuration extends CLIBeanSpec, ConfigBeanSpec, I18nSupport,
     @Option( name = "--importTimeZone", metaVar = "TIMEZONE", usageKey = "org.tquadrat.bloodpressure.Configuration.USAGE_ImportTimeZone" )
     public Optional<ZoneId> getImportTimeZone();
 
+    /**
+     *  Returns the time a statement on the H2 database waits for a lock, in
+     *  milliseconds. A negative value means that the timeout from the
+     *  {@linkplain #getStorageProfile() storage profile}
+     *  is used.
+     *
+     *  @return The lock timeout.
+     */
+    @Text(
+        description = "The usage text for the --lockTimeout option",
+        use = USAGE,
+        id = "LockTimeout",
+        translations =
+        {
+            @Translation( language = "de", text = "Die Wartezeit auf eine Sperre in der H2-Datenbank in Millisekunden (ein negativer Wert verwendet den Wert aus dem Speicher-Profil)" ),
+            @Translation( language = "en", text = "The time to wait for a lock on the H2 database in milliseconds (a negative value uses the value from the storage profile)" )
+        }
+    )
+    @Option( name = "--lockTimeout", metaVar = "MILLIS", usageKey = "org.tquadrat.bloodpressure.Configuration.USAGE_LockTimeout" )
+    @INIValue( group = "Database", key = "lockTimeout", comment = "The time to wait for a lock on the H2 database in milliseconds (a negative value uses the value from the storage profile)" )
+    public int getLockTimeout();
+
     /**
      *  Returns the instance of the configuration bean.
      *
@@ -319,6 +661,77 @@ public interface Configuration extends CLIBeanSpec, ConfigBeanSpec, I18nSupport,
     @INIValue( group = "Owner", key = "name", comment = "The name of the person whose blood pressure data is processed" )
     public String getName();
 
+    /**
+     *  Returns the number of the previous measurements that are used to
+     *  detect the outliers when data is imported. A value of 0 disables the
+     *  detection; values below
+     *  {@value org.tquadrat.bloodpressure.spi.OutlierDetector#WARM_UP}
+     *  are raised to that.
+     *
+     *  @return The number of measurements.
+     *
+     *  @see org.tquadrat.bloodpressure.spi.OutlierDetector
+     */
+    @Text(
+        description = "The usage text for the --outlierWindow option",
+        use = USAGE,
+        id = "OutlierWindow",
+        translations =
+            {
+                @Translation( language = "de", text = "Die Anzahl der vorherigen Messungen, gegen die beim Import Ausreißer erkannt werden (0 schaltet das ab)" ),
+                @Translation( language = "en", text = "The number of previous measurements against which outliers are detected on import (0 disables this)" )
+            }
+    )
+    @Option( name = "--outlierWindow", metaVar = "COUNT", usageKey = "org.tquadrat.bloodpressure.Configuration.USAGE_OutlierWindow" )
+    @INIValue( group = "Import", key = "outlierWindow", comment = "The number of previous measurements against which outliers are detected on import (0 disables this)" )
+    public int getOutlierWindow();
+
+    /**
+     *  Returns the threshold for the parallel aggregation, in days. When the
+     *  data for a report spans more days than this, the aggregation is split
+     *  into chunks that are processed concurrently; their number depends on
+     *  the number of measurements and the available processors, not on the
+     *  threshold. A value of 0 or less disables the parallel aggregation.
+     *
+     *  @return The threshold in days.
+     */
+    @Text(
+        description = "The usage text for the --parallelThreshold option",
+        use = USAGE,
+        id = "ParallelThreshold",
+        translations =
+            {
+                @Translation( language = "de", text = "Die Anzahl der Tage, ab der die Messwerte für einen Report parallel zusammengefasst werden (0 schaltet das ab)" ),
+                @Translation( language = "en", text = "The number of days above which the measurements for a report are aggregated in parallel (0 disables this)" )
+            }
+    )
+    @Option( name = "--parallelThreshold", metaVar = "DAYS", usageKey = "org.tquadrat.bloodpressure.Configuration.USAGE_ParallelThreshold" )
+    @INIValue( group = "Database", key = "parallelThreshold", comment = "The number of days above which the measurements for a report are aggregated in parallel (0 disables this)" )
+    public int getParallelThreshold();
+
+    /**
+     *  Returns the key for the person whose blood pressure data is
+     *  processed. Imports, dumps, restores and reports are restricted to the
+     *  data of this person.
+     *
+     *  @return The key for the person.
+     *
+     *  @see org.tquadrat.bloodpressure.DataStore#PERSON_PATTERN
+     */
+    @Text(
+        description = "The usage text for the --person option",
+        use = USAGE,
+        id = "Person",
+        translations =
+            {
+                @Translation( language = "de", text = "Der Schlüssel für die Person, deren Blutdruckdaten verarbeitet werden" ),
+                @Translation( language = "en", text = "The key for the person whose blood pressure data is processed" )
+            }
+    )
+    @Option( name = "--person", metaVar = "KEY", usageKey = "org.tquadrat.bloodpressure.Configuration.USAGE_Person" )
+    @INIValue( group = "Owner", key = "person", comment = "The key for the person whose blood pressure data is processed" )
+    public String getPerson();
+
     /**
      *  Returns the destination for a report. Depending on the selected
      *  {@link ReportFormat},
@@ -380,6 +793,71 @@ public interface Configuration extends CLIBeanSpec, ConfigBeanSpec, I18nSupport,
     @Option( name = "--reportStyle", metaVar = "STYLE", usageKey = "org.tquadrat.bloodpressure.Configuration.USAGE_ReportStyle" )
     public String getReportStyle();
 
+    /**
+     *  Returns the dump file that should be restored to the database.
+     *
+     *  @return An instance of
+     *      {@link Optional}
+     *      that holds the dump file.
+     */
+    @Text(
+        description = "The usage text for the --restore option",
+        use = USAGE,
+        id = "Restore",
+        translations =
+        {
+            @Translation( language = "de", text = "Datei mit einem Datenbank-Auszug, der in die Datenbank eingespielt wird" ),
+            @Translation( language = "en", text = "File with a database dump that will be restored to the database" )
+        }
+    )
+    @Option( name = "--restore", metaVar = "FILE", usageKey = "org.tquadrat.bloodpressure.Configuration.USAGE_Restore" )
+    public Optional<File> getRestoreFile();
+
+    /**
+     *  Returns the retention period for the single measurements, in years.
+     *  Older measurements will be
+     *  {@linkplain org.tquadrat.bloodpressure.DataStore#downsample(String, java.time.Instant, ZoneId) downsampled}
+     *  to daily aggregates by a background task; the reports will still
+     *  include them. A value of 0 or less keeps all single measurements.
+     *
+     *  @return The retention period in years.
+     */
+    @Text(
+        description = "The usage text for the --retentionYears option",
+        use = USAGE,
+        id = "RetentionYears",
+        translations =
+            {
+                @Translation( language = "de", text = "Die Anzahl der Jahre, für die die einzelnen Messwerte aufbewahrt werden; ältere Messwerte werden zu Tageswerten zusammengefasst (0 bewahrt alle Messwerte auf)" ),
+                @Translation( language = "en", text = "The number of years the single measurements are kept; older measurements are condensed to daily values (0 keeps all measurements)" )
+            }
+    )
+    @Option( name = "--retentionYears", metaVar = "YEARS", usageKey = "org.tquadrat.bloodpressure.Configuration.USAGE_RetentionYears" )
+    @INIValue( group = "Database", key = "retentionYears", comment = "The number of years the single measurements are kept; older measurements are condensed to daily values (0 keeps all measurements)" )
+    public int getRetentionYears();
+
+    /**
+     *  Returns the number of rows that will be fetched from the database at
+     *  once when the measurements are scanned for a report or for the
+     *  downsampling; the dump uses the
+     *  {@linkplain #getDumpFetchSize() fetch size of its own}.
+     *
+     *  @return The fetch size.
+     */
+    @Text(
+        description = "The usage text for the --scanFetchSize option",
+        use = USAGE,
+        id = "ScanFetchSize",
+        translations =
+            {
+                @Translation( language = "de", text = "Die Anzahl der Zeilen, die für einen Report auf einmal gelesen werden" ),
+                @Translation( language = "en", text = "The number of rows that are read at once for a report" )
+            }
+    )
+    @Option( name = "--scanFetchSize", metaVar = "ROWS", usageKey = "org.tquadrat.bloodpressure.Configuration.USAGE_ScanFetchSize" )
+    @INIValue( group = "Database", key = "scanFetchSize", comment = "The number of rows that are read at once for a report" )
+    public int getScanFetchSize();
+
     /**
      *  Returns the start date for a report.
      *
@@ -398,6 +876,45 @@ public interface Configuration extends CLIBeanSpec, ConfigBeanSpec, I18nSupport,
     @Option( name = "--reportStart", metaVar = "DATE", usageKey = "org.tquadrat.bloodpressure.Configuration.USAGE_ReportStart" )
     public LocalDate getStartDate();
 
+    /**
+     *  Returns the name of the storage engine that holds the blood pressure
+     *  data.
+     *
+     *  @return The name of the storage engine.
+     */
+    @Text(
+        description = "The usage text for the --storage option",
+        use = USAGE,
+        id = "Storage",
+        translations =
+        {
+            @Translation( language = "de", text = "Die Speicherung für die Blutdruckdaten (H2, H2_YEARLY oder SEGMENTS)" ),
+            @Translation( language = "en", text = "The storage engine for the blood pressure data (H2, H2_YEARLY or SEGMENTS)" )
+        }
+    )
+    @Option( name = "--storage", metaVar = "ENGINE", usageKey = "org.tquadrat.bloodpressure.Configuration.USAGE_Storage" )
+    @INIValue( group = "Database", key = "storage", comment = "The storage engine for the blood pressure data (H2, H2_YEARLY or SEGMENTS)" )
+    public String getStorage();
+
+    /**
+     *  Returns the tuning profile for the H2 database.
+     *
+     *  @return The storage profile.
+     */
+    @Text(
+        description = "The usage text for the --storageProfile option",
+        use = USAGE,
+        id = "StorageProfile",
+        translations =
+        {
+            @Translation( language = "de", text = "Das Tuning-Profil für die H2-Datenbank (DEFAULT, IMPORT, REPORT oder MEMORY)" ),
+            @Translation( language = "en", text = "The tuning profile for the H2 database (DEFAULT, IMPORT, REPORT or MEMORY)" )
+        }
+    )
+    @Option( name = "--storageProfile", metaVar = "PROFILE", usageKey = "org.tquadrat.bloodpressure.Configuration.USAGE_StorageProfile" )
+    @INIValue( group = "Database", key = "profile", comment = "The tuning profile for the H2 database (DEFAULT, IMPORT, REPORT or MEMORY)" )
+    public StorageProfile getStorageProfile();
+
     /**
      *  Returns the name of the current user.
      *
@@ -415,13 +932,35 @@ public interface Configuration extends CLIBeanSpec, ConfigBeanSpec, I18nSupport,
 
     /**
      *  In case a new database was created, a call to this method will
-     *  initialise it.
+     *  initialise it. Tables that are missing in an already existing database
+     *  will be added.
      *
      *  @param  connection  The database connection.
      *  @throws SQLException    The initialisation of the database failed.
      */
     public void initializeDatabase( Connection connection ) throws SQLException;
 
+    /**
+     *  Returns whether the H2 database is opened read-only. This is meant
+     *  for runs that only create a report; any operation that would modify
+     *  the data is rejected.
+     *
+     *  @return {@code true} if the database is opened read-only,
+     *      {@code false} otherwise.
+     */
+    @Text(
+        description = "The usage text for the --readOnly option",
+        use = USAGE,
+        id = "ReadOnly",
+        translations =
+        {
+            @Translation( language = "de", text = "Öffnet die H2-Datenbank nur zum Lesen" ),
+            @Translation( language = "en", text = "Opens the H2 database read-only" )
+        }
+    )
+    @Option( name = "--readOnly", usageKey = "org.tquadrat.bloodpressure.Configuration.USAGE_ReadOnly" )
+    public boolean isReadOnly();
+
     /**
      *  Retrieves the connection to the database.
      *
@@ -439,6 +978,15 @@ public interface Configuration extends CLIBeanSpec, ConfigBeanSpec, I18nSupport,
      */
     @SuppressWarnings( "unused" )
     public void setClock( final Clock clock );
+
+    /**
+     *  <p>{@summary Sets the folder that holds the data for the program.}</p>
+     *  <p>This is used mainly for testing purposes.</p>
+     *
+     *  @param  folder  The data folder.
+     */
+    @SuppressWarnings( "unused" )
+    public void setDataFolder( final Path folder );
 }
 //  interface Configuration
 
@@ -0,0 +1,769 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.bloodpressure;
+
+import static org.apiguardian.api.API.Status.STABLE;
+import static org.tquadrat.foundation.lang.Objects.nonNull;
+import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.SortedSet;
+
+import org.apiguardian.api.API;
+import org.tquadrat.bloodpressure.spi.DailyAggregate;
+import org.tquadrat.bloodpressure.spi.DataStoreBase;
+import org.tquadrat.bloodpressure.spi.OutlierDetector;
+import org.tquadrat.foundation.annotation.ClassVersion;
+
+/**
+ *  <p>{@summary The definition for the storage of the blood pressure
+ *  measurements.}</p>
+ *  <p>The measurements of several persons can be kept in the same storage;
+ *  each person is identified by a key that has to match
+ *  {@link #PERSON_PATTERN},
+ *  and all operations are restricted to the measurements of a single
+ *  person.</p>
+ *  <p>A measurement is identified by the person and its timestamp;
+ *  appending a measurement with a timestamp that is already stored for the
+ *  person replaces the stored one. All time ranges are half-open – the start
+ *  is inclusive, the end is exclusive – and {@code null} for the start or
+ *  the end denotes an open range.</p>
+ *  <p>Each modification is recorded in a change log; the
+ *  {@linkplain #getDataVersion(String) data version}
+ *  for a person can be used to determine whether anything that was derived
+ *  from the data of that person is still valid.</p>
+ *  <p>A storage engine may split the data into <i>partitions</i>, one per
+ *  calendar year (UTC), for the data of all persons. Range operations will
+ *  then only touch the partitions that overlap the range, and whole years
+ *  can be
+ *  {@linkplain #compactPartition(int) compacted},
+ *  {@linkplain #dropPartition(int) dropped}
+ *  or
+ *  {@linkplain #archivePartition(int, Path) archived}
+ *  without touching any other data. These operations may wait until the
+ *  open snapshots are closed.</p>
+ *  <p>Old measurements that are no longer reported individually can be
+ *  {@linkplain #downsample(String, Instant, ZoneId) downsampled}:
+ *  they are replaced by one
+ *  {@link DailyAggregate}
+ *  per day. The
+ *  {@linkplain #aggregate(String, Instant, Instant, ZoneId) daily aggregates}
+ *  for a range always include the downsampled days, so the results do not
+ *  depend on whether the data was downsampled or not.</p>
+ *  <p>Each measurement carries two flags: the ignore flag is set by the
+ *  user, the outlier flag is set by an
+ *  {@link OutlierDetector}
+ *  when the measurement is imported. Measurements with either flag are
+ *  excluded from the daily aggregates, but they are still returned by a
+ *  {@linkplain #scan(String, Instant, Instant, RecordConsumer) range scan}.</p>
+ *  <p>A
+ *  {@linkplain #openSnapshot() snapshot}
+ *  provides a read-only view to the data as it was at one point in time;
+ *  it is meant for consumers like the reports that read the data in
+ *  several steps while it may be modified concurrently.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.1.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = STABLE, since = "0.1.0" )
+public sealed interface DataStore
+    permits DataStoreBase, DataStore.Snapshot
+{
+        /*---------------*\
+    ====** Inner Classes **====================================================
+        \*---------------*/
+    /**
+     *  A batch of measurements, stored column by column.
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.1.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = STABLE, since = "0.1.0" )
+    public static final class Batch
+    {
+            /*------------*\
+        ====** Attributes **===================================================
+            \*------------*/
+        /**
+         *  The diastolic values.
+         */
+        private short [] m_Diastolic;
+
+        /**
+         *  The ignore flags.
+         */
+        private boolean [] m_Ignored;
+
+        /**
+         *  The outlier flags.
+         */
+        private boolean [] m_Outliers;
+
+        /**
+         *  The number of measurements in the batch.
+         */
+        private int m_Size;
+
+        /**
+         *  The systolic values.
+         */
+        private short [] m_Systolic;
+
+        /**
+         *  The timestamps, as seconds since the begin of the epoch.
+         */
+        private long [] m_Timestamps;
+
+            /*--------------*\
+        ====** Constructors **=================================================
+            \*--------------*/
+        /**
+         *  Creates a new instance of {@code Batch}.
+         *
+         *  @param  capacity    The initial capacity.
+         */
+        public Batch( final int capacity )
+        {
+            final var initialCapacity = Math.max( 1, capacity );
+            m_Timestamps = new long [initialCapacity];
+            m_Systolic = new short [initialCapacity];
+            m_Diastolic = new short [initialCapacity];
+            m_Ignored = new boolean [initialCapacity];
+            m_Outliers = new boolean [initialCapacity];
+            m_Size = 0;
+        }   //  Batch()
+
+            /*---------*\
+        ====** Methods **======================================================
+            \*---------*/
+        /**
+         *  Adds a measurement to the batch.
+         *
+         *  @param  epochSecond The timestamp as seconds since the begin of
+         *      the epoch.
+         *  @param  systolic    The systolic pressure in mmHG.
+         *  @param  diastolic   The diastolic pressure in mmHG.
+         *  @param  isIgnored   {@code true} if the measurement should be
+         *      ignored by any statistics.
+         */
+        public final void add( final long epochSecond, final int systolic, final int diastolic, final boolean isIgnored )
+        {
+            add( epochSecond, systolic, diastolic, isIgnored, false );
+        }   //  add()
+
+        /**
+         *  Adds a measurement to the batch.
+         *
+         *  @param  epochSecond The timestamp as seconds since the begin of
+         *      the epoch.
+         *  @param  systolic    The systolic pressure in mmHG.
+         *  @param  diastolic   The diastolic pressure in mmHG.
+         *  @param  isIgnored   {@code true} if the measurement should be
+         *      ignored by any statistics.
+         *  @param  isOutlier   {@code true} if the measurement was flagged
+         *      as an outlier.
+         */
+        public final void add( final long epochSecond, final int systolic, final int diastolic, final boolean isIgnored, final boolean isOutlier )
+        {
+            if( m_Size == m_Timestamps.length )
+            {
+                final var capacity = m_Size * 2;
+                m_Timestamps = Arrays.copyOf( m_Timestamps, capacity );
+                m_Systolic = Arrays.copyOf( m_Systolic, capacity );
+                m_Diastolic = Arrays.copyOf( m_Diastolic, capacity );
+                m_Ignored = Arrays.copyOf( m_Ignored, capacity );
+                m_Outliers = Arrays.copyOf( m_Outliers, capacity );
+            }
+            m_Timestamps [m_Size] = epochSecond;
+            m_Systolic [m_Size] = (short) systolic;
+            m_Diastolic [m_Size] = (short) diastolic;
+            m_Ignored [m_Size] = isIgnored;
+            m_Outliers [m_Size] = isOutlier;
+            ++m_Size;
+        }   //  add()
+
+        /**
+         *  Assess all measurements in the batch.
+         *
+         *  @return The diagnosis for each measurement, in the order of the
+         *      batch.
+         *
+         *  @see Diagnosis#assessPressure(short[], short[], int)
+         */
+        public final Diagnosis [] assess()
+        {
+            final var retValue = Diagnosis.assessPressure( m_Systolic, m_Diastolic, m_Size );
+
+            //---* Done *------------------------------------------------------
+            return retValue;
+        }   //  assess()
+
+        /**
+         *  Removes all measurements from the batch.
+         */
+        public final void clear() { m_Size = 0; }
+
+        /**
+         *  Flags the outliers in this batch. The measurements are passed to
+         *  the given detector in the order of their timestamps; measurements
+         *  that should be ignored anyway are skipped.
+         *
+         *  @param  detector    The outlier detector; it may have been fed
+         *      with the measurements before those in this batch already.
+         *  @return The number of outliers in this batch.
+         */
+        public final int flagOutliers( final OutlierDetector detector )
+        {
+            requireNonNullArgument( detector, "detector" );
+
+            final var order = orderByTimestamp( m_Timestamps, m_Size );
+            var retValue = 0;
+            for( final var index : order )
+            {
+                if( !m_Ignored [index] )
+                {
+                    m_Outliers [index] = detector.add( m_Systolic [index], m_Diastolic [index] );
+                    if( m_Outliers [index] ) ++retValue;
+                }
+            }
+
+            //---* Done *------------------------------------------------------
+            return retValue;
+        }   //  flagOutliers()
+
+        /**
+         *  Returns the diastolic pressure of the measurement with the given
+         *  index.
+         *
+         *  @param  index   The index.
+         *  @return The diastolic pressure in mmHG.
+         */
+        public final int getDiastolic( final int index ) { return m_Diastolic [index]; }
+
+        /**
+         *  Returns the earliest timestamp in this batch.
+         *
+         *  @return An instance of
+         *      {@link Optional}
+         *      that holds the timestamp; it is empty if the batch is empty.
+         */
+        public final Optional<Instant> getEarliestTimestamp()
+        {
+            var earliest = Long.MAX_VALUE;
+            for( var i = 0; i < m_Size; ++i ) earliest = Math.min( earliest, m_Timestamps [i] );
+            final var retValue = m_Size > 0 ? Optional.of( Instant.ofEpochSecond( earliest ) ) : Optional.<Instant>empty();
+
+            //---* Done *------------------------------------------------------
+            return retValue;
+        }   //  getEarliestTimestamp()
+
+        /**
+         *  Returns the systolic pressure of the measurement with the given
+         *  index.
+         *
+         *  @param  index   The index.
+         *  @return The systolic pressure in mmHG.
+         */
+        public final int getSystolic( final int index ) { return m_Systolic [index]; }
+
+        /**
+         *  Returns the timestamp of the measurement with the given index.
+         *
+         *  @param  index   The index.
+         *  @return The timestamp as seconds since the begin of the epoch.
+         */
+        public final long getTimestamp( final int index ) { return m_Timestamps [index]; }
+
+        /**
+         *  Returns the ignore flag of the measurement with the given index.
+         *
+         *  @param  index   The index.
+         *  @return {@code true} if the measurement should be ignored by any
+         *      statistics, {@code false} otherwise.
+         */
+        public final boolean isIgnored( final int index ) { return m_Ignored [index]; }
+
+        /**
+         *  Returns the outlier flag of the measurement with the given index.
+         *
+         *  @param  index   The index.
+         *  @return {@code true} if the measurement was flagged as an
+         *      outlier, {@code false} otherwise.
+         */
+        public final boolean isOutlier( final int index ) { return m_Outliers [index]; }
+
+        /**
+         *  Creates a batch from the given data records.
+         *
+         *  @param  records The data records.
+         *  @return The new batch.
+         */
+        public static final Batch of( final Collection<DataRecord> records )
+        {
+            final var retValue = new Batch( requireNonNullArgument( records, "records" ).size() );
+            for( final var record : records )
+            {
+                retValue.add( record.timestamp().toEpochSecond(), record.getSystolicPressure(), record.getDiastolicPressure(), record.isIgnored() );
+            }
+
+            //---* Done *------------------------------------------------------
+            return retValue;
+        }   //  of()
+
+        /**
+         *  <p>{@summary Returns the indexes of the given timestamps in the
+         *  ascending order of the timestamps; for equal timestamps, the
+         *  original order is kept.}</p>
+         *  <p>The timestamps are sorted as primitives; then each index is
+         *  placed into the run of its timestamp in the sorted copy, which is
+         *  found by a binary search.</p>
+         *
+         *  @param  timestamps  The timestamps.
+         *  @param  size    The number of timestamps to sort, starting at the
+         *      begin of the array.
+         *  @return The indexes.
+         */
+        public static final int [] orderByTimestamp( final long [] timestamps, final int size )
+        {
+            final var sorted = Arrays.copyOf( requireNonNullArgument( timestamps, "timestamps" ), size );
+            Arrays.sort( sorted );
+
+            //---* The number of indexes already placed in each run *----------
+            final var placed = new int [size];
+            final var retValue = new int [size];
+            for( var i = 0; i < size; ++i )
+            {
+                var low = 0;
+                var high = size;
+                while( low < high )
+                {
+                    final var middle = (low + high) >>> 1;
+                    if( sorted [middle] < timestamps [i] )
+                    {
+                        low = middle + 1;
+                    }
+                    else
+                    {
+                        high = middle;
+                    }
+                }
+                retValue [low + placed [low]++] = i;
+            }
+
+            //---* Done *------------------------------------------------------
+            return retValue;
+        }   //  orderByTimestamp()
+
+        /**
+         *  Returns the number of measurements in the batch.
+         *
+         *  @return The size of the batch.
+         */
+        public final int size() { return m_Size; }
+    }
+    //  class Batch
+
+    /**
+     *  The consumer for the measurements that are returned by a
+     *  {@linkplain DataStore#scan(String,Instant,Instant,RecordConsumer) range scan}.
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.1.0
+     */
+    @FunctionalInterface
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = STABLE, since = "0.1.0" )
+    public static interface RecordConsumer
+    {
+            /*---------*\
+        ====** Methods **======================================================
+            \*---------*/
+        /**
+         *  Processes a single measurement.
+         *
+         *  @param  epochSecond The timestamp as seconds since the begin of
+         *      the epoch.
+         *  @param  systolic    The systolic pressure in mmHG.
+         *  @param  diastolic   The diastolic pressure in mmHG.
+         *  @param  isIgnored   {@code true} if the measurement should be
+         *      ignored by any statistics.
+         *  @param  isOutlier   {@code true} if the measurement was flagged
+         *      as an outlier when it was stored.
+         *  @throws IOException Problems when processing the measurement.
+         */
+        public void accept( final long epochSecond, final int systolic, final int diastolic, final boolean isIgnored, final boolean isOutlier ) throws IOException;
+    }
+    //  interface RecordConsumer
+
+    /**
+     *  <p>{@summary A read-only view to the data in a storage, as it was
+     *  when the snapshot was
+     *  {@linkplain DataStore#openSnapshot() opened}.}
+     *  Modifications of the storage after that point in time are not
+     *  visible, and reading from a snapshot neither blocks nor is blocked by
+     *  the modifications of measurements.</p>
+     *  <p>All operations that would modify the data throw an
+     *  {@link UnsupportedOperationException}.
+     *  The snapshot has to be closed by the thread that opened it, as soon
+     *  as it is no longer needed; a storage engine may defer the operations
+     *  on whole partitions until then.</p>
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.1.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = STABLE, since = "0.1.0" )
+    public static non-sealed interface Snapshot extends DataStore, Closeable
+    {
+            /*---------*\
+        ====** Methods **======================================================
+            \*---------*/
+        /**
+         *  Releases the resources that are held by this snapshot.
+         *
+         *  @throws IOException Problems when accessing the storage.
+         */
+        @Override
+        public void close() throws IOException;
+    }
+    //  interface Snapshot
+
+        /*-----------*\
+    ====** Constants **========================================================
+        \*-----------*/
+    /**
+     *  The key for the person whose data is processed when no other person
+     *  was configured: {@value}.
+     */
+    public static final String DEFAULT_PERSON = "default";
+
+    /**
+     *  The pattern for a valid person key: {@value}. The key is used in file
+     *  names, so it is restricted to letters, digits, the underscore, the
+     *  hyphen and the dot, and it may not start with a dot.
+     */
+    public static final String PERSON_PATTERN = "[A-Za-z0-9_-][A-Za-z0-9_.-]{0,63}";
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Calculates the daily aggregates for the measurements in the given
+     *  range; ignored measurements are skipped. The downsampled days whose
+     *  start lies in the range are merged into the result.
+     *
+     *  @param  person  The key for the person.
+     *  @param  from    The start of the range.
+     *  @param  to  The end of the range.
+     *  @param  timezone    The time zone that determines the days.
+     *  @return The daily aggregates.
+     *  @throws IOException Problems when accessing the storage.
+     */
+    public SortedMap<LocalDate,DailyAggregate> aggregate( final String person, final Instant from, final Instant to, final ZoneId timezone ) throws IOException;
+
+    /**
+     *  Appends the given measurements to the storage, replacing any stored
+     *  measurement with the same timestamp. Measurements before the end of
+     *  the range that was
+     *  {@linkplain #downsample(String, Instant, ZoneId) downsampled}
+     *  already are discarded.
+     *
+     *  @param  person  The key for the person.
+     *  @param  batch   The measurements.
+     *  @throws IOException Problems when accessing the storage.
+     */
+    public void append( final String person, final Batch batch ) throws IOException;
+
+    /**
+     *  Moves the partition for the given year to the given folder and
+     *  removes it from the storage afterwards. The format of the archive
+     *  depends on the storage engine.
+     *
+     *  @param  year    The year.
+     *  @param  folder  The folder for the archive.
+     *  @return The archive file or folder.
+     *  @throws IOException Problems when accessing the storage or when
+     *      writing the archive.
+     *  @throws UnsupportedOperationException   The storage engine does not
+     *      support partitions.
+     */
+    public Path archivePartition( final int year, final Path folder ) throws IOException;
+
+    /**
+     *  Reorganises the partition for the given year so that reading it is
+     *  as efficient as possible. This is meant for old partitions that will
+     *  not be modified anymore.
+     *
+     *  @param  year    The year.
+     *  @throws IOException Problems when accessing the storage.
+     *  @throws UnsupportedOperationException   The storage engine does not
+     *      support partitions.
+     */
+    public void compactPartition( final int year ) throws IOException;
+
+    /**
+     *  Deletes the measurements in the given range.
+     *
+     *  @param  person  The key for the person.
+     *  @param  from    The start of the range.
+     *  @param  to  The end of the range.
+     *  @return The number of deleted measurements.
+     *  @throws IOException Problems when accessing the storage.
+     */
+    public long delete( final String person, final Instant from, final Instant to ) throws IOException;
+
+    /**
+     *  <p>{@summary Replaces the measurements before the given timestamp by
+     *  one daily aggregate per day.} The timestamp is rounded down to the
+     *  start of its day, so no day will be split. Ignored measurements are
+     *  discarded. When a day was already downsampled before, the new
+     *  measurements for that day are merged into the existing
+     *  aggregate.</p>
+     *  <p>The replaced measurements are no longer returned by a
+     *  {@linkplain #scan(String, Instant, Instant, RecordConsumer) range scan};
+     *  neither
+     *  {@link #delete(String, Instant, Instant)}
+     *  nor the partition operations will touch the downsampled days. The
+     *  end of the downsampled range is kept for each person; any
+     *  measurement before it that is
+     *  {@linkplain #append(String, Batch) appended}
+     *  later is discarded, as it is contained in the daily aggregates
+     *  already.</p>
+     *
+     *  @param  person  The key for the person.
+     *  @param  before  The end of the range of measurements that will be
+     *      downsampled.
+     *  @param  timezone    The time zone that determines the days.
+     *  @return The number of measurements that were replaced.
+     *  @throws IOException Problems when accessing the storage.
+     */
+    public long downsample( final String person, final Instant before, final ZoneId timezone ) throws IOException;
+
+    /**
+     *  Removes the partition for the given year, together with the data of
+     *  all persons in it; the effort does not depend on the number of
+     *  measurements in the partition.
+     *
+     *  @param  year    The year.
+     *  @throws IOException Problems when accessing the storage.
+     *  @throws UnsupportedOperationException   The storage engine does not
+     *      support partitions.
+     */
+    public void dropPartition( final int year ) throws IOException;
+
+    /**
+     *  Returns the current data version for the given person; it changes
+     *  with each modification of the data of that person.
+     *
+     *  @param  person  The key for the person.
+     *  @return The data version.
+     *  @throws IOException Problems when accessing the storage.
+     */
+    public long getDataVersion( final String person ) throws IOException;
+
+    /**
+     *  Returns the downsampled days in the given range.
+     *
+     *  @param  person  The key for the person.
+     *  @param  from    The first day of the range; {@code null} for an
+     *      open range.
+     *  @param  to  The last day of the range (inclusive); {@code null} for
+     *      an open range.
+     *  @return The daily aggregates for the downsampled days.
+     *  @throws IOException Problems when accessing the storage.
+     *
+     *  @see #downsample(String, Instant, ZoneId)
+     */
+    public SortedMap<LocalDate,DailyAggregate> getDownsampledDays( final String person, final LocalDate from, final LocalDate to ) throws IOException;
+
+    /**
+     *  Returns the earliest timestamp of all the modifications after the
+     *  given data version.
+     *
+     *  @param  person  The key for the person.
+     *  @param  dataVersion The data version.
+     *  @return An instance of
+     *      {@link Optional}
+     *      that holds the earliest modified timestamp; it will be empty if
+     *      there were no modifications after the given version.
+     *  @throws IOException Problems when accessing the storage.
+     */
+    public Optional<Instant> getEarliestChangeSince( final String person, final long dataVersion ) throws IOException;
+
+    /**
+     *  Returns the timestamp of the first measurement for the given person.
+     *
+     *  @param  person  The key for the person.
+     *  @return An instance of
+     *      {@link Optional}
+     *      that holds the timestamp; it is empty if there are no
+     *      measurements.
+     *  @throws IOException Problems when accessing the storage.
+     */
+    public Optional<Instant> getFirstTimestamp( final String person ) throws IOException;
+
+    /**
+     *  Returns the timestamp of the last measurement for the given person.
+     *
+     *  @param  person  The key for the person.
+     *  @return An instance of
+     *      {@link Optional}
+     *      that holds the timestamp; it is empty if there are no
+     *      measurements.
+     *  @throws IOException Problems when accessing the storage.
+     */
+    public Optional<Instant> getLastTimestamp( final String person ) throws IOException;
+
+    /**
+     *  Returns the name of this storage engine.
+     *
+     *  @return The name.
+     */
+    public String getName();
+
+    /**
+     *  <p>{@summary Returns the identity of the physical storage.} It is
+     *  created together with the storage, and it changes when the storage
+     *  is deleted and created again, even when that happens at the same
+     *  location; the
+     *  {@linkplain #getDataVersion(String) data version}
+     *  alone does not tell such storages apart, as it starts with the same
+     *  value for each of them.</p>
+     *  <p>A snapshot has the same identity as the storage it was taken
+     *  from. An empty string means that the storage does not have an
+     *  identity.</p>
+     *
+     *  @return The identity.
+     *  @throws IOException Problems when accessing the storage.
+     */
+    public String getStoreId() throws IOException;
+
+    /**
+     *  Initialises the storage; this method will be called once before any
+     *  other operation.
+     *
+     *  @throws IOException Problems when accessing the storage.
+     */
+    public void initialize() throws IOException;
+
+    /**
+     *  Checks whether the given key is a valid key for a person.
+     *
+     *  @param  person  The key to check.
+     *  @return {@code true} if the key is valid, {@code false} otherwise.
+     *
+     *  @see #PERSON_PATTERN
+     */
+    public static boolean isValidPerson( final String person )
+    {
+        final var retValue = nonNull( person ) && person.matches( PERSON_PATTERN );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  isValidPerson()
+
+    /**
+     *  Returns the years of the partitions of this storage.
+     *
+     *  @return The years, in ascending order; the set is empty if the
+     *      storage engine does not support partitions.
+     *  @throws IOException Problems when accessing the storage.
+     */
+    public SortedSet<Integer> listPartitions() throws IOException;
+
+    /**
+     *  Opens a
+     *  {@linkplain Snapshot snapshot}
+     *  of the data in this storage.
+     *
+     *  @return The snapshot.
+     *  @throws IOException Problems when accessing the storage.
+     *  @throws UnsupportedOperationException   This storage is a snapshot
+     *      already.
+     */
+    public Snapshot openSnapshot() throws IOException;
+
+    /**
+     *  Returns the storage engine with the given name.
+     *
+     *  @param  name    The name of the storage engine.
+     *  @return An instance of
+     *      {@link Optional}
+     *      that holds the storage engine.
+     */
+    public static Optional<DataStore> retrieveDataStore( final String name )
+    {
+        final var retValue = DataStoreBase.retrieveDataStore( name );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  retrieveDataStore()
+
+    /**
+     *  Passes all measurements in the given range, in the order of their
+     *  timestamps, to the given consumer.
+     *
+     *  @param  person  The key for the person.
+     *  @param  from    The start of the range.
+     *  @param  to  The end of the range.
+     *  @param  consumer    The consumer for the measurements.
+     *  @throws IOException Problems when accessing the storage, or thrown by
+     *      the consumer.
+     */
+    public void scan( final String person, final Instant from, final Instant to, final RecordConsumer consumer ) throws IOException;
+
+    /**
+     *  Passes all measurements in the given range, in the order of their
+     *  timestamps, to the given consumer, reading the given number of rows
+     *  at once. The fetch size is a hint; storage engines that do not read
+     *  the rows in blocks ignore it.
+     *
+     *  @param  person  The key for the person.
+     *  @param  from    The start of the range.
+     *  @param  to  The end of the range.
+     *  @param  fetchSize   The number of rows that will be read at once.
+     *  @param  consumer    The consumer for the measurements.
+     *  @throws IOException Problems when accessing the storage, or thrown by
+     *      the consumer.
+     */
+    public void scan( final String person, final Instant from, final Instant to, final int fetchSize, final RecordConsumer consumer ) throws IOException;
+}
+//  interface DataStore
+
+/*
+ *  End of File
+ */
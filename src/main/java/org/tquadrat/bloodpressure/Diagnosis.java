@@ -17,17 +17,22 @@
 
 package org.tquadrat.bloodpressure;
 
+import static java.util.Objects.checkFromIndexSize;
 import static org.apiguardian.api.API.Status.STABLE;
 import static org.tquadrat.foundation.i18n.I18nUtil.resolveText;
+import static org.tquadrat.foundation.lang.Objects.isNull;
+import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
 
 import org.apiguardian.api.API;
+import org.tquadrat.bloodpressure.spi.Guideline;
 import org.tquadrat.foundation.annotation.ClassVersion;
 import org.tquadrat.foundation.i18n.Text;
 import org.tquadrat.foundation.i18n.Translation;
-import org.tquadrat.foundation.util.RangeMap;
 
 /**
- *  The different categories for blood pressure values.
+ *  The different categories for blood pressure values. The thresholds
+ *  between the categories are defined by the current
+ *  {@linkplain #getGuideline() guideline}.
  *
  *  @version $Id: Diagnosis.java 126 2022-02-19 21:13:35Z tquadrat $
  *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
@@ -140,40 +145,26 @@ public enum Diagnosis
     )
     HIGH3;
 
-        /*------------------------*\
-    ====** Static Initialisations **===========================================
-        \*------------------------*/
+        /*-----------*\
+    ====** Constants **========================================================
+        \*-----------*/
     /**
-     *  The assessment table for the diastolic blood pressure values.
+     *  The largest pressure value in the lookup tables: {@value}. All larger
+     *  values share the diagnosis for this one.
      */
-    private static final RangeMap<Diagnosis> m_DiastolicTable;
+    public static final int MAXIMUM_LOOKUP_VALUE = 255;
 
+        /*------------------------*\
+    ====** Static Initialisations **===========================================
+        \*------------------------*/
     /**
-     *  The assessment table for the systolic blood pressure values.
+     *  The guideline for the classification; {@code null} stands for
+     *  {@link Guideline#ESC}.
+     *  It is not initialised here, as the initialisation of
+     *  {@link Guideline}
+     *  requires this enum.
      */
-    private static final RangeMap<Diagnosis> m_SystolicTable;
-
-    static
-    {
-        //---* The table for the systolic values *-----------------------------
-        m_SystolicTable = RangeMap.of( HIGH3, false )
-            .addRange( 105.0, LOW )
-            .addRange( 120.0, OPTIMAL )
-            .addRange( 130.0, NORMAL )
-            .addRange( 140.0, NORMAL_HIGH )
-            .addRange( 160.0, HIGH1 )
-            .addRange( 180.0, HIGH2 );
-
-        //---* The table for the diastolic values *----------------------------
-        m_DiastolicTable = RangeMap.of( HIGH3, false )
-            .addRange( 65.0, LOW )
-            .addRange( 80.0, OPTIMAL )
-            .addRange( 85.0, NORMAL )
-            .addRange( 90.0, NORMAL_HIGH )
-            .addRange( 100.0, HIGH1 )
-            .addRange( 110.0, HIGH2 );
-
-    }
+    private static volatile Guideline m_Guideline = null;
 
         /*------------*\
     ====** Attributes **=======================================================
@@ -205,12 +196,58 @@ public enum Diagnosis
      */
     public static final Diagnosis assessDiastolicPressure( final int value )
     {
-        final var retValue = m_DiastolicTable.get( value );
+        final var retValue = getGuideline().assessDiastolicPressure( value );
 
         //---* Done *----------------------------------------------------------
         return retValue;
     }   //  assessDiastolicPressure()
 
+    /**
+     *  Assess the given blood pressure; this is the
+     *  {@linkplain #combineDiagnosis(Diagnosis, Diagnosis) combined diagnosis}
+     *  for the systolic and the diastolic pressure.
+     *
+     *  @param  systolic    The systolic pressure.
+     *  @param  diastolic   The diastolic pressure.
+     *  @return The diagnosis.
+     */
+    public static final Diagnosis assessPressure( final int systolic, final int diastolic )
+    {
+        final var guideline = getGuideline();
+        final var retValue = combineDiagnosis( guideline.assessSystolicPressure( systolic ), guideline.assessDiastolicPressure( diastolic ) );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  assessPressure()
+
+    /**
+     *  Assess a series of blood pressure values.
+     *
+     *  @param  systolic    The systolic pressure values.
+     *  @param  diastolic   The diastolic pressure values.
+     *  @param  count   The number of values to assess, starting with the
+     *      first one.
+     *  @return The diagnosis for each of the values.
+     *  @throws IndexOutOfBoundsException   One of the arrays has less than
+     *      {@code count} elements.
+     */
+    public static final Diagnosis [] assessPressure( final short [] systolic, final short [] diastolic, final int count )
+    {
+        requireNonNullArgument( systolic, "systolic" );
+        requireNonNullArgument( diastolic, "diastolic" );
+        checkFromIndexSize( 0, count, Math.min( systolic.length, diastolic.length ) );
+
+        final var guideline = getGuideline();
+        final var retValue = new Diagnosis [count];
+        for( var i = 0; i < count; ++i )
+        {
+            retValue [i] = combineDiagnosis( guideline.assessSystolicPressure( systolic [i] ), guideline.assessDiastolicPressure( diastolic [i] ) );
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  assessPressure()
+
     /**
      *  Assess the systolic pressure.
      *
@@ -219,7 +256,7 @@ public enum Diagnosis
      */
     public static final Diagnosis assessSystolicPressure( final int value )
     {
-        final var retValue = m_SystolicTable.get( value );
+        final var retValue = getGuideline().assessSystolicPressure( value );
 
         //---* Done *----------------------------------------------------------
         return retValue;
@@ -240,6 +277,30 @@ public enum Diagnosis
         return retValue;
     }   //  combineDiagnosis()
 
+    /**
+     *  Returns the guideline that is used for the classification.
+     *
+     *  @return The guideline.
+     */
+    public static final Guideline getGuideline()
+    {
+        final var guideline = m_Guideline;
+        final var retValue = isNull( guideline ) ? Guideline.ESC : guideline;
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  getGuideline()
+
+    /**
+     *  Sets the guideline that is used for the classification.
+     *
+     *  @param  guideline   The guideline.
+     */
+    public static final void setGuideline( final Guideline guideline )
+    {
+        m_Guideline = requireNonNullArgument( guideline, "guideline" );
+    }   //  setGuideline()
+
     /**
      *  {@inheritDoc}
      */
@@ -0,0 +1,54 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.bloodpressure;
+
+import static org.apiguardian.api.API.Status.STABLE;
+
+import org.apiguardian.api.API;
+import org.tquadrat.foundation.annotation.ClassVersion;
+
+/**
+ *  The compression for a database dump.
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.1.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = STABLE, since = "0.1.0" )
+public enum DumpCompression
+{
+        /*------------------*\
+    ====** Enum Definitions **=================================================
+        \*------------------*/
+    /**
+     *  The dump is written as plain text.
+     */
+    NONE,
+
+    /**
+     *  The dump is written in GZIP format.
+     */
+    GZIP
+}
+//  enum DumpCompression
+
+/*
+ *  End of File
+ */
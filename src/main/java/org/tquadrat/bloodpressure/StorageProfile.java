@@ -0,0 +1,173 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.bloodpressure;
+
+import static org.apiguardian.api.API.Status.STABLE;
+
+import org.apiguardian.api.API;
+import org.tquadrat.foundation.annotation.ClassVersion;
+
+/**
+ *  <p>{@summary The tuning profiles for the H2 database.}</p>
+ *  <p>A profile provides the values for the settings
+ *  {@code CACHE_SIZE},
+ *  {@code AUTO_COMPACT_FILL_RATE}
+ *  and
+ *  {@code LOCK_TIMEOUT}
+ *  that are added to the JDBC URL; a value of
+ *  {@value #H2_DEFAULT}
+ *  means that the setting is left to H2. The cache size and the lock
+ *  timeout can be overridden by the configuration.</p>
+ *  <p>The other storage engines ignore the profile.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.1.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = STABLE, since = "0.1.0" )
+public enum StorageProfile
+{
+        /*------------------*\
+    ====** Enum Definitions **=================================================
+        \*------------------*/
+    /**
+     *  All settings are left to H2.
+     */
+    DEFAULT( StorageProfile.H2_DEFAULT, StorageProfile.H2_DEFAULT, StorageProfile.H2_DEFAULT, false ),
+
+    /**
+     *  For runs that write many measurements, like an import or a restore:
+     *  a larger cache for the index pages that are touched by the
+     *  {@code MERGE} statements, no background compaction while the chunks
+     *  are still filled, and a longer lock timeout, as the concurrent
+     *  partitions of a restore are competing for the same table.
+     */
+    IMPORT( 65_536, 0, 10_000, false ),
+
+    /**
+     *  For runs that only read, like a report: a cache that is large
+     *  enough to hold the index for several years of measurements, and an
+     *  eager background compaction, so that range scans read densely filled
+     *  chunks.
+     */
+    REPORT( 131_072, 90, 2_000, false ),
+
+    /**
+     *  The database is kept in memory only and will be discarded when the
+     *  program terminates; this is meant for tests and benchmarks.
+     */
+    MEMORY( StorageProfile.H2_DEFAULT, StorageProfile.H2_DEFAULT, 10_000, true );
+
+        /*-----------*\
+    ====** Constants **========================================================
+        \*-----------*/
+    /**
+     *  The value for a setting that is left to H2: {@value}.
+     */
+    public static final int H2_DEFAULT = -1;
+
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The fill rate in percent below which the MVStore compacts its file
+     *  in the background; 0 switches the background compaction off.
+     */
+    private final int m_AutoCompactFillRate;
+
+    /**
+     *  The size of the page cache in KiB.
+     */
+    private final int m_CacheSize;
+
+    /**
+     *  {@code true} if the database is kept in memory only, {@code false}
+     *  if it is kept in a file.
+     */
+    private final boolean m_IsInMemory;
+
+    /**
+     *  The time in milliseconds a statement waits for a lock.
+     */
+    private final int m_LockTimeout;
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates a new instance of {@code StorageProfile}.
+     *
+     *  @param  cacheSize   The size of the page cache in KiB.
+     *  @param  autoCompactFillRate The fill rate in percent below which the
+     *      MVStore compacts its file in the background.
+     *  @param  lockTimeout The time in milliseconds a statement waits for a
+     *      lock.
+     *  @param  isInMemory  {@code true} if the database is kept in memory
+     *      only, {@code false} if it is kept in a file.
+     */
+    private StorageProfile( final int cacheSize, final int autoCompactFillRate, final int lockTimeout, final boolean isInMemory )
+    {
+        m_CacheSize = cacheSize;
+        m_AutoCompactFillRate = autoCompactFillRate;
+        m_LockTimeout = lockTimeout;
+        m_IsInMemory = isInMemory;
+    }   //  StorageProfile()
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Returns the fill rate in percent below which the MVStore compacts
+     *  its file in the background.
+     *
+     *  @return The fill rate; 0 switches the background compaction off, and
+     *      {@value #H2_DEFAULT} leaves it to H2.
+     */
+    public final int getAutoCompactFillRate() { return m_AutoCompactFillRate; }
+
+    /**
+     *  Returns the size of the page cache.
+     *
+     *  @return The cache size in KiB, or {@value #H2_DEFAULT} to leave it
+     *      to H2.
+     */
+    public final int getCacheSize() { return m_CacheSize; }
+
+    /**
+     *  Returns the time a statement waits for a lock.
+     *
+     *  @return The lock timeout in milliseconds, or {@value #H2_DEFAULT} to
+     *      leave it to H2.
+     */
+    public final int getLockTimeout() { return m_LockTimeout; }
+
+    /**
+     *  Returns whether the database is kept in memory only.
+     *
+     *  @return {@code true} if the database is kept in memory only,
+     *      {@code false} if it is kept in a file.
+     */
+    public final boolean isInMemory() { return m_IsInMemory; }
+}
+//  enum StorageProfile
+
+/*
+ *  End of File
+ */
@@ -0,0 +1,819 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.bloodpressure.internal;
+
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Comparator.comparingInt;
+import static org.apiguardian.api.API.Status.INTERNAL;
+import static org.tquadrat.foundation.lang.CommonConstants.UTF8;
+import static org.tquadrat.foundation.lang.Objects.nonNull;
+import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
+import static org.tquadrat.foundation.util.StringUtils.format;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apiguardian.api.API;
+import org.tquadrat.bloodpressure.DataStore;
+import org.tquadrat.foundation.annotation.ClassVersion;
+
+/**
+ *  <p>{@summary Exports the blood pressure data to a file in the
+ *  <a href="https://arrow.apache.org/docs/format/Columnar.html#ipc-file-format">Apache
+ *  Arrow IPC file format</a>.}</p>
+ *  <p>The file holds five columns:</p>
+ *  <ul>
+ *      <li>{@code measuring_datetime} – a timestamp vector (seconds since
+ *      the epoch, UTC)</li>
+ *      <li>{@code systolic_pressure} – a vector of 16 bit signed
+ *      integers</li>
+ *      <li>{@code diastolic_pressure} – a vector of 16 bit signed
+ *      integers</li>
+ *      <li>{@code ignored} – a boolean vector, stored as a bitmap</li>
+ *      <li>{@code outlier} – a boolean vector, stored as a bitmap</li>
+ *  </ul>
+ *  <p>The rows are read by a range scan on the
+ *  {@link DataStore}
+ *  and written in record batches
+ *  of a fixed size, so the memory consumption does not depend on the
+ *  number of rows. All buffers in the file are aligned to 8 bytes, so that
+ *  the file can be memory-mapped by the reader without copying.</p>
+ *  <p>The metadata of the Arrow format is encoded as
+ *  <a href="https://google.github.io/flatbuffers/">FlatBuffers</a>; as this
+ *  program does not have a dependency to the Arrow or FlatBuffers libraries,
+ *  the few tables that are needed are written by hand.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.1.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = INTERNAL, since = "0.1.0" )
+public final class ArrowExporter
+{
+        /*---------------*\
+    ====** Inner Classes **====================================================
+        \*---------------*/
+    /**
+     *  A block in the footer of the file: the location of a record batch.
+     *
+     *  @param  offset  The file offset of the message.
+     *  @param  metaDataLength  The length of the metadata, including the
+     *      prefix.
+     *  @param  bodyLength  The length of the message body.
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.1.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = INTERNAL, since = "0.1.0" )
+    private static record Block( long offset, int metaDataLength, long bodyLength ) {}
+
+    /**
+     *  <p>{@summary A minimal writer for FlatBuffers.}</p>
+     *  <p>Different from the original FlatBuffers builder, the buffer is
+     *  written front to back: a table is written with placeholders for the
+     *  references to its children, and these are patched when the children
+     *  are written afterwards.</p>
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.1.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = INTERNAL, since = "0.1.0" )
+    private static final class FlatBuffer
+    {
+            /*------------*\
+        ====** Attributes **===================================================
+            \*------------*/
+        /**
+         *  The buffer.
+         */
+        private ByteBuffer m_Buffer = ByteBuffer.allocate( 1024 ).order( LITTLE_ENDIAN );
+
+            /*--------------*\
+        ====** Constructors **=================================================
+            \*--------------*/
+        /**
+         *  Creates a new instance of {@code FlatBuffer}; it starts with the
+         *  placeholder for the reference to the root table.
+         */
+        public FlatBuffer() { putInt( 0 ); }
+
+            /*---------*\
+        ====** Methods **======================================================
+            \*---------*/
+        /**
+         *  Writes zeros until
+         *  {@code position() % alignment == remainder}.
+         *
+         *  @param  alignment   The alignment.
+         *  @param  remainder   The remainder.
+         */
+        public final void align( final int alignment, final int remainder )
+        {
+            while( position() % alignment != remainder ) putByte( 0 );
+        }   //  align()
+
+        /**
+         *  Makes sure that the buffer can take the given number of bytes.
+         *
+         *  @param  length  The number of bytes.
+         */
+        private final void ensureCapacity( final int length )
+        {
+            if( m_Buffer.remaining() < length )
+            {
+                final var buffer = ByteBuffer.allocate( Math.max( m_Buffer.capacity() * 2, m_Buffer.position() + length ) ).order( LITTLE_ENDIAN );
+                m_Buffer.flip();
+                buffer.put( m_Buffer );
+                m_Buffer = buffer;
+            }
+        }   //  ensureCapacity()
+
+        /**
+         *  Sets the reference at the given position to the given target.
+         *
+         *  @param  position    The position of the reference.
+         *  @param  target  The position of the referenced table, vector or
+         *      string; it must be behind the reference.
+         */
+        public final void patchReference( final int position, final int target )
+        {
+            m_Buffer.putInt( position, target - position );
+        }   //  patchReference()
+
+        /**
+         *  Returns the current position.
+         *
+         *  @return The position.
+         */
+        public final int position() { return m_Buffer.position(); }
+
+        /**
+         *  Writes a byte.
+         *
+         *  @param  value   The value.
+         */
+        public final void putByte( final long value )
+        {
+            ensureCapacity( Byte.BYTES );
+            m_Buffer.put( (byte) value );
+        }   //  putByte()
+
+        /**
+         *  Writes an int.
+         *
+         *  @param  value   The value.
+         */
+        public final void putInt( final long value )
+        {
+            ensureCapacity( Integer.BYTES );
+            m_Buffer.putInt( (int) value );
+        }   //  putInt()
+
+        /**
+         *  Writes a long.
+         *
+         *  @param  value   The value.
+         */
+        public final void putLong( final long value )
+        {
+            ensureCapacity( Long.BYTES );
+            m_Buffer.putLong( value );
+        }   //  putLong()
+
+        /**
+         *  Writes a short.
+         *
+         *  @param  value   The value.
+         */
+        public final void putShort( final long value )
+        {
+            ensureCapacity( Short.BYTES );
+            m_Buffer.putShort( (short) value );
+        }   //  putShort()
+
+        /**
+         *  Sets the reference to the root table.
+         *
+         *  @param  table   The position of the root table.
+         */
+        public final void setRoot( final int table ) { patchReference( 0, table ); }
+
+        /**
+         *  Writes a string.
+         *
+         *  @param  value   The string.
+         *  @return The position of the string.
+         */
+        public final int string( final String value )
+        {
+            final var bytes = value.getBytes( UTF8 );
+            align( Integer.BYTES, 0 );
+            final var retValue = position();
+            putInt( bytes.length );
+            ensureCapacity( bytes.length + 1 );
+            m_Buffer.put( bytes );
+            m_Buffer.put( (byte) 0 );
+
+            //---* Done *------------------------------------------------------
+            return retValue;
+        }   //  string()
+
+        /**
+         *  Writes a table. The fields are sorted by their size, so that all of
+         *  them are properly aligned.
+         *
+         *  @param  fieldCount  The number of fields in the schema of the
+         *      table.
+         *  @param  slots   The fields that have a value.
+         *  @return The position of the table.
+         */
+        public final int table( final int fieldCount, final Slot... slots )
+        {
+            final var sorted = slots.clone();
+            Arrays.sort( sorted, comparingInt( Slot::getSize ).reversed() );
+            final var offsets = new int [fieldCount];
+            var tableSize = Integer.BYTES;
+            for( final var slot : sorted )
+            {
+                offsets [slot.m_Id] = tableSize;
+                tableSize += slot.m_Size;
+            }
+
+            //---* Write the vtable *------------------------------------------
+            align( Short.BYTES, 0 );
+            final var vtable = position();
+            putShort( Short.BYTES * (2 + fieldCount) );
+            putShort( tableSize );
+            for( final var offset : offsets ) putShort( offset );
+
+            //---* Write the table; the fields start 8 byte aligned *----------
+            align( Long.BYTES, Integer.BYTES );
+            final var retValue = position();
+            putInt( retValue - vtable );
+            for( final var slot : sorted )
+            {
+                slot.m_Position = position();
+                switch( slot.m_Size )
+                {
+                    case Byte.BYTES -> putByte( slot.m_Value );
+                    case Short.BYTES -> putShort( slot.m_Value );
+                    case Integer.BYTES -> putInt( slot.m_Value );
+                    case Long.BYTES -> putLong( slot.m_Value );
+                    default -> throw new IllegalArgumentException( format( "Invalid field size: %d", slot.m_Size ) );
+                }
+            }
+
+            //---* Done *------------------------------------------------------
+            return retValue;
+        }   //  table()
+
+        /**
+         *  Returns the contents of the buffer, padded to a multiple of 8
+         *  bytes.
+         *
+         *  @return The contents.
+         */
+        public final byte [] toByteArray()
+        {
+            align( Long.BYTES, 0 );
+            final var retValue = Arrays.copyOf( m_Buffer.array(), position() );
+
+            //---* Done *------------------------------------------------------
+            return retValue;
+        }   //  toByteArray()
+
+        /**
+         *  Writes the length of a vector; the caller has to write the
+         *  elements afterwards.
+         *
+         *  @param  length  The number of elements.
+         *  @param  alignment   The alignment of the elements.
+         *  @return The position of the vector.
+         */
+        public final int vector( final int length, final int alignment )
+        {
+            align( alignment, (alignment - Integer.BYTES % alignment) % alignment );
+            final var retValue = position();
+            putInt( length );
+
+            //---* Done *------------------------------------------------------
+            return retValue;
+        }   //  vector()
+    }
+    //  class FlatBuffer
+
+    /**
+     *  A field of a FlatBuffers table.
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.1.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = INTERNAL, since = "0.1.0" )
+    private static final class Slot
+    {
+            /*------------*\
+        ====** Attributes **===================================================
+            \*------------*/
+        /**
+         *  The id of the field.
+         */
+        final int m_Id;
+
+        /**
+         *  The position of the field in the buffer; it will be set when the
+         *  table is written.
+         */
+        int m_Position;
+
+        /**
+         *  The size of the field in bytes.
+         */
+        final int m_Size;
+
+        /**
+         *  The value of the field.
+         */
+        final long m_Value;
+
+            /*--------------*\
+        ====** Constructors **=================================================
+            \*--------------*/
+        /**
+         *  Creates a new instance of {@code Slot}.
+         *
+         *  @param  id  The id of the field.
+         *  @param  size    The size of the field in bytes.
+         *  @param  value   The value of the field.
+         */
+        public Slot( final int id, final int size, final long value )
+        {
+            m_Id = id;
+            m_Size = size;
+            m_Value = value;
+            m_Position = -1;
+        }   //  Slot()
+
+            /*---------*\
+        ====** Methods **======================================================
+            \*---------*/
+        /**
+         *  Returns the size of the field.
+         *
+         *  @return The size in bytes.
+         */
+        public final int getSize() { return m_Size; }
+
+        /**
+         *  Creates a slot for a reference to a table, vector or string; the
+         *  reference has to be patched after the referenced item was
+         *  written.
+         *
+         *  @param  id  The id of the field.
+         *  @return The new slot.
+         */
+        public static final Slot reference( final int id ) { return new Slot( id, Integer.BYTES, 0 ); }
+    }
+    //  class Slot
+
+        /*-----------*\
+    ====** Constants **========================================================
+        \*-----------*/
+    /**
+     *  The continuation marker for an encapsulated message.
+     */
+    private static final int CONTINUATION_MARKER = 0xFFFFFFFF;
+
+    /**
+     *  <p>{@summary The default number of rows in a record batch:
+     *  {@value}.}</p>
+     *  <p>The value was not measured; it is the power of two at which the
+     *  buffers for one batch, 12 bytes per row for the timestamps and the
+     *  pressure values plus the bitmaps for the two flags, take about
+     *  0.8 MiB of direct memory. The metadata is written once per batch;
+     *  larger batches would not reduce its share of the file noticeably,
+     *  while smaller ones would increase it.</p>
+     */
+    public static final int DEFAULT_BATCH_SIZE = 65_536;
+
+    /**
+     *  Arrow: {@code Endianness.Little}.
+     */
+    private static final int ENDIANNESS_LITTLE = 0;
+
+    /**
+     *  The names of the columns.
+     */
+    private static final String [] FIELD_NAMES = { "measuring_datetime", "systolic_pressure", "diastolic_pressure", "ignored", "outlier" };
+
+    /**
+     *  The magic number at begin and end of an Arrow file.
+     */
+    private static final byte [] MAGIC = { 'A', 'R', 'R', 'O', 'W', '1' };
+
+    /**
+     *  Arrow: {@code MessageHeader.RecordBatch}.
+     */
+    private static final int MESSAGE_HEADER_RECORD_BATCH = 3;
+
+    /**
+     *  Arrow: {@code MessageHeader.Schema}.
+     */
+    private static final int MESSAGE_HEADER_SCHEMA = 1;
+
+    /**
+     *  Arrow: {@code MetadataVersion.V5}.
+     */
+    private static final int METADATA_VERSION_V5 = 4;
+
+    /**
+     *  Arrow: {@code TimeUnit.SECOND}.
+     */
+    private static final int TIME_UNIT_SECOND = 0;
+
+    /**
+     *  Arrow: {@code Type.Bool}.
+     */
+    private static final int TYPE_BOOL = 6;
+
+    /**
+     *  Arrow: {@code Type.Int}.
+     */
+    private static final int TYPE_INT = 2;
+
+    /**
+     *  Arrow: {@code Type.Timestamp}.
+     */
+    private static final int TYPE_TIMESTAMP = 10;
+
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The number of rows in a record batch.
+     */
+    private final int m_BatchSize;
+
+    /**
+     *  The number of rows that are read from the storage at once.
+     */
+    private final int m_FetchSize;
+
+    /**
+     *  The progress listener.
+     */
+    private final TransferProgress.Listener m_ProgressListener;
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates a new instance of {@code ArrowExporter}.
+     *
+     *  @param  batchSize   The number of rows in a record batch; a value
+     *      less than 1 selects the
+     *      {@linkplain #DEFAULT_BATCH_SIZE default}.
+     *  @param  fetchSize   The number of rows that are read from the
+     *      storage at once; a value less than 1 leaves it to the storage
+     *      engine.
+     *  @param  progressListener    The listener for the progress.
+     */
+    public ArrowExporter( final int batchSize, final int fetchSize, final TransferProgress.Listener progressListener )
+    {
+        m_BatchSize = batchSize > 0 ? batchSize : DEFAULT_BATCH_SIZE;
+        m_FetchSize = Math.max( 0, fetchSize );
+        m_ProgressListener = requireNonNullArgument( progressListener, "progressListener" );
+    }   //  ArrowExporter()
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Rounds the given length up to the next multiple of 8.
+     *
+     *  @param  length  The length.
+     *  @return The padded length.
+     */
+    private static final long align8( final long length ) { return (length + 7L) & ~7L; }
+
+    /**
+     *  Exports all the data of the given person to the given file.
+     *
+     *  @param  store   The storage for the data.
+     *  @param  person  The key for the person.
+     *  @param  file    The export file; an existing file will be
+     *      overwritten.
+     *  @return The statistics for the export.
+     *  @throws IOException Problems when accessing the storage or when
+     *      writing the file.
+     */
+    public final TransferProgress.Statistics export( final DataStore store, final String person, final Path file ) throws IOException
+    {
+        requireNonNullArgument( store, "store" );
+        requireNonNullArgument( person, "person" );
+        requireNonNullArgument( file, "file" );
+
+        final var progress = new TransferProgress( m_ProgressListener );
+
+        //---* The column buffers for a record batch *-------------------------
+        final var timestamps = new long [m_BatchSize];
+        final var systolic = new short [m_BatchSize];
+        final var diastolic = new short [m_BatchSize];
+        final var ignored = new byte [(m_BatchSize + 7) / 8];
+        final var outliers = new byte [ignored.length];
+        final var body = ByteBuffer.allocateDirect( (int) (align8( m_BatchSize * 8L ) + 2 * align8( m_BatchSize * 2L ) + 2 * align8( ignored.length )) )
+            .order( LITTLE_ENDIAN );
+        final List<Block> blocks = new ArrayList<>();
+
+        try( final var channel = FileChannel.open( file, CREATE, TRUNCATE_EXISTING, WRITE ) )
+        {
+            //---* The file starts with the magic number and the schema *------
+            channel.write( ByteBuffer.wrap( Arrays.copyOf( MAGIC, 8 ) ) );
+            writeMessage( channel, schemaMessage(), null );
+
+            final var size = new int [1];
+            store.scan( person, null, null, m_FetchSize, ( epochSecond, systolicValue, diastolicValue, isIgnored, isOutlier ) ->
+            {
+                final var index = size [0];
+                timestamps [index] = epochSecond;
+                systolic [index] = (short) systolicValue;
+                diastolic [index] = (short) diastolicValue;
+                if( isIgnored ) ignored [index >> 3] |= (byte) (1 << (index & 7));
+                if( isOutlier ) outliers [index >> 3] |= (byte) (1 << (index & 7));
+                if( ++size [0] == m_BatchSize )
+                {
+                    blocks.add( writeRecordBatch( channel, body, size [0], timestamps, systolic, diastolic, ignored, outliers, progress ) );
+                    size [0] = 0;
+                }
+            } );
+            if( size [0] > 0 ) blocks.add( writeRecordBatch( channel, body, size [0], timestamps, systolic, diastolic, ignored, outliers, progress ) );
+
+            //---* End-of-stream marker, footer and magic number *-------------
+            final var eos = ByteBuffer.allocate( 8 ).order( LITTLE_ENDIAN ).putInt( CONTINUATION_MARKER ).putInt( 0 ).flip();
+            channel.write( eos );
+            final var footer = footer( blocks );
+            final var trailer = ByteBuffer.allocate( footer.length + Integer.BYTES + MAGIC.length ).order( LITTLE_ENDIAN )
+                .put( footer )
+                .putInt( footer.length )
+                .put( MAGIC )
+                .flip();
+            while( trailer.hasRemaining() ) channel.write( trailer );
+        }
+
+        final var retValue = progress.getStatistics();
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  export()
+
+    /**
+     *  Creates the footer of the file.
+     *
+     *  @param  blocks  The locations of the record batches.
+     *  @return The footer.
+     */
+    private static final byte [] footer( final List<Block> blocks )
+    {
+        final var buffer = new FlatBuffer();
+        final var schema = Slot.reference( 1 );
+        final var dictionaries = Slot.reference( 2 );
+        final var recordBatches = Slot.reference( 3 );
+        buffer.setRoot( buffer.table( 5, new Slot( 0, Short.BYTES, METADATA_VERSION_V5 ), schema, dictionaries, recordBatches ) );
+        buffer.patchReference( schema.m_Position, schema( buffer ) );
+        buffer.patchReference( dictionaries.m_Position, buffer.vector( 0, Long.BYTES ) );
+        final var vector = buffer.vector( blocks.size(), Long.BYTES );
+        for( final var block : blocks )
+        {
+            buffer.putLong( block.offset() );
+            buffer.putInt( block.metaDataLength() );
+            buffer.putInt( 0 );
+            buffer.putLong( block.bodyLength() );
+        }
+        buffer.patchReference( recordBatches.m_Position, vector );
+        final var retValue = buffer.toByteArray();
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  footer()
+
+    /**
+     *  Writes the metadata for a record batch message.
+     *
+     *  @param  rowCount    The number of rows in the batch.
+     *  @param  buffers The offsets and lengths of the buffers in the body;
+     *      two entries per buffer.
+     *  @param  bodyLength  The length of the body.
+     *  @return The metadata.
+     */
+    private static final byte [] recordBatchMessage( final int rowCount, final long [] buffers, final long bodyLength )
+    {
+        final var buffer = new FlatBuffer();
+        final var header = Slot.reference( 2 );
+        buffer.setRoot( buffer.table( 5, new Slot( 0, Short.BYTES, METADATA_VERSION_V5 ), new Slot( 1, Byte.BYTES, MESSAGE_HEADER_RECORD_BATCH ), header, new Slot( 3, Long.BYTES, bodyLength ) ) );
+
+        final var nodes = Slot.reference( 1 );
+        final var bufferList = Slot.reference( 2 );
+        buffer.patchReference( header.m_Position, buffer.table( 4, new Slot( 0, Long.BYTES, rowCount ), nodes, bufferList ) );
+
+        //---* One node per field: length and null count *---------------------
+        final var nodeVector = buffer.vector( FIELD_NAMES.length, Long.BYTES );
+        for( var i = 0; i < FIELD_NAMES.length; ++i )
+        {
+            buffer.putLong( rowCount );
+            buffer.putLong( 0 );
+        }
+        buffer.patchReference( nodes.m_Position, nodeVector );
+
+        final var bufferVector = buffer.vector( buffers.length / 2, Long.BYTES );
+        for( final var value : buffers ) buffer.putLong( value );
+        buffer.patchReference( bufferList.m_Position, bufferVector );
+
+        final var retValue = buffer.toByteArray();
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  recordBatchMessage()
+
+    /**
+     *  Writes the schema table to the given buffer.
+     *
+     *  @param  buffer  The buffer.
+     *  @return The position of the schema table.
+     */
+    private static final int schema( final FlatBuffer buffer )
+    {
+        final var fields = Slot.reference( 1 );
+        final var retValue = buffer.table( 4, new Slot( 0, Short.BYTES, ENDIANNESS_LITTLE ), fields );
+        final var vector = buffer.vector( FIELD_NAMES.length, Integer.BYTES );
+        for( var i = 0; i < FIELD_NAMES.length; ++i ) buffer.putInt( 0 );
+        buffer.patchReference( fields.m_Position, vector );
+
+        for( var i = 0; i < FIELD_NAMES.length; ++i )
+        {
+            final var name = Slot.reference( 0 );
+            final var type = Slot.reference( 3 );
+            final var children = Slot.reference( 5 );
+            final var typeId = switch( i )
+                {
+                    case 0 -> TYPE_TIMESTAMP;
+                    case 3, 4 -> TYPE_BOOL;
+                    default -> TYPE_INT;
+                };
+            final var field = buffer.table( 7, name, new Slot( 1, Byte.BYTES, 0 ), new Slot( 2, Byte.BYTES, typeId ), type, children );
+            buffer.patchReference( vector + Integer.BYTES * (1 + i), field );
+            buffer.patchReference( name.m_Position, buffer.string( FIELD_NAMES [i] ) );
+            switch( typeId )
+            {
+                case TYPE_TIMESTAMP ->
+                {
+                    final var timezone = Slot.reference( 1 );
+                    buffer.patchReference( type.m_Position, buffer.table( 2, new Slot( 0, Short.BYTES, TIME_UNIT_SECOND ), timezone ) );
+                    buffer.patchReference( timezone.m_Position, buffer.string( "UTC" ) );
+                }
+                case TYPE_BOOL -> buffer.patchReference( type.m_Position, buffer.table( 0 ) );
+                default -> buffer.patchReference( type.m_Position, buffer.table( 2, new Slot( 0, Integer.BYTES, Short.SIZE ), new Slot( 1, Byte.BYTES, 1 ) ) );
+            }
+            buffer.patchReference( children.m_Position, buffer.vector( 0, Integer.BYTES ) );
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  schema()
+
+    /**
+     *  Writes the metadata for the schema message.
+     *
+     *  @return The metadata.
+     */
+    private static final byte [] schemaMessage()
+    {
+        final var buffer = new FlatBuffer();
+        final var header = Slot.reference( 2 );
+        buffer.setRoot( buffer.table( 5, new Slot( 0, Short.BYTES, METADATA_VERSION_V5 ), new Slot( 1, Byte.BYTES, MESSAGE_HEADER_SCHEMA ), header, new Slot( 3, Long.BYTES, 0 ) ) );
+        buffer.patchReference( header.m_Position, schema( buffer ) );
+        final var retValue = buffer.toByteArray();
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  schemaMessage()
+
+    /**
+     *  Writes an encapsulated message: the continuation marker, the length
+     *  of the metadata, the metadata and the body.
+     *
+     *  @param  channel The output channel.
+     *  @param  metadata    The metadata; its length is a multiple of 8.
+     *  @param  body    The body; can be {@code null}.
+     *  @return The length of the metadata, including the prefix.
+     *  @throws IOException Problems when writing the file.
+     */
+    private static final int writeMessage( final FileChannel channel, final byte [] metadata, final ByteBuffer body ) throws IOException
+    {
+        final var retValue = 2 * Integer.BYTES + metadata.length;
+        final var prefix = ByteBuffer.allocate( retValue ).order( LITTLE_ENDIAN )
+            .putInt( CONTINUATION_MARKER )
+            .putInt( metadata.length )
+            .put( metadata )
+            .flip();
+        while( prefix.hasRemaining() ) channel.write( prefix );
+        if( nonNull( body ) )
+        {
+            while( body.hasRemaining() ) channel.write( body );
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  writeMessage()
+
+    /**
+     *  Writes a record batch and resets the column buffers.
+     *
+     *  @param  channel The output channel.
+     *  @param  body    The buffer for the message body.
+     *  @param  rowCount    The number of rows in the batch.
+     *  @param  timestamps  The timestamps.
+     *  @param  systolic    The systolic values.
+     *  @param  diastolic   The diastolic values.
+     *  @param  ignored The bitmap for the ignore flags.
+     *  @param  outliers    The bitmap for the outlier flags.
+     *  @param  progress    The progress counter.
+     *  @return The location of the record batch.
+     *  @throws IOException Problems when writing the file.
+     */
+    private static final Block writeRecordBatch( final FileChannel channel, final ByteBuffer body, final int rowCount, final long [] timestamps, final short [] systolic, final short [] diastolic, final byte [] ignored, final byte [] outliers, final TransferProgress progress ) throws IOException
+    {
+        final var offset = channel.position();
+
+        //---* Fill the body; each vector has an empty validity buffer *-------
+        final var buffers = new long [FIELD_NAMES.length * 4];
+        final var bitmapLength = (rowCount + 7) / 8;
+        body.clear();
+        var index = 0;
+        for( var field = 0; field < FIELD_NAMES.length; ++field )
+        {
+            buffers [index++] = body.position();
+            buffers [index++] = 0;
+            buffers [index++] = body.position();
+            switch( field )
+            {
+                case 0 -> { for( var i = 0; i < rowCount; ++i ) body.putLong( timestamps [i] ); }
+                case 1 -> { for( var i = 0; i < rowCount; ++i ) body.putShort( systolic [i] ); }
+                case 2 -> { for( var i = 0; i < rowCount; ++i ) body.putShort( diastolic [i] ); }
+                case 3 -> body.put( ignored, 0, bitmapLength );
+                default -> body.put( outliers, 0, bitmapLength );
+            }
+            buffers [index] = body.position() - buffers [index - 1];
+            ++index;
+            while( (body.position() & 7) != 0 ) body.put( (byte) 0 );
+        }
+        body.flip();
+        final var bodyLength = body.remaining();
+        Arrays.fill( ignored, (byte) 0 );
+        Arrays.fill( outliers, (byte) 0 );
+
+        final var metaDataLength = writeMessage( channel, recordBatchMessage( rowCount, buffers, bodyLength ), body );
+        progress.add( rowCount, metaDataLength + bodyLength );
+        final var retValue = new Block( offset, metaDataLength, bodyLength );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  writeRecordBatch()
+}
+//  class ArrowExporter
+
+/*
+ *  End of File
+ */
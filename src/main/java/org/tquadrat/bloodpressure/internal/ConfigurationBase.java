@@ -20,8 +20,16 @@ package org.tquadrat.bloodpressure.internal;
 import static java.lang.System.getProperty;
 import static java.sql.DriverManager.getConnection;
 import static org.apiguardian.api.API.Status.STABLE;
+import static org.tquadrat.bloodpressure.DataStore.DEFAULT_PERSON;
 import static org.tquadrat.bloodpressure.InputFormat.CSV;
 import static org.tquadrat.bloodpressure.ReportFormat.TEXT;
+import static org.tquadrat.bloodpressure.StorageProfile.H2_DEFAULT;
+import static org.tquadrat.bloodpressure.internal.DataDumper.DEFAULT_PARTITIONS;
+import static org.tquadrat.bloodpressure.report.PeriodCompareReport.DEFAULT_COMPARE_COUNT;
+import static org.tquadrat.bloodpressure.spi.DataStoreBase.DEFAULT_PARALLEL_THRESHOLD;
+import static org.tquadrat.bloodpressure.spi.OutlierDetector.DEFAULT_WINDOW_SIZE;
+import static org.tquadrat.bloodpressure.store.H2DataStore.DEFAULT_DUMP_FETCH_SIZE;
+import static org.tquadrat.bloodpressure.store.H2DataStore.DEFAULT_SCAN_FETCH_SIZE;
 import static org.tquadrat.foundation.lang.CommonConstants.PROPERTY_USER_HOME;
 import static org.tquadrat.foundation.util.StringUtils.format;
 
@@ -34,6 +42,12 @@ import java.util.Map;
 
 import org.apiguardian.api.API;
 import org.tquadrat.bloodpressure.Configuration;
+import org.tquadrat.bloodpressure.DumpCompression;
+import org.tquadrat.bloodpressure.DumpFormat;
+import org.tquadrat.bloodpressure.StorageProfile;
+import org.tquadrat.bloodpressure.spi.AggregationPyramid.Resolution;
+import org.tquadrat.bloodpressure.spi.Guideline;
+import org.tquadrat.bloodpressure.store.H2DataStore;
 import org.tquadrat.foundation.annotation.ClassVersion;
 import org.tquadrat.foundation.util.stringconverter.PathStringConverter;
 
@@ -76,6 +90,33 @@ public abstract class ConfigurationBase implements Configuration
         /*---------*\
     ====** Methods **==========================================================
         \*---------*/
+    /**
+     *  Composes the JDBC URL for the H2 database from the
+     *  {@linkplain #getStorageProfile() storage profile}
+     *  and the settings that override it.
+     *
+     *  @return The JDBC URL.
+     */
+    private final String composeJdbcURL()
+    {
+        final var profile = getStorageProfile();
+        final var buffer = new StringBuilder( profile.isInMemory()
+            ? format( "jdbc:h2:mem:%s;DB_CLOSE_DELAY=-1", getDatabaseName() )
+            : format( "jdbc:h2:%1s/%2$s", PathStringConverter.INSTANCE.toString( getDataFolder() ), getDatabaseName() ) );
+
+        final var cacheSize = getCacheSize() >= 0 ? getCacheSize() : profile.getCacheSize();
+        if( cacheSize >= 0 ) buffer.append( ";CACHE_SIZE=" ).append( cacheSize );
+        if( profile.getAutoCompactFillRate() >= 0 ) buffer.append( ";AUTO_COMPACT_FILL_RATE=" ).append( profile.getAutoCompactFillRate() );
+        final var lockTimeout = getLockTimeout() >= 0 ? getLockTimeout() : profile.getLockTimeout();
+        if( lockTimeout >= 0 ) buffer.append( ";LOCK_TIMEOUT=" ).append( lockTimeout );
+        if( isReadOnly() && !profile.isInMemory() ) buffer.append( ";ACCESS_MODE_DATA=r" );
+
+        final var retValue = buffer.toString();
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  composeJdbcURL()
+
     /**
      *  {@inheritDoc}
      */
@@ -84,15 +125,33 @@ public abstract class ConfigurationBase implements Configuration
     {
         final Map<String,Object> buffer = new HashMap<>();
 
+        buffer.put( "cacheSize", Integer.valueOf( H2_DEFAULT ) );
+        buffer.put( "compareCount", Integer.valueOf( DEFAULT_COMPARE_COUNT ) );
+        buffer.put( "compareResolution", Resolution.QUARTER );
         buffer.put( "databasePassword", "4%dFE8§4$gB" );
         buffer.put( "databaseName", "bloodpressure" );
         buffer.put( "dataFolder", Path.of( getProperty( PROPERTY_USER_HOME ), ".bloodpressure" ) );
+        buffer.put( "dumpCompression", DumpCompression.NONE );
+        buffer.put( "dumpFetchSize", Integer.valueOf( DEFAULT_DUMP_FETCH_SIZE ) );
+        buffer.put( "dumpFormat", DumpFormat.SQL );
+        buffer.put( "dumpPartitions", Integer.valueOf( Math.min( DEFAULT_PARTITIONS, Runtime.getRuntime().availableProcessors() ) ) );
         buffer.put( "endDate", LocalDate.MAX );
+        buffer.put( "guideline", Guideline.ESC.getId() );
+        buffer.put( "guidelineDiastolicBounds", "65,80,85,90,100,110" );
+        buffer.put( "guidelineSystolicBounds", "105,120,130,140,160,180" );
         buffer.put( "importFormat", CSV );
         buffer.put( "importSource", "blutdruckdaten.de" );
+        buffer.put( "lockTimeout", Integer.valueOf( H2_DEFAULT ) );
+        buffer.put( "outlierWindow", Integer.valueOf( DEFAULT_WINDOW_SIZE ) );
+        buffer.put( "parallelThreshold", Integer.valueOf( DEFAULT_PARALLEL_THRESHOLD ) );
+        buffer.put( "person", DEFAULT_PERSON );
         buffer.put( "reportFormat", TEXT );
         buffer.put( "reportStyle", "SIMPLE" );
+        buffer.put( "retentionYears", Integer.valueOf( 0 ) );
+        buffer.put( "scanFetchSize", Integer.valueOf( DEFAULT_SCAN_FETCH_SIZE ) );
         buffer.put( "startDate", LocalDate.MIN );
+        buffer.put( "storage", H2DataStore.NAME );
+        buffer.put( "storageProfile", StorageProfile.DEFAULT );
 
         final var retValue = Map.copyOf( buffer );
 
@@ -106,34 +165,60 @@ public abstract class ConfigurationBase implements Configuration
     @Override
     public final void initializeDatabase( final Connection connection ) throws SQLException
     {
-        final var ddl = format(
+        final var ddlData = format(
             """
-            CREATE TABLE %1$s
+            CREATE TABLE IF NOT EXISTS %1$s
             (
-              %2$s TIMESTAMP WITH TIME ZONE PRIMARY KEY,
+              %3$s VARCHAR(64) NOT NULL,
+              %2$s TIMESTAMP WITH TIME ZONE NOT NULL,
               systolic_pressure SMALLINT NOT NULL,
               diastolic_pressure SMALLINT NOT NULL,
-              ignored BOOLEAN NOT NULL
+              ignored BOOLEAN NOT NULL,
+              outlier BOOLEAN DEFAULT FALSE NOT NULL,
+              PRIMARY KEY( %3$s, %2$s )
             )
-            """, TABLE_BLOODPRESSURE_DATA, COLUMN_BLOODPRESSURE_DATA_PRIMARY_KEY );
+            """, TABLE_BLOODPRESSURE_DATA, COLUMN_BLOODPRESSURE_DATA_PRIMARY_KEY, COLUMN_BLOODPRESSURE_DATA_PERSON );
+
+        final var ddlChanges = format(
+            """
+            CREATE TABLE IF NOT EXISTS %1$s
+            (
+              change_id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+              %2$s VARCHAR(64) NOT NULL,
+              earliest_change TIMESTAMP WITH TIME ZONE NOT NULL,
+              change_time TIMESTAMP WITH TIME ZONE NOT NULL
+            )
+            """, TABLE_BLOODPRESSURE_CHANGES, COLUMN_BLOODPRESSURE_DATA_PERSON );
+
+        final var ddlChangesIndex = format(
+            """
+            CREATE INDEX IF NOT EXISTS %1$s_%2$s_IDX ON %1$s( %2$s, change_id )
+            """, TABLE_BLOODPRESSURE_CHANGES, COLUMN_BLOODPRESSURE_DATA_PERSON );
 
         try( final var statement = connection.createStatement() )
         {
-            statement.execute( ddl );
+            statement.execute( ddlData );
+            statement.execute( ddlChanges );
+            statement.execute( ddlChangesIndex );
         }
     }   //  initializeDatabase()
 
     /**
      *  {@inheritDoc}
+     *  <p>The settings from the
+     *  {@linkplain #getStorageProfile() storage profile}
+     *  are added to the JDBC URL, and a read-only session is opened if the
+     *  database is configured as
+     *  {@linkplain #isReadOnly() read-only}.</p>
      */
     @Override
     public final Connection retrieveConnection() throws SQLException
     {
-        final var jdbcURL = format( "jdbc:h2:%1s/%2$s", PathStringConverter.INSTANCE.toString( getDataFolder() ), getDatabaseName() );
-        final var retValue = getConnection( jdbcURL, getUsername(), getDatabasePassword() );
+        final var retValue = getConnection( composeJdbcURL(), getUsername(), getDatabasePassword() );
 
         //---* We want to have autocommit *------------------------------------
         retValue.setAutoCommit( true );
+        if( isReadOnly() ) retValue.setReadOnly( true );
 
         //---* No warnings … *-------------------------------------------------
         retValue.clearWarnings();
@@ -0,0 +1,185 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.bloodpressure.internal;
+
+import static org.apiguardian.api.API.Status.INTERNAL;
+import static org.tquadrat.bloodpressure.Configuration.COLUMN_BLOODPRESSURE_DATA_PERSON;
+import static org.tquadrat.bloodpressure.Configuration.TABLE_BLOODPRESSURE_CHANGES;
+import static org.tquadrat.foundation.lang.CommonConstants.ZONE_UTC;
+import static org.tquadrat.foundation.lang.Objects.nonNull;
+import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
+import static org.tquadrat.foundation.util.StringUtils.format;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.Optional;
+
+import org.apiguardian.api.API;
+import org.tquadrat.foundation.annotation.ClassVersion;
+import org.tquadrat.foundation.exception.PrivateConstructorForStaticClassCalledError;
+
+/**
+ *  <p>{@summary Access to the log of changes to the blood pressure data.}</p>
+ *  <p>Each modification of the table
+ *  {@value org.tquadrat.bloodpressure.Configuration#TABLE_BLOODPRESSURE_DATA}
+ *  adds a row to the table
+ *  {@value org.tquadrat.bloodpressure.Configuration#TABLE_BLOODPRESSURE_CHANGES},
+ *  holding the person and the earliest timestamp of the modified
+ *  measurements. The id of the latest row for a person is the current
+ *  <i>data version</i> for that person; anything that was derived from the
+ *  data of the person can check against it whether it is still valid, and
+ *  if not, from which point in time it has to be recalculated.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.1.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = INTERNAL, since = "0.1.0" )
+public final class DataChangeLog
+{
+        /*-----------*\
+    ====** Constants **========================================================
+        \*-----------*/
+    /**
+     *  The data version for a database without any recorded changes:
+     *  {@value}.
+     */
+    public static final long INITIAL_DATA_VERSION = 0L;
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  No instance allowed for this class.
+     */
+    private DataChangeLog() { throw new PrivateConstructorForStaticClassCalledError( DataChangeLog.class ); }
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Returns the earliest timestamp of all the changes that were recorded
+     *  for the given person after the given data version.
+     *
+     *  @param  connection  The database connection.
+     *  @param  person  The key for the person.
+     *  @param  dataVersion The data version.
+     *  @return An instance of
+     *      {@link Optional}
+     *      that holds the earliest modified timestamp; it will be empty if
+     *      there were no changes after the given version.
+     *  @throws SQLException    Problems when accessing the database.
+     */
+    public static final Optional<ZonedDateTime> retrieveEarliestChangeSince( final Connection connection, final String person, final long dataVersion ) throws SQLException
+    {
+        final var sql = format(
+            """
+            SELECT MIN( earliest_change ) FROM %1$s
+              WHERE %2$s = ? AND change_id > ?\
+            """, TABLE_BLOODPRESSURE_CHANGES, COLUMN_BLOODPRESSURE_DATA_PERSON );
+        Optional<ZonedDateTime> retValue = Optional.empty();
+        try( final var statement = requireNonNullArgument( connection, "connection" ).prepareStatement( sql ) )
+        {
+            statement.setString( 1, requireNonNullArgument( person, "person" ) );
+            statement.setLong( 2, dataVersion );
+            try( final var resultSet = statement.executeQuery() )
+            {
+                if( resultSet.next() )
+                {
+                    retValue = Optional.ofNullable( resultSet.getObject( 1, OffsetDateTime.class ) )
+                        .map( OffsetDateTime::toZonedDateTime );
+                }
+            }
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  retrieveEarliestChangeSince()
+
+    /**
+     *  Returns the current data version for the given person.
+     *
+     *  @param  connection  The database connection.
+     *  @param  person  The key for the person.
+     *  @return The data version.
+     *  @throws SQLException    Problems when accessing the database.
+     */
+    public static final long retrieveDataVersion( final Connection connection, final String person ) throws SQLException
+    {
+        final var sql = format(
+            """
+            SELECT MAX( change_id ) FROM %1$s
+              WHERE %2$s = ?\
+            """, TABLE_BLOODPRESSURE_CHANGES, COLUMN_BLOODPRESSURE_DATA_PERSON );
+        var retValue = INITIAL_DATA_VERSION;
+        try( final var statement = requireNonNullArgument( connection, "connection" ).prepareStatement( sql ) )
+        {
+            statement.setString( 1, requireNonNullArgument( person, "person" ) );
+            try( final var resultSet = statement.executeQuery() )
+            {
+                if( resultSet.next() )
+                {
+                    final var version = resultSet.getLong( 1 );
+                    if( !resultSet.wasNull() ) retValue = version;
+                }
+            }
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  retrieveDataVersion()
+
+    /**
+     *  Records a change to the blood pressure data of the given person.
+     *
+     *  @param  connection  The database connection.
+     *  @param  person  The key for the person.
+     *  @param  earliestChange  The earliest timestamp of the modified
+     *      measurements; if {@code null}, nothing will be recorded.
+     *  @throws SQLException    Problems when accessing the database.
+     */
+    public static final void registerChange( final Connection connection, final String person, final ZonedDateTime earliestChange ) throws SQLException
+    {
+        requireNonNullArgument( connection, "connection" );
+        requireNonNullArgument( person, "person" );
+        if( nonNull( earliestChange ) )
+        {
+            final var sql = format(
+                """
+                INSERT INTO %1$s( %2$s, earliest_change, change_time )
+                  VALUES( ?, ?, ? )\
+                """, TABLE_BLOODPRESSURE_CHANGES, COLUMN_BLOODPRESSURE_DATA_PERSON );
+            try( final var statement = connection.prepareStatement( sql ) )
+            {
+                statement.setString( 1, person );
+                statement.setObject( 2, earliestChange );
+                statement.setObject( 3, ZonedDateTime.now( ZONE_UTC ) );
+                statement.execute();
+            }
+        }
+    }   //  registerChange()
+}
+//  class DataChangeLog
+
+/*
+ *  End of File
+ */
@@ -0,0 +1,617 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.bloodpressure.internal;
+
+import static java.lang.Math.floorDiv;
+import static java.lang.Math.floorMod;
+import static java.lang.System.lineSeparator;
+import static java.nio.file.Files.deleteIfExists;
+import static java.nio.file.Files.newOutputStream;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static org.apiguardian.api.API.Status.INTERNAL;
+import static org.tquadrat.bloodpressure.Configuration.COLUMN_BLOODPRESSURE_DATA_PERSON;
+import static org.tquadrat.bloodpressure.Configuration.COLUMN_BLOODPRESSURE_DATA_PRIMARY_KEY;
+import static org.tquadrat.bloodpressure.Configuration.TABLE_BLOODPRESSURE_DATA;
+import static org.tquadrat.foundation.lang.CommonConstants.UTF8;
+import static org.tquadrat.foundation.lang.Objects.isNull;
+import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
+import static org.tquadrat.foundation.util.StringUtils.format;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+import org.apiguardian.api.API;
+import org.tquadrat.bloodpressure.DataStore;
+import org.tquadrat.bloodpressure.DumpCompression;
+import org.tquadrat.foundation.annotation.ClassVersion;
+
+/**
+ *  <p>{@summary Writes the blood pressure data to a dump file.}</p>
+ *  <p>The dump holds the data of a single person; it consists of SQL
+ *  {@code MERGE} statements that can be used to restore the data, either
+ *  through
+ *  {@link DataRestorer}
+ *  or with any other SQL tool. Each row holds the timestamp, the values,
+ *  and the flags for ignored measurements and for outliers. The rows are
+ *  streamed from the
+ *  {@link DataStore}
+ *  by a range scan, and each row is formatted into a reusable byte buffer
+ *  that is written to a buffered, optionally compressed, output stream; no
+ *  intermediate strings are created for the rows.</p>
+ *  <p>The timestamp range of the data can be split into several partitions
+ *  that are dumped concurrently, each by a range scan of its own and into its
+ *  own segment file; finally, the segments are concatenated in the order of
+ *  the timestamps. As each segment is a complete statement (and, when
+ *  compressed, a complete GZIP member), the result is a valid dump.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.1.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = INTERNAL, since = "0.1.0" )
+public final class DataDumper
+{
+        /*---------------*\
+    ====** Inner Classes **====================================================
+        \*---------------*/
+    /**
+     *  A partition of the timestamp range.
+     *
+     *  @param  index   The index of the partition.
+     *  @param  from    The start of the partition (inclusive); {@code null}
+     *      for an open start.
+     *  @param  to  The end of the partition (exclusive); {@code null} for an
+     *      open end.
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.1.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = INTERNAL, since = "0.1.0" )
+    private static record Partition( int index, Instant from, Instant to ) {}
+
+    /**
+     *  Formats the rows of a dump into a reusable buffer. Instances of this
+     *  class are not thread-safe; each partition uses its own.
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.1.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = INTERNAL, since = "0.1.0" )
+    private static final class RowFormatter
+    {
+            /*------------*\
+        ====** Attributes **===================================================
+            \*------------*/
+        /**
+         *  The buffer for a single row.
+         */
+        private final byte [] m_Buffer = new byte [256];
+
+        /**
+         *  The epoch day for
+         *  {@link #m_DateBytes}.
+         */
+        private long m_CurrentEpochDay = Long.MIN_VALUE;
+
+        /**
+         *  The formatted date for the current day.
+         */
+        private byte [] m_DateBytes = new byte [0];
+
+        /**
+         *  The quoted key for the person, followed by the separator.
+         */
+        private final byte [] m_PersonBytes;
+
+            /*--------------*\
+        ====** Constructors **=================================================
+            \*--------------*/
+        /**
+         *  Creates a new instance of {@code RowFormatter}.
+         *
+         *  @param  person  The key for the person; it must match
+         *      {@link DataStore#PERSON_PATTERN},
+         *      so it does not need any escaping.
+         */
+        public RowFormatter( final String person )
+        {
+            m_PersonBytes = format( "'%s', ", requireNonNullArgument( person, "person" ) ).getBytes( UTF8 );
+        }   //  RowFormatter()
+
+            /*---------*\
+        ====** Methods **======================================================
+            \*---------*/
+        /**
+         *  Appends the given number to the row buffer.
+         *
+         *  @param  position    The current position in the buffer.
+         *  @param  value   The value.
+         *  @return The new position.
+         */
+        private final int appendNumber( final int position, final int value )
+        {
+            var pos = position;
+            var v = value;
+            if( v < 0 )
+            {
+                m_Buffer [pos++] = '-';
+                v = -v;
+            }
+            final var start = pos;
+            do
+            {
+                m_Buffer [pos++] = (byte) ('0' + v % 10);
+                v /= 10;
+            }
+            while( v > 0 );
+
+            //---* Reverse the digits *----------------------------------------
+            for( int i = start, j = pos - 1; i < j; ++i, --j )
+            {
+                final var b = m_Buffer [i];
+                m_Buffer [i] = m_Buffer [j];
+                m_Buffer [j] = b;
+            }
+
+            //---* Done *------------------------------------------------------
+            return pos;
+        }   //  appendNumber()
+
+        /**
+         *  Appends the given value as two digits to the row buffer.
+         *
+         *  @param  position    The current position in the buffer.
+         *  @param  value   The value; it must be between 0 and 99.
+         *  @return The new position.
+         */
+        private final int appendTwoDigits( final int position, final int value )
+        {
+            m_Buffer [position] = (byte) ('0' + value / 10);
+            m_Buffer [position + 1] = (byte) ('0' + value % 10);
+
+            //---* Done *------------------------------------------------------
+            return position + 2;
+        }   //  appendTwoDigits()
+
+        /**
+         *  Formats a row into the row buffer.
+         *
+         *  @param  isFirst {@code true} if this is the first row of the
+         *      statement, {@code false} otherwise.
+         *  @param  epochSecond The timestamp as seconds since the begin of
+         *      the epoch, UTC.
+         *  @param  systolic    The systolic pressure.
+         *  @param  diastolic   The diastolic pressure.
+         *  @param  isIgnored   The flag that indicates whether the row is
+         *      ignored by the statistics.
+         *  @param  isOutlier   The flag that indicates whether the row was
+         *      flagged as an outlier.
+         *  @return The number of bytes in the buffer.
+         */
+        public final int formatRow( final boolean isFirst, final long epochSecond, final int systolic, final int diastolic, final boolean isIgnored, final boolean isOutlier )
+        {
+            var pos = 0;
+            if( !isFirst )
+            {
+                m_Buffer [pos++] = ',';
+                for( final var b : LINE_SEPARATOR ) m_Buffer [pos++] = b;
+            }
+            m_Buffer [pos++] = '(';
+            System.arraycopy( m_PersonBytes, 0, m_Buffer, pos, m_PersonBytes.length );
+            pos += m_PersonBytes.length;
+            m_Buffer [pos++] = '\'';
+
+            //---* The date changes only rarely *------------------------------
+            final var epochDay = floorDiv( epochSecond, SECONDS_PER_DAY );
+            if( epochDay != m_CurrentEpochDay )
+            {
+                m_CurrentEpochDay = epochDay;
+                m_DateBytes = LocalDate.ofEpochDay( epochDay ).toString().getBytes( UTF8 );
+            }
+            System.arraycopy( m_DateBytes, 0, m_Buffer, pos, m_DateBytes.length );
+            pos += m_DateBytes.length;
+
+            final var secondOfDay = (int) floorMod( epochSecond, SECONDS_PER_DAY );
+            m_Buffer [pos++] = ' ';
+            pos = appendTwoDigits( pos, secondOfDay / 3600 );
+            m_Buffer [pos++] = ':';
+            pos = appendTwoDigits( pos, secondOfDay / 60 % 60 );
+            m_Buffer [pos++] = ':';
+            pos = appendTwoDigits( pos, secondOfDay % 60 );
+            m_Buffer [pos++] = 'Z';
+            m_Buffer [pos++] = '\'';
+            m_Buffer [pos++] = ',';
+            m_Buffer [pos++] = ' ';
+            pos = appendNumber( pos, systolic );
+            m_Buffer [pos++] = ',';
+            m_Buffer [pos++] = ' ';
+            pos = appendNumber( pos, diastolic );
+            m_Buffer [pos++] = ',';
+            m_Buffer [pos++] = ' ';
+            for( final var c : isIgnored ? TRUE : FALSE ) m_Buffer [pos++] = c;
+            m_Buffer [pos++] = ',';
+            m_Buffer [pos++] = ' ';
+            for( final var c : isOutlier ? TRUE : FALSE ) m_Buffer [pos++] = c;
+            m_Buffer [pos++] = ' ';
+            m_Buffer [pos++] = ')';
+
+            //---* Done *------------------------------------------------------
+            return pos;
+        }   //  formatRow()
+
+        /**
+         *  Returns the row buffer.
+         *
+         *  @return The buffer.
+         */
+        public final byte [] getBuffer() { return m_Buffer; }
+    }
+    //  class RowFormatter
+
+        /*-----------*\
+    ====** Constants **========================================================
+        \*-----------*/
+    /**
+     *  The number of rows that are counted before they are added to the
+     *  progress: {@value}.
+     */
+    private static final int CHUNK_SIZE = 1024;
+
+    /**
+     *  The default for the maximum number of partitions: {@value}.
+     */
+    public static final int DEFAULT_PARTITIONS = 4;
+
+    /**
+     *  The SQL literal for {@code false}.
+     */
+    private static final byte [] FALSE = { 'F', 'A', 'L', 'S', 'E' };
+
+    /**
+     *  The line separator.
+     */
+    private static final byte [] LINE_SEPARATOR = lineSeparator().getBytes( UTF8 );
+
+    /**
+     *  The size of the output buffer: {@value}.
+     */
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 16;
+
+    /**
+     *  The number of seconds per day: {@value}.
+     */
+    private static final long SECONDS_PER_DAY = 86_400L;
+
+    /**
+     *  The SQL literal for {@code true}.
+     */
+    private static final byte [] TRUE = { 'T', 'R', 'U', 'E' };
+
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The compression for the output.
+     */
+    private final DumpCompression m_Compression;
+
+    /**
+     *  The number of rows that are read from the storage at once.
+     */
+    private final int m_FetchSize;
+
+    /**
+     *  The number of partitions.
+     */
+    private final int m_Partitions;
+
+    /**
+     *  The progress listener.
+     */
+    private final TransferProgress.Listener m_ProgressListener;
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates a new instance of {@code DataDumper}.
+     *
+     *  @param  compression The compression for the output.
+     *  @param  partitions  The number of partitions that are dumped
+     *      concurrently; a value less than 1 is treated as 1.
+     *  @param  fetchSize   The number of rows that are read from the
+     *      storage at once; a value less than 1 leaves it to the storage
+     *      engine.
+     *  @param  progressListener    The listener for the progress.
+     */
+    public DataDumper( final DumpCompression compression, final int partitions, final int fetchSize, final TransferProgress.Listener progressListener )
+    {
+        m_Compression = requireNonNullArgument( compression, "compression" );
+        m_Partitions = Math.max( 1, partitions );
+        m_FetchSize = Math.max( 0, fetchSize );
+        m_ProgressListener = requireNonNullArgument( progressListener, "progressListener" );
+    }   //  DataDumper()
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Waits until all the given tasks are finished, and re-throws the first
+     *  exception that was thrown by one of them.
+     *
+     *  @param  futures The tasks.
+     *  @throws IOException Problems with the storage or the files, or the
+     *      current thread was interrupted.
+     */
+    static final void awaitAll( final Collection<? extends Future<?>> futures ) throws IOException
+    {
+        try
+        {
+            for( final var future : futures ) future.get();
+        }
+        catch( final InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            final var exception = new InterruptedIOException();
+            exception.initCause( e );
+            throw exception;
+        }
+        catch( final ExecutionException e )
+        {
+            final var cause = e.getCause();
+            if( cause instanceof IOException ioException ) throw ioException;
+            if( cause instanceof RuntimeException runtimeException ) throw runtimeException;
+            if( cause instanceof Error error ) throw error;
+            throw new UndeclaredThrowableException( cause );
+        }
+    }   //  awaitAll()
+
+    /**
+     *  Splits the timestamp range of the data into partitions of (roughly)
+     *  the same length.
+     *
+     *  @param  store   The storage for the data.
+     *  @param  person  The key for the person.
+     *  @return The partitions.
+     *  @throws IOException Problems when accessing the storage.
+     */
+    private final List<Partition> calculatePartitions( final DataStore store, final String person ) throws IOException
+    {
+        Instant min = null;
+        Instant max = null;
+        if( m_Partitions > 1 )
+        {
+            min = store.getFirstTimestamp( person ).orElse( null );
+            max = store.getLastTimestamp( person ).orElse( null );
+        }
+
+        final List<Partition> retValue = new ArrayList<>();
+        if( isNull( min ) || isNull( max ) )
+        {
+            retValue.add( new Partition( 0, null, null ) );
+        }
+        else
+        {
+            final var start = min.getEpochSecond();
+            final var span = max.getEpochSecond() - start + 1;
+            final var count = (int) Math.min( m_Partitions, span );
+            final var step = span / count;
+            Instant from = null;
+            for( var i = 0; i < count; ++i )
+            {
+                final var to = i == count - 1 ? null : Instant.ofEpochSecond( start + step * (i + 1) );
+                retValue.add( new Partition( i, from, to ) );
+                from = to;
+            }
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  calculatePartitions()
+
+    /**
+     *  Concatenates the given segment files to the target file.
+     *
+     *  @param  segments    The segment files.
+     *  @param  file    The target file; an existing file will be
+     *      overwritten.
+     *  @throws IOException Problems when writing the file.
+     */
+    private static final void concatenate( final List<Path> segments, final Path file ) throws IOException
+    {
+        try( final var target = FileChannel.open( file, CREATE, TRUNCATE_EXISTING, WRITE ) )
+        {
+            for( final var segment : segments )
+            {
+                try( final var source = FileChannel.open( segment, READ ) )
+                {
+                    final var size = source.size();
+                    var position = 0L;
+                    while( position < size )
+                    {
+                        position += source.transferTo( position, size - position, target );
+                    }
+                }
+            }
+        }
+    }   //  concatenate()
+
+    /**
+     *  Dumps all the data of the given person to the given file.
+     *
+     *  @param  store   The storage for the data.
+     *  @param  person  The key for the person.
+     *  @param  file    The dump file; an existing file will be overwritten.
+     *  @return The statistics for the dump.
+     *  @throws IOException Problems when accessing the storage or when
+     *      writing the dump file.
+     */
+    public final TransferProgress.Statistics dump( final DataStore store, final String person, final Path file ) throws IOException
+    {
+        requireNonNullArgument( store, "store" );
+        requireNonNullArgument( person, "person" );
+        requireNonNullArgument( file, "file" );
+
+        final var progress = new TransferProgress( m_ProgressListener );
+        final var partitions = calculatePartitions( store, person );
+
+        //---* Each partition gets its own segment *---------------------------
+        final var isSegmented = partitions.size() > 1;
+        final List<Path> segments = isSegmented
+            ? partitions.stream().map( p -> file.resolveSibling( format( "%s.part%03d", file.getFileName(), p.index() ) ) ).toList()
+            : List.of( file );
+
+        final var executor = newFixedThreadPool( partitions.size() );
+        try
+        {
+            final List<Future<?>> futures = new ArrayList<>( partitions.size() );
+            for( final var partition : partitions )
+            {
+                final var segment = segments.get( partition.index() );
+                futures.add( executor.submit( () ->
+                {
+                    dumpPartition( store, person, partition, segment, progress );
+                    return null;
+                } ) );
+            }
+            awaitAll( futures );
+            if( isSegmented ) concatenate( segments, file );
+        }
+        finally
+        {
+            executor.shutdownNow();
+            if( isSegmented )
+            {
+                for( final var segment : segments ) deleteIfExists( segment );
+            }
+        }
+
+        final var retValue = progress.getStatistics();
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  dump()
+
+    /**
+     *  Dumps the data of a partition to the given file.
+     *
+     *  @param  store   The storage for the data.
+     *  @param  person  The key for the person.
+     *  @param  partition   The partition.
+     *  @param  file    The output file.
+     *  @param  progress    The progress counter.
+     *  @throws IOException Problems when accessing the storage or when
+     *      writing the dump.
+     */
+    private final void dumpPartition( final DataStore store, final String person, final Partition partition, final Path file, final TransferProgress progress ) throws IOException
+    {
+        final var header = format(
+            """
+            MERGE INTO %1$s( %3$s, %2$s, systolic_pressure, diastolic_pressure, ignored, outlier )
+            KEY( %3$s, %2$s )
+            VALUES
+            """, TABLE_BLOODPRESSURE_DATA, COLUMN_BLOODPRESSURE_DATA_PRIMARY_KEY, COLUMN_BLOODPRESSURE_DATA_PERSON ).getBytes( UTF8 );
+        final var formatter = new RowFormatter( person );
+        final var buffer = formatter.getBuffer();
+
+        //---* The row count, the rows and the bytes of the current chunk *----
+        final var counters = new long [3];
+
+        try( final var outputStream = openOutputStream( file ) )
+        {
+            store.scan( person, partition.from(), partition.to(), m_FetchSize, ( epochSecond, systolic, diastolic, isIgnored, isOutlier ) ->
+            {
+                if( counters [0] == 0 )
+                {
+                    outputStream.write( header );
+                    counters [2] += header.length;
+                }
+                final var length = formatter.formatRow( counters [0] == 0, epochSecond, systolic, diastolic, isIgnored, isOutlier );
+                outputStream.write( buffer, 0, length );
+                ++counters [0];
+                counters [2] += length;
+                if( ++counters [1] == CHUNK_SIZE )
+                {
+                    progress.add( counters [1], counters [2] );
+                    counters [1] = 0;
+                    counters [2] = 0L;
+                }
+            } );
+
+            //---* Terminate the statement *-----------------------------------
+            if( counters [0] > 0 )
+            {
+                outputStream.write( ';' );
+                outputStream.write( LINE_SEPARATOR );
+                counters [2] += 1 + LINE_SEPARATOR.length;
+            }
+        }
+        progress.add( counters [1], counters [2] );
+    }   //  dumpPartition()
+
+    /**
+     *  Opens the output stream for the given file, according to the
+     *  configured compression.
+     *
+     *  @param  file    The file.
+     *  @return The output stream.
+     *  @throws IOException The file cannot be opened.
+     */
+    private final OutputStream openOutputStream( final Path file ) throws IOException
+    {
+        final var fileStream = newOutputStream( file );
+        final OutputStream retValue = switch( m_Compression )
+            {
+                case NONE -> new BufferedOutputStream( fileStream, OUTPUT_BUFFER_SIZE );
+                case GZIP -> new BufferedOutputStream( new GZIPOutputStream( fileStream, OUTPUT_BUFFER_SIZE ), OUTPUT_BUFFER_SIZE );
+            };
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  openOutputStream()
+}
+//  class DataDumper
+
+/*
+ *  End of File
+ */
@@ -0,0 +1,357 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.bloodpressure.internal;
+
+import static java.lang.Integer.parseInt;
+import static java.nio.file.Files.newInputStream;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.apiguardian.api.API.Status.INTERNAL;
+import static org.tquadrat.bloodpressure.internal.DataDumper.awaitAll;
+import static org.tquadrat.foundation.lang.CommonConstants.UTF8;
+import static org.tquadrat.foundation.lang.Objects.isNull;
+import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
+import static org.tquadrat.foundation.util.StringUtils.format;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+import org.apiguardian.api.API;
+import org.tquadrat.bloodpressure.DataStore;
+import org.tquadrat.bloodpressure.spi.OutlierDetector;
+import org.tquadrat.foundation.annotation.ClassVersion;
+
+/**
+ *  <p>{@summary Restores the blood pressure data from a dump file that was
+ *  written by
+ *  {@link DataDumper}.}</p>
+ *  <p>The dump is read sequentially (plain or GZIP compressed, detected
+ *  automatically), and the rows are collected into batches; as the rows of
+ *  a dump are ordered by their timestamp, each batch covers a contiguous
+ *  range of timestamps. The batches are distributed over several workers
+ *  that
+ *  {@linkplain DataStore#append(String,DataStore.Batch) append}
+ *  them to the storage concurrently; for the H2 storage, each batch is
+ *  written in a transaction of its own.</p>
+ *  <p>The data is always restored for the person that is given to
+ *  {@link #restore(DataStore, String, Path)};
+ *  the key for the person in the dump itself is ignored, so the data of a
+ *  person can be copied to another one. Dumps that were written without
+ *  the key for the person are accepted, too.</p>
+ *  <p>The flag for outliers is taken from the dump. Dumps that were written
+ *  before that flag was introduced do not have it; for their rows, the
+ *  outliers are detected again while the dump is read, as on an import –
+ *  but without the stored measurements before the first row.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.1.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = INTERNAL, since = "0.1.0" )
+public final class DataRestorer
+{
+        /*---------------*\
+    ====** Inner Classes **====================================================
+        \*---------------*/
+    /**
+     *  A batch of rows, together with the number of bytes in the dump for
+     *  these rows.
+     *
+     *  @param  rows    The rows.
+     *  @param  byteCount   The number of bytes in the dump for the rows.
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.1.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = INTERNAL, since = "0.1.0" )
+    private static record Chunk( DataStore.Batch rows, long byteCount ) {}
+
+        /*-----------*\
+    ====** Constants **========================================================
+        \*-----------*/
+    /**
+     *  <p>{@summary The default batch size: {@value}.}</p>
+     *  <p>The value was not measured; it is a round number chosen from the
+     *  way a batch is written. Each batch is appended in a transaction of its
+     *  own, so the batch size limits the size of the undo log and the time
+     *  for which the rows are locked, while the number of commits for a
+     *  restore of some ten thousands of rows stays small.</p>
+     */
+    public static final int DEFAULT_BATCH_SIZE = 1_000;
+
+    /**
+     *  The marker for the end of the input.
+     */
+    private static final Chunk END_OF_INPUT = new Chunk( new DataStore.Batch( 0 ), 0L );
+
+    /**
+     *  The size of the input buffer: {@value}.
+     */
+    private static final int INPUT_BUFFER_SIZE = 1 << 16;
+
+    /**
+     *  The pattern for a row in the dump; the flag for outliers is missing
+     *  in dumps that were written by older versions of the program.
+     */
+    private static final Pattern PATTERN = Pattern.compile( "^\\((?:'[A-Za-z0-9_.-]+', )?'(\\d{4,}-\\d{2}-\\d{2}) (\\d{2}):(\\d{2}):(\\d{2})Z', (-?\\d+), (-?\\d+), (TRUE|FALSE)(?:, (TRUE|FALSE))? \\)[,;]?$" );
+
+    /**
+     *  The time the reader waits for space in the queue, in milliseconds:
+     *  {@value}.
+     */
+    private static final long POLL_TIMEOUT = 100L;
+
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The batch size.
+     */
+    private final int m_BatchSize;
+
+    /**
+     *  The number of measurements in the window of the outlier detection
+     *  for rows without the flag for outliers; 0 if the outliers are not
+     *  detected.
+     */
+    private final int m_OutlierWindow;
+
+    /**
+     *  The number of workers.
+     */
+    private final int m_Partitions;
+
+    /**
+     *  The progress listener.
+     */
+    private final TransferProgress.Listener m_ProgressListener;
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates a new instance of {@code DataRestorer}.
+     *
+     *  @param  batchSize   The number of rows that are written in a single
+     *      transaction; a value less than 1 selects the
+     *      {@linkplain #DEFAULT_BATCH_SIZE default}.
+     *  @param  partitions  The number of workers that write concurrently; a
+     *      value less than 1 is treated as 1.
+     *  @param  outlierWindow   The number of measurements in the window of
+     *      the outlier detection for rows without the flag for outliers; a
+     *      value of 0 or less disables the detection, values below
+     *      {@value OutlierDetector#WARM_UP}
+     *      are raised to that.
+     *  @param  progressListener    The listener for the progress.
+     *
+     *  @see org.tquadrat.bloodpressure.Configuration#getOutlierWindow()
+     */
+    public DataRestorer( final int batchSize, final int partitions, final int outlierWindow, final TransferProgress.Listener progressListener )
+    {
+        m_BatchSize = batchSize > 0 ? batchSize : DEFAULT_BATCH_SIZE;
+        m_Partitions = Math.max( 1, partitions );
+        m_OutlierWindow = outlierWindow > 0 ? Math.max( outlierWindow, OutlierDetector.WARM_UP ) : 0;
+        m_ProgressListener = requireNonNullArgument( progressListener, "progressListener" );
+    }   //  DataRestorer()
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Opens the input stream for the given file; a GZIP compressed file is
+     *  detected by its magic number.
+     *
+     *  @param  file    The file.
+     *  @return The input stream.
+     *  @throws IOException The file cannot be opened.
+     */
+    private static final InputStream openInputStream( final Path file ) throws IOException
+    {
+        final var inputStream = new BufferedInputStream( newInputStream( file ), INPUT_BUFFER_SIZE );
+        inputStream.mark( 2 );
+        final var isCompressed = inputStream.read() == (GZIPInputStream.GZIP_MAGIC & 0xFF)
+            && inputStream.read() == (GZIPInputStream.GZIP_MAGIC >> 8);
+        inputStream.reset();
+        final InputStream retValue = isCompressed
+            ? new BufferedInputStream( new GZIPInputStream( inputStream, INPUT_BUFFER_SIZE ), INPUT_BUFFER_SIZE )
+            : inputStream;
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  openInputStream()
+
+    /**
+     *  Hands the given batch to the workers.
+     *
+     *  @param  queue   The queue for the workers.
+     *  @param  chunk   The batch.
+     *  @param  futures The workers.
+     *  @throws IOException A worker failed, or the current thread was
+     *      interrupted.
+     */
+    private static final void put( final BlockingQueue<Chunk> queue, final Chunk chunk, final List<Future<?>> futures ) throws IOException
+    {
+        try
+        {
+            while( !queue.offer( chunk, POLL_TIMEOUT, MILLISECONDS ) )
+            {
+                //---* A worker that is done before the end has failed *-------
+                final var finished = futures.stream().filter( Future::isDone ).toList();
+                if( !finished.isEmpty() ) awaitAll( finished );
+            }
+        }
+        catch( final InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException( "Restore interrupted", e );
+        }
+    }   //  put()
+
+    /**
+     *  Restores the data from the given dump file for the given person.
+     *
+     *  @param  store   The storage for the data.
+     *  @param  person  The key for the person.
+     *  @param  file    The dump file.
+     *  @return The statistics for the restore.
+     *  @throws IOException Problems when reading the dump file or when
+     *      accessing the storage, or the dump file is invalid.
+     */
+    public final TransferProgress.Statistics restore( final DataStore store, final String person, final Path file ) throws IOException
+    {
+        requireNonNullArgument( store, "store" );
+        requireNonNullArgument( person, "person" );
+        requireNonNullArgument( file, "file" );
+
+        final var progress = new TransferProgress( m_ProgressListener );
+        final BlockingQueue<Chunk> queue = new ArrayBlockingQueue<>( m_Partitions * 2 );
+        final var executor = newFixedThreadPool( m_Partitions );
+        try
+        {
+            final List<Future<?>> futures = new ArrayList<>( m_Partitions );
+            for( var i = 0; i < m_Partitions; ++i )
+            {
+                futures.add( executor.submit( () ->
+                {
+                    writeBatches( store, person, queue, progress );
+                    return null;
+                } ) );
+            }
+
+            //---* Read the dump *---------------------------------------------
+            OutlierDetector detector = null;
+            try( final var reader = new BufferedReader( new InputStreamReader( openInputStream( file ), UTF8 ) ) )
+            {
+                var batch = new DataStore.Batch( m_BatchSize );
+                var byteCount = 0L;
+                var lineNumber = 0;
+                String line;
+                while( (line = reader.readLine()) != null )
+                {
+                    ++lineNumber;
+                    byteCount += line.length() + 1;
+                    if( !line.startsWith( "(" ) ) continue;
+
+                    final var matcher = PATTERN.matcher( line );
+                    if( !matcher.matches() ) throw new IOException( format( "Invalid row in line %d: %s", lineNumber, line ) );
+                    final var epochSecond = LocalDate.parse( matcher.group( 1 ) ).toEpochDay() * 86_400L
+                        + parseInt( matcher.group( 2 ) ) * 3_600L
+                        + parseInt( matcher.group( 3 ) ) * 60L
+                        + parseInt( matcher.group( 4 ) );
+                    final var systolic = parseInt( matcher.group( 5 ) );
+                    final var diastolic = parseInt( matcher.group( 6 ) );
+                    final var isIgnored = "TRUE".equals( matcher.group( 7 ) );
+                    final var outlierFlag = matcher.group( 8 );
+                    var isOutlier = "TRUE".equals( outlierFlag );
+                    if( isNull( outlierFlag ) && (m_OutlierWindow > 0) && !isIgnored )
+                    {
+                        //---* A row from an older dump *----------------------
+                        if( isNull( detector ) ) detector = new OutlierDetector( m_OutlierWindow, OutlierDetector.DEFAULT_THRESHOLD );
+                        isOutlier = detector.add( systolic, diastolic );
+                    }
+                    batch.add( epochSecond, systolic, diastolic, isIgnored, isOutlier );
+                    if( batch.size() == m_BatchSize )
+                    {
+                        put( queue, new Chunk( batch, byteCount ), futures );
+                        batch = new DataStore.Batch( m_BatchSize );
+                        byteCount = 0L;
+                    }
+                }
+                if( batch.size() > 0 ) put( queue, new Chunk( batch, byteCount ), futures );
+            }
+
+            //---* Stop the workers *------------------------------------------
+            for( var i = 0; i < m_Partitions; ++i ) put( queue, END_OF_INPUT, futures );
+            awaitAll( futures );
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        final var retValue = progress.getStatistics();
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  restore()
+
+    /**
+     *  Writes the batches from the given queue to the storage, until the
+     *  {@linkplain #END_OF_INPUT end marker}
+     *  is taken from the queue.
+     *
+     *  @param  store   The storage for the data.
+     *  @param  person  The key for the person.
+     *  @param  queue   The queue.
+     *  @param  progress    The progress counter.
+     *  @throws IOException Problems when accessing the storage.
+     *  @throws InterruptedException    The worker was interrupted.
+     */
+    private static final void writeBatches( final DataStore store, final String person, final BlockingQueue<Chunk> queue, final TransferProgress progress ) throws IOException, InterruptedException
+    {
+        var chunk = queue.take();
+        while( chunk != END_OF_INPUT )
+        {
+            store.append( person, chunk.rows() );
+            progress.add( chunk.rows().size(), chunk.byteCount() );
+            chunk = queue.take();
+        }
+    }   //  writeBatches()
+}
+//  class DataRestorer
+
+/*
+ *  End of File
+ */
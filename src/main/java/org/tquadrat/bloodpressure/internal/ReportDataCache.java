@@ -0,0 +1,405 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.bloodpressure.internal;
+
+import static java.lang.System.err;
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.util.Collections.unmodifiableNavigableMap;
+import static org.apiguardian.api.API.Status.INTERNAL;
+import static org.tquadrat.bloodpressure.spi.DailyAggregate.BAND_COUNT;
+import static org.tquadrat.foundation.lang.CommonConstants.UTF8;
+import static org.tquadrat.foundation.lang.DebugOutput.isDebug;
+import static org.tquadrat.foundation.lang.Objects.isNull;
+import static org.tquadrat.foundation.lang.Objects.nonNull;
+import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import org.apiguardian.api.API;
+import org.tquadrat.bloodpressure.DataStore;
+import org.tquadrat.bloodpressure.Diagnosis;
+import org.tquadrat.bloodpressure.spi.DailyAggregate;
+import org.tquadrat.foundation.annotation.ClassVersion;
+
+/**
+ *  <p>{@summary A persistent cache for the daily aggregates of the blood
+ *  pressure data.}</p>
+ *  <p>The cache is kept in memory for the current program run, and it will
+ *  be written to a file, so that it can be reused by the next run. The file
+ *  stores the
+ *  {@linkplain DataStore#getDataVersion(String) data version}
+ *  the aggregates were calculated from; when the data was modified since
+ *  then, only the days starting with the earliest modified measurement will
+ *  be recalculated. The file stores the key of the
+ *  {@linkplain Diagnosis#getGuideline() guideline}
+ *  for the bands of the histograms, and the
+ *  {@linkplain DataStore#getStoreId() identity of the storage},
+ *  too; when another guideline is used, or when the storage was replaced by
+ *  another one, all days will be recalculated.</p>
+ *  <p>The file has a fixed size header, followed by one record of fixed size
+ *  for each day between the first and the last day with measurements, so it
+ *  can be memory mapped and the record for any day can be accessed
+ *  directly.</p>
+ *  <pre><code>
+ *  Header:
+ *    int     magic number
+ *    int     format version
+ *    long    data version
+ *    long    epoch day of the first record
+ *    int     number of records
+ *    int     number of bands per histogram
+ *    byte[64]    time zone id, UTF-8, zero padded
+ *    byte[64]    guideline key, UTF-8, zero padded
+ *    byte[64]    storage identity, UTF-8, zero padded
+ *  Record:
+ *    int     number of measurements
+ *    long    sum of the systolic values
+ *    long    sum of the diastolic values
+ *    int     minimum of the systolic values
+ *    int     maximum of the systolic values
+ *    int     minimum of the diastolic values
+ *    int     maximum of the diastolic values
+ *    int[]   histogram for the systolic values
+ *    int[]   histogram for the diastolic values
+ *  </code></pre>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.1.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = INTERNAL, since = "0.1.0" )
+public final class ReportDataCache
+{
+        /*-----------*\
+    ====** Constants **========================================================
+        \*-----------*/
+    /**
+     *  The version of the file format: {@value}.
+     */
+    public static final int FORMAT_VERSION = 4;
+
+    /**
+     *  The offset of the histograms in a day record: {@value}.
+     */
+    private static final int BANDS_OFFSET = Integer.BYTES + 2 * Long.BYTES + 4 * Integer.BYTES;
+
+    /**
+     *  The maximum length for the guideline key in the header: {@value}.
+     */
+    private static final int GUIDELINE_KEY_LENGTH = 64;
+
+    /**
+     *  The size of the file header: {@value}.
+     */
+    private static final int HEADER_SIZE = 224;
+
+    /**
+     *  The magic number for the cache file.
+     */
+    private static final int MAGIC = 0x42504443;
+
+    /**
+     *  The size of a single day record.
+     */
+    private static final int RECORD_SIZE = BANDS_OFFSET + 2 * BAND_COUNT * Integer.BYTES;
+
+    /**
+     *  The maximum length for the storage identity in the header: {@value}.
+     */
+    private static final int STORE_ID_LENGTH = 64;
+
+    /**
+     *  The maximum length for the time zone id in the header: {@value}.
+     */
+    private static final int ZONE_ID_LENGTH = 64;
+
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The cache file.
+     */
+    private final Path m_CacheFile;
+
+    /**
+     *  The data version the cached aggregates were calculated from.
+     */
+    private long m_DataVersion;
+
+    /**
+     *  The key of the guideline that was used to determine the bands.
+     */
+    private String m_GuidelineKey;
+
+    /**
+     *  The cached aggregates; {@code null} if the cache was not loaded yet.
+     */
+    private NavigableMap<LocalDate,DailyAggregate> m_Days;
+
+    /**
+     *  The identity of the storage the aggregates were calculated from.
+     */
+    private String m_StoreId;
+
+    /**
+     *  The time zone that was used to determine the days.
+     */
+    private ZoneId m_Timezone;
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates a new instance of {@code ReportDataCache}.
+     *
+     *  @param  cacheFile   The cache file.
+     */
+    public ReportDataCache( final Path cacheFile )
+    {
+        m_CacheFile = requireNonNullArgument( cacheFile, "cacheFile" );
+        m_DataVersion = DataChangeLog.INITIAL_DATA_VERSION;
+        m_Days = null;
+        m_GuidelineKey = null;
+        m_StoreId = null;
+        m_Timezone = null;
+    }   //  ReportDataCache()
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Reads the cache file.
+     *
+     *  @return {@code true} if the file was read successfully,
+     *      {@code false} if it does not exist or is invalid.
+     */
+    private final boolean readCacheFile()
+    {
+        var retValue = false;
+        if( Files.isRegularFile( m_CacheFile ) )
+        {
+            try( final var channel = FileChannel.open( m_CacheFile, READ ) )
+            {
+                final var buffer = channel.map( READ_ONLY, 0, channel.size() );
+                if( (buffer.capacity() >= HEADER_SIZE)
+                    && (buffer.getInt( 0 ) == MAGIC)
+                    && (buffer.getInt( 4 ) == FORMAT_VERSION)
+                    && (buffer.getInt( 28 ) == BAND_COUNT) )
+                {
+                    final var dataVersion = buffer.getLong( 8 );
+                    final var firstEpochDay = buffer.getLong( 16 );
+                    final var recordCount = buffer.getInt( 24 );
+                    final var timezone = ZoneId.of( readString( buffer, 32, ZONE_ID_LENGTH ) );
+                    final var guidelineKey = readString( buffer, 32 + ZONE_ID_LENGTH, GUIDELINE_KEY_LENGTH );
+                    final var storeId = readString( buffer, 32 + ZONE_ID_LENGTH + GUIDELINE_KEY_LENGTH, STORE_ID_LENGTH );
+
+                    if( buffer.capacity() == HEADER_SIZE + (long) recordCount * RECORD_SIZE )
+                    {
+                        final var diagnoses = Diagnosis.values();
+                        final NavigableMap<LocalDate,DailyAggregate> days = new TreeMap<>();
+                        for( var i = 0; i < recordCount; ++i )
+                        {
+                            final var position = HEADER_SIZE + i * RECORD_SIZE;
+                            final var count = buffer.getInt( position );
+                            if( count > 0 )
+                            {
+                                final var systolicBands = new int [BAND_COUNT];
+                                final var diastolicBands = new int [BAND_COUNT];
+                                for( var b = 0; b < diagnoses.length; ++b )
+                                {
+                                    systolicBands [b] = buffer.getInt( position + BANDS_OFFSET + b * Integer.BYTES );
+                                    diastolicBands [b] = buffer.getInt( position + BANDS_OFFSET + (BAND_COUNT + b) * Integer.BYTES );
+                                }
+                                final var day = LocalDate.ofEpochDay( firstEpochDay + i );
+                                days.put( day, new DailyAggregate( day, count, buffer.getLong( position + 4 ), buffer.getLong( position + 12 ), buffer.getInt( position + 20 ), buffer.getInt( position + 24 ), buffer.getInt( position + 28 ), buffer.getInt( position + 32 ), systolicBands, diastolicBands ) );
+                            }
+                        }
+                        m_Days = days;
+                        m_DataVersion = dataVersion;
+                        m_GuidelineKey = guidelineKey;
+                        m_StoreId = storeId;
+                        m_Timezone = timezone;
+                        retValue = true;
+                    }
+                }
+            }
+            catch( final IOException | RuntimeException e )
+            {
+                //---* The cache file is corrupted; it will be rebuilt *-------
+                if( isDebug() ) e.printStackTrace( err );
+            }
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  readCacheFile()
+
+    /**
+     *  Reads a zero padded string from the given buffer.
+     *
+     *  @param  buffer  The buffer.
+     *  @param  offset  The offset of the string.
+     *  @param  maximumLength   The maximum length of the string, in bytes.
+     *  @return The string.
+     */
+    private static final String readString( final ByteBuffer buffer, final int offset, final int maximumLength )
+    {
+        final var bytes = new byte [maximumLength];
+        buffer.get( offset, bytes );
+        var length = 0;
+        while( (length < maximumLength) && (bytes [length] != 0) ) ++length;
+        final var retValue = new String( bytes, 0, length, UTF8 );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  readString()
+
+    /**
+     *  Returns the daily aggregates for all the blood pressure data of the
+     *  given person in the storage. Outdated or missing days will be
+     *  recalculated, and the cache file is updated if necessary.
+     *
+     *  @param  store   The storage for the data.
+     *  @param  person  The key for the person; the cache must not be used
+     *      for more than one person.
+     *  @param  timezone    The time zone that determines the days.
+     *  @return The daily aggregates; the returned map is not modifiable.
+     *  @throws IOException Problems when accessing the storage.
+     */
+    public final synchronized NavigableMap<LocalDate,DailyAggregate> retrieve( final DataStore store, final String person, final ZoneId timezone ) throws IOException
+    {
+        requireNonNullArgument( store, "store" );
+        requireNonNullArgument( person, "person" );
+        requireNonNullArgument( timezone, "timezone" );
+
+        if( isNull( m_Days ) ) readCacheFile();
+
+        final var dataVersion = store.getDataVersion( person );
+        final var guidelineKey = Diagnosis.getGuideline().getKey();
+        final var storeId = store.getStoreId();
+        final var isCompatible = nonNull( m_Days ) && timezone.equals( m_Timezone ) && guidelineKey.equals( m_GuidelineKey ) && storeId.equals( m_StoreId );
+        if( !isCompatible || (m_DataVersion != dataVersion) )
+        {
+            //---* Determine the stale tail *----------------------------------
+            LocalDate recalculateFrom = null;
+            if( isCompatible && (m_DataVersion < dataVersion) )
+            {
+                recalculateFrom = store.getEarliestChangeSince( person, m_DataVersion )
+                    .map( t -> t.atZone( timezone ).toLocalDate() )
+                    .orElse( null );
+            }
+
+            //---* Recalculate the aggregates *--------------------------------
+            final NavigableMap<LocalDate,DailyAggregate> days;
+            if( isNull( recalculateFrom ) )
+            {
+                days = new TreeMap<>( store.aggregate( person, null, null, timezone ) );
+            }
+            else
+            {
+                days = new TreeMap<>( m_Days.headMap( recalculateFrom, false ) );
+                days.putAll( store.aggregate( person, recalculateFrom.atStartOfDay( timezone ).toInstant(), null, timezone ) );
+            }
+
+            m_Days = days;
+            m_DataVersion = dataVersion;
+            m_GuidelineKey = guidelineKey;
+            m_StoreId = storeId;
+            m_Timezone = timezone;
+            writeCacheFile();
+        }
+
+        final var retValue = unmodifiableNavigableMap( m_Days );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  retrieve()
+
+    /**
+     *  Writes the cache file. As the cache is an optimisation only, any
+     *  problems are ignored.
+     */
+    private final void writeCacheFile()
+    {
+        final var firstEpochDay = m_Days.isEmpty() ? 0L : m_Days.firstKey().toEpochDay();
+        final var recordCount = m_Days.isEmpty() ? 0 : (int) (m_Days.lastKey().toEpochDay() - firstEpochDay + 1);
+        final var zoneIdBytes = m_Timezone.getId().getBytes( UTF8 );
+        final var guidelineKeyBytes = m_GuidelineKey.getBytes( UTF8 );
+        final var storeIdBytes = m_StoreId.getBytes( UTF8 );
+        if( (zoneIdBytes.length <= ZONE_ID_LENGTH) && (guidelineKeyBytes.length <= GUIDELINE_KEY_LENGTH) && (storeIdBytes.length <= STORE_ID_LENGTH) )
+        {
+            final var buffer = ByteBuffer.allocate( HEADER_SIZE + recordCount * RECORD_SIZE );
+            buffer.putInt( 0, MAGIC );
+            buffer.putInt( 4, FORMAT_VERSION );
+            buffer.putLong( 8, m_DataVersion );
+            buffer.putLong( 16, firstEpochDay );
+            buffer.putInt( 24, recordCount );
+            buffer.putInt( 28, BAND_COUNT );
+            buffer.put( 32, zoneIdBytes );
+            buffer.put( 32 + ZONE_ID_LENGTH, guidelineKeyBytes );
+            buffer.put( 32 + ZONE_ID_LENGTH + GUIDELINE_KEY_LENGTH, storeIdBytes );
+
+            final var diagnoses = Diagnosis.values();
+            for( final var aggregate : m_Days.values() )
+            {
+                final var position = HEADER_SIZE + (int) (aggregate.getDay().toEpochDay() - firstEpochDay) * RECORD_SIZE;
+                buffer.putInt( position, aggregate.getCount() );
+                buffer.putLong( position + 4, aggregate.getSystolicSum() );
+                buffer.putLong( position + 12, aggregate.getDiastolicSum() );
+                buffer.putInt( position + 20, aggregate.getSystolicMinimum() );
+                buffer.putInt( position + 24, aggregate.getSystolicMaximum() );
+                buffer.putInt( position + 28, aggregate.getDiastolicMinimum() );
+                buffer.putInt( position + 32, aggregate.getDiastolicMaximum() );
+                for( var b = 0; b < diagnoses.length; ++b )
+                {
+                    buffer.putInt( position + BANDS_OFFSET + b * Integer.BYTES, aggregate.getSystolicCount( diagnoses [b] ) );
+                    buffer.putInt( position + BANDS_OFFSET + (BAND_COUNT + b) * Integer.BYTES, aggregate.getDiastolicCount( diagnoses [b] ) );
+                }
+            }
+
+            try
+            {
+                final var tempFile = m_CacheFile.resolveSibling( m_CacheFile.getFileName() + ".tmp" );
+                Files.write( tempFile, buffer.array() );
+                Files.move( tempFile, m_CacheFile, REPLACE_EXISTING, ATOMIC_MOVE );
+            }
+            catch( final IOException e )
+            {
+                if( isDebug() ) e.printStackTrace( err );
+            }
+        }
+    }   //  writeCacheFile()
+}
+//  class ReportDataCache
+
+/*
+ *  End of File
+ */
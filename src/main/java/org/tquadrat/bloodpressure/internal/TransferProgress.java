@@ -0,0 +1,193 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.bloodpressure.internal;
+
+import static java.lang.System.nanoTime;
+import static org.apiguardian.api.API.Status.INTERNAL;
+import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apiguardian.api.API;
+import org.tquadrat.foundation.annotation.ClassVersion;
+
+/**
+ *  <p>{@summary Counts the rows and bytes of a dump or restore and reports
+ *  the progress to a listener.}</p>
+ *  <p>The counter can be shared by several threads; each of them should add
+ *  its counts in chunks, not row by row.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.1.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = INTERNAL, since = "0.1.0" )
+public final class TransferProgress
+{
+        /*---------------*\
+    ====** Inner Classes **====================================================
+        \*---------------*/
+    /**
+     *  The listener for the progress of a transfer.
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.1.0
+     */
+    @FunctionalInterface
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = INTERNAL, since = "0.1.0" )
+    public static interface Listener
+    {
+            /*---------*\
+        ====** Methods **======================================================
+            \*---------*/
+        /**
+         *  Reports the progress.
+         *
+         *  @param  statistics  The current state of the transfer.
+         */
+        public void progress( final Statistics statistics );
+    }
+    //  interface Listener
+
+    /**
+     *  The statistics for a transfer.
+     *
+     *  @param  rowCount    The number of rows that were transferred.
+     *  @param  byteCount   The number of (uncompressed) bytes that were
+     *      transferred.
+     *  @param  duration    The time that was needed for the transfer.
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.1.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = INTERNAL, since = "0.1.0" )
+    public static record Statistics( long rowCount, long byteCount, Duration duration )
+    {
+            /*---------*\
+        ====** Methods **======================================================
+            \*---------*/
+        /**
+         *  Returns the throughput in rows per second.
+         *
+         *  @return The throughput.
+         */
+        public final double rowsPerSecond()
+        {
+            final var nanos = duration.toNanos();
+            final var retValue = nanos > 0 ? rowCount * 1.0e9 / nanos : 0.0;
+
+            //---* Done *------------------------------------------------------
+            return retValue;
+        }   //  rowsPerSecond()
+    }
+    //  record Statistics
+
+        /*-----------*\
+    ====** Constants **========================================================
+        \*-----------*/
+    /**
+     *  The number of rows after that the progress is reported: {@value}.
+     */
+    public static final long PROGRESS_INTERVAL = 1_000_000L;
+
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The number of bytes.
+     */
+    private final AtomicLong m_ByteCount = new AtomicLong();
+
+    /**
+     *  The listener.
+     */
+    private final Listener m_Listener;
+
+    /**
+     *  The number of rows.
+     */
+    private final AtomicLong m_RowCount = new AtomicLong();
+
+    /**
+     *  The start time, as returned by
+     *  {@link System#nanoTime()}.
+     */
+    private final long m_StartTime;
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates a new instance of {@code TransferProgress}.
+     *
+     *  @param  listener    The listener for the progress.
+     */
+    public TransferProgress( final Listener listener )
+    {
+        m_Listener = requireNonNullArgument( listener, "listener" );
+        m_StartTime = nanoTime();
+    }   //  TransferProgress()
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Adds the given counts; the listener will be notified each time the
+     *  number of rows crosses a multiple of
+     *  {@value #PROGRESS_INTERVAL}.
+     *
+     *  @param  rows    The number of rows.
+     *  @param  bytes   The number of bytes.
+     */
+    public final void add( final long rows, final long bytes )
+    {
+        m_ByteCount.addAndGet( bytes );
+        final var before = m_RowCount.getAndAdd( rows );
+        if( before / PROGRESS_INTERVAL != (before + rows) / PROGRESS_INTERVAL )
+        {
+            m_Listener.progress( getStatistics() );
+        }
+    }   //  add()
+
+    /**
+     *  Returns the current statistics.
+     *
+     *  @return The statistics.
+     */
+    public final Statistics getStatistics()
+    {
+        final var retValue = new Statistics( m_RowCount.get(), m_ByteCount.get(), Duration.ofNanos( nanoTime() - m_StartTime ) );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  getStatistics()
+}
+//  class TransferProgress
+
+/*
+ *  End of File
+ */
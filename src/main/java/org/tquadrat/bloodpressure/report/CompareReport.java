@@ -31,6 +31,7 @@ import static org.tquadrat.bloodpressure.Diagnosis.NORMAL_HIGH;
 import static org.tquadrat.bloodpressure.Diagnosis.OPTIMAL;
 import static org.tquadrat.bloodpressure.ReportFormat.HTML;
 import static org.tquadrat.bloodpressure.ReportFormat.HTML_EMBEDDED;
+import static org.tquadrat.bloodpressure.spi.AggregationPyramid.Resolution.QUARTER;
 import static org.tquadrat.bloodpressure.spi.ReportBase.DestinationType.DEST_FILE;
 import static org.tquadrat.foundation.i18n.TextUse.CAPTION;
 import static org.tquadrat.foundation.i18n.TextUse.TXT;
@@ -41,7 +42,6 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.sql.SQLException;
-import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -50,6 +50,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.SortedMap;
+import java.util.concurrent.Callable;
 import java.util.stream.Stream;
 
 import org.apiguardian.api.API;
@@ -57,6 +58,7 @@ import org.tquadrat.bloodpressure.DataNode;
 import org.tquadrat.bloodpressure.Diagnosis;
 import org.tquadrat.bloodpressure.ReportFormat;
 import org.tquadrat.bloodpressure.spi.ChartTheme;
+import org.tquadrat.bloodpressure.spi.AggregationPyramid;
 import org.tquadrat.bloodpressure.spi.ReportBase;
 import org.tquadrat.foundation.annotation.ClassVersion;
 import org.tquadrat.foundation.exception.UnsupportedEnumError;
@@ -91,43 +93,40 @@ public final class CompareReport extends ReportBase
     ====** Methods **==========================================================
         \*---------*/
     /**
-     *  Collects the data for one quarter.
+     *  Collects the data for one quarter. The quarters are processed
+     *  concurrently, therefore each quarter collects its data into a map of
+     *  its own, and the pyramid and the single values are only read.
      *
-     *  @param  contents    The target for the collected data.
+     *  @param  pyramid The aggregation pyramid for all quarters of the
+     *      report.
+     *  @param  allData The single values for all quarters of the report.
      *  @param  quarter The number of the quarter to process. 0 is the current
      *      quarter, -1 is the last quarter before the current, and so on.
+     *  @return The collected data.
      *  @throws IOException A problem occurred when creating the chart.
-     *  @throws SQLException    A problem was encountered when retrieving the
-     *      data from the database.
      */
-    private final void collectQuarterData( final Map<String,String> contents, final int quarter ) throws IOException, SQLException
+    private final Map<String,String> collectQuarterData( final AggregationPyramid pyramid, final SortedMap<LocalDateTime,DataNode> allData, final int quarter ) throws IOException
     {
-        //---* Calculate the start and end date *------------------------------
-        final var today = LocalDate.now( getConfiguration().getClock() );
-        final var currentYear = today.getYear();
-        final var currentQuarterBegin = LocalDate.of( currentYear, (today.getMonthValue() - 1) / 3 * 3 + 1, 1 );
-        final var start = currentQuarterBegin.plusMonths( quarter * 3L );
-        final var end = start.plusMonths( 3L ).minusDays( 1L );
+        //---* Calculate the start date *--------------------------------------
+        final var start = QUARTER.shift( QUARTER.getStart( LocalDate.now( getConfiguration().getClock() ) ), quarter );
 
         //---* Get the data *--------------------------------------------------
-        final SortedMap<LocalDateTime,DataNode> totalData;
-        try( final var connection = getConfiguration().retrieveConnection() )
-        {
-            totalData = loadData( connection, getConfiguration().getTimezone(), start, end );
-        }
-        final var numberOfMeasuring = totalData.size();
-        final SortedMap<LocalDate,DataNode> data = compressToDay( totalData );
-        final Map<Diagnosis,DistributionNode> distribution = distributeData( totalData );
+        final var dailyData = pyramid.getDays( QUARTER, start );
+
+        //---* The chart shows the single values *-----------------------------
+        final var totalData = allData.subMap( start.atStartOfDay(), QUARTER.shift( start, 1 ).atStartOfDay() );
+        final var statistics = calculateStatistics( dailyData );
+        final var numberOfMeasuring = statistics.getMeasurementCount();
+        final var distribution = statistics.getDistribution();
 
-        final var firstDay = data.firstKey();
-        final var lastDay = data.lastKey();
-        final var duration = Duration.between( firstDay.atStartOfDay(), lastDay.plusDays( 1 ).atStartOfDay() );
-        final var totalDays = duration.toDays();
-        final var dayCount = data.size();
+        final var firstDay = statistics.getFirstDay();
+        final var lastDay = statistics.getLastDay();
+        final var totalDays = statistics.getTotalDays();
+        final var dayCount = statistics.getDayCount();
 
-        final var average = calculateAverage( data );
-        final var weightedAverage = calculateEndWeightedAverage( data );
-        final var median = calculateMedian( data );
+        final var average = statistics.getAverage();
+        final var weightedAverage = statistics.getWeightedAverage();
+        final var median = statistics.getMedian();
 
         //---* Create the chart *----------------------------------------------
         final var width = 400;
@@ -152,34 +151,40 @@ public final class CompareReport extends ReportBase
         saveVectorGraphic( chart, outputStream, SVG );
 
         //---* Gather the contents *-------------------------------------------
+        final Map<String,String> retValue = new HashMap<>();
         final var q = abs( quarter );
-        contents.put( format( "Q%d_FirstDay", q ), firstDay.toString() );
-        contents.put( format( "Q%d_LastDay", q ), lastDay.toString() );
-        contents.put( format( "Q%d_TotalDays", q ), format( "% 4d", totalDays ) );
-        contents.put( format( "Q%d_DayCount", q ), format( "% 4d", dayCount ) );
-        contents.put( format( "Q%d_TotalCount", q ), format( "% 4d", numberOfMeasuring ) );
-        contents.put( format( "Q%d_AverageSystolic", q ), format( "% 3d", average.systolic() ) );
-        contents.put( format( "Q%d_AverageDiastolic", q ), format( "% 3d", average.diastolic() ) );
-        contents.put( format( "Q%d_AveragePulsePressure", q ), format( "% 3d", average.pulsePressure() ) );
-        contents.put( format( "Q%d_AverageAssessment", q ), assessData( average ).toString() );
-        contents.put( format( "Q%d_WeightedAverageSystolic", q ), format( "% 3d", weightedAverage.systolic() ) );
-        contents.put( format( "Q%d_WeightedAverageDiastolic", q ), format( "% 3d", weightedAverage.diastolic() ) );
-        contents.put( format( "Q%d_WeightedAveragePulsePressure", q ), format( "% 3d", weightedAverage.pulsePressure() ) );
-        contents.put( format( "Q%d_WeightedAverageAssessment", q ), assessData( weightedAverage ).toString() );
-        contents.put( format( "Q%d_MedianSystolic", q ), format( "% 3d", median.systolic() ) );
-        contents.put( format( "Q%d_MedianDiastolic", q ), format( "% 3d", median.diastolic() ) );
-        contents.put( format( "Q%d_MedianPulsePressure", q ), format( "% 3d", median.pulsePressure() ) );
-        contents.put( format( "Q%d_MedianAssessment", q ), assessData( median ).toString() );
-        contents.put( format( "Q%d_Chart", q ), outputStream.toString( UTF8 ) );
+        retValue.put( format( "Q%d_FirstDay", q ), firstDay.toString() );
+        retValue.put( format( "Q%d_LastDay", q ), lastDay.toString() );
+        retValue.put( format( "Q%d_TotalDays", q ), format( "% 4d", totalDays ) );
+        retValue.put( format( "Q%d_DayCount", q ), format( "% 4d", dayCount ) );
+        retValue.put( format( "Q%d_TotalCount", q ), format( "% 4d", numberOfMeasuring ) );
+        retValue.put( format( "Q%d_AverageSystolic", q ), format( "% 3d", average.systolic() ) );
+        retValue.put( format( "Q%d_AverageDiastolic", q ), format( "% 3d", average.diastolic() ) );
+        retValue.put( format( "Q%d_AveragePulsePressure", q ), format( "% 3d", average.pulsePressure() ) );
+        retValue.put( format( "Q%d_AverageAssessment", q ), assessData( average ).toString() );
+        retValue.put( format( "Q%d_WeightedAverageSystolic", q ), format( "% 3d", weightedAverage.systolic() ) );
+        retValue.put( format( "Q%d_WeightedAverageDiastolic", q ), format( "% 3d", weightedAverage.diastolic() ) );
+        retValue.put( format( "Q%d_WeightedAveragePulsePressure", q ), format( "% 3d", weightedAverage.pulsePressure() ) );
+        retValue.put( format( "Q%d_WeightedAverageAssessment", q ), assessData( weightedAverage ).toString() );
+        retValue.put( format( "Q%d_MedianSystolic", q ), format( "% 3d", median.systolic() ) );
+        retValue.put( format( "Q%d_MedianDiastolic", q ), format( "% 3d", median.diastolic() ) );
+        retValue.put( format( "Q%d_MedianPulsePressure", q ), format( "% 3d", median.pulsePressure() ) );
+        retValue.put( format( "Q%d_MedianAssessment", q ), assessData( median ).toString() );
+        addVariability( retValue, format( "Q%d_", q ), statistics );
+        addTrend( retValue, format( "Q%d_", q ), statistics );
+        retValue.put( format( "Q%d_Chart", q ), outputStream.toString( UTF8 ) );
 
         for( final var diag : List.of( LOW, OPTIMAL, NORMAL, NORMAL_HIGH, HIGH1, HIGH2, HIGH3 ) )
         {
-            final var node = distribution.computeIfAbsent( diag, DistributionNode::new );
-            contents.put( format( "Q%d_Diag_%s_SystolicPercent", q, diag.name() ), format( "% 5.1f%%", node.getSystolicPercentage() ) );
-            contents.put( format( "Q%d_Diag_%s_SystolicCount", q, diag.name() ), format( "% 4d", node.getSystolicCount() ) );
-            contents.put( format( "Q%d_Diag_%s_DiastolicPercent", q, diag.name() ), format( "% 5.1f%%", node.getDiastolicPercentage() ) );
-            contents.put( format( "Q%d_Diag_%s_DiastolicCount", q, diag.name() ), format( "% 4d", node.getDiastolicCount() ) );
+            final var node = distribution.get( diag );
+            retValue.put( format( "Q%d_Diag_%s_SystolicPercent", q, diag.name() ), format( "% 5.1f%%", node.getSystolicPercentage() ) );
+            retValue.put( format( "Q%d_Diag_%s_SystolicCount", q, diag.name() ), format( "% 4d", node.getSystolicCount() ) );
+            retValue.put( format( "Q%d_Diag_%s_DiastolicPercent", q, diag.name() ), format( "% 5.1f%%", node.getDiastolicPercentage() ) );
+            retValue.put( format( "Q%d_Diag_%s_DiastolicCount", q, diag.name() ), format( "% 4d", node.getDiastolicCount() ) );
         }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
     }   //  collectQuarterData()
 
     /**
@@ -189,8 +194,26 @@ public final class CompareReport extends ReportBase
     public final void generateReport( final File destination, final ReportFormat format ) throws IOException, SQLException
     {
         //---* Get the data *--------------------------------------------------
+        final var today = LocalDate.now( getConfiguration().getClock() );
+        final var start = QUARTER.shift( QUARTER.getStart( today ), -1 );
+        final var end = QUARTER.getEnd( today );
+        final AggregationPyramid pyramid;
+        final SortedMap<LocalDateTime,DataNode> totalData;
+        try( final var store = openSnapshot() )
+        {
+            pyramid = loadPyramid( store, getConfiguration().getTimezone(), start, end );
+            totalData = loadData( store, getConfiguration().getTimezone(), start, end ).data();
+        }
+
+        //---* Process the quarters concurrently *-----------------------------
+        final List<Callable<Map<String,String>>> tasks = new ArrayList<>( 2 );
+        for( var i = 0; i < 2; ++i )
+        {
+            final var quarter = -i;
+            tasks.add( () -> collectQuarterData( pyramid, totalData, quarter ) );
+        }
         final Map<String,String> contents = new HashMap<>();
-        for( var i = 0; i < 2; ++i ) collectQuarterData( contents, -i );
+        for( final var quarterData : computeConcurrently( tasks ) ) contents.putAll( quarterData );
 
         //---* Gather the contents *-------------------------------------------
         contents.put( "Language", getConfiguration().getLocale().getLanguage() );
@@ -215,6 +238,12 @@ public final class CompareReport extends ReportBase
         contents.put( "AverageCaption", retrieveText( CAPTION, "Average" ) );
         contents.put( "WeightedAverageCaption", retrieveText( CAPTION, "WeightedAverage" ) );
         contents.put( "MedianCaption", retrieveText( CAPTION, "Median" ) );
+        contents.put( "StandardDeviationCaption", retrieveText( CAPTION, "StandardDeviation" ) );
+        contents.put( "CoefficientOfVariationCaption", retrieveText( CAPTION, "CoefficientOfVariation" ) );
+        contents.put( "AverageRealVariabilityCaption", retrieveText( CAPTION, "AverageRealVariability" ) );
+        contents.put( "TrendSlopeCaption", retrieveText( CAPTION, "TrendSlope" ) );
+        contents.put( "TrendInterceptCaption", retrieveText( CAPTION, "TrendIntercept" ) );
+        contents.put( "TrendDeterminationCaption", retrieveText( CAPTION, "TrendDetermination" ) );
         contents.put( "DistributionCaption", retrieveText( CAPTION, "Distribution" ) );
         contents.put( "DistributionColumn1Header", retrieveText( CAPTION, "DistributionColumn1" ) );
         contents.put( "DistributionColumn2Header", retrieveText( CAPTION, "DistributionColumn2" ) );
@@ -227,6 +256,7 @@ public final class CompareReport extends ReportBase
             .orElse( 0 );
         final var diagFormat = format( "%%%ds", maxLenDiagnosisText );
         contents.put( "Diag_Filler", " ".repeat( maxLenDiagnosisText ) );
+        addBandLabels( contents );
 
         for( final var diag : List.of( LOW, OPTIMAL, NORMAL, NORMAL_HIGH, HIGH1, HIGH2, HIGH3 ) )
         {
@@ -362,6 +392,72 @@ public final class CompareReport extends ReportBase
                         <td align="right">${Q0_MedianPulsePressure}</td>
                         <td>${Q0_MedianAssessment}</td>
                       </tr>
+                      <tr>
+                        <th align="right">${StandardDeviationCaption}</th>
+                        <td align="right">${Q1_StandardDeviationSystolic}</td>
+                        <td align="right">${Q1_StandardDeviationDiastolic}</td>
+                        <td align="right">${Q1_StandardDeviationPulsePressure}</td>
+                        <td/>
+                        <td align="right">${Q0_StandardDeviationSystolic}</td>
+                        <td align="right">${Q0_StandardDeviationDiastolic}</td>
+                        <td align="right">${Q0_StandardDeviationPulsePressure}</td>
+                        <td/>
+                      </tr>
+                      <tr>
+                        <th align="right">${CoefficientOfVariationCaption}</th>
+                        <td align="right">${Q1_CoefficientOfVariationSystolic}</td>
+                        <td align="right">${Q1_CoefficientOfVariationDiastolic}</td>
+                        <td align="right">${Q1_CoefficientOfVariationPulsePressure}</td>
+                        <td/>
+                        <td align="right">${Q0_CoefficientOfVariationSystolic}</td>
+                        <td align="right">${Q0_CoefficientOfVariationDiastolic}</td>
+                        <td align="right">${Q0_CoefficientOfVariationPulsePressure}</td>
+                        <td/>
+                      </tr>
+                      <tr>
+                        <th align="right">${AverageRealVariabilityCaption}</th>
+                        <td align="right">${Q1_AverageRealVariabilitySystolic}</td>
+                        <td align="right">${Q1_AverageRealVariabilityDiastolic}</td>
+                        <td align="right">${Q1_AverageRealVariabilityPulsePressure}</td>
+                        <td/>
+                        <td align="right">${Q0_AverageRealVariabilitySystolic}</td>
+                        <td align="right">${Q0_AverageRealVariabilityDiastolic}</td>
+                        <td align="right">${Q0_AverageRealVariabilityPulsePressure}</td>
+                        <td/>
+                      </tr>
+                      <tr>
+                        <th align="right">${TrendSlopeCaption}</th>
+                        <td align="right">${Q1_TrendSlopeSystolic}</td>
+                        <td align="right">${Q1_TrendSlopeDiastolic}</td>
+                        <td/>
+                        <td/>
+                        <td align="right">${Q0_TrendSlopeSystolic}</td>
+                        <td align="right">${Q0_TrendSlopeDiastolic}</td>
+                        <td/>
+                        <td/>
+                      </tr>
+                      <tr>
+                        <th align="right">${TrendInterceptCaption}</th>
+                        <td align="right">${Q1_TrendInterceptSystolic}</td>
+                        <td align="right">${Q1_TrendInterceptDiastolic}</td>
+                        <td/>
+                        <td/>
+                        <td align="right">${Q0_TrendInterceptSystolic}</td>
+                        <td align="right">${Q0_TrendInterceptDiastolic}</td>
+                        <td/>
+                        <td/>
+                      </tr>
+                      <tr>
+                        <th align="right">${TrendDeterminationCaption}</th>
+                        <td align="right">${Q1_TrendDeterminationSystolic}</td>
+                        <td align="right">${Q1_TrendDeterminationDiastolic}</td>
+                        <td/>
+                        <td/>
+                        <td align="right">${Q0_TrendDeterminationSystolic}</td>
+                        <td align="right">${Q0_TrendDeterminationDiastolic}</td>
+                        <td/>
+                        <td/>
+                      </tr>
                       <tr>
                         <td/>
                         <td colspan="4">
@@ -397,106 +493,106 @@ public final class CompareReport extends ReportBase
                     <tbody>
                       <tr>
                         <th>${Diag_LOW}</th>
-                        <td align="right">(&lt; 105)</td>
+                        <td align="right">${Diag_LOW_SystolicRange}</td>
                         <td align="right">${Q1_Diag_LOW_SystolicPercent}</td>
                         <td align="right">${Q1_Diag_LOW_SystolicCount}</td>
-                        <td align="right">(&lt; 65)</td>
+                        <td align="right">${Diag_LOW_DiastolicRange}</td>
                         <td align="right">${Q1_Diag_LOW_DiastolicPercent}</td>
                         <td align="right">${Q1_Diag_LOW_DiastolicCount}</td>
-                        <td align="right">(&lt; 105)</td>
+                        <td align="right">${Diag_LOW_SystolicRange}</td>
                         <td align="right">${Q0_Diag_LOW_SystolicPercent}</td>
                         <td align="right">${Q0_Diag_LOW_SystolicCount}</td>
-                        <td align="right">(&lt; 65)</td>
+                        <td align="right">${Diag_LOW_DiastolicRange}</td>
                         <td align="right">${Q0_Diag_LOW_DiastolicPercent}</td>
                         <td align="right">${Q0_Diag_LOW_DiastolicCount}</td>
                       </tr>
                       <tr>
                         <th>${Diag_OPTIMAL}</th>
-                        <td align="right">(105-119)</td>
+                        <td align="right">${Diag_OPTIMAL_SystolicRange}</td>
                         <td align="right">${Q1_Diag_OPTIMAL_SystolicPercent}</td>
                         <td align="right">${Q1_Diag_OPTIMAL_SystolicCount}</td>
-                        <td align="right">(65-79)</td>
+                        <td align="right">${Diag_OPTIMAL_DiastolicRange}</td>
                         <td align="right">${Q1_Diag_OPTIMAL_DiastolicPercent}</td>
                         <td align="right">${Q1_Diag_OPTIMAL_DiastolicCount}</td>
-                        <td align="right">(105-119)</td>
+                        <td align="right">${Diag_OPTIMAL_SystolicRange}</td>
                         <td align="right">${Q0_Diag_OPTIMAL_SystolicPercent}</td>
                         <td align="right">${Q0_Diag_OPTIMAL_SystolicCount}</td>
-                        <td align="right">(65-79)</td>
+                        <td align="right">${Diag_OPTIMAL_DiastolicRange}</td>
                         <td align="right">${Q0_Diag_OPTIMAL_DiastolicPercent}</td>
                         <td align="right">${Q0_Diag_OPTIMAL_DiastolicCount}</td>
                       </tr>
                       <tr>
                         <th>${Diag_NORMAL}</th>
-                        <td align="right">(120-129)</td>
+                        <td align="right">${Diag_NORMAL_SystolicRange}</td>
                         <td align="right">${Q1_Diag_NORMAL_SystolicPercent}</td>
                         <td align="right">${Q1_Diag_NORMAL_SystolicCount}</td>
-                        <td align="right">(80-84)</td>
+                        <td align="right">${Diag_NORMAL_DiastolicRange}</td>
                         <td align="right">${Q1_Diag_NORMAL_DiastolicPercent}</td>
                         <td align="right">${Q1_Diag_NORMAL_DiastolicCount}</td>
-                        <td align="right">(120-129)</td>
+                        <td align="right">${Diag_NORMAL_SystolicRange}</td>
                         <td align="right">${Q0_Diag_NORMAL_SystolicPercent}</td>
                         <td align="right">${Q0_Diag_NORMAL_SystolicCount}</td>
-                        <td align="right">(80-84)</td>
+                        <td align="right">${Diag_NORMAL_DiastolicRange}</td>
                         <td align="right">${Q0_Diag_NORMAL_DiastolicPercent}</td>
                         <td align="right">${Q0_Diag_NORMAL_DiastolicCount}</td>
                       </tr>
                       <tr>
                         <th>${Diag_NORMAL_HIGH}</th>
-                        <td align="right">(130-139)</td>
+                        <td align="right">${Diag_NORMAL_HIGH_SystolicRange}</td>
                         <td align="right">${Q1_Diag_NORMAL_HIGH_SystolicPercent}</td>
                         <td align="right">${Q1_Diag_NORMAL_HIGH_SystolicCount}</td>
-                        <td align="right">(85-89)</td>
+                        <td align="right">${Diag_NORMAL_HIGH_DiastolicRange}</td>
                         <td align="right">${Q1_Diag_NORMAL_HIGH_DiastolicPercent}</td>
                         <td align="right">${Q1_Diag_NORMAL_HIGH_DiastolicCount}</td>
-                        <td align="right">(130-139)</td>
+                        <td align="right">${Diag_NORMAL_HIGH_SystolicRange}</td>
                         <td align="right">${Q0_Diag_NORMAL_HIGH_SystolicPercent}</td>
                         <td align="right">${Q0_Diag_NORMAL_HIGH_SystolicCount}</td>
-                        <td align="right">(85-89)</td>
+                        <td align="right">${Diag_NORMAL_HIGH_DiastolicRange}</td>
                         <td align="right">${Q0_Diag_NORMAL_HIGH_DiastolicPercent}</td>
                         <td align="right">${Q0_Diag_NORMAL_HIGH_DiastolicCount}</td>
                       </tr>
                       <tr>
                         <th>${Diag_HIGH1}</th>
-                        <td align="right">(140-159)</td>
+                        <td align="right">${Diag_HIGH1_SystolicRange}</td>
                         <td align="right">${Q1_Diag_HIGH1_SystolicPercent}</td>
                         <td align="right">${Q1_Diag_HIGH1_SystolicCount}</td>
-                        <td align="right">(90-99)</td>
+                        <td align="right">${Diag_HIGH1_DiastolicRange}</td>
                         <td align="right">${Q1_Diag_HIGH1_DiastolicPercent}</td>
                         <td align="right">${Q1_Diag_HIGH1_DiastolicCount}</td>
-                        <td align="right">(140-159)</td>
+                        <td align="right">${Diag_HIGH1_SystolicRange}</td>
                         <td align="right">${Q0_Diag_HIGH1_SystolicPercent}</td>
                         <td align="right">${Q0_Diag_HIGH1_SystolicCount}</td>
-                        <td align="right">(90-99)</td>
+                        <td align="right">${Diag_HIGH1_DiastolicRange}</td>
                         <td align="right">${Q0_Diag_HIGH1_DiastolicPercent}</td>
                         <td align="right">${Q0_Diag_HIGH1_DiastolicCount}</td>
                       </tr>
                       <tr>
                         <th>${Diag_HIGH2}</th>
-                        <td align="right">(160-179)</td>
+                        <td align="right">${Diag_HIGH2_SystolicRange}</td>
                         <td align="right">${Q1_Diag_HIGH2_SystolicPercent}</td>
                         <td align="right">${Q1_Diag_HIGH2_SystolicCount}</td>
-                        <td align="right">(100-109)</td>
+                        <td align="right">${Diag_HIGH2_DiastolicRange}</td>
                         <td align="right">${Q1_Diag_HIGH2_DiastolicPercent}</td>
                         <td align="right">${Q1_Diag_HIGH2_DiastolicCount}</td>
-                        <td align="right">(160-179)</td>
+                        <td align="right">${Diag_HIGH2_SystolicRange}</td>
                         <td align="right">${Q0_Diag_HIGH2_SystolicPercent}</td>
                         <td align="right">${Q0_Diag_HIGH2_SystolicCount}</td>
-                        <td align="right">(100-109)</td>
+                        <td align="right">${Diag_HIGH2_DiastolicRange}</td>
                         <td align="right">${Q0_Diag_HIGH2_DiastolicPercent}</td>
                         <td align="right">${Q0_Diag_HIGH2_DiastolicCount}</td>
                       </tr>
                       <tr>
                         <th>${Diag_HIGH3}</th>
-                        <td align="right">(&gt;= 180)</td>
+                        <td align="right">${Diag_HIGH3_SystolicRange}</td>
                         <td align="right">${Q1_Diag_HIGH3_SystolicPercent}</td>
                         <td align="right">${Q1_Diag_HIGH3_SystolicCount}</td>
-                        <td align="right">(&gt;= 110)</td>
+                        <td align="right">${Diag_HIGH3_DiastolicRange}</td>
                         <td align="right">${Q1_Diag_HIGH3_DiastolicPercent}</td>
                         <td align="right">${Q1_Diag_HIGH3_DiastolicCount}</td>
-                        <td align="right">(&gt;= 180)</td>
+                        <td align="right">${Diag_HIGH3_SystolicRange}</td>
                         <td align="right">${Q0_Diag_HIGH3_SystolicPercent}</td>
                         <td align="right">${Q0_Diag_HIGH3_SystolicCount}</td>
-                        <td align="right">(&gt;= 110)</td>
+                        <td align="right">${Diag_HIGH3_DiastolicRange}</td>
                         <td align="right">${Q0_Diag_HIGH3_DiastolicPercent}</td>
                         <td align="right">${Q0_Diag_HIGH3_DiastolicCount}</td>
                       </tr>
@@ -0,0 +1,490 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.bloodpressure.report;
+
+import static java.nio.file.Files.writeString;
+import static org.apiguardian.api.API.Status.STABLE;
+import static org.knowm.xchart.VectorGraphicsEncoder.VectorGraphicsFormat.SVG;
+import static org.knowm.xchart.VectorGraphicsEncoder.saveVectorGraphic;
+import static org.tquadrat.bloodpressure.Application.MSG_InvalidPeriods;
+import static org.tquadrat.bloodpressure.ReportFormat.HTML;
+import static org.tquadrat.bloodpressure.ReportFormat.HTML_EMBEDDED;
+import static org.tquadrat.bloodpressure.spi.ReportBase.DestinationType.DEST_FILE;
+import static org.tquadrat.foundation.i18n.TextUse.CAPTION;
+import static org.tquadrat.foundation.i18n.TextUse.TXT;
+import static org.tquadrat.foundation.lang.CommonConstants.UTF8;
+import static org.tquadrat.foundation.lang.Objects.isNull;
+import static org.tquadrat.foundation.util.StringUtils.format;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.Callable;
+import java.util.stream.Stream;
+
+import org.apiguardian.api.API;
+import org.knowm.xchart.XYChart;
+import org.tquadrat.bloodpressure.DataNode;
+import org.tquadrat.bloodpressure.Diagnosis;
+import org.tquadrat.bloodpressure.ReportFormat;
+import org.tquadrat.bloodpressure.spi.ChartTheme;
+import org.tquadrat.bloodpressure.spi.DailyAggregate;
+import org.tquadrat.bloodpressure.spi.PeriodBuckets;
+import org.tquadrat.bloodpressure.spi.ReportBase;
+import org.tquadrat.bloodpressure.spi.ReportStatistics;
+import org.tquadrat.foundation.annotation.ClassVersion;
+import org.tquadrat.foundation.exception.UnsupportedEnumError;
+import org.tquadrat.foundation.util.Template;
+
+/**
+ *  <p>{@summary An implementation of
+ *  {@link org.tquadrat.bloodpressure.Report}
+ *  that provides a report comparing any number of periods.}</p>
+ *  <p>The periods are either the last
+ *  {@linkplain org.tquadrat.bloodpressure.Configuration#getCompareCount() n}
+ *  weeks, months, quarters or years, including the current one, or the
+ *  {@linkplain org.tquadrat.bloodpressure.Configuration#getComparePeriods() custom periods}
+ *  from the configuration.</p>
+ *  <p>The data for all periods is loaded with a single scan from the first
+ *  day of the first period to the last day of the last period, and then
+ *  {@linkplain PeriodBuckets distributed}
+ *  to the periods in a single pass. The charts for the periods are rendered
+ *  concurrently.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.1.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = STABLE, since = "0.1.0" )
+public final class PeriodCompareReport extends ReportBase
+{
+        /*-----------*\
+    ====** Constants **========================================================
+        \*-----------*/
+    /**
+     *  The width of the chart for a single period, in pixels: {@value}.
+     */
+    private static final int CHART_WIDTH = 400;
+
+    /**
+     *  The default number of periods: {@value}.
+     */
+    public static final int DEFAULT_COMPARE_COUNT = 4;
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates a new instance of {@code PeriodCompareReport}.
+     */
+    public PeriodCompareReport()
+    {
+        super( "PERIODS", HTML, HTML_EMBEDDED );
+    }   //  PeriodCompareReport()
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Adds the given values and their assessment to the contents of the
+     *  report.
+     *
+     *  @param  contents    The contents of the report.
+     *  @param  key The key for the values.
+     *  @param  values  The values; {@code null} if there are no
+     *      measurements in the period.
+     */
+    private final void addValues( final Map<String,String> contents, final String key, final DataNode values )
+    {
+        contents.put( key + "Systolic", isNull( values ) ? "-" : format( "% 3d", values.systolic() ) );
+        contents.put( key + "Diastolic", isNull( values ) ? "-" : format( "% 3d", values.diastolic() ) );
+        contents.put( key + "PulsePressure", isNull( values ) ? "-" : format( "% 3d", values.pulsePressure() ) );
+        contents.put( key + "Assessment", isNull( values ) ? "" : assessData( values ).toString() );
+    }   //  addValues()
+
+    /**
+     *  Appends a table row with the given cells for each period to the given
+     *  buffer.
+     *
+     *  @param  buffer  The buffer.
+     *  @param  header  The header cell of the row.
+     *  @param  count   The number of periods.
+     *  @param  cells   The patterns for the cells of a period; the index of
+     *      the period is the first argument for the pattern.
+     */
+    private static final void appendRow( final StringBuilder buffer, final String header, final int count, final String... cells )
+    {
+        buffer.append( "      <tr>\n        " ).append( header ).append( '\n' );
+        for( var i = 0; i < count; ++i )
+        {
+            for( final var cell : cells ) buffer.append( "        " ).append( format( cell, i ) ).append( '\n' );
+        }
+        buffer.append( "      </tr>\n" );
+    }   //  appendRow()
+
+    /**
+     *  Collects the data for one period.
+     *
+     *  @param  contents    The target for the collected data.
+     *  @param  index   The index of the period.
+     *  @param  period  The period.
+     *  @param  statistics  The statistics for the period.
+     *  @param  chart   The chart for the period.
+     */
+    private final void collectPeriodData( final Map<String,String> contents, final int index, final PeriodBuckets.Period period, final ReportStatistics statistics, final String chart )
+    {
+        final var prefix = format( "P%d_", index );
+        final var hasData = statistics.getDayCount() > 0;
+        contents.put( format( "P%d", index ), format( "%s – %s", period.start(), period.end() ) );
+        contents.put( prefix + "FirstDay", hasData ? statistics.getFirstDay().toString() : "-" );
+        contents.put( prefix + "LastDay", hasData ? statistics.getLastDay().toString() : "-" );
+        contents.put( prefix + "TotalDays", format( "% 4d", statistics.getTotalDays() ) );
+        contents.put( prefix + "DayCount", format( "% 4d", statistics.getDayCount() ) );
+        contents.put( prefix + "TotalCount", format( "% 4d", statistics.getMeasurementCount() ) );
+        addValues( contents, prefix + "Average", statistics.getAverage() );
+        addValues( contents, prefix + "WeightedAverage", statistics.getWeightedAverage() );
+        addValues( contents, prefix + "Median", statistics.getMedian() );
+        addVariability( contents, prefix, statistics );
+        addTrend( contents, prefix, statistics );
+        contents.put( prefix + "Chart", chart );
+
+        final var distribution = statistics.getDistribution();
+        for( final var diag : Diagnosis.values() )
+        {
+            final var node = distribution.get( diag );
+            contents.put( format( "%sDiag_%s_SystolicPercent", prefix, diag.name() ), hasData ? format( "% 5.1f%%", node.getSystolicPercentage() ) : "-" );
+            contents.put( format( "%sDiag_%s_SystolicCount", prefix, diag.name() ), format( "% 4d", node.getSystolicCount() ) );
+            contents.put( format( "%sDiag_%s_DiastolicPercent", prefix, diag.name() ), hasData ? format( "% 5.1f%%", node.getDiastolicPercentage() ) : "-" );
+            contents.put( format( "%sDiag_%s_DiastolicCount", prefix, diag.name() ), format( "% 4d", node.getDiastolicCount() ) );
+        }
+    }   //  collectPeriodData()
+
+    /**
+     *  Composes the template for the charts of the given number of
+     *  periods.
+     *
+     *  @param  count   The number of periods.
+     *  @return The template.
+     */
+    private static final String composeChartsTemplate( final int count )
+    {
+        final var buffer = new StringBuilder();
+        for( var i = 0; i < count; ++i )
+        {
+            buffer.append( format( "<h3>${P%1$d}</h3>\n<div class=\"svg\">${P%1$d_Chart}</div>\n", i ) );
+        }
+        final var retValue = buffer.toString();
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  composeChartsTemplate()
+
+    /**
+     *  Composes the template for the distribution table for the given
+     *  number of periods.
+     *
+     *  @param  count   The number of periods.
+     *  @return The template.
+     */
+    private static final String composeDistributionTemplate( final int count )
+    {
+        final var buffer = new StringBuilder( "<table border = \"1\">\n  <thead>\n" );
+        appendRow( buffer, "<th rowspan=\"2\"/>", count, "<th align=\"center\" colspan=\"6\">${P%d}</th>" );
+        appendRow( buffer, "", count, "<th colspan=\"3\">${DistributionColumn1Header}</th>", "<th colspan=\"3\">${DistributionColumn2Header}</th>" );
+        buffer.append( "  </thead>\n  <tbody>\n" );
+        for( final var diag : Diagnosis.values() )
+        {
+            final var name = diag.name();
+            appendRow( buffer, format( "<th>${Diag_%s}</th>", name ), count,
+                format( "<td align=\"right\">${Diag_%s_SystolicRange}</td>", name ),
+                format( "<td align=\"right\">${P%%d_Diag_%s_SystolicPercent}</td>", name ),
+                format( "<td align=\"right\">${P%%d_Diag_%s_SystolicCount}</td>", name ),
+                format( "<td align=\"right\">${Diag_%s_DiastolicRange}</td>", name ),
+                format( "<td align=\"right\">${P%%d_Diag_%s_DiastolicPercent}</td>", name ),
+                format( "<td align=\"right\">${P%%d_Diag_%s_DiastolicCount}</td>", name ) );
+        }
+        buffer.append( "  </tbody>\n</table>\n" );
+        final var retValue = buffer.toString();
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  composeDistributionTemplate()
+
+    /**
+     *  Composes the template for the statistics table for the given number
+     *  of periods.
+     *
+     *  @param  count   The number of periods.
+     *  @return The template.
+     */
+    private static final String composeStatisticsTemplate( final int count )
+    {
+        final var buffer = new StringBuilder( "<table border = \"1\">\n  <thead>\n" );
+        appendRow( buffer, "<th/>", count, "<th align=\"center\" colspan=\"4\">${P%d}</th>" );
+        buffer.append( "  </thead>\n  <tbody>\n" );
+        appendRow( buffer, "<th align=\"right\">${FirstDayCaption}</th>", count, "<td align=\"center\" colspan=\"4\">${P%d_FirstDay}</td>" );
+        appendRow( buffer, "<th align=\"right\">${LastDayCaption}</th>", count, "<td align=\"center\" colspan=\"4\">${P%d_LastDay}</td>" );
+        for( final var key : List.of( "TotalCount", "TotalDays", "DayCount" ) )
+        {
+            appendRow( buffer, format( "<th align=\"right\">${%sCaption}</th>", key ), count, format( "<td align=\"right\" colspan=\"4\">${P%%d_%s}</td>", key ) );
+        }
+        appendRow( buffer, "<th/>", count, "<th>${TableHeader1}</th>", "<th>${TableHeader2}</th>", "<th>${TableHeader3}</th>", "<th>${TableHeader4}</th>" );
+        for( final var key : List.of( "Average", "WeightedAverage", "Median" ) )
+        {
+            appendRow( buffer, format( "<th align=\"right\">${%sCaption}</th>", key ), count,
+                format( "<td align=\"right\">${P%%d_%sSystolic}</td>", key ),
+                format( "<td align=\"right\">${P%%d_%sDiastolic}</td>", key ),
+                format( "<td align=\"right\">${P%%d_%sPulsePressure}</td>", key ),
+                format( "<td>${P%%d_%sAssessment}</td>", key ) );
+        }
+        for( final var key : List.of( "StandardDeviation", "CoefficientOfVariation", "AverageRealVariability" ) )
+        {
+            appendRow( buffer, format( "<th align=\"right\">${%sCaption}</th>", key ), count,
+                format( "<td align=\"right\">${P%%d_%sSystolic}</td>", key ),
+                format( "<td align=\"right\">${P%%d_%sDiastolic}</td>", key ),
+                format( "<td align=\"right\">${P%%d_%sPulsePressure}</td>", key ),
+                "<td/>" );
+        }
+        for( final var key : List.of( "TrendSlope", "TrendIntercept", "TrendDetermination" ) )
+        {
+            appendRow( buffer, format( "<th align=\"right\">${%sCaption}</th>", key ), count,
+                format( "<td align=\"right\">${P%%d_%sSystolic}</td>", key ),
+                format( "<td align=\"right\">${P%%d_%sDiastolic}</td>", key ),
+                "<td/>",
+                "<td/>" );
+        }
+        buffer.append( "  </tbody>\n</table>\n" );
+        final var retValue = buffer.toString();
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  composeStatisticsTemplate()
+
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    public final void generateReport( final File destination, final ReportFormat format ) throws IOException, SQLException
+    {
+        //---* Get the data for all periods with a single scan *---------------
+        final var buckets = retrievePeriods();
+        final var periods = buckets.getPeriods();
+        final var timezone = getConfiguration().getTimezone();
+        final SortedMap<LocalDate,DailyAggregate> dailyData;
+        final SortedMap<LocalDateTime,DataNode> totalData;
+        try( final var store = openSnapshot() )
+        {
+            dailyData = loadDailyData( store, timezone, buckets.getFirstDay(), buckets.getLastDay() );
+            totalData = loadData( store, timezone, buckets.getFirstDay(), buckets.getLastDay() ).data();
+        }
+
+        //---* Distribute the data to the periods *----------------------------
+        final var dailyBuckets = buckets.distribute( dailyData, day -> day );
+        final var valueBuckets = buckets.distribute( totalData, LocalDateTime::toLocalDate );
+
+        //---* Render the charts concurrently *--------------------------------
+        final var systolicLegend = retrieveText( TXT, "Systolic" );
+        final var diastolicLegend = retrieveText( TXT, "Diastolic" );
+        final List<Callable<String>> tasks = new ArrayList<>( periods.size() );
+        for( final var values : valueBuckets ) tasks.add( () -> renderChart( values, systolicLegend, diastolicLegend ) );
+        final var charts = computeConcurrently( tasks );
+
+        //---* Gather the contents *-------------------------------------------
+        final Map<String,String> contents = new HashMap<>();
+        for( var i = 0; i < periods.size(); ++i )
+        {
+            collectPeriodData( contents, i, periods.get( i ), calculateStatistics( dailyBuckets.get( i ) ), charts.get( i ) );
+        }
+        contents.put( "Language", getConfiguration().getLocale().getLanguage() );
+        contents.put( "Headline", retrieveText( TXT, "Headline" ) );
+        contents.put( "Name", getConfiguration().getName() );
+        contents.put( "Birthdate", getConfiguration().getBirthdate().toString() );
+        contents.put( "NameCaption", retrieveText( CAPTION, "Name" ) );
+        contents.put( "CreationDate", LocalDate.now( getConfiguration().getClock() ).toString() );
+        contents.put( "CreationCaption", retrieveText( CAPTION, "Created" ) );
+        contents.put( "FirstDayCaption", retrieveText( CAPTION, "FirstDay" ) );
+        contents.put( "LastDayCaption", retrieveText( CAPTION, "LastDay" ) );
+        contents.put( "TotalDaysCaption", retrieveText( CAPTION, "TotalDays" ) );
+        contents.put( "DayCountCaption", retrieveText( CAPTION, "DayCount" ) );
+        contents.put( "TotalCountCaption", retrieveText( CAPTION, "TotalCount" ) );
+        contents.put( "TableHeader1", retrieveText( TXT, "TableHeader1" ) );
+        contents.put( "TableHeader2", retrieveText( TXT, "TableHeader2" ) );
+        contents.put( "TableHeader3", retrieveText( TXT, "TableHeader3" ) );
+        contents.put( "TableHeader4", retrieveText( TXT, "TableHeader4" ) );
+        contents.put( "AverageCaption", retrieveText( CAPTION, "Average" ) );
+        contents.put( "WeightedAverageCaption", retrieveText( CAPTION, "WeightedAverage" ) );
+        contents.put( "MedianCaption", retrieveText( CAPTION, "Median" ) );
+        contents.put( "StandardDeviationCaption", retrieveText( CAPTION, "StandardDeviation" ) );
+        contents.put( "CoefficientOfVariationCaption", retrieveText( CAPTION, "CoefficientOfVariation" ) );
+        contents.put( "AverageRealVariabilityCaption", retrieveText( CAPTION, "AverageRealVariability" ) );
+        contents.put( "TrendSlopeCaption", retrieveText( CAPTION, "TrendSlope" ) );
+        contents.put( "TrendInterceptCaption", retrieveText( CAPTION, "TrendIntercept" ) );
+        contents.put( "TrendDeterminationCaption", retrieveText( CAPTION, "TrendDetermination" ) );
+        contents.put( "DistributionCaption", retrieveText( CAPTION, "Distribution" ) );
+        contents.put( "DistributionColumn1Header", retrieveText( CAPTION, "DistributionColumn1" ) );
+        contents.put( "DistributionColumn2Header", retrieveText( CAPTION, "DistributionColumn2" ) );
+        contents.put( "ChartsCaption", retrieveText( CAPTION, "Charts" ) );
+        contents.put( "Disclaimer", retrieveText( TXT, "Disclaimer" ) );
+
+        final var maxLenDiagnosisText = Stream.of( Diagnosis.values() )
+            .map( Diagnosis::toString )
+            .mapToInt( String::length )
+            .max()
+            .orElse( 0 );
+        final var diagFormat = format( "%%%ds", maxLenDiagnosisText );
+        addBandLabels( contents );
+        for( final var diag : Diagnosis.values() )
+        {
+            contents.put( format( "Diag_%s", diag.name() ), format( diagFormat, diag.toString() ) );
+        }
+
+        //---* Create the tables for the number of periods *-------------------
+        contents.put( "StatisticsTable", new Template( composeStatisticsTemplate( periods.size() ) ).replaceVariable( contents ) );
+        contents.put( "DistributionTable", new Template( composeDistributionTemplate( periods.size() ) ).replaceVariable( contents ) );
+        contents.put( "Charts", new Template( composeChartsTemplate( periods.size() ) ).replaceVariable( contents ) );
+
+        //---* Create the output *---------------------------------------------
+        switch( format )
+        {
+            case HTML, HTML_EMBEDDED -> generateHTMLReport( destination, contents );
+            default -> throw new UnsupportedEnumError( format );
+        }
+    }   //  generateReport()
+
+    /**
+     *  Generates the report in
+     *  {@link ReportFormat#HTML}
+     *  or
+     *  {@link ReportFormat#HTML_EMBEDDED}
+     *  format.
+     *
+     *  @param destination  The output file.
+     *  @param contents The map with the report data.
+     *  @throws IOException An error occurred while writing to the destination.
+     */
+    private final void generateHTMLReport( final File destination, final Map<String,String> contents ) throws IOException
+    {
+        final var targetFile = checkDestination( destination, DEST_FILE );
+        final var template = new Template(
+            """
+                <!DOCTYPE html>
+                <html lang="${Language}">
+                  <head>
+                    <meta charset="utf-8">
+                    <title>${Headline} ${NameCaption} ${Name} (${Birthdate})</title>
+                  </head>
+                  <body>
+                  <h1>${Headline}</h1>
+                  <p>${NameCaption} <b>${Name}</b> (${Birthdate})</p>
+                  <p>${CreationCaption} <b>${CreationDate}</b></p>
+                  <hr>
+                  ${StatisticsTable}
+                  <br>
+                  <h2>${DistributionCaption}</h2>
+                  ${DistributionTable}
+                  <br>
+                  <h2>${ChartsCaption}</h2>
+                  ${Charts}
+                  <br>
+                  <p>${Disclaimer}</p>
+                  </body>
+                </html>
+                """
+        );
+        writeString( targetFile, template.replaceVariable( contents ), UTF8 );
+    }   //  generateHTMLReport()
+
+    /**
+     *  Renders the chart with the single values for a period.
+     *
+     *  @param  data    The single values for the period.
+     *  @param  systolicLegend  The legend for the systolic values.
+     *  @param  diastolicLegend The legend for the diastolic values.
+     *  @return The chart, as SVG.
+     *  @throws IOException A problem occurred when creating the chart.
+     */
+    private final String renderChart( final SortedMap<LocalDateTime,DataNode> data, final String systolicLegend, final String diastolicLegend ) throws IOException
+    {
+        final var height = CHART_WIDTH / 5 * 3;
+        final var theme = new ChartTheme();
+        final var chart = new XYChart( CHART_WIDTH, height, theme );
+        final var categories = new ArrayList<Date>();
+        final var systolicValues = new ArrayList<Integer>();
+        final var diastolicValues = new ArrayList<Integer>();
+        for( final var entry : data.entrySet() )
+        {
+            categories.add( new Date( entry.getKey().atZone( getConfiguration().getTimezone() ).toInstant().toEpochMilli() ) );
+            final var node = entry.getValue();
+            systolicValues.add( Integer.valueOf( node.systolic() ) );
+            diastolicValues.add( Integer.valueOf( node.diastolic() ) );
+        }
+        final var diastolicSeries = chart.addSeries( diastolicLegend, categories, diastolicValues );
+        diastolicSeries.setSmooth( true );
+        final var systolicSeries = chart.addSeries( systolicLegend, categories, systolicValues );
+        systolicSeries.setSmooth( true );
+        final var outputStream = new ByteArrayOutputStream();
+        saveVectorGraphic( chart, outputStream, SVG );
+        final var retValue = outputStream.toString( UTF8 );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  renderChart()
+
+    /**
+     *  Returns the periods for the report from the configuration.
+     *
+     *  @return The periods.
+     *  @throws IOException The periods are invalid.
+     */
+    private final PeriodBuckets retrievePeriods() throws IOException
+    {
+        final var configuration = getConfiguration();
+        final var periods = configuration.getComparePeriods();
+        final PeriodBuckets retValue;
+        try
+        {
+            retValue = periods.isPresent()
+                ? PeriodBuckets.parse( periods.get() )
+                : PeriodBuckets.of( configuration.getCompareResolution(), LocalDate.now( configuration.getClock() ), configuration.getCompareCount() );
+        }
+        catch( final IllegalArgumentException e )
+        {
+            final var text = periods.orElseGet( () -> format( "%d %s", configuration.getCompareCount(), configuration.getCompareResolution() ) );
+            throw new IOException( configuration.getMessage( MSG_InvalidPeriods, text ), e );
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  retrievePeriods()
+}
+//  class PeriodCompareReport
+
+/*
+ *  End of File
+ */
@@ -38,7 +38,6 @@ import static org.tquadrat.foundation.util.StringUtils.format;
 import java.io.File;
 import java.io.IOException;
 import java.sql.SQLException;
-import java.time.Duration;
 import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
@@ -47,9 +46,9 @@ import java.util.SortedMap;
 import java.util.stream.Stream;
 
 import org.apiguardian.api.API;
-import org.tquadrat.bloodpressure.DataNode;
 import org.tquadrat.bloodpressure.Diagnosis;
 import org.tquadrat.bloodpressure.ReportFormat;
+import org.tquadrat.bloodpressure.spi.DailyAggregate;
 import org.tquadrat.bloodpressure.spi.ReportBase;
 import org.tquadrat.foundation.annotation.ClassVersion;
 import org.tquadrat.foundation.exception.UnsupportedEnumError;
@@ -90,26 +89,23 @@ public final class SimpleReport extends ReportBase
     public final void generateReport( final File destination, final ReportFormat format ) throws IOException, SQLException
     {
         //---* Get the data *--------------------------------------------------
-        final int numberOfMeasuring;
-        final SortedMap<LocalDate, DataNode> data;
-        final Map<Diagnosis,DistributionNode> distribution;
-        try( final var connection = getConfiguration().retrieveConnection() )
+        final SortedMap<LocalDate,DailyAggregate> dailyData;
+        try( final var store = openSnapshot() )
         {
-            final var totalData = loadData( connection, getConfiguration().getTimezone(), getConfiguration().getStartDate(), getConfiguration().getEndDate() );
-            numberOfMeasuring = totalData.size();
-            data = compressToDay( totalData );
-            distribution = distributeData( totalData );
+            dailyData = loadDailyData( store, getConfiguration().getTimezone(), getConfiguration().getStartDate(), getConfiguration().getEndDate() );
         }
+        final var statistics = calculateStatistics( dailyData );
+        final var numberOfMeasuring = statistics.getMeasurementCount();
+        final var distribution = statistics.getDistribution();
 
-        final var firstDay = data.firstKey();
-        final var lastDay = data.lastKey();
-        final var duration = Duration.between( firstDay.atStartOfDay(), lastDay.plusDays( 1 ).atStartOfDay() );
-        final var totalDays = duration.toDays();
-        final var dayCount = data.size();
+        final var firstDay = statistics.getFirstDay();
+        final var lastDay = statistics.getLastDay();
+        final var totalDays = statistics.getTotalDays();
+        final var dayCount = statistics.getDayCount();
 
-        final var average = calculateAverage( data );
-        final var weightedAverage = calculateEndWeightedAverage( data );
-        final var median = calculateMedian( data );
+        final var average = statistics.getAverage();
+        final var weightedAverage = statistics.getWeightedAverage();
+        final var median = statistics.getMedian();
 
         //---* Gather the contents *-------------------------------------------
         final Map<String,String> contents = new HashMap<>();
@@ -161,10 +157,11 @@ public final class SimpleReport extends ReportBase
         final var diagFormat = format( "%%%ds", maxLenDiagnosisText );
 
         contents.put( "Diag_Filler", " ".repeat( maxLenDiagnosisText ) );
+        addBandLabels( contents );
 
         for( final var diag : List.of( LOW, OPTIMAL, NORMAL, NORMAL_HIGH, HIGH1, HIGH2, HIGH3 ) )
         {
-            final var node = distribution.computeIfAbsent( diag, DistributionNode::new );
+            final var node = distribution.get( diag );
             contents.put( format( "Diag_%s", diag.name() ), format( diagFormat, diag.toString() ) );
             contents.put( format( "Diag_%s_SystolicPercent", diag.name() ), format( "% 5.1f%%", node.getSystolicPercentage() ) );
             contents.put( format( "Diag_%s_SystolicCount", diag.name() ), format( "% 4d", node.getSystolicCount() ) );
@@ -275,64 +272,64 @@ public final class SimpleReport extends ReportBase
                     <tbody>
                       <tr>
                         <th>${Diag_LOW}</th>
-                        <td align="right">(&lt; 105)</td>
+                        <td align="right">${Diag_LOW_SystolicRange}</td>
                         <td align="right">${Diag_LOW_SystolicPercent}</td>
                         <td align="right">${Diag_LOW_SystolicCount}</td>
-                        <td align="right">(&lt; 65)</td>
+                        <td align="right">${Diag_LOW_DiastolicRange}</td>
                         <td align="right">${Diag_LOW_DiastolicPercent}</td>
                         <td align="right">${Diag_LOW_DiastolicCount}</td>
                       </tr>
                       <tr>
                         <th>${Diag_OPTIMAL}</th>
-                        <td align="right">(105-119)</td>
+                        <td align="right">${Diag_OPTIMAL_SystolicRange}</td>
                         <td align="right">${Diag_OPTIMAL_SystolicPercent}</td>
                         <td align="right">${Diag_OPTIMAL_SystolicCount}</td>
-                        <td align="right">(65-79)</td>
+                        <td align="right">${Diag_OPTIMAL_DiastolicRange}</td>
                         <td align="right">${Diag_OPTIMAL_DiastolicPercent}</td>
                         <td align="right">${Diag_OPTIMAL_DiastolicCount}</td>
                       </tr>
                       <tr>
                         <th>${Diag_NORMAL}</th>
-                        <td align="right">(120-129)</td>
+                        <td align="right">${Diag_NORMAL_SystolicRange}</td>
                         <td align="right">${Diag_NORMAL_SystolicPercent}</td>
                         <td align="right">${Diag_NORMAL_SystolicCount}</td>
-                        <td align="right">(80-84)</td>
+                        <td align="right">${Diag_NORMAL_DiastolicRange}</td>
                         <td align="right">${Diag_NORMAL_DiastolicPercent}</td>
                         <td align="right">${Diag_NORMAL_DiastolicCount}</td>
                       </tr>
                       <tr>
                         <th>${Diag_NORMAL_HIGH}</th>
-                        <td align="right">(130-139)</td>
+                        <td align="right">${Diag_NORMAL_HIGH_SystolicRange}</td>
                         <td align="right">${Diag_NORMAL_HIGH_SystolicPercent}</td>
                         <td align="right">${Diag_NORMAL_HIGH_SystolicCount}</td>
-                        <td align="right">(85-89)</td>
+                        <td align="right">${Diag_NORMAL_HIGH_DiastolicRange}</td>
                         <td align="right">${Diag_NORMAL_HIGH_DiastolicPercent}</td>
                         <td align="right">${Diag_NORMAL_HIGH_DiastolicCount}</td>
                       </tr>
                       <tr>
                         <th>${Diag_HIGH1}</th>
-                        <td align="right">(140-159)</td>
+                        <td align="right">${Diag_HIGH1_SystolicRange}</td>
                         <td align="right">${Diag_HIGH1_SystolicPercent}</td>
                         <td align="right">${Diag_HIGH1_SystolicCount}</td>
-                        <td align="right">(90-99)</td>
+                        <td align="right">${Diag_HIGH1_DiastolicRange}</td>
                         <td align="right">${Diag_HIGH1_DiastolicPercent}</td>
                         <td align="right">${Diag_HIGH1_DiastolicCount}</td>
                       </tr>
                       <tr>
                         <th>${Diag_HIGH2}</th>
-                        <td align="right">(160-179)</td>
+                        <td align="right">${Diag_HIGH2_SystolicRange}</td>
                         <td align="right">${Diag_HIGH2_SystolicPercent}</td>
                         <td align="right">${Diag_HIGH2_SystolicCount}</td>
-                        <td align="right">(100-109)</td>
+                        <td align="right">${Diag_HIGH2_DiastolicRange}</td>
                         <td align="right">${Diag_HIGH2_DiastolicPercent}</td>
                         <td align="right">${Diag_HIGH2_DiastolicCount}</td>
                       </tr>
                       <tr>
                         <th>${Diag_HIGH3}</th>
-                        <td align="right">(&gt;= 180)</td>
+                        <td align="right">${Diag_HIGH3_SystolicRange}</td>
                         <td align="right">${Diag_HIGH3_SystolicPercent}</td>
                         <td align="right">${Diag_HIGH3_SystolicCount}</td>
-                        <td align="right">(&gt;= 110)</td>
+                        <td align="right">${Diag_HIGH3_DiastolicRange}</td>
                         <td align="right">${Diag_HIGH3_DiastolicPercent}</td>
                         <td align="right">${Diag_HIGH3_DiastolicCount}</td>
                       </tr>
@@ -381,13 +378,13 @@ public final class SimpleReport extends ReportBase
                 
                 ${DistributionCaption}
                 ${Diag_Filler}  ${DistributionColumn1Header} ${DistributionColumn2Header}
-                ${Diag_LOW}  (< 105)    ${Diag_LOW_SystolicPercent}   (< 65)    ${Diag_LOW_DiastolicPercent}
-                ${Diag_OPTIMAL}  (105-119)  ${Diag_OPTIMAL_SystolicPercent}   (65-79)   ${Diag_OPTIMAL_DiastolicPercent}
-                ${Diag_NORMAL}  (120-129)  ${Diag_NORMAL_SystolicPercent}   (80-84)   ${Diag_NORMAL_DiastolicPercent}
-                ${Diag_NORMAL_HIGH}  (130-139)  ${Diag_NORMAL_HIGH_SystolicPercent}   (85-89)   ${Diag_NORMAL_HIGH_DiastolicPercent}
-                ${Diag_HIGH1}  (140-159)  ${Diag_HIGH1_SystolicPercent}   (90-99)   ${Diag_HIGH1_DiastolicPercent}
-                ${Diag_HIGH2}  (160-179)  ${Diag_HIGH2_SystolicPercent}   (100-109) ${Diag_HIGH2_DiastolicPercent}
-                ${Diag_HIGH3}  (>= 180)   ${Diag_HIGH3_SystolicPercent}   (>= 110)  ${Diag_HIGH3_DiastolicPercent}
+                ${Diag_LOW}  ${Diag_LOW_SystolicRangeText}  ${Diag_LOW_SystolicPercent}   ${Diag_LOW_DiastolicRangeText} ${Diag_LOW_DiastolicPercent}
+                ${Diag_OPTIMAL}  ${Diag_OPTIMAL_SystolicRangeText}  ${Diag_OPTIMAL_SystolicPercent}   ${Diag_OPTIMAL_DiastolicRangeText} ${Diag_OPTIMAL_DiastolicPercent}
+                ${Diag_NORMAL}  ${Diag_NORMAL_SystolicRangeText}  ${Diag_NORMAL_SystolicPercent}   ${Diag_NORMAL_DiastolicRangeText} ${Diag_NORMAL_DiastolicPercent}
+                ${Diag_NORMAL_HIGH}  ${Diag_NORMAL_HIGH_SystolicRangeText}  ${Diag_NORMAL_HIGH_SystolicPercent}   ${Diag_NORMAL_HIGH_DiastolicRangeText} ${Diag_NORMAL_HIGH_DiastolicPercent}
+                ${Diag_HIGH1}  ${Diag_HIGH1_SystolicRangeText}  ${Diag_HIGH1_SystolicPercent}   ${Diag_HIGH1_DiastolicRangeText} ${Diag_HIGH1_DiastolicPercent}
+                ${Diag_HIGH2}  ${Diag_HIGH2_SystolicRangeText}  ${Diag_HIGH2_SystolicPercent}   ${Diag_HIGH2_DiastolicRangeText} ${Diag_HIGH2_DiastolicPercent}
+                ${Diag_HIGH3}  ${Diag_HIGH3_SystolicRangeText}  ${Diag_HIGH3_SystolicPercent}   ${Diag_HIGH3_DiastolicRangeText} ${Diag_HIGH3_DiastolicPercent}
                 
                 ${Disclaimer}
                 """
@@ -18,6 +18,7 @@
 package org.tquadrat.bloodpressure.report;
 
 import static java.nio.file.Files.writeString;
+import static java.time.LocalTime.NOON;
 import static org.apiguardian.api.API.Status.STABLE;
 import static org.knowm.xchart.VectorGraphicsEncoder.VectorGraphicsFormat.SVG;
 import static org.knowm.xchart.VectorGraphicsEncoder.saveVectorGraphic;
@@ -40,7 +41,6 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.sql.SQLException;
-import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -52,10 +52,12 @@ import java.util.SortedMap;
 import java.util.stream.Stream;
 
 import org.apiguardian.api.API;
+import org.knowm.xchart.XYChart;
 import org.tquadrat.bloodpressure.DataNode;
 import org.tquadrat.bloodpressure.Diagnosis;
 import org.tquadrat.bloodpressure.ReportFormat;
 import org.tquadrat.bloodpressure.spi.ChartTheme;
+import org.tquadrat.bloodpressure.spi.DailyAggregate;
 import org.tquadrat.bloodpressure.spi.ReportBase;
 import org.tquadrat.foundation.annotation.ClassVersion;
 import org.tquadrat.foundation.exception.UnsupportedEnumError;
@@ -89,6 +91,32 @@ public final class StandardReport extends ReportBase
         /*---------*\
     ====** Methods **==========================================================
         \*---------*/
+    /**
+     *  Adds the moving averages of the systolic and the diastolic values as
+     *  series to the given chart.
+     *
+     *  @param  chart   The chart.
+     *  @param  averages    The moving averages per day.
+     *  @param  days    The length of the window for the moving averages.
+     */
+    private final void addMovingAverageSeries( final XYChart chart, final SortedMap<LocalDate,DataNode> averages, final int days )
+    {
+        final var categories = new ArrayList<Date>();
+        final var systolicValues = new ArrayList<Integer>();
+        final var diastolicValues = new ArrayList<Integer>();
+        for( final var entry : averages.entrySet() )
+        {
+            categories.add( new Date( entry.getKey().atTime( NOON ).atZone( getConfiguration().getTimezone() ).toInstant().toEpochMilli() ) );
+            final var node = entry.getValue();
+            systolicValues.add( Integer.valueOf( node.systolic() ) );
+            diastolicValues.add( Integer.valueOf( node.diastolic() ) );
+        }
+        final var diastolicSeries = chart.addSeries( retrieveText( TXT, format( "DiastolicMovingAverage%d", days ) ), categories, diastolicValues );
+        diastolicSeries.setSmooth( true );
+        final var systolicSeries = chart.addSeries( retrieveText( TXT, format( "SystolicMovingAverage%d", days ) ), categories, systolicValues );
+        systolicSeries.setSmooth( true );
+    }   //  addMovingAverageSeries()
+
     /**
      *  {@inheritDoc}
      */
@@ -96,30 +124,39 @@ public final class StandardReport extends ReportBase
     public final void generateReport( final File destination, final ReportFormat format ) throws IOException, SQLException
     {
         //---* Get the data *--------------------------------------------------
-        final SortedMap<LocalDateTime,DataNode> totalData;
-        try( final var connection = getConfiguration().retrieveConnection() )
+        final SortedMap<LocalDate,DailyAggregate> dailyData;
+        final MeasurementScan scan;
+        try( final var store = openSnapshot() )
         {
-            totalData = loadData( connection, getConfiguration().getTimezone(), getConfiguration().getStartDate(), getConfiguration().getEndDate() );
+            dailyData = loadDailyData( store, getConfiguration().getTimezone(), getConfiguration().getStartDate(), getConfiguration().getEndDate() );
+
+            //---* The chart shows the single values *-------------------------
+            scan = loadData( store, getConfiguration().getTimezone(), getConfiguration().getStartDate(), getConfiguration().getEndDate() );
         }
-        final var numberOfMeasuring = totalData.size();
-        final SortedMap<LocalDate,DataNode> data = compressToDay( totalData );
-        final Map<Diagnosis,DistributionNode> distribution = distributeData( totalData );
+        final var totalData = scan.data();
+        final var statistics = calculateStatistics( dailyData );
+        final var numberOfMeasuring = statistics.getMeasurementCount();
+        final var distribution = statistics.getDistribution();
 
-        final var firstDay = data.firstKey();
-        final var lastDay = data.lastKey();
-        final var duration = Duration.between( firstDay.atStartOfDay(), lastDay.plusDays( 1 ).atStartOfDay() );
-        final var totalDays = duration.toDays();
-        final var dayCount = data.size();
+        final var firstDay = statistics.getFirstDay();
+        final var lastDay = statistics.getLastDay();
+        final var totalDays = statistics.getTotalDays();
+        final var dayCount = statistics.getDayCount();
 
-        final var average = calculateAverage( data );
-        final var weightedAverage = calculateEndWeightedAverage( data );
-        final var median = calculateMedian( data );
+        final var average = statistics.getAverage();
+        final var weightedAverage = statistics.getWeightedAverage();
+        final var median = statistics.getMedian();
+
+        final var shortMovingAverages = calculateMovingAverages( statistics.getDailyValues(), SHORT_MOVING_AVERAGE );
+        final var longMovingAverages = calculateMovingAverages( statistics.getDailyValues(), LONG_MOVING_AVERAGE );
+        final var shortMovingAverage = shortMovingAverages.get( shortMovingAverages.lastKey() );
+        final var longMovingAverage = longMovingAverages.get( longMovingAverages.lastKey() );
 
         //---* Create the chart *----------------------------------------------
         final var width = 800;
         final var height = width / 5 * 3;
         final var theme = new ChartTheme();
-        final var chart = new org.knowm.xchart.XYChart( width, height, theme );
+        final var chart = new XYChart( width, height, theme );
         final var categories = new ArrayList<Date>();
         final var systolicValues = new ArrayList<Integer>();
         final var diastolicValues = new ArrayList<Integer>();
@@ -132,6 +169,8 @@ public final class StandardReport extends ReportBase
         }
         chart.addSeries( retrieveText( TXT, "Diastolic" ), categories, diastolicValues );
         chart.addSeries( retrieveText( TXT, "Systolic" ), categories, systolicValues );
+        addMovingAverageSeries( chart, shortMovingAverages, SHORT_MOVING_AVERAGE );
+        addMovingAverageSeries( chart, longMovingAverages, LONG_MOVING_AVERAGE );
         final var outputStream = new ByteArrayOutputStream();
         saveVectorGraphic( chart, outputStream, SVG );
 
@@ -154,6 +193,8 @@ public final class StandardReport extends ReportBase
         contents.put( "DayCountCaption", retrieveText( CAPTION, "DayCount" ) );
         contents.put( "TotalCount", format( "% 4d", numberOfMeasuring ) );
         contents.put( "TotalCountCaption", retrieveText( CAPTION, "TotalCount" ) );
+        contents.put( "OutlierCount", format( "% 4d", scan.outliers().size() ) );
+        contents.put( "OutlierCountCaption", retrieveText( CAPTION, "OutlierCount" ) );
         contents.put( "TableHeader", retrieveText( TXT, "TableHeader" ) );
         contents.put( "TableHeader1", retrieveText( TXT, "TableHeader1" ) );
         contents.put( "TableHeader2", retrieveText( TXT, "TableHeader2" ) );
@@ -174,6 +215,33 @@ public final class StandardReport extends ReportBase
         contents.put( "MedianDiastolic", format( "% 3d", median.diastolic() ) );
         contents.put( "MedianPulsePressure", format( "% 3d", median.pulsePressure() ) );
         contents.put( "MedianAssessment", assessData( median ).toString() );
+        contents.put( "ShortMovingAverageCaption", retrieveText( CAPTION, format( "MovingAverage%d", SHORT_MOVING_AVERAGE ) ) );
+        contents.put( "ShortMovingAverageSystolic", format( "% 3d", shortMovingAverage.systolic() ) );
+        contents.put( "ShortMovingAverageDiastolic", format( "% 3d", shortMovingAverage.diastolic() ) );
+        contents.put( "ShortMovingAveragePulsePressure", format( "% 3d", shortMovingAverage.pulsePressure() ) );
+        contents.put( "ShortMovingAverageAssessment", assessData( shortMovingAverage ).toString() );
+        contents.put( "LongMovingAverageCaption", retrieveText( CAPTION, format( "MovingAverage%d", LONG_MOVING_AVERAGE ) ) );
+        contents.put( "LongMovingAverageSystolic", format( "% 3d", longMovingAverage.systolic() ) );
+        contents.put( "LongMovingAverageDiastolic", format( "% 3d", longMovingAverage.diastolic() ) );
+        contents.put( "LongMovingAveragePulsePressure", format( "% 3d", longMovingAverage.pulsePressure() ) );
+        contents.put( "LongMovingAverageAssessment", assessData( longMovingAverage ).toString() );
+        contents.put( "StandardDeviationCaption", retrieveText( CAPTION, "StandardDeviation" ) );
+        contents.put( "CoefficientOfVariationCaption", retrieveText( CAPTION, "CoefficientOfVariation" ) );
+        contents.put( "AverageRealVariabilityCaption", retrieveText( CAPTION, "AverageRealVariability" ) );
+        addVariability( contents, "", statistics );
+        contents.put( "PercentilesCaption", retrieveText( CAPTION, "Percentiles" ) );
+        contents.put( "PercentileErrorCaption", retrieveText( CAPTION, "PercentileError" ) );
+        for( final var percentage : PERCENTILE_BANDS )
+        {
+            contents.put( format( "Percentile%dCaption", percentage ), format( "P%d", percentage ) );
+        }
+        addPercentiles( contents, "", scan.sketches() );
+        contents.put( "HeatmapCaption", retrieveText( CAPTION, "Heatmap" ) );
+        contents.put( "HeatmapLegend", retrieveText( TXT, "HeatmapLegend" ) );
+        contents.put( "Heatmap", renderHeatmap( scan.weekdayHours() ) );
+        contents.put( "OutliersCaption", retrieveText( CAPTION, "Outliers" ) );
+        contents.put( "OutliersLegend", retrieveText( TXT, "OutliersLegend" ) );
+        contents.put( "Outliers", renderOutliers( scan.outliers() ) );
         contents.put( "DistributionCaption", retrieveText( CAPTION, "Distribution" ) );
         contents.put( "DistributionColumn1Header", retrieveText( CAPTION, "DistributionColumn1" ) );
         contents.put( "DistributionColumn2Header", retrieveText( CAPTION, "DistributionColumn2" ) );
@@ -188,10 +256,11 @@ public final class StandardReport extends ReportBase
         final var diagFormat = format( "%%%ds", maxLenDiagnosisText );
 
         contents.put( "Diag_Filler", " ".repeat( maxLenDiagnosisText ) );
+        addBandLabels( contents );
 
         for( final var diag : List.of( LOW, OPTIMAL, NORMAL, NORMAL_HIGH, HIGH1, HIGH2, HIGH3 ) )
         {
-            final var node = distribution.computeIfAbsent( diag, DistributionNode::new );
+            final var node = distribution.get( diag );
             contents.put( format( "Diag_%s", diag.name() ), format( diagFormat, diag.toString() ) );
             contents.put( format( "Diag_%s_SystolicPercent", diag.name() ), format( "% 5.1f%%", node.getSystolicPercentage() ) );
             contents.put( format( "Diag_%s_SystolicCount", diag.name() ), format( "% 4d", node.getSystolicCount() ) );
@@ -253,6 +322,9 @@ public final class StandardReport extends ReportBase
                     <tr>
                       <th>${DayCountCaption}:</th><td align="right">${DayCount}</td>
                     </tr>
+                    <tr>
+                      <th>${OutlierCountCaption}:</th><td align="right">${OutlierCount}</td>
+                    </tr>
                   </table>
                   <br>
                   <table border="1">
@@ -287,8 +359,90 @@ public final class StandardReport extends ReportBase
                         <td align="right">${MedianPulsePressure}</td>
                         <td>${MedianAssessment}</td>
                       </tr>
+                      <tr>
+                        <th>${ShortMovingAverageCaption}</th>
+                        <td align="right">${ShortMovingAverageSystolic}</td>
+                        <td align="right">${ShortMovingAverageDiastolic}</td>
+                        <td align="right">${ShortMovingAveragePulsePressure}</td>
+                        <td>${ShortMovingAverageAssessment}</td>
+                      </tr>
+                      <tr>
+                        <th>${LongMovingAverageCaption}</th>
+                        <td align="right">${LongMovingAverageSystolic}</td>
+                        <td align="right">${LongMovingAverageDiastolic}</td>
+                        <td align="right">${LongMovingAveragePulsePressure}</td>
+                        <td>${LongMovingAverageAssessment}</td>
+                      </tr>
+                      <tr>
+                        <th>${StandardDeviationCaption}</th>
+                        <td align="right">${StandardDeviationSystolic}</td>
+                        <td align="right">${StandardDeviationDiastolic}</td>
+                        <td align="right">${StandardDeviationPulsePressure}</td>
+                        <td/>
+                      </tr>
+                      <tr>
+                        <th>${CoefficientOfVariationCaption}</th>
+                        <td align="right">${CoefficientOfVariationSystolic}</td>
+                        <td align="right">${CoefficientOfVariationDiastolic}</td>
+                        <td align="right">${CoefficientOfVariationPulsePressure}</td>
+                        <td/>
+                      </tr>
+                      <tr>
+                        <th>${AverageRealVariabilityCaption}</th>
+                        <td align="right">${AverageRealVariabilitySystolic}</td>
+                        <td align="right">${AverageRealVariabilityDiastolic}</td>
+                        <td align="right">${AverageRealVariabilityPulsePressure}</td>
+                        <td/>
+                      </tr>
+                    </tbody>
+                  </table>
+                  <br>
+                  <h2>${PercentilesCaption}</h2>
+                  <table border="1">
+                    <thead>
+                      <tr>
+                        <th/>
+                        <th>${TableHeader1}</th>
+                        <th>${TableHeader2}</th>
+                      </tr>
+                    </thead>
+                    <tbody>
+                      <tr>
+                        <th>${Percentile5Caption}</th>
+                        <td align="right">${Percentile5Systolic}</td>
+                        <td align="right">${Percentile5Diastolic}</td>
+                      </tr>
+                      <tr>
+                        <th>${Percentile25Caption}</th>
+                        <td align="right">${Percentile25Systolic}</td>
+                        <td align="right">${Percentile25Diastolic}</td>
+                      </tr>
+                      <tr>
+                        <th>${Percentile50Caption}</th>
+                        <td align="right">${Percentile50Systolic}</td>
+                        <td align="right">${Percentile50Diastolic}</td>
+                      </tr>
+                      <tr>
+                        <th>${Percentile75Caption}</th>
+                        <td align="right">${Percentile75Systolic}</td>
+                        <td align="right">${Percentile75Diastolic}</td>
+                      </tr>
+                      <tr>
+                        <th>${Percentile95Caption}</th>
+                        <td align="right">${Percentile95Systolic}</td>
+                        <td align="right">${Percentile95Diastolic}</td>
+                      </tr>
                     </tbody>
                   </table>
+                  <p>${PercentileErrorCaption} ${PercentileError}</p>
+                  <br>
+                  <h2>${HeatmapCaption}</h2>
+                  ${Heatmap}
+                  <p>${HeatmapLegend}</p>
+                  <br>
+                  <h2>${OutliersCaption}</h2>
+                  ${Outliers}
+                  <p>${OutliersLegend}</p>
                   <br>
                   <h2>${DistributionCaption}</h2>
                   <table border="1">
@@ -302,64 +456,64 @@ public final class StandardReport extends ReportBase
                     <tbody>
                       <tr>
                         <th>${Diag_LOW}</th>
-                        <td align="right">(&lt; 105)</td>
+                        <td align="right">${Diag_LOW_SystolicRange}</td>
                         <td align="right">${Diag_LOW_SystolicPercent}</td>
                         <td align="right">${Diag_LOW_SystolicCount}</td>
-                        <td align="right">(&lt; 65)</td>
+                        <td align="right">${Diag_LOW_DiastolicRange}</td>
                         <td align="right">${Diag_LOW_DiastolicPercent}</td>
                         <td align="right">${Diag_LOW_DiastolicCount}</td>
                       </tr>
                       <tr>
                         <th>${Diag_OPTIMAL}</th>
-                        <td align="right">(105-119)</td>
+                        <td align="right">${Diag_OPTIMAL_SystolicRange}</td>
                         <td align="right">${Diag_OPTIMAL_SystolicPercent}</td>
                         <td align="right">${Diag_OPTIMAL_SystolicCount}</td>
-                        <td align="right">(65-79)</td>
+                        <td align="right">${Diag_OPTIMAL_DiastolicRange}</td>
                         <td align="right">${Diag_OPTIMAL_DiastolicPercent}</td>
                         <td align="right">${Diag_OPTIMAL_DiastolicCount}</td>
                       </tr>
                       <tr>
                         <th>${Diag_NORMAL}</th>
-                        <td align="right">(120-129)</td>
+                        <td align="right">${Diag_NORMAL_SystolicRange}</td>
                         <td align="right">${Diag_NORMAL_SystolicPercent}</td>
                         <td align="right">${Diag_NORMAL_SystolicCount}</td>
-                        <td align="right">(80-84)</td>
+                        <td align="right">${Diag_NORMAL_DiastolicRange}</td>
                         <td align="right">${Diag_NORMAL_DiastolicPercent}</td>
                         <td align="right">${Diag_NORMAL_DiastolicCount}</td>
                       </tr>
                       <tr>
                         <th>${Diag_NORMAL_HIGH}</th>
-                        <td align="right">(130-139)</td>
+                        <td align="right">${Diag_NORMAL_HIGH_SystolicRange}</td>
                         <td align="right">${Diag_NORMAL_HIGH_SystolicPercent}</td>
                         <td align="right">${Diag_NORMAL_HIGH_SystolicCount}</td>
-                        <td align="right">(85-89)</td>
+                        <td align="right">${Diag_NORMAL_HIGH_DiastolicRange}</td>
                         <td align="right">${Diag_NORMAL_HIGH_DiastolicPercent}</td>
                         <td align="right">${Diag_NORMAL_HIGH_DiastolicCount}</td>
                       </tr>
                       <tr>
                         <th>${Diag_HIGH1}</th>
-                        <td align="right">(140-159)</td>
+                        <td align="right">${Diag_HIGH1_SystolicRange}</td>
                         <td align="right">${Diag_HIGH1_SystolicPercent}</td>
                         <td align="right">${Diag_HIGH1_SystolicCount}</td>
-                        <td align="right">(90-99)</td>
+                        <td align="right">${Diag_HIGH1_DiastolicRange}</td>
                         <td align="right">${Diag_HIGH1_DiastolicPercent}</td>
                         <td align="right">${Diag_HIGH1_DiastolicCount}</td>
                       </tr>
                       <tr>
                         <th>${Diag_HIGH2}</th>
-                        <td align="right">(160-179)</td>
+                        <td align="right">${Diag_HIGH2_SystolicRange}</td>
                         <td align="right">${Diag_HIGH2_SystolicPercent}</td>
                         <td align="right">${Diag_HIGH2_SystolicCount}</td>
-                        <td align="right">(100-109)</td>
+                        <td align="right">${Diag_HIGH2_DiastolicRange}</td>
                         <td align="right">${Diag_HIGH2_DiastolicPercent}</td>
                         <td align="right">${Diag_HIGH2_DiastolicCount}</td>
                       </tr>
                       <tr>
                         <th>${Diag_HIGH3}</th>
-                        <td align="right">(&gt;= 180)</td>
+                        <td align="right">${Diag_HIGH3_SystolicRange}</td>
                         <td align="right">${Diag_HIGH3_SystolicPercent}</td>
                         <td align="right">${Diag_HIGH3_SystolicCount}</td>
-                        <td align="right">(&gt;= 110)</td>
+                        <td align="right">${Diag_HIGH3_DiastolicRange}</td>
                         <td align="right">${Diag_HIGH3_DiastolicPercent}</td>
                         <td align="right">${Diag_HIGH3_DiastolicCount}</td>
                       </tr>
@@ -376,6 +530,31 @@ public final class StandardReport extends ReportBase
         );
         writeString( targetFile, template.replaceVariable( contents ), UTF8 );
     }   //  generateHTMLReport()
+
+    /**
+     *  Renders the given outliers as an HTML table, with one row per
+     *  measurement; the assessment of the measurement is shown as the
+     *  tooltip.
+     *
+     *  @param  outliers    The outliers.
+     *  @return The HTML table.
+     */
+    private final String renderOutliers( final SortedMap<LocalDateTime,DataNode> outliers )
+    {
+        final var buffer = new StringBuilder( "<table border=\"1\">\n  <thead>\n    <tr>\n      <th/>\n" );
+        buffer.append( format( "      <th>%s</th>\n      <th>%s</th>\n", retrieveText( TXT, "Systolic" ), retrieveText( TXT, "Diastolic" ) ) );
+        buffer.append( "    </tr>\n  </thead>\n  <tbody>\n" );
+        for( final var entry : outliers.entrySet() )
+        {
+            final var node = entry.getValue();
+            buffer.append( format( "    <tr title=\"%4$s\">\n      <th>%1$tF %1$tR</th>\n      <td align=\"right\">%2$d</td>\n      <td align=\"right\">%3$d</td>\n    </tr>\n", entry.getKey(), node.systolic(), node.diastolic(), assessData( node ) ) );
+        }
+        buffer.append( "  </tbody>\n</table>" );
+        final var retValue = buffer.toString();
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  renderOutliers()
 }
 //  class StandardReport
 
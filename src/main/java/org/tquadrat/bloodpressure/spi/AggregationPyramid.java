@@ -0,0 +1,269 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.bloodpressure.spi;
+
+import static java.time.DayOfWeek.MONDAY;
+import static java.time.temporal.TemporalAdjusters.previousOrSame;
+import static java.util.Collections.unmodifiableSortedMap;
+import static org.apiguardian.api.API.Status.STABLE;
+import static org.tquadrat.foundation.lang.Objects.isNull;
+import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
+
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.apiguardian.api.API;
+import org.tquadrat.foundation.annotation.ClassVersion;
+
+/**
+ *  <p>{@summary The daily aggregates, together with their merges for
+ *  weeks, months, quarters and years.}</p>
+ *  <p>All levels are built in a single pass over the daily aggregates; as
+ *  these are already assigned to the days in the time zone of the report,
+ *  so are the periods. Each period is identified by its first day; the
+ *  weeks are ISO weeks, starting on Monday.</p>
+ *  <p>A report can take the totals for any period from the pyramid, or the
+ *  daily aggregates of a period for the
+ *  {@linkplain ReportBase#calculateStatistics(SortedMap) statistics},
+ *  without another scan of the data.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.1.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = STABLE, since = "0.1.0" )
+public final class AggregationPyramid
+{
+        /*---------------*\
+    ====** Inner Classes **====================================================
+        \*---------------*/
+    /**
+     *  The resolutions of the pyramid.
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.1.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = STABLE, since = "0.1.0" )
+    public static enum Resolution
+    {
+            /*------------------*\
+        ====** Enum Declaration **=============================================
+            \*------------------*/
+        /**
+         *  A single day.
+         */
+        DAY,
+
+        /**
+         *  An ISO week, from Monday to Sunday.
+         */
+        WEEK,
+
+        /**
+         *  A calendar month.
+         */
+        MONTH,
+
+        /**
+         *  A calendar quarter.
+         */
+        QUARTER,
+
+        /**
+         *  A calendar year.
+         */
+        YEAR;
+
+            /*---------*\
+        ====** Methods **======================================================
+            \*---------*/
+        /**
+         *  Returns the last day of the period that contains the given day.
+         *
+         *  @param  day The day.
+         *  @return The last day of the period.
+         */
+        public final LocalDate getEnd( final LocalDate day )
+        {
+            final var retValue = shift( getStart( day ), 1 ).minusDays( 1 );
+
+            //---* Done *------------------------------------------------------
+            return retValue;
+        }   //  getEnd()
+
+        /**
+         *  Returns the first day of the period that contains the given day.
+         *
+         *  @param  day The day.
+         *  @return The first day of the period.
+         */
+        public final LocalDate getStart( final LocalDate day )
+        {
+            requireNonNullArgument( day, "day" );
+            final var retValue = switch( this )
+            {
+                case DAY -> day;
+                case WEEK -> day.with( previousOrSame( MONDAY ) );
+                case MONTH -> day.withDayOfMonth( 1 );
+                case QUARTER -> LocalDate.of( day.getYear(), (day.getMonthValue() - 1) / 3 * 3 + 1, 1 );
+                case YEAR -> day.withDayOfYear( 1 );
+            };
+
+            //---* Done *------------------------------------------------------
+            return retValue;
+        }   //  getStart()
+
+        /**
+         *  Moves the given first day of a period by the given number of
+         *  periods.
+         *
+         *  @param  start   The first day of a period.
+         *  @param  periods The number of periods; negative values move
+         *      backwards.
+         *  @return The first day of the target period.
+         */
+        public final LocalDate shift( final LocalDate start, final long periods )
+        {
+            requireNonNullArgument( start, "start" );
+            final var retValue = switch( this )
+            {
+                case DAY -> start.plusDays( periods );
+                case WEEK -> start.plusWeeks( periods );
+                case MONTH -> start.plusMonths( periods );
+                case QUARTER -> start.plusMonths( periods * 3 );
+                case YEAR -> start.plusYears( periods );
+            };
+
+            //---* Done *------------------------------------------------------
+            return retValue;
+        }   //  shift()
+    }
+    //  enum Resolution
+
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The aggregates per resolution; the keys of the inner maps are the
+     *  first days of the periods.
+     */
+    private final Map<Resolution,SortedMap<LocalDate,DailyAggregate>> m_Levels = new EnumMap<>( Resolution.class );
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates a new instance of {@code AggregationPyramid}.
+     *
+     *  @param  days    The daily aggregates; they will not be modified.
+     */
+    public AggregationPyramid( final SortedMap<LocalDate,DailyAggregate> days )
+    {
+        m_Levels.put( Resolution.DAY, unmodifiableSortedMap( requireNonNullArgument( days, "days" ) ) );
+
+        final var resolutions = EnumSet.complementOf( EnumSet.of( Resolution.DAY ) );
+        final Map<Resolution,SortedMap<LocalDate,DailyAggregate>> levels = new EnumMap<>( Resolution.class );
+        final Map<Resolution,DailyAggregate> current = new EnumMap<>( Resolution.class );
+        for( final var resolution : resolutions ) levels.put( resolution, new TreeMap<>() );
+
+        //---* The days are sorted, so each period is a contiguous run *-------
+        for( final var entry : days.entrySet() )
+        {
+            for( final var resolution : resolutions )
+            {
+                final var start = resolution.getStart( entry.getKey() );
+                var aggregate = current.get( resolution );
+                if( isNull( aggregate ) || !aggregate.getDay().equals( start ) )
+                {
+                    aggregate = new DailyAggregate( start );
+                    current.put( resolution, aggregate );
+                    levels.get( resolution ).put( start, aggregate );
+                }
+                aggregate.merge( entry.getValue() );
+            }
+        }
+        for( final var resolution : resolutions ) m_Levels.put( resolution, unmodifiableSortedMap( levels.get( resolution ) ) );
+    }   //  AggregationPyramid()
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Returns the totals for the period with the given resolution that
+     *  contains the given day.
+     *
+     *  @param  resolution  The resolution.
+     *  @param  day Any day in the period.
+     *  @return An instance of
+     *      {@link Optional}
+     *      that holds the totals for the period; empty if there are no
+     *      values for that period.
+     */
+    public final Optional<DailyAggregate> getAggregate( final Resolution resolution, final LocalDate day )
+    {
+        final var retValue = Optional.ofNullable( m_Levels.get( requireNonNullArgument( resolution, "resolution" ) ).get( resolution.getStart( day ) ) );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  getAggregate()
+
+    /**
+     *  Returns the totals for all periods with the given resolution.
+     *
+     *  @param  resolution  The resolution.
+     *  @return The totals, keyed by the first day of the respective period;
+     *      the map cannot be modified.
+     */
+    public final SortedMap<LocalDate,DailyAggregate> getAggregates( final Resolution resolution )
+    {
+        return m_Levels.get( requireNonNullArgument( resolution, "resolution" ) );
+    }   //  getAggregates()
+
+    /**
+     *  Returns the daily aggregates for the period with the given resolution
+     *  that contains the given day.
+     *
+     *  @param  resolution  The resolution.
+     *  @param  day Any day in the period.
+     *  @return The daily aggregates for the period; the map cannot be
+     *      modified.
+     */
+    public final SortedMap<LocalDate,DailyAggregate> getDays( final Resolution resolution, final LocalDate day )
+    {
+        final var start = requireNonNullArgument( resolution, "resolution" ).getStart( day );
+        final var retValue = m_Levels.get( Resolution.DAY ).subMap( start, resolution.shift( start, 1 ) );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  getDays()
+}
+//  class AggregationPyramid
+
+/*
+ *  End of File
+ */
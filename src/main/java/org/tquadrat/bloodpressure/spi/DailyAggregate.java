@@ -0,0 +1,308 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.bloodpressure.spi;
+
+import static org.apiguardian.api.API.Status.STABLE;
+import static org.tquadrat.bloodpressure.Diagnosis.assessDiastolicPressure;
+import static org.tquadrat.bloodpressure.Diagnosis.assessSystolicPressure;
+import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
+
+import java.time.LocalDate;
+
+import org.apiguardian.api.API;
+import org.tquadrat.bloodpressure.DataNode;
+import org.tquadrat.bloodpressure.Diagnosis;
+import org.tquadrat.foundation.annotation.ClassVersion;
+
+/**
+ *  <p>{@summary The pre-aggregated statistics for the measurements of a
+ *  single day.}</p>
+ *  <p>Instances of this class can be merged with each other, so the
+ *  statistics for an arbitrary period can be calculated from the daily
+ *  aggregates, without going back to the single measurements.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.1.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = STABLE, since = "0.1.0" )
+public final class DailyAggregate
+{
+        /*-----------*\
+    ====** Constants **========================================================
+        \*-----------*/
+    /**
+     *  The number of bands for the distribution histograms; this is the
+     *  number of the values for
+     *  {@link Diagnosis}.
+     */
+    public static final int BAND_COUNT = Diagnosis.values().length;
+
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The number of measurements.
+     */
+    private int m_Count;
+
+    /**
+     *  The day.
+     */
+    private final LocalDate m_Day;
+
+    /**
+     *  The histogram for the diastolic values, indexed by the ordinal of the
+     *  {@link Diagnosis}.
+     */
+    private final int [] m_DiastolicBands;
+
+    /**
+     *  The maximum of the diastolic values.
+     */
+    private int m_DiastolicMaximum;
+
+    /**
+     *  The minimum of the diastolic values.
+     */
+    private int m_DiastolicMinimum;
+
+    /**
+     *  The sum of the diastolic values.
+     */
+    private long m_DiastolicSum;
+
+    /**
+     *  The histogram for the systolic values, indexed by the ordinal of the
+     *  {@link Diagnosis}.
+     */
+    private final int [] m_SystolicBands;
+
+    /**
+     *  The maximum of the systolic values.
+     */
+    private int m_SystolicMaximum;
+
+    /**
+     *  The minimum of the systolic values.
+     */
+    private int m_SystolicMinimum;
+
+    /**
+     *  The sum of the systolic values.
+     */
+    private long m_SystolicSum;
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates a new, empty instance of {@code DailyAggregate}.
+     *
+     *  @param  day The day.
+     */
+    public DailyAggregate( final LocalDate day )
+    {
+        m_Day = requireNonNullArgument( day, "day" );
+        m_Count = 0;
+        m_SystolicSum = 0L;
+        m_DiastolicSum = 0L;
+        m_SystolicMinimum = Integer.MAX_VALUE;
+        m_SystolicMaximum = Integer.MIN_VALUE;
+        m_DiastolicMinimum = Integer.MAX_VALUE;
+        m_DiastolicMaximum = Integer.MIN_VALUE;
+        m_SystolicBands = new int [BAND_COUNT];
+        m_DiastolicBands = new int [BAND_COUNT];
+    }   //  DailyAggregate()
+
+    /**
+     *  Creates a new instance of {@code DailyAggregate} from already
+     *  aggregated values.
+     *
+     *  @param  day The day.
+     *  @param  count   The number of measurements.
+     *  @param  systolicSum The sum of the systolic values.
+     *  @param  diastolicSum    The sum of the diastolic values.
+     *  @param  systolicMinimum The minimum of the systolic values.
+     *  @param  systolicMaximum The maximum of the systolic values.
+     *  @param  diastolicMinimum    The minimum of the diastolic values.
+     *  @param  diastolicMaximum    The maximum of the diastolic values.
+     *  @param  systolicBands   The histogram for the systolic values; the
+     *      array will not be copied.
+     *  @param  diastolicBands  The histogram for the diastolic values; the
+     *      array will not be copied.
+     */
+    public DailyAggregate( final LocalDate day, final int count, final long systolicSum, final long diastolicSum, final int systolicMinimum, final int systolicMaximum, final int diastolicMinimum, final int diastolicMaximum, final int [] systolicBands, final int [] diastolicBands )
+    {
+        m_Day = requireNonNullArgument( day, "day" );
+        m_Count = count;
+        m_SystolicSum = systolicSum;
+        m_DiastolicSum = diastolicSum;
+        m_SystolicMinimum = systolicMinimum;
+        m_SystolicMaximum = systolicMaximum;
+        m_DiastolicMinimum = diastolicMinimum;
+        m_DiastolicMaximum = diastolicMaximum;
+        m_SystolicBands = requireNonNullArgument( systolicBands, "systolicBands" );
+        m_DiastolicBands = requireNonNullArgument( diastolicBands, "diastolicBands" );
+        if( (m_SystolicBands.length != BAND_COUNT) || (m_DiastolicBands.length != BAND_COUNT) )
+        {
+            throw new IllegalArgumentException( "Invalid number of bands" );
+        }
+    }   //  DailyAggregate()
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Adds a single measurement to this aggregate.
+     *
+     *  @param  systolic    The systolic pressure in mmHG.
+     *  @param  diastolic   The diastolic pressure in mmHG.
+     */
+    public final void add( final int systolic, final int diastolic )
+    {
+        ++m_Count;
+        m_SystolicSum += systolic;
+        m_DiastolicSum += diastolic;
+        m_SystolicMinimum = Math.min( m_SystolicMinimum, systolic );
+        m_SystolicMaximum = Math.max( m_SystolicMaximum, systolic );
+        m_DiastolicMinimum = Math.min( m_DiastolicMinimum, diastolic );
+        m_DiastolicMaximum = Math.max( m_DiastolicMaximum, diastolic );
+        ++m_SystolicBands [assessSystolicPressure( systolic ).ordinal()];
+        ++m_DiastolicBands [assessDiastolicPressure( diastolic ).ordinal()];
+    }   //  add()
+
+    /**
+     *  Returns the average values for the day.
+     *
+     *  @return The average values.
+     */
+    public final DataNode getAverage()
+    {
+        final var retValue = new DataNode( (int) (m_SystolicSum / m_Count), (int) (m_DiastolicSum / m_Count), (int) ((m_SystolicSum - m_DiastolicSum) / m_Count) );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  getAverage()
+
+    /**
+     *  Returns the number of measurements.
+     *
+     *  @return The number of measurements.
+     */
+    public final int getCount() { return m_Count; }
+
+    /**
+     *  Returns the day.
+     *
+     *  @return The day.
+     */
+    public final LocalDate getDay() { return m_Day; }
+
+    /**
+     *  Returns the number of diastolic values that were assessed with the
+     *  given diagnosis.
+     *
+     *  @param  diagnosis   The diagnosis.
+     *  @return The number of values.
+     */
+    public final int getDiastolicCount( final Diagnosis diagnosis ) { return m_DiastolicBands [diagnosis.ordinal()]; }
+
+    /**
+     *  Returns the maximum of the diastolic values.
+     *
+     *  @return The maximum; it is {@link Integer#MIN_VALUE} if the aggregate
+     *      is empty.
+     */
+    public final int getDiastolicMaximum() { return m_DiastolicMaximum; }
+
+    /**
+     *  Returns the minimum of the diastolic values.
+     *
+     *  @return The minimum; it is {@link Integer#MAX_VALUE} if the aggregate
+     *      is empty.
+     */
+    public final int getDiastolicMinimum() { return m_DiastolicMinimum; }
+
+    /**
+     *  Returns the sum of the diastolic values.
+     *
+     *  @return The sum.
+     */
+    public final long getDiastolicSum() { return m_DiastolicSum; }
+
+    /**
+     *  Returns the number of systolic values that were assessed with the
+     *  given diagnosis.
+     *
+     *  @param  diagnosis   The diagnosis.
+     *  @return The number of values.
+     */
+    public final int getSystolicCount( final Diagnosis diagnosis ) { return m_SystolicBands [diagnosis.ordinal()]; }
+
+    /**
+     *  Returns the maximum of the systolic values.
+     *
+     *  @return The maximum; it is {@link Integer#MIN_VALUE} if the aggregate
+     *      is empty.
+     */
+    public final int getSystolicMaximum() { return m_SystolicMaximum; }
+
+    /**
+     *  Returns the minimum of the systolic values.
+     *
+     *  @return The minimum; it is {@link Integer#MAX_VALUE} if the aggregate
+     *      is empty.
+     */
+    public final int getSystolicMinimum() { return m_SystolicMinimum; }
+
+    /**
+     *  Returns the sum of the systolic values.
+     *
+     *  @return The sum.
+     */
+    public final long getSystolicSum() { return m_SystolicSum; }
+
+    /**
+     *  Adds the values from the given aggregate to this one.
+     *
+     *  @param  other   The other aggregate.
+     */
+    public final void merge( final DailyAggregate other )
+    {
+        m_Count += requireNonNullArgument( other, "other" ).m_Count;
+        m_SystolicSum += other.m_SystolicSum;
+        m_DiastolicSum += other.m_DiastolicSum;
+        m_SystolicMinimum = Math.min( m_SystolicMinimum, other.m_SystolicMinimum );
+        m_SystolicMaximum = Math.max( m_SystolicMaximum, other.m_SystolicMaximum );
+        m_DiastolicMinimum = Math.min( m_DiastolicMinimum, other.m_DiastolicMinimum );
+        m_DiastolicMaximum = Math.max( m_DiastolicMaximum, other.m_DiastolicMaximum );
+        for( var i = 0; i < BAND_COUNT; ++i )
+        {
+            m_SystolicBands [i] += other.m_SystolicBands [i];
+            m_DiastolicBands [i] += other.m_DiastolicBands [i];
+        }
+    }   //  merge()
+}
+//  class DailyAggregate
+
+/*
+ *  End of File
+ */
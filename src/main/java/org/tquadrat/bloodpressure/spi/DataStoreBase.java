@@ -0,0 +1,676 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.bloodpressure.spi;
+
+import static java.time.temporal.ChronoUnit.DAYS;
+import static java.util.Collections.emptySortedSet;
+import static java.util.Locale.ROOT;
+import static org.apiguardian.api.API.Status.INTERNAL;
+import static org.apiguardian.api.API.Status.STABLE;
+import static org.tquadrat.foundation.lang.Objects.isNull;
+import static org.tquadrat.foundation.lang.Objects.nonNull;
+import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
+import static org.tquadrat.foundation.lang.Objects.requireNotEmptyArgument;
+import static org.tquadrat.foundation.util.StringUtils.format;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Serial;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinPool.ManagedBlocker;
+import java.util.concurrent.RecursiveTask;
+
+import org.apiguardian.api.API;
+import org.tquadrat.bloodpressure.Configuration;
+import org.tquadrat.bloodpressure.DataStore;
+import org.tquadrat.foundation.annotation.ClassVersion;
+
+/**
+ *  The abstract base class for the storage engines.
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.1.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = STABLE, since = "0.1.0" )
+public non-sealed abstract class DataStoreBase implements DataStore
+{
+        /*---------------*\
+    ====** Inner Classes **====================================================
+        \*---------------*/
+    /**
+     *  <p>{@summary The task for the parallel aggregation of the
+     *  measurements in a range of timestamps.}</p>
+     *  <p>A range that is longer than the chunk length is split in two
+     *  halves that are aggregated concurrently; the partial results are
+     *  merged afterwards. A day that straddles the border between two
+     *  halves has a partial aggregate in both results; these are merged,
+     *  too.</p>
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.1.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = INTERNAL, since = "0.1.0" )
+    private static final class AggregationTask extends RecursiveTask<SortedMap<LocalDate,DailyAggregate>>
+    {
+            /*-----------*\
+        ====** Constants **====================================================
+            \*-----------*/
+        /**
+         *  The serial version UID for objects of this class: {@value}.
+         *
+         *  @hidden
+         */
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+            /*------------*\
+        ====** Attributes **===================================================
+            \*------------*/
+        /**
+         *  The maximum length of a chunk, in seconds.
+         */
+        private final long m_ChunkLength;
+
+        /**
+         *  The end of the range (exclusive), as seconds since the begin of
+         *  the epoch.
+         */
+        private final long m_End;
+
+        /**
+         *  The key for the person.
+         */
+        private final String m_Person;
+
+        /**
+         *  The begin of the range (inclusive), as seconds since the begin of
+         *  the epoch.
+         */
+        private final long m_Start;
+
+        /**
+         *  The storage engine.
+         */
+        @SuppressWarnings( "serial" )
+        private final DataStore m_Store;
+
+        /**
+         *  The time zone that determines the days.
+         */
+        @SuppressWarnings( "serial" )
+        private final ZoneId m_Timezone;
+
+            /*--------------*\
+        ====** Constructors **=================================================
+            \*--------------*/
+        /**
+         *  Creates a new instance of {@code AggregationTask}.
+         *
+         *  @param  store   The storage engine.
+         *  @param  person  The key for the person.
+         *  @param  start   The begin of the range (inclusive), as seconds
+         *      since the begin of the epoch.
+         *  @param  end The end of the range (exclusive), as seconds since the
+         *      begin of the epoch.
+         *  @param  chunkLength The maximum length of a chunk, in seconds.
+         *  @param  timezone    The time zone that determines the days.
+         */
+        AggregationTask( final DataStore store, final String person, final long start, final long end, final long chunkLength, final ZoneId timezone )
+        {
+            m_Store = store;
+            m_Person = person;
+            m_Start = start;
+            m_End = end;
+            m_ChunkLength = chunkLength;
+            m_Timezone = timezone;
+        }   //  AggregationTask()
+
+            /*---------*\
+        ====** Methods **======================================================
+            \*---------*/
+        /**
+         *  {@inheritDoc}
+         *
+         *  @throws UncheckedIOException    Problems when accessing the
+         *      storage.
+         */
+        @Override
+        protected final SortedMap<LocalDate,DailyAggregate> compute()
+        {
+            final SortedMap<LocalDate,DailyAggregate> retValue;
+            if( m_End - m_Start <= m_ChunkLength )
+            {
+                retValue = new TreeMap<>();
+
+                //---* The scan blocks on I/O; the pool may compensate that *--
+                final var blocker = new ManagedBlocker()
+                {
+                    /**
+                     *  {@code true} when the scan is done.
+                     */
+                    private boolean m_IsDone = false;
+
+                    /**
+                     *  {@inheritDoc}
+                     */
+                    @Override
+                    public final boolean block()
+                    {
+                        try
+                        {
+                            m_Store.scan( m_Person, Instant.ofEpochSecond( m_Start ), Instant.ofEpochSecond( m_End ), aggregateInto( retValue, m_Timezone ) );
+                        }
+                        catch( final IOException e )
+                        {
+                            throw new UncheckedIOException( e );
+                        }
+                        m_IsDone = true;
+
+                        //---* Done *------------------------------------------
+                        return true;
+                    }   //  block()
+
+                    /**
+                     *  {@inheritDoc}
+                     */
+                    @Override
+                    public final boolean isReleasable() { return m_IsDone; }
+                };
+                try
+                {
+                    ForkJoinPool.managedBlock( blocker );
+                }
+                catch( final InterruptedException e )
+                {
+                    Thread.currentThread().interrupt();
+                    final var exception = new InterruptedIOException();
+                    exception.initCause( e );
+                    throw new UncheckedIOException( exception );
+                }
+            }
+            else
+            {
+                final var middle = m_Start + (m_End - m_Start) / 2;
+                final var first = new AggregationTask( m_Store, m_Person, m_Start, middle, m_ChunkLength, m_Timezone );
+                first.fork();
+                final var second = new AggregationTask( m_Store, m_Person, middle, m_End, m_ChunkLength, m_Timezone ).compute();
+                retValue = mergeAggregates( first.join(), second );
+            }
+
+            //---* Done *------------------------------------------------------
+            return retValue;
+        }   //  compute()
+    }
+    //  class AggregationTask
+
+        /*-----------*\
+    ====** Constants **========================================================
+        \*-----------*/
+    /**
+     *  The number of chunks per worker of the
+     *  {@linkplain ForkJoinPool#commonPool() common pool}
+     *  for the parallel aggregation: {@value}. The measurements are not
+     *  distributed evenly over the time, so a worker that is done with a
+     *  sparse chunk early can take over another one.
+     */
+    private static final int CHUNKS_PER_WORKER = 4;
+
+    /**
+     *  The default for the
+     *  {@linkplain Configuration#getParallelThreshold() threshold}
+     *  for the parallel aggregation: {@value} days.
+     */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 1461;
+
+    /**
+     *  The minimum average number of measurements in a chunk for the
+     *  parallel aggregation: {@value}. Each chunk is read by a scan of its
+     *  own, with a database connection or the mapping of the segment files;
+     *  for a few thousand measurements, that overhead is about as large as
+     *  the aggregation itself. The value was not measured.
+     */
+    private static final int MIN_CHUNK_ROWS = 10_000;
+
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The reference to the configuration for this application.
+     */
+    private final Configuration m_Configuration;
+
+    /**
+     *  The name of the storage engine.
+     */
+    private final String m_Name;
+
+    /**
+     *  The registry for the storage engines.
+     */
+    private static final Map<String,DataStore> m_Registry = new HashMap<>();
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates a new instance of {@code DataStoreBase}.
+     *
+     *  @param  name    The name of the storage engine.
+     */
+    protected DataStoreBase( final String name )
+    {
+        m_Configuration = Configuration.getInstance();
+        m_Name = requireNotEmptyArgument( name, "name" );
+    }   //  DataStoreBase()
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  {@inheritDoc}
+     *  <p>The default implementation aggregates the results of a
+     *  {@linkplain #scan(String,Instant,Instant,RecordConsumer) range scan}
+     *  and merges the
+     *  {@linkplain #getDownsampledDays(String,LocalDate,LocalDate) downsampled days}
+     *  into the result. Both are read separately, so the aggregation is
+     *  repeated when the
+     *  {@linkplain #getDataVersion(String) data version}
+     *  changed in the meantime; otherwise a concurrent
+     *  {@linkplain #downsample(String,Instant,ZoneId) downsampling}
+     *  could cause days that are counted twice, or not at all.</p>
+     *  <p>When the range spans more days than given by the
+     *  {@linkplain Configuration#getParallelThreshold() threshold},
+     *  and the storage
+     *  {@linkplain #isConcurrentScanSupported() supports concurrent scans},
+     *  it is split into chunks that are aggregated in parallel; the
+     *  {@linkplain #computeChunkLength(String,Instant,Instant) length of the chunks}
+     *  depends on the number of measurements and the available
+     *  processors.</p>
+     */
+    @Override
+    public SortedMap<LocalDate,DailyAggregate> aggregate( final String person, final Instant from, final Instant to, final ZoneId timezone ) throws IOException
+    {
+        requireNonNullArgument( timezone, "timezone" );
+        final var firstDay = isNull( from ) ? null : from.atZone( timezone ).toLocalDate();
+        final var lastDay = isNull( to ) ? null : to.atZone( timezone ).toLocalDate();
+
+        SortedMap<LocalDate,DailyAggregate> retValue;
+        long dataVersion;
+        do
+        {
+            dataVersion = getDataVersion( person );
+            final var days = aggregateMeasurements( person, from, to, timezone );
+
+            //---* Merge the downsampled days *--------------------------------
+            for( final var aggregate : getDownsampledDays( person, firstDay, lastDay ).values() )
+            {
+                final var start = aggregate.getDay().atStartOfDay( timezone ).toInstant();
+                if( (isNull( from ) || !start.isBefore( from )) && (isNull( to ) || start.isBefore( to )) )
+                {
+                    days.computeIfAbsent( aggregate.getDay(), DailyAggregate::new ).merge( aggregate );
+                }
+            }
+            retValue = days;
+        }
+        while( getDataVersion( person ) != dataVersion );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  aggregate()
+
+    /**
+     *  Returns a consumer for a
+     *  {@linkplain #scan(String,Instant,Instant,RecordConsumer) range scan}
+     *  that adds the measurements to the daily aggregates in the given map;
+     *  ignored measurements and outliers are skipped. The boundaries of the current day
+     *  are kept so that the time zone conversion is needed only once per
+     *  day, not once per measurement.
+     *
+     *  @param  target  The map for the daily aggregates.
+     *  @param  timezone    The time zone that determines the days.
+     *  @return The consumer.
+     */
+    protected static final RecordConsumer aggregateInto( final SortedMap<LocalDate,DailyAggregate> target, final ZoneId timezone )
+    {
+        requireNonNullArgument( target, "target" );
+        requireNonNullArgument( timezone, "timezone" );
+
+        final var current = new DailyAggregate [1];
+        final var dayBoundaries = new long [] {Long.MAX_VALUE, Long.MIN_VALUE};
+        final RecordConsumer retValue = ( epochSecond, systolic, diastolic, isIgnored, isOutlier ) ->
+        {
+            if( !isIgnored && !isOutlier )
+            {
+                if( (epochSecond < dayBoundaries [0]) || (epochSecond >= dayBoundaries [1]) )
+                {
+                    final var day = Instant.ofEpochSecond( epochSecond ).atZone( timezone ).toLocalDate();
+                    dayBoundaries [0] = day.atStartOfDay( timezone ).toEpochSecond();
+                    dayBoundaries [1] = day.plusDays( 1 ).atStartOfDay( timezone ).toEpochSecond();
+                    current [0] = target.computeIfAbsent( day, DailyAggregate::new );
+                }
+                current [0].add( systolic, diastolic );
+            }
+        };
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  aggregateInto()
+
+    /**
+     *  Aggregates the measurements in the given range of timestamps. If the
+     *  range is longer than the
+     *  {@linkplain Configuration#getParallelThreshold() threshold},
+     *  and the storage
+     *  {@linkplain #isConcurrentScanSupported() supports concurrent scans},
+     *  it is split into
+     *  {@linkplain #computeChunkLength(String,Instant,Instant) chunks}
+     *  that are processed on the
+     *  {@linkplain ForkJoinPool#commonPool() common pool};
+     *  the scans for the chunks are
+     *  {@linkplain ForkJoinPool#managedBlock(ForkJoinPool.ManagedBlocker) managed blockers},
+     *  so the pool can compensate for the workers that wait for I/O.
+     *  Otherwise, a single
+     *  {@linkplain #scan(String,Instant,Instant,RecordConsumer) range scan}
+     *  is used.
+     *
+     *  @param  person  The key for the person.
+     *  @param  from    The begin of the range (inclusive); {@code null} for
+     *      an open range.
+     *  @param  to  The end of the range (exclusive); {@code null} for an
+     *      open range.
+     *  @param  timezone    The time zone that determines the days.
+     *  @return The daily aggregates.
+     *  @throws IOException Problems when accessing the storage.
+     */
+    private final SortedMap<LocalDate,DailyAggregate> aggregateMeasurements( final String person, final Instant from, final Instant to, final ZoneId timezone ) throws IOException
+    {
+        SortedMap<LocalDate,DailyAggregate> retValue = null;
+
+        final var threshold = m_Configuration.getParallelThreshold();
+        if( (threshold > 0) && isConcurrentScanSupported() )
+        {
+            final var start = nonNull( from ) ? Optional.of( from ) : getFirstTimestamp( person );
+            final var end = nonNull( to ) ? Optional.of( to ) : getLastTimestamp( person ).map( timestamp -> timestamp.plusSeconds( 1 ) );
+            if( start.isPresent() && end.isPresent() && (end.get().getEpochSecond() - start.get().getEpochSecond() > DAYS.getDuration().getSeconds() * threshold) )
+            {
+                final var chunkLength = computeChunkLength( person, start.get(), end.get() );
+                if( chunkLength > 0 )
+                {
+                    final var task = new AggregationTask( this, person, start.get().getEpochSecond(), end.get().getEpochSecond(), chunkLength, timezone );
+                    try
+                    {
+                        retValue = ForkJoinPool.commonPool().invoke( task );
+                    }
+                    catch( final UncheckedIOException e )
+                    {
+                        throw e.getCause();
+                    }
+                }
+            }
+        }
+
+        if( isNull( retValue ) )
+        {
+            retValue = new TreeMap<>();
+            scan( person, from, to, aggregateInto( retValue, timezone ) );
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  aggregateMeasurements()
+
+    /**
+     *  {@inheritDoc}
+     *  <p>The default implementation throws an
+     *  {@link UnsupportedOperationException}.</p>
+     */
+    @Override
+    public Path archivePartition( final int year, final Path folder ) throws IOException
+    {
+        throw new UnsupportedOperationException( format( "The storage engine '%s' does not support partitions", m_Name ) );
+    }   //  archivePartition()
+
+    /**
+     *  {@inheritDoc}
+     *  <p>The default implementation throws an
+     *  {@link UnsupportedOperationException}.</p>
+     */
+    @Override
+    public void compactPartition( final int year ) throws IOException
+    {
+        throw new UnsupportedOperationException( format( "The storage engine '%s' does not support partitions", m_Name ) );
+    }   //  compactPartition()
+
+    /**
+     *  <p>{@summary Determines the length of the chunks for the parallel
+     *  aggregation of the given range.}</p>
+     *  <p>The range is split into {@value #CHUNKS_PER_WORKER} chunks per
+     *  worker of the
+     *  {@linkplain ForkJoinPool#commonPool() common pool},
+     *  but into less if the chunks would hold less than
+     *  {@value #MIN_CHUNK_ROWS} measurements on average, according to the
+     *  {@linkplain #estimateMeasurementCount(String,Instant,Instant) estimate}
+     *  of the storage engine. A chunk is never shorter than a day.</p>
+     *
+     *  @param  person  The key for the person.
+     *  @param  start   The begin of the range (inclusive).
+     *  @param  end The end of the range (exclusive).
+     *  @return The length of a chunk, in seconds; 0 if the range should not
+     *      be split at all.
+     *  @throws IOException Problems when accessing the storage.
+     */
+    private final long computeChunkLength( final String person, final Instant start, final Instant end ) throws IOException
+    {
+        var chunks = (long) ForkJoinPool.commonPool().getParallelism() * CHUNKS_PER_WORKER;
+        final var rowCount = estimateMeasurementCount( person, start, end );
+        if( rowCount >= 0 ) chunks = Math.min( chunks, rowCount / MIN_CHUNK_ROWS );
+
+        final var length = end.getEpochSecond() - start.getEpochSecond();
+        final var retValue = chunks > 1 ? Math.max( DAYS.getDuration().getSeconds(), (length + chunks - 1) / chunks ) : 0L;
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  computeChunkLength()
+
+    /**
+     *  {@inheritDoc}
+     *  <p>The default implementation throws an
+     *  {@link UnsupportedOperationException}.</p>
+     */
+    @Override
+    public void dropPartition( final int year ) throws IOException
+    {
+        throw new UnsupportedOperationException( format( "The storage engine '%s' does not support partitions", m_Name ) );
+    }   //  dropPartition()
+
+    /**
+     *  Estimates the number of measurements in the given range; the
+     *  estimate is used to determine the number of chunks for the
+     *  {@linkplain #aggregate(String, Instant, Instant, ZoneId) parallel aggregation}.
+     *  It should be considerably cheaper than a
+     *  {@linkplain #scan(String, Instant, Instant, RecordConsumer) range scan}.
+     *
+     *  @param  person  The key for the person.
+     *  @param  from    The begin of the range (inclusive).
+     *  @param  to  The end of the range (exclusive).
+     *  @return The estimated number of measurements, or -1 if the storage
+     *      cannot tell; the default implementation returns -1.
+     *  @throws IOException Problems when accessing the storage.
+     */
+    protected long estimateMeasurementCount( final String person, final Instant from, final Instant to ) throws IOException { return -1L; }
+
+    /**
+     *  Returns a reference to the configuration for this application run.
+     *
+     *  @return The configuration.
+     */
+    protected final Configuration getConfiguration() { return m_Configuration; }
+
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    public final String getName() { return m_Name; }
+
+    /**
+     *  Returns whether
+     *  {@link #scan(String, Instant, Instant, RecordConsumer)}
+     *  may be called from several threads at the same time, so that a long
+     *  range can be
+     *  {@linkplain #aggregate(String, Instant, Instant, ZoneId) aggregated}
+     *  in parallel chunks.
+     *
+     *  @return {@code true} if concurrent scans are supported,
+     *      {@code false} otherwise; the default implementation returns
+     *      {@code true}.
+     */
+    protected boolean isConcurrentScanSupported() { return true; }
+
+    /**
+     *  Checks whether the given day lies in the given range.
+     *
+     *  @param  day The day.
+     *  @param  from    The first day of the range; {@code null} for an
+     *      open range.
+     *  @param  to  The last day of the range (inclusive); {@code null} for
+     *      an open range.
+     *  @return {@code true} if the day lies in the range, {@code false}
+     *      otherwise.
+     */
+    protected static final boolean isInRange( final LocalDate day, final LocalDate from, final LocalDate to )
+    {
+        final var retValue = (isNull( from ) || !day.isBefore( from )) && (isNull( to ) || !day.isAfter( to ));
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  isInRange()
+
+    /**
+     *  {@inheritDoc}
+     *  <p>The default implementation returns an empty set.</p>
+     */
+    @Override
+    public SortedSet<Integer> listPartitions() throws IOException { return emptySortedSet(); }
+
+    /**
+     *  Merges two maps of daily aggregates; the aggregates from the smaller
+     *  map are merged into the larger one.
+     *
+     *  @param  first   The first map.
+     *  @param  second  The second map.
+     *  @return The merged map; this is one of the arguments.
+     */
+    private static final SortedMap<LocalDate,DailyAggregate> mergeAggregates( final SortedMap<LocalDate,DailyAggregate> first, final SortedMap<LocalDate,DailyAggregate> second )
+    {
+        final var retValue = first.size() >= second.size() ? first : second;
+        final var other = retValue == first ? second : first;
+        for( final var aggregate : other.values() )
+        {
+            final var target = retValue.putIfAbsent( aggregate.getDay(), aggregate );
+            if( nonNull( target ) ) target.merge( aggregate );
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  mergeAggregates()
+
+    /**
+     *  {@inheritDoc}
+     *  <p>The default implementation copies the data of a person to memory
+     *  on the first access to it.</p>
+     */
+    @Override
+    public Snapshot openSnapshot() throws IOException { return new MaterializedSnapshot( this ); }
+
+    /**
+     *  Registers a storage engine.
+     *
+     *  @param  dataStore   The storage engine to register.
+     */
+    public static final void registerDataStore( final DataStore dataStore )
+    {
+        if( nonNull( dataStore ) ) m_Registry.put( dataStore.getName().toUpperCase( ROOT ), dataStore );
+    }   //  registerDataStore()
+
+    /**
+     *  Returns the storage engine with the given name.
+     *
+     *  @param  name    The name of the storage engine.
+     *  @return An instance of
+     *      {@link Optional}
+     *      that holds the storage engine.
+     */
+    public static final Optional<DataStore> retrieveDataStore( final String name )
+    {
+        final var retValue = Optional.ofNullable( m_Registry.get( requireNotEmptyArgument( name, "name" ).toUpperCase( ROOT ) ) );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  retrieveDataStore()
+
+    /**
+     *  {@inheritDoc}
+     *  <p>This implementation ignores the fetch size and calls
+     *  {@link #scan(String, Instant, Instant, RecordConsumer)}.</p>
+     */
+    @Override
+    public void scan( final String person, final Instant from, final Instant to, final int fetchSize, final RecordConsumer consumer ) throws IOException
+    {
+        scan( person, from, to, consumer );
+    }   //  scan()
+
+    /**
+     *  Rounds the given timestamp down to the start of its day.
+     *
+     *  @param  timestamp   The timestamp.
+     *  @param  timezone    The time zone that determines the days.
+     *  @return The start of the day.
+     */
+    protected static final Instant startOfDay( final Instant timestamp, final ZoneId timezone )
+    {
+        final var retValue = requireNonNullArgument( timestamp, "timestamp" ).atZone( requireNonNullArgument( timezone, "timezone" ) )
+            .toLocalDate()
+            .atStartOfDay( timezone )
+            .toInstant();
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  startOfDay()
+}
+//  class DataStoreBase
+
+/*
+ *  End of File
+ */
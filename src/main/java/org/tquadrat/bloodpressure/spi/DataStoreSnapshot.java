@@ -0,0 +1,153 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.bloodpressure.spi;
+
+import static org.apiguardian.api.API.Status.STABLE;
+import static org.tquadrat.foundation.util.StringUtils.format;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneId;
+
+import org.apiguardian.api.API;
+import org.tquadrat.bloodpressure.DataStore;
+import org.tquadrat.foundation.annotation.ClassVersion;
+
+/**
+ *  The abstract base class for the
+ *  {@linkplain DataStore.Snapshot snapshots}
+ *  of the storage engines. All operations that would modify the data throw
+ *  an
+ *  {@link UnsupportedOperationException}.
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.1.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = STABLE, since = "0.1.0" )
+public abstract class DataStoreSnapshot extends DataStoreBase implements DataStore.Snapshot
+{
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates a new instance of {@code DataStoreSnapshot}.
+     *
+     *  @param  name    The name of the storage engine; the snapshot has the
+     *      same name as the storage engine it was taken from.
+     */
+    protected DataStoreSnapshot( final String name )
+    {
+        super( name );
+    }   //  DataStoreSnapshot()
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    public final void append( final String person, final Batch batch ) throws IOException
+    {
+        throw readOnly();
+    }   //  append()
+
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    public final Path archivePartition( final int year, final Path folder ) throws IOException
+    {
+        throw readOnly();
+    }   //  archivePartition()
+
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    public final void compactPartition( final int year ) throws IOException
+    {
+        throw readOnly();
+    }   //  compactPartition()
+
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    public final long delete( final String person, final Instant from, final Instant to ) throws IOException
+    {
+        throw readOnly();
+    }   //  delete()
+
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    public final long downsample( final String person, final Instant before, final ZoneId timezone ) throws IOException
+    {
+        throw readOnly();
+    }   //  downsample()
+
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    public final void dropPartition( final int year ) throws IOException
+    {
+        throw readOnly();
+    }   //  dropPartition()
+
+    /**
+     *  {@inheritDoc}
+     *  <p>A snapshot is initialised when it is opened; this method does
+     *  nothing.</p>
+     */
+    @Override
+    public final void initialize() throws IOException { /* Does nothing */ }
+
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    public final Snapshot openSnapshot() throws IOException
+    {
+        throw new UnsupportedOperationException( format( "This is already a snapshot of the storage engine '%s'", getName() ) );
+    }   //  openSnapshot()
+
+    /**
+     *  Creates the exception for an operation that would modify the data.
+     *
+     *  @return The exception.
+     */
+    private final UnsupportedOperationException readOnly()
+    {
+        final var retValue = new UnsupportedOperationException( format( "The snapshot of the storage engine '%s' is read-only", getName() ) );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  readOnly()
+}
+//  class DataStoreSnapshot
+
+/*
+ *  End of File
+ */
@@ -0,0 +1,374 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.bloodpressure.spi;
+
+import static java.util.Locale.ROOT;
+import static java.util.stream.Collectors.joining;
+import static org.apiguardian.api.API.Status.STABLE;
+import static org.tquadrat.bloodpressure.Diagnosis.MAXIMUM_LOOKUP_VALUE;
+import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
+import static org.tquadrat.foundation.lang.Objects.requireNotEmptyArgument;
+import static org.tquadrat.foundation.util.StringUtils.format;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+import org.apiguardian.api.API;
+import org.tquadrat.bloodpressure.Diagnosis;
+import org.tquadrat.foundation.annotation.ClassVersion;
+
+/**
+ *  <p>{@summary A guideline for the classification of blood pressure
+ *  values.}</p>
+ *  <p>A guideline is defined by the lower bounds of the bands from
+ *  {@link Diagnosis#OPTIMAL}
+ *  to
+ *  {@link Diagnosis#HIGH3},
+ *  separately for the systolic and the diastolic values; anything below the
+ *  first bound is
+ *  {@link Diagnosis#LOW}.
+ *  The bounds may repeat, so a guideline can leave a band empty.</p>
+ *  <p>The bounds are compiled once into flat lookup tables that are indexed
+ *  by the value in mmHg, so the classification of a value is a single array
+ *  access; the same bounds provide the
+ *  {@linkplain #getSystolicLabel(Diagnosis) labels}
+ *  for the bands in the reports.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.1.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = STABLE, since = "0.1.0" )
+public final class Guideline
+{
+        /*-----------*\
+    ====** Constants **========================================================
+        \*-----------*/
+    /**
+     *  The guideline of the American Heart Association (2017). It has no
+     *  separate band for
+     *  {@link Diagnosis#NORMAL};
+     *  <i>elevated</i> maps to
+     *  {@link Diagnosis#NORMAL_HIGH},
+     *  stage 1 and 2 to
+     *  {@link Diagnosis#HIGH1}
+     *  and
+     *  {@link Diagnosis#HIGH2},
+     *  and the hypertensive crisis to
+     *  {@link Diagnosis#HIGH3}.
+     */
+    public static final Guideline AHA = new Guideline( "AHA", new int [] {90, 120, 120, 130, 140, 181}, new int [] {60, 80, 80, 80, 90, 121} );
+
+    /**
+     *  The id for a custom guideline: {@value}.
+     */
+    public static final String CUSTOM_ID = "CUSTOM";
+
+    /**
+     *  The guideline of the European Society of Cardiology; this is the
+     *  default.
+     */
+    public static final Guideline ESC = new Guideline( "ESC", new int [] {105, 120, 130, 140, 160, 180}, new int [] {65, 80, 85, 90, 100, 110} );
+
+    /**
+     *  The separator for the bounds in their text representation.
+     */
+    private static final Pattern SEPARATOR = Pattern.compile( "\\s*,\\s*" );
+
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The lower bounds for the diastolic bands.
+     */
+    private final int [] m_DiastolicBounds;
+
+    /**
+     *  The lookup table for the diastolic values; the index is the value in
+     *  mmHg.
+     */
+    private final Diagnosis [] m_DiastolicLookup;
+
+    /**
+     *  The id of the guideline.
+     */
+    private final String m_Id;
+
+    /**
+     *  The lower bounds for the systolic bands.
+     */
+    private final int [] m_SystolicBounds;
+
+    /**
+     *  The lookup table for the systolic values; the index is the value in
+     *  mmHg.
+     */
+    private final Diagnosis [] m_SystolicLookup;
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates a new instance of {@code Guideline}.
+     *
+     *  @param  id  The id of the guideline.
+     *  @param  systolicBounds  The lower bounds for the systolic bands.
+     *  @param  diastolicBounds The lower bounds for the diastolic bands.
+     *  @throws IllegalArgumentException    The bounds are invalid.
+     */
+    private Guideline( final String id, final int [] systolicBounds, final int [] diastolicBounds )
+    {
+        m_Id = requireNotEmptyArgument( id, "id" ).toUpperCase( ROOT );
+        m_SystolicBounds = checkBounds( systolicBounds, "systolicBounds" );
+        m_DiastolicBounds = checkBounds( diastolicBounds, "diastolicBounds" );
+        m_SystolicLookup = compile( m_SystolicBounds );
+        m_DiastolicLookup = compile( m_DiastolicBounds );
+    }   //  Guideline()
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Assess the diastolic pressure.
+     *
+     *  @param  value   The diastolic pressure.
+     *  @return The diagnosis.
+     */
+    public final Diagnosis assessDiastolicPressure( final int value ) { return m_DiastolicLookup [clamp( value )]; }
+
+    /**
+     *  Assess the systolic pressure.
+     *
+     *  @param  value   The systolic pressure.
+     *  @return The diagnosis.
+     */
+    public final Diagnosis assessSystolicPressure( final int value ) { return m_SystolicLookup [clamp( value )]; }
+
+    /**
+     *  Checks the given bounds and returns a copy of them.
+     *
+     *  @param  bounds  The bounds.
+     *  @param  name    The name of the argument.
+     *  @return The copy.
+     *  @throws IllegalArgumentException    The number of bounds is wrong,
+     *      they are out of range, or they are not ascending.
+     */
+    private static final int [] checkBounds( final int [] bounds, final String name )
+    {
+        //---* One bound for each band above LOW *-----------------------------
+        final var boundCount = Diagnosis.HIGH3.ordinal();
+        final var retValue = requireNonNullArgument( bounds, name ).clone();
+        if( retValue.length != boundCount ) throw new IllegalArgumentException( format( "%s: %d bounds expected, but %d found", name, boundCount, retValue.length ) );
+        for( var i = 0; i < retValue.length; ++i )
+        {
+            if( (retValue [i] < 1) || (retValue [i] > MAXIMUM_LOOKUP_VALUE) ) throw new IllegalArgumentException( format( "%s: bound out of range: %d", name, retValue [i] ) );
+            if( (i > 0) && (retValue [i] < retValue [i - 1]) ) throw new IllegalArgumentException( format( "%s: bounds are not ascending: %d < %d", name, retValue [i], retValue [i - 1] ) );
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  checkBounds()
+
+    /**
+     *  Limits the given pressure value to the range of the lookup tables.
+     *
+     *  @param  value   The pressure value.
+     *  @return The index into the lookup tables.
+     */
+    private static final int clamp( final int value ) { return Math.min( Math.max( value, 0 ), MAXIMUM_LOOKUP_VALUE ); }
+
+    /**
+     *  Compiles the given bounds into a lookup table.
+     *
+     *  @param  bounds  The lower bounds for the bands.
+     *  @return The lookup table.
+     */
+    private static final Diagnosis [] compile( final int [] bounds )
+    {
+        final var diagnoses = Diagnosis.values();
+        final var retValue = new Diagnosis [MAXIMUM_LOOKUP_VALUE + 1];
+        var band = 0;
+        for( var value = 0; value <= MAXIMUM_LOOKUP_VALUE; ++value )
+        {
+            while( (band < bounds.length) && (value >= bounds [band]) ) ++band;
+            retValue [value] = diagnoses [band];
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  compile()
+
+    /**
+     *  Returns the predefined guideline with the given id.
+     *
+     *  @param  id  The id; the case is not significant.
+     *  @return An instance of
+     *      {@link Optional}
+     *      that holds the guideline; empty if there is no predefined
+     *      guideline with the given id.
+     */
+    public static final Optional<Guideline> forId( final String id )
+    {
+        final var retValue = switch( requireNonNullArgument( id, "id" ).toUpperCase( ROOT ) )
+        {
+            case "AHA" -> Optional.of( AHA );
+            case "ESC" -> Optional.of( ESC );
+            default -> Optional.<Guideline>empty();
+        };
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  forId()
+
+    /**
+     *  Returns the label for the given band in the given bounds.
+     *
+     *  @param  bounds  The lower bounds for the bands.
+     *  @param  diagnosis   The band.
+     *  @return The label.
+     */
+    private static final String getLabel( final int [] bounds, final Diagnosis diagnosis )
+    {
+        final var band = requireNonNullArgument( diagnosis, "diagnosis" ).ordinal();
+        final String retValue;
+        if( band == 0 )
+        {
+            retValue = format( "(< %d)", bounds [0] );
+        }
+        else if( band == bounds.length )
+        {
+            retValue = format( "(>= %d)", bounds [band - 1] );
+        }
+        else
+        {
+            final var lower = bounds [band - 1];
+            final var upper = bounds [band] - 1;
+            retValue = upper < lower ? "(-)" : upper == lower ? format( "(%d)", lower ) : format( "(%d-%d)", lower, upper );
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  getLabel()
+
+    /**
+     *  Returns the label with the range of the diastolic values for the
+     *  given band, like &quot;(80-84)&quot;.
+     *
+     *  @param  diagnosis   The band.
+     *  @return The label.
+     */
+    public final String getDiastolicLabel( final Diagnosis diagnosis ) { return getLabel( m_DiastolicBounds, diagnosis ); }
+
+    /**
+     *  Returns the id of this guideline.
+     *
+     *  @return The id.
+     */
+    public final String getId() { return m_Id; }
+
+    /**
+     *  Returns a key that identifies this guideline together with its
+     *  bounds; two guidelines with the same key classify all values the
+     *  same.
+     *
+     *  @return The key.
+     */
+    public final String getKey()
+    {
+        final var retValue = format( "%s:%s/%s", m_Id, toString( m_SystolicBounds ), toString( m_DiastolicBounds ) );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  getKey()
+
+    /**
+     *  Returns the label with the range of the systolic values for the given
+     *  band, like &quot;(120-129)&quot;.
+     *
+     *  @param  diagnosis   The band.
+     *  @return The label.
+     */
+    public final String getSystolicLabel( final Diagnosis diagnosis ) { return getLabel( m_SystolicBounds, diagnosis ); }
+
+    /**
+     *  Creates a custom guideline.
+     *
+     *  @param  systolicBounds  The lower bounds for the systolic bands from
+     *      {@link Diagnosis#OPTIMAL}
+     *      to
+     *      {@link Diagnosis#HIGH3}.
+     *  @param  diastolicBounds The lower bounds for the diastolic bands.
+     *  @return The new guideline; its id is
+     *      {@value #CUSTOM_ID}.
+     *  @throws IllegalArgumentException    The bounds are invalid.
+     */
+    public static final Guideline of( final int [] systolicBounds, final int [] diastolicBounds )
+    {
+        return new Guideline( CUSTOM_ID, systolicBounds, diastolicBounds );
+    }   //  of()
+
+    /**
+     *  Parses the given text representation of bounds, a list of numbers
+     *  separated by commas, like &quot;105,120,130,140,160,180&quot;.
+     *
+     *  @param  bounds  The text representation.
+     *  @return The bounds.
+     *  @throws IllegalArgumentException    The text cannot be parsed.
+     */
+    public static final int [] parseBounds( final String bounds )
+    {
+        final var parts = SEPARATOR.split( requireNotEmptyArgument( bounds, "bounds" ).strip() );
+        final var retValue = new int [parts.length];
+        for( var i = 0; i < parts.length; ++i ) retValue [i] = Integer.parseInt( parts [i] );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  parseBounds()
+
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    public final String toString() { return getKey(); }
+
+    /**
+     *  Returns the text representation of the given bounds.
+     *
+     *  @param  bounds  The bounds.
+     *  @return The text representation.
+     *
+     *  @see #parseBounds(String)
+     */
+    private static final String toString( final int [] bounds )
+    {
+        final var retValue = Arrays.stream( bounds )
+            .mapToObj( Integer::toString )
+            .collect( joining( "," ) );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  toString()
+}
+//  class Guideline
+
+/*
+ *  End of File
+ */
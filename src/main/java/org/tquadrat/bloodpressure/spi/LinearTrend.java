@@ -0,0 +1,246 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.bloodpressure.spi;
+
+import static org.apiguardian.api.API.Status.STABLE;
+import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
+
+import java.time.LocalDate;
+
+import org.apiguardian.api.API;
+import org.tquadrat.foundation.annotation.ClassVersion;
+
+/**
+ *  <p>{@summary A streaming accumulator for the linear trend of a series of
+ *  values per day.}</p>
+ *  <p>The regression line is fitted with the method of least squares. The
+ *  accumulator keeps only the means of the days and the values, and the
+ *  sums of the squared and the cross deviations from these means; they are
+ *  updated with each value like in Welford's method, so the precision does
+ *  not suffer from the large numbers of the epoch days.</p>
+ *  <p>Two accumulators can be
+ *  {@linkplain #merge(LinearTrend) merged}
+ *  in any order, so the trend can be calculated per partition and the
+ *  results are combined later.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.1.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = STABLE, since = "0.1.0" )
+public final class LinearTrend
+{
+        /*-----------*\
+    ====** Constants **========================================================
+        \*-----------*/
+    /**
+     *  The average number of days per month in the Gregorian calendar:
+     *  {@value}.
+     */
+    public static final double DAYS_PER_MONTH = 365.2425 / 12;
+
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The number of values.
+     */
+    private long m_Count = 0;
+
+    /**
+     *  The sum of the products of the deviations of the days and of the
+     *  values from their means.
+     */
+    private double m_CrossDeviations = 0.0;
+
+    /**
+     *  The sum of the squared deviations of the days from their mean.
+     */
+    private double m_DayDeviations = 0.0;
+
+    /**
+     *  The first day, as epoch day.
+     */
+    private long m_FirstDay = Long.MAX_VALUE;
+
+    /**
+     *  The mean of the days, as epoch days.
+     */
+    private double m_MeanDay = 0.0;
+
+    /**
+     *  The mean of the values.
+     */
+    private double m_MeanValue = 0.0;
+
+    /**
+     *  The sum of the squared deviations of the values from their mean.
+     */
+    private double m_ValueDeviations = 0.0;
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates a new, empty instance of {@code LinearTrend}.
+     */
+    public LinearTrend() { /* Just exists */ }
+
+    /**
+     *  Creates a copy of the given instance of {@code LinearTrend}.
+     *
+     *  @param  other   The accumulator to copy.
+     */
+    public LinearTrend( final LinearTrend other )
+    {
+        merge( other );
+    }   //  LinearTrend()
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Adds a value.
+     *
+     *  @param  day The day of the value.
+     *  @param  value   The value.
+     */
+    public final void add( final LocalDate day, final double value )
+    {
+        final var x = requireNonNullArgument( day, "day" ).toEpochDay();
+        m_FirstDay = Math.min( m_FirstDay, x );
+
+        ++m_Count;
+        final var deltaDay = x - m_MeanDay;
+        m_MeanDay += deltaDay / m_Count;
+        final var deltaValue = value - m_MeanValue;
+        m_MeanValue += deltaValue / m_Count;
+        m_DayDeviations += deltaDay * (x - m_MeanDay);
+        m_ValueDeviations += deltaValue * (value - m_MeanValue);
+        m_CrossDeviations += deltaDay * (value - m_MeanValue);
+    }   //  add()
+
+    /**
+     *  Returns the coefficient of determination (R²): the share of the
+     *  variance of the values that is explained by the trend.
+     *
+     *  @return The coefficient of determination, from 0 to 1; it is
+     *      {@link Double#NaN}
+     *      if there are less than two days or if all values are the same.
+     */
+    public final double getCoefficientOfDetermination()
+    {
+        final var retValue = (m_DayDeviations > 0.0) && (m_ValueDeviations > 0.0)
+            ? m_CrossDeviations * m_CrossDeviations / (m_DayDeviations * m_ValueDeviations)
+            : Double.NaN;
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  getCoefficientOfDetermination()
+
+    /**
+     *  Returns the number of values.
+     *
+     *  @return The number of values.
+     */
+    public final long getCount() { return m_Count; }
+
+    /**
+     *  Returns the intercept of the trend: the value of the regression line
+     *  on the first day.
+     *
+     *  @return The intercept; it is
+     *      {@link Double#NaN}
+     *      if there are less than two days.
+     */
+    public final double getIntercept()
+    {
+        final var retValue = getSlope() * (m_FirstDay - m_MeanDay) + m_MeanValue;
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  getIntercept()
+
+    /**
+     *  Returns the slope of the trend, per day.
+     *
+     *  @return The change of the value per day; it is
+     *      {@link Double#NaN}
+     *      if there are less than two days.
+     */
+    public final double getSlope()
+    {
+        final var retValue = m_DayDeviations > 0.0 ? m_CrossDeviations / m_DayDeviations : Double.NaN;
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  getSlope()
+
+    /**
+     *  Returns the slope of the trend, per month of
+     *  {@value #DAYS_PER_MONTH}
+     *  days.
+     *
+     *  @return The change of the value per month; it is
+     *      {@link Double#NaN}
+     *      if there are less than two days.
+     */
+    public final double getSlopePerMonth() { return getSlope() * DAYS_PER_MONTH; }
+
+    /**
+     *  Adds the values from the given accumulator to this one.
+     *
+     *  @param  other   The other accumulator.
+     */
+    public final void merge( final LinearTrend other )
+    {
+        if( requireNonNullArgument( other, "other" ).m_Count > 0 )
+        {
+            if( m_Count == 0 )
+            {
+                m_MeanDay = other.m_MeanDay;
+                m_MeanValue = other.m_MeanValue;
+                m_DayDeviations = other.m_DayDeviations;
+                m_ValueDeviations = other.m_ValueDeviations;
+                m_CrossDeviations = other.m_CrossDeviations;
+            }
+            else
+            {
+                //---* Chan's formulas for the combined (co-)variances *-------
+                final var count = m_Count + other.m_Count;
+                final var factor = (double) m_Count * other.m_Count / count;
+                final var deltaDay = other.m_MeanDay - m_MeanDay;
+                final var deltaValue = other.m_MeanValue - m_MeanValue;
+                m_DayDeviations += other.m_DayDeviations + deltaDay * deltaDay * factor;
+                m_ValueDeviations += other.m_ValueDeviations + deltaValue * deltaValue * factor;
+                m_CrossDeviations += other.m_CrossDeviations + deltaDay * deltaValue * factor;
+                m_MeanDay += deltaDay * other.m_Count / count;
+                m_MeanValue += deltaValue * other.m_Count / count;
+            }
+            m_FirstDay = Math.min( m_FirstDay, other.m_FirstDay );
+            m_Count += other.m_Count;
+        }
+    }   //  merge()
+}
+//  class LinearTrend
+
+/*
+ *  End of File
+ */
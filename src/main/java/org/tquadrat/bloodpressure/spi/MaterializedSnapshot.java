@@ -0,0 +1,299 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.bloodpressure.spi;
+
+import static org.apiguardian.api.API.Status.INTERNAL;
+import static org.tquadrat.foundation.lang.Objects.isNull;
+import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+
+import org.apiguardian.api.API;
+import org.tquadrat.bloodpressure.DataStore;
+import org.tquadrat.foundation.annotation.ClassVersion;
+
+/**
+ *  <p>{@summary The default
+ *  {@linkplain DataStore.Snapshot snapshot}
+ *  for the storage engines that do not provide one of their own.}</p>
+ *  <p>On the first access to the data of a person, all measurements and
+ *  downsampled days of that person are copied to memory; the copy is
+ *  repeated when the
+ *  {@linkplain DataStore#getDataVersion(String) data version}
+ *  changed while it was taken. Afterwards, the storage is no longer touched
+ *  for that person, so the snapshot neither blocks nor is blocked by any
+ *  modification.</p>
+ *  <p>As the complete history of a person is copied for each snapshot, a
+ *  storage engine should provide a snapshot of its own whenever
+ *  possible.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.1.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = INTERNAL, since = "0.1.0" )
+final class MaterializedSnapshot extends DataStoreSnapshot
+{
+        /*---------------*\
+    ====** Inner Classes **====================================================
+        \*---------------*/
+    /**
+     *  The copy of the data of a single person.
+     *
+     *  @param  dataVersion The data version at the time the copy was taken.
+     *  @param  measurements    The measurements, in the order of their
+     *      timestamps.
+     *  @param  downsampledDays The downsampled days.
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.1.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = INTERNAL, since = "0.1.0" )
+    private static record PersonData( long dataVersion, Batch measurements, SortedMap<LocalDate,DailyAggregate> downsampledDays ) {}
+
+        /*-----------*\
+    ====** Constants **========================================================
+        \*-----------*/
+    /**
+     *  The initial capacity for the copy of the measurements: {@value}.
+     */
+    private static final int INITIAL_CAPACITY = 4096;
+
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The copies of the data, by person.
+     */
+    private final Map<String,PersonData> m_Data = new HashMap<>();
+
+    /**
+     *  The storage engine the snapshot was taken from.
+     */
+    private final DataStore m_Store;
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates a new instance of {@code MaterializedSnapshot}.
+     *
+     *  @param  store   The storage engine the snapshot is taken from.
+     */
+    MaterializedSnapshot( final DataStore store )
+    {
+        super( requireNonNullArgument( store, "store" ).getName() );
+        m_Store = store;
+    }   //  MaterializedSnapshot()
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    public final synchronized void close() throws IOException { m_Data.clear(); }
+
+    /**
+     *  Returns the index of the first measurement with a timestamp that is
+     *  not before the given one.
+     *
+     *  @param  measurements    The measurements, in the order of their
+     *      timestamps.
+     *  @param  epochSecond The timestamp.
+     *  @return The index; it is the size of the batch if all measurements
+     *      are before the given timestamp.
+     */
+    private static final int findFirst( final Batch measurements, final long epochSecond )
+    {
+        var low = 0;
+        var high = measurements.size();
+        while( low < high )
+        {
+            final var middle = (low + high) >>> 1;
+            if( measurements.getTimestamp( middle ) < epochSecond )
+            {
+                low = middle + 1;
+            }
+            else
+            {
+                high = middle;
+            }
+        }
+        final var retValue = low;
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  findFirst()
+
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    public final long getDataVersion( final String person ) throws IOException
+    {
+        final var retValue = retrieveData( person ).dataVersion();
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  getDataVersion()
+
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    public final SortedMap<LocalDate,DailyAggregate> getDownsampledDays( final String person, final LocalDate from, final LocalDate to ) throws IOException
+    {
+        final SortedMap<LocalDate,DailyAggregate> retValue = new TreeMap<>();
+        for( final var aggregate : retrieveData( person ).downsampledDays().values() )
+        {
+            if( isInRange( aggregate.getDay(), from, to ) )
+            {
+                //---* The aggregates are mutable, so a copy is returned *-----
+                retValue.computeIfAbsent( aggregate.getDay(), DailyAggregate::new ).merge( aggregate );
+            }
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  getDownsampledDays()
+
+    /**
+     *  {@inheritDoc}
+     *  <p>The change log is not copied; the storage is asked instead when
+     *  the given version is older than the snapshot. The result may then
+     *  include modifications after the snapshot was taken, but these cause
+     *  no more than an unnecessary recalculation.</p>
+     */
+    @Override
+    public final Optional<Instant> getEarliestChangeSince( final String person, final long dataVersion ) throws IOException
+    {
+        final var retValue = dataVersion >= retrieveData( person ).dataVersion()
+            ? Optional.<Instant>empty()
+            : m_Store.getEarliestChangeSince( person, dataVersion );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  getEarliestChangeSince()
+
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    public final Optional<Instant> getFirstTimestamp( final String person ) throws IOException
+    {
+        final var measurements = retrieveData( person ).measurements();
+        final var retValue = measurements.size() > 0
+            ? Optional.of( Instant.ofEpochSecond( measurements.getTimestamp( 0 ) ) )
+            : Optional.<Instant>empty();
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  getFirstTimestamp()
+
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    public final Optional<Instant> getLastTimestamp( final String person ) throws IOException
+    {
+        final var measurements = retrieveData( person ).measurements();
+        final var retValue = measurements.size() > 0
+            ? Optional.of( Instant.ofEpochSecond( measurements.getTimestamp( measurements.size() - 1 ) ) )
+            : Optional.<Instant>empty();
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  getLastTimestamp()
+
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    public final String getStoreId() throws IOException { return m_Store.getStoreId(); }
+
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    public final SortedSet<Integer> listPartitions() throws IOException { return m_Store.listPartitions(); }
+
+    /**
+     *  Returns the copy of the data of the given person; the copy is taken
+     *  on the first call for that person.
+     *
+     *  @param  person  The key for the person.
+     *  @return The copy of the data.
+     *  @throws IOException Problems when accessing the storage.
+     */
+    private final synchronized PersonData retrieveData( final String person ) throws IOException
+    {
+        var retValue = m_Data.get( requireNonNullArgument( person, "person" ) );
+        if( isNull( retValue ) )
+        {
+            long dataVersion;
+            do
+            {
+                dataVersion = m_Store.getDataVersion( person );
+                final var measurements = new Batch( INITIAL_CAPACITY );
+                m_Store.scan( person, null, null, measurements::add );
+                retValue = new PersonData( dataVersion, measurements, m_Store.getDownsampledDays( person, null, null ) );
+            }
+            while( m_Store.getDataVersion( person ) != dataVersion );
+            m_Data.put( person, retValue );
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  retrieveData()
+
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    public final void scan( final String person, final Instant from, final Instant to, final RecordConsumer consumer ) throws IOException
+    {
+        requireNonNullArgument( consumer, "consumer" );
+
+        final var measurements = retrieveData( person ).measurements();
+        final var end = isNull( to ) ? measurements.size() : findFirst( measurements, to.getEpochSecond() );
+        for( var i = isNull( from ) ? 0 : findFirst( measurements, from.getEpochSecond() ); i < end; ++i )
+        {
+            consumer.accept( measurements.getTimestamp( i ), measurements.getSystolic( i ), measurements.getDiastolic( i ), measurements.isIgnored( i ), measurements.isOutlier( i ) );
+        }
+    }   //  scan()
+}
+//  class MaterializedSnapshot
+
+/*
+ *  End of File
+ */
@@ -0,0 +1,292 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.bloodpressure.spi;
+
+import static org.apiguardian.api.API.Status.STABLE;
+import static org.tquadrat.foundation.util.StringUtils.format;
+
+import java.util.Arrays;
+
+import org.apiguardian.api.API;
+import org.tquadrat.foundation.annotation.ClassVersion;
+
+/**
+ *  <p>{@summary A streaming detector for implausible and anomalous
+ *  measurements.}</p>
+ *  <p>A measurement is implausible if one of its values is outside the
+ *  range that a blood pressure monitor can reasonably report, or if the
+ *  systolic value is not above the diastolic value.</p>
+ *  <p>A plausible measurement is anomalous if one of its values deviates
+ *  too much from the previous measurements: the detector keeps the last
+ *  measurements in a window, and calculates the modified z-score of the
+ *  new values against the median and the median absolute deviation (MAD)
+ *  of that window. Both are robust against the outliers in the window
+ *  itself, so anomalous measurements are still added to the window, and
+ *  the detector follows a lasting change of the values after a few
+ *  measurements. As long as the window holds less than
+ *  {@value #WARM_UP} measurements, only implausible values are
+ *  detected.</p>
+ *  <p>The measurements have to be
+ *  {@linkplain #add(int, int) added}
+ *  in the order of their timestamps.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.1.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = STABLE, since = "0.1.0" )
+public final class OutlierDetector
+{
+        /*-----------*\
+    ====** Constants **========================================================
+        \*-----------*/
+    /**
+     *  The modified z-score above that a value is anomalous: {@value}.
+     */
+    public static final double DEFAULT_THRESHOLD = 3.5;
+
+    /**
+     *  The default number of measurements in the window: {@value}.
+     */
+    public static final int DEFAULT_WINDOW_SIZE = 30;
+
+    /**
+     *  The upper limit for a plausible diastolic value: {@value} mmHg.
+     */
+    public static final int DIASTOLIC_MAXIMUM = 180;
+
+    /**
+     *  The lower limit for a plausible diastolic value: {@value} mmHg.
+     */
+    public static final int DIASTOLIC_MINIMUM = 30;
+
+    /**
+     *  The factor that makes the MAD comparable to the standard deviation of
+     *  a normal distribution: {@value}.
+     */
+    private static final double MAD_SCALE = 0.6745;
+
+    /**
+     *  The lower limit for the MAD: {@value} mmHg. Without that, a window
+     *  with (nearly) identical values would flag any deviation.
+     */
+    private static final double MINIMUM_DEVIATION = 2.0;
+
+    /**
+     *  The upper limit for a plausible systolic value: {@value} mmHg.
+     */
+    public static final int SYSTOLIC_MAXIMUM = 280;
+
+    /**
+     *  The lower limit for a plausible systolic value: {@value} mmHg.
+     */
+    public static final int SYSTOLIC_MINIMUM = 60;
+
+    /**
+     *  The number of measurements in the window that is needed before
+     *  anomalies are detected: {@value}.
+     */
+    public static final int WARM_UP = 10;
+
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The diastolic values in the window.
+     */
+    private final int [] m_Diastolic;
+
+    /**
+     *  The index for the next value in the window.
+     */
+    private int m_Next = 0;
+
+    /**
+     *  The buffer for the calculation of the medians.
+     */
+    private final double [] m_Scratch;
+
+    /**
+     *  The number of values in the window.
+     */
+    private int m_Size = 0;
+
+    /**
+     *  The systolic values in the window.
+     */
+    private final int [] m_Systolic;
+
+    /**
+     *  The modified z-score above that a value is anomalous.
+     */
+    private final double m_Threshold;
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates a new instance of {@code OutlierDetector} with the
+     *  {@linkplain #DEFAULT_WINDOW_SIZE default window size}
+     *  and the
+     *  {@linkplain #DEFAULT_THRESHOLD default threshold}.
+     */
+    public OutlierDetector()
+    {
+        this( DEFAULT_WINDOW_SIZE, DEFAULT_THRESHOLD );
+    }   //  OutlierDetector()
+
+    /**
+     *  Creates a new instance of {@code OutlierDetector}.
+     *
+     *  @param  windowSize  The number of measurements in the window; it
+     *      must not be less than
+     *      {@value #WARM_UP}.
+     *  @param  threshold   The modified z-score above that a value is
+     *      anomalous; it must be greater than 0.
+     *  @throws IllegalArgumentException    One of the arguments is out of
+     *      range.
+     */
+    public OutlierDetector( final int windowSize, final double threshold )
+    {
+        if( windowSize < WARM_UP ) throw new IllegalArgumentException( format( "Invalid window size: %d", windowSize ) );
+        if( !(threshold > 0.0) ) throw new IllegalArgumentException( format( "Invalid threshold: %f", threshold ) );
+        m_Systolic = new int [windowSize];
+        m_Diastolic = new int [windowSize];
+        m_Scratch = new double [windowSize];
+        m_Threshold = threshold;
+    }   //  OutlierDetector()
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Tests the given measurement and adds it to the window, if it is
+     *  plausible.
+     *
+     *  @param  systolic    The systolic value.
+     *  @param  diastolic   The diastolic value.
+     *  @return {@code true} if the measurement is an outlier,
+     *      {@code false} otherwise.
+     */
+    public final boolean add( final int systolic, final int diastolic )
+    {
+        final var retValue = test( systolic, diastolic );
+        if( isPlausible( systolic, diastolic ) )
+        {
+            m_Systolic [m_Next] = systolic;
+            m_Diastolic [m_Next] = diastolic;
+            m_Next = (m_Next + 1) % m_Systolic.length;
+            m_Size = Math.min( m_Size + 1, m_Systolic.length );
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  add()
+
+    /**
+     *  Returns the number of measurements in the window.
+     *
+     *  @return The number of measurements.
+     */
+    public final int getSize() { return m_Size; }
+
+    /**
+     *  Checks whether the given value deviates too much from the values in
+     *  the window.
+     *
+     *  @param  values  The values in the window.
+     *  @param  value   The value to check.
+     *  @return {@code true} if the value is anomalous, {@code false}
+     *      otherwise.
+     */
+    private final boolean isAnomalous( final int [] values, final int value )
+    {
+        for( var i = 0; i < m_Size; ++i ) m_Scratch [i] = values [i];
+        final var median = median();
+        for( var i = 0; i < m_Size; ++i ) m_Scratch [i] = Math.abs( values [i] - median );
+        final var deviation = Math.max( median(), MINIMUM_DEVIATION );
+        final var retValue = MAD_SCALE * Math.abs( value - median ) / deviation > m_Threshold;
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  isAnomalous()
+
+    /**
+     *  Checks whether the given measurement is plausible.
+     *
+     *  @param  systolic    The systolic value.
+     *  @param  diastolic   The diastolic value.
+     *  @return {@code true} if the measurement is plausible, {@code false}
+     *      otherwise.
+     */
+    public static final boolean isPlausible( final int systolic, final int diastolic )
+    {
+        final var retValue = (systolic >= SYSTOLIC_MINIMUM) && (systolic <= SYSTOLIC_MAXIMUM)
+            && (diastolic >= DIASTOLIC_MINIMUM) && (diastolic <= DIASTOLIC_MAXIMUM)
+            && (systolic > diastolic);
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  isPlausible()
+
+    /**
+     *  Returns the median of the first
+     *  {@link #m_Size}
+     *  values in
+     *  {@link #m_Scratch};
+     *  the values will be sorted.
+     *
+     *  @return The median.
+     */
+    private final double median()
+    {
+        Arrays.sort( m_Scratch, 0, m_Size );
+        final var middle = m_Size / 2;
+        final var retValue = (m_Size % 2 == 0) ? (m_Scratch [middle - 1] + m_Scratch [middle]) / 2.0 : m_Scratch [middle];
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  median()
+
+    /**
+     *  Tests the given measurement without adding it to the window.
+     *
+     *  @param  systolic    The systolic value.
+     *  @param  diastolic   The diastolic value.
+     *  @return {@code true} if the measurement is an outlier,
+     *      {@code false} otherwise.
+     */
+    public final boolean test( final int systolic, final int diastolic )
+    {
+        var retValue = !isPlausible( systolic, diastolic );
+        if( !retValue && (m_Size >= WARM_UP) )
+        {
+            retValue = isAnomalous( m_Systolic, systolic ) || isAnomalous( m_Diastolic, diastolic );
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  test()
+}
+//  class OutlierDetector
+
+/*
+ *  End of File
+ */
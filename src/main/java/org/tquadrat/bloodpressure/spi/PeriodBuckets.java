@@ -0,0 +1,277 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.bloodpressure.spi;
+
+import static java.util.Comparator.comparing;
+import static org.apiguardian.api.API.Status.STABLE;
+import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
+import static org.tquadrat.foundation.lang.Objects.requireNotEmptyArgument;
+import static org.tquadrat.foundation.util.StringUtils.format;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+import org.apiguardian.api.API;
+import org.tquadrat.bloodpressure.spi.AggregationPyramid.Resolution;
+import org.tquadrat.foundation.annotation.ClassVersion;
+
+/**
+ *  <p>{@summary A list of periods that do not overlap, for the distribution
+ *  of time series data to these periods.}</p>
+ *  <p>A report that compares several periods scans the data from the
+ *  {@linkplain #getFirstDay() first}
+ *  to the
+ *  {@linkplain #getLastDay() last}
+ *  day only once; the data is then
+ *  {@linkplain #distribute(SortedMap, Function) distributed}
+ *  to the periods in a single pass, as both the data and the periods are
+ *  sorted.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.1.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = STABLE, since = "0.1.0" )
+public final class PeriodBuckets
+{
+        /*---------------*\
+    ====** Inner Classes **====================================================
+        \*---------------*/
+    /**
+     *  A period of days.
+     *
+     *  @param  start   The first day of the period.
+     *  @param  end The last day of the period.
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.1.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = STABLE, since = "0.1.0" )
+    public static record Period( LocalDate start, LocalDate end )
+    {
+            /*--------------*\
+        ====** Constructors **=================================================
+            \*--------------*/
+        /**
+         *  Creates a new instance of {@code Period}.
+         *
+         *  @param  start   The first day of the period.
+         *  @param  end The last day of the period.
+         *  @throws IllegalArgumentException    The last day is before the
+         *      first day.
+         */
+        public Period
+        {
+            requireNonNullArgument( start, "start" );
+            requireNonNullArgument( end, "end" );
+            if( end.isBefore( start ) ) throw new IllegalArgumentException( format( "The period ends before it starts: %s..%s", start, end ) );
+        }   //  Period()
+
+            /*---------*\
+        ====** Methods **======================================================
+            \*---------*/
+        /**
+         *  {@inheritDoc}
+         */
+        @Override
+        public final String toString() { return format( "%s..%s", start, end ); }
+    }
+    //  record Period
+
+        /*-----------*\
+    ====** Constants **========================================================
+        \*-----------*/
+    /**
+     *  The pattern for the separator between two periods in the text
+     *  representation.
+     */
+    private static final Pattern PERIOD_SEPARATOR = Pattern.compile( "\\s*,\\s*" );
+
+    /**
+     *  The separator between the first and the last day of a period in the
+     *  text representation: {@value}.
+     */
+    public static final String RANGE_SEPARATOR = "..";
+
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The periods, sorted by their first days.
+     */
+    private final List<Period> m_Periods;
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates a new instance of {@code PeriodBuckets}.
+     *
+     *  @param  periods The periods; they will be sorted.
+     *  @throws IllegalArgumentException    There are no periods, or two of
+     *      them overlap.
+     */
+    public PeriodBuckets( final Collection<Period> periods )
+    {
+        final var sorted = new ArrayList<>( requireNotEmptyArgument( periods, "periods" ) );
+        sorted.sort( comparing( Period::start ) );
+        for( var i = 1; i < sorted.size(); ++i )
+        {
+            if( !sorted.get( i ).start().isAfter( sorted.get( i - 1 ).end() ) ) throw new IllegalArgumentException( format( "The periods overlap: %s, %s", sorted.get( i - 1 ), sorted.get( i ) ) );
+        }
+        m_Periods = List.copyOf( sorted );
+    }   //  PeriodBuckets()
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Distributes the given data to the periods. The data that does not
+     *  belong to any period is skipped.
+     *
+     *  @param  <K> The type of the keys of the data.
+     *  @param  <V> The type of the values.
+     *  @param  data    The data.
+     *  @param  dayOf   The function that returns the day for a key; the
+     *      order of the days must match the order of the keys.
+     *  @return The data for each period, in the order of the periods.
+     */
+    public final <K,V> List<SortedMap<K,V>> distribute( final SortedMap<K,V> data, final Function<? super K,LocalDate> dayOf )
+    {
+        requireNonNullArgument( data, "data" );
+        requireNonNullArgument( dayOf, "dayOf" );
+
+        final List<SortedMap<K,V>> retValue = new ArrayList<>( m_Periods.size() );
+        for( var i = 0; i < m_Periods.size(); ++i ) retValue.add( new TreeMap<>( data.comparator() ) );
+
+        //---* Both the data and the periods are sorted *----------------------
+        final var count = m_Periods.size();
+        var index = 0;
+        final var iterator = data.entrySet().iterator();
+        while( iterator.hasNext() && (index < count) )
+        {
+            final var entry = iterator.next();
+            final var day = dayOf.apply( entry.getKey() );
+            while( (index < count) && day.isAfter( m_Periods.get( index ).end() ) ) ++index;
+            if( (index < count) && !day.isBefore( m_Periods.get( index ).start() ) ) retValue.get( index ).put( entry.getKey(), entry.getValue() );
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  distribute()
+
+    /**
+     *  Returns the first day of the first period.
+     *
+     *  @return The first day.
+     */
+    public final LocalDate getFirstDay() { return m_Periods.get( 0 ).start(); }
+
+    /**
+     *  Returns the last day of the last period.
+     *
+     *  @return The last day.
+     */
+    public final LocalDate getLastDay() { return m_Periods.get( m_Periods.size() - 1 ).end(); }
+
+    /**
+     *  Returns the periods.
+     *
+     *  @return The periods, sorted by their first days.
+     */
+    public final List<Period> getPeriods() { return m_Periods; }
+
+    /**
+     *  Creates the buckets for the given number of consecutive periods with
+     *  the given resolution; the last of them is the period that contains
+     *  the given day.
+     *
+     *  @param  resolution  The resolution.
+     *  @param  day The day in the last period.
+     *  @param  count   The number of periods.
+     *  @return The new buckets.
+     *  @throws IllegalArgumentException    The number of periods is less
+     *      than 1.
+     */
+    public static final PeriodBuckets of( final Resolution resolution, final LocalDate day, final int count )
+    {
+        requireNonNullArgument( resolution, "resolution" );
+        if( count < 1 ) throw new IllegalArgumentException( format( "Invalid number of periods: %d", count ) );
+
+        final var last = resolution.getStart( requireNonNullArgument( day, "day" ) );
+        final List<Period> periods = new ArrayList<>( count );
+        for( var i = count - 1; i >= 0; --i )
+        {
+            final var start = resolution.shift( last, -i );
+            periods.add( new Period( start, resolution.getEnd( start ) ) );
+        }
+        final var retValue = new PeriodBuckets( periods );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  of()
+
+    /**
+     *  Parses the given text representation of the periods, a list of
+     *  ranges like &quot;2022-01-01..2022-03-15&quot;, separated by
+     *  commas.
+     *
+     *  @param  periods The text representation.
+     *  @return The new buckets.
+     *  @throws IllegalArgumentException    The text cannot be parsed, or the
+     *      periods are invalid.
+     */
+    public static final PeriodBuckets parse( final String periods )
+    {
+        final List<Period> list = new ArrayList<>();
+        for( final var range : PERIOD_SEPARATOR.split( requireNotEmptyArgument( periods, "periods" ).strip() ) )
+        {
+            final var position = range.indexOf( RANGE_SEPARATOR );
+            if( position < 0 ) throw new IllegalArgumentException( format( "Invalid period: %s", range ) );
+            try
+            {
+                list.add( new Period( LocalDate.parse( range.substring( 0, position ).strip() ), LocalDate.parse( range.substring( position + RANGE_SEPARATOR.length() ).strip() ) ) );
+            }
+            catch( final DateTimeParseException e )
+            {
+                throw new IllegalArgumentException( format( "Invalid period: %s", range ), e );
+            }
+        }
+        final var retValue = new PeriodBuckets( list );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  parse()
+}
+//  class PeriodBuckets
+
+/*
+ *  End of File
+ */
@@ -0,0 +1,286 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.bloodpressure.spi;
+
+import static org.apiguardian.api.API.Status.STABLE;
+import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
+import static org.tquadrat.foundation.util.StringUtils.format;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+import org.apiguardian.api.API;
+import org.tquadrat.foundation.annotation.ClassVersion;
+
+/**
+ *  <p>{@summary A mergeable sketch for the approximate quantiles of a
+ *  large number of non-negative integer values.}</p>
+ *  <p>The values are counted in buckets with a logarithmic scale, like in
+ *  an HDR histogram: all values below 2<sup>p</sup> have a bucket of
+ *  their own, where p is the
+ *  {@linkplain #getPrecision() precision};
+ *  above, each power of two is divided into 2<sup>p-1</sup> buckets of
+ *  equal width. The size of the sketch depends only on the precision and
+ *  the magnitude of the largest value, not on the number of values, and two
+ *  sketches with the same precision can be
+ *  {@linkplain #merge(QuantileSketch) merged}
+ *  without any loss. So a sketch can be filled per partition, per day or
+ *  per person, and the sketches are merged later.</p>
+ *  <p>A quantile is returned as the middle of the bucket that holds the
+ *  value with the respective rank; it differs from the exact value by at
+ *  most the
+ *  {@linkplain #getRelativeError() relative error}
+ *  of 2<sup>-p</sup> times the exact value. For the default precision of
+ *  {@value #DEFAULT_PRECISION}, all pressure values below 128 mmHg are
+ *  exact, and those up to 255 mmHg are off by at most 1 mmHg.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.1.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = STABLE, since = "0.1.0" )
+public final class QuantileSketch
+{
+        /*-----------*\
+    ====** Constants **========================================================
+        \*-----------*/
+    /**
+     *  The default precision: {@value}.
+     */
+    public static final int DEFAULT_PRECISION = 7;
+
+    /**
+     *  The largest supported precision: {@value}.
+     */
+    public static final int MAXIMUM_PRECISION = 16;
+
+    /**
+     *  The smallest supported precision: {@value}.
+     */
+    public static final int MINIMUM_PRECISION = 1;
+
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The buckets.
+     */
+    private long [] m_Buckets;
+
+    /**
+     *  The number of values.
+     */
+    private long m_Count = 0;
+
+    /**
+     *  The precision.
+     */
+    private final int m_Precision;
+
+    /**
+     *  The number of values with an exact bucket; this is
+     *  2<sup>precision</sup>.
+     */
+    private final int m_SubBucketCount;
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates a new, empty instance of {@code QuantileSketch} with the
+     *  {@linkplain #DEFAULT_PRECISION default precision}.
+     */
+    public QuantileSketch()
+    {
+        this( DEFAULT_PRECISION );
+    }   //  QuantileSketch()
+
+    /**
+     *  Creates a new, empty instance of {@code QuantileSketch}.
+     *
+     *  @param  precision   The precision, from
+     *      {@value #MINIMUM_PRECISION}
+     *      to
+     *      {@value #MAXIMUM_PRECISION}.
+     *  @throws IllegalArgumentException    The precision is out of range.
+     */
+    public QuantileSketch( final int precision )
+    {
+        if( (precision < MINIMUM_PRECISION) || (precision > MAXIMUM_PRECISION) )
+        {
+            throw new IllegalArgumentException( format( "The precision %d is outside the range from %d to %d", precision, MINIMUM_PRECISION, MAXIMUM_PRECISION ) );
+        }
+        m_Precision = precision;
+        m_SubBucketCount = 1 << precision;
+        m_Buckets = new long [m_SubBucketCount];
+    }   //  QuantileSketch()
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Adds a value.
+     *
+     *  @param  value   The value.
+     *  @throws IllegalArgumentException    The value is negative.
+     */
+    public final void add( final long value ) { add( value, 1L ); }
+
+    /**
+     *  Adds a value several times.
+     *
+     *  @param  value   The value.
+     *  @param  count   The number of times the value is added.
+     *  @throws IllegalArgumentException    The value or the count is
+     *      negative.
+     */
+    public final void add( final long value, final long count )
+    {
+        if( value < 0 ) throw new IllegalArgumentException( format( "The value %d is negative", value ) );
+        if( count < 0 ) throw new IllegalArgumentException( format( "The count %d is negative", count ) );
+
+        final var index = indexOf( value );
+        if( index >= m_Buckets.length ) m_Buckets = Arrays.copyOf( m_Buckets, index + m_SubBucketCount / 2 );
+        m_Buckets [index] += count;
+        m_Count += count;
+    }   //  add()
+
+    /**
+     *  Returns the number of values.
+     *
+     *  @return The number of values.
+     */
+    public final long getCount() { return m_Count; }
+
+    /**
+     *  Returns the precision of this sketch.
+     *
+     *  @return The precision.
+     */
+    public final int getPrecision() { return m_Precision; }
+
+    /**
+     *  Returns the given quantile of the values, using the nearest rank. The
+     *  result differs from the exact value by at most the
+     *  {@linkplain #getRelativeError() relative error}.
+     *
+     *  @param  percentage  The percentage, from 0 to 100; 0 returns the
+     *      smallest value.
+     *  @return The quantile.
+     *  @throws IllegalArgumentException    The percentage is out of range.
+     *  @throws NoSuchElementException  The sketch is empty.
+     */
+    public final long getQuantile( final double percentage )
+    {
+        if( !(percentage >= 0.0 && percentage <= 100.0) ) throw new IllegalArgumentException( format( "Invalid percentage: %f", percentage ) );
+        if( m_Count == 0 ) throw new NoSuchElementException( "The sketch is empty" );
+
+        final var rank = (long) Math.ceil( percentage / 100.0 * m_Count );
+        var remaining = Math.max( rank - 1, 0L );
+        var index = 0;
+        while( remaining >= m_Buckets [index] ) remaining -= m_Buckets [index++];
+        final var retValue = valueOf( index );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  getQuantile()
+
+    /**
+     *  Returns the bound for the relative error of the
+     *  {@linkplain #getQuantile(double) quantiles}:
+     *  2<sup>-precision</sup>.
+     *
+     *  @return The relative error.
+     */
+    public final double getRelativeError() { return 1.0 / m_SubBucketCount; }
+
+    /**
+     *  Returns the index of the bucket for the given value.
+     *
+     *  @param  value   The value; it is not negative.
+     *  @return The index.
+     */
+    private final int indexOf( final long value )
+    {
+        final int retValue;
+        if( value < m_SubBucketCount )
+        {
+            retValue = (int) value;
+        }
+        else
+        {
+            final var shift = 64 - Long.numberOfLeadingZeros( value ) - m_Precision;
+            retValue = shift * (m_SubBucketCount / 2) + (int) (value >>> shift);
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  indexOf()
+
+    /**
+     *  Adds the values from the given sketch to this one.
+     *
+     *  @param  other   The other sketch.
+     *  @throws IllegalArgumentException    The other sketch has a different
+     *      precision.
+     */
+    public final void merge( final QuantileSketch other )
+    {
+        if( requireNonNullArgument( other, "other" ).m_Precision != m_Precision )
+        {
+            throw new IllegalArgumentException( format( "Cannot merge a sketch with precision %d into one with precision %d", other.m_Precision, m_Precision ) );
+        }
+        if( other.m_Buckets.length > m_Buckets.length ) m_Buckets = Arrays.copyOf( m_Buckets, other.m_Buckets.length );
+        for( var i = 0; i < other.m_Buckets.length; ++i ) m_Buckets [i] += other.m_Buckets [i];
+        m_Count += other.m_Count;
+    }   //  merge()
+
+    /**
+     *  Returns the value that represents the bucket with the given index:
+     *  the value itself for an exact bucket, otherwise the middle of the
+     *  bucket.
+     *
+     *  @param  index   The index.
+     *  @return The value.
+     */
+    private final long valueOf( final int index )
+    {
+        final long retValue;
+        if( index < m_SubBucketCount )
+        {
+            retValue = index;
+        }
+        else
+        {
+            final var halfCount = m_SubBucketCount / 2;
+            final var shift = index / halfCount - 1;
+            final var lowerBound = (long) (index - shift * halfCount) << shift;
+            retValue = lowerBound + ((1L << shift) >>> 1);
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  valueOf()
+}
+//  class QuantileSketch
+
+/*
+ *  End of File
+ */
@@ -22,18 +22,16 @@ import static java.nio.file.Files.createFile;
 import static java.nio.file.Files.exists;
 import static java.nio.file.Files.isDirectory;
 import static java.nio.file.Files.isRegularFile;
-import static java.util.Arrays.sort;
+import static java.time.format.TextStyle.SHORT;
 import static java.util.Collections.addAll;
 import static java.util.Collections.unmodifiableSet;
 import static java.util.Locale.ROOT;
 import static org.apiguardian.api.API.Status.STABLE;
 import static org.tquadrat.bloodpressure.Application.MSG_InvalidFile;
 import static org.tquadrat.bloodpressure.Application.MSG_InvalidFolder;
-import static org.tquadrat.bloodpressure.Configuration.COLUMN_BLOODPRESSURE_DATA_PRIMARY_KEY;
-import static org.tquadrat.bloodpressure.Configuration.TABLE_BLOODPRESSURE_DATA;
-import static org.tquadrat.bloodpressure.Diagnosis.assessDiastolicPressure;
-import static org.tquadrat.bloodpressure.Diagnosis.assessSystolicPressure;
-import static org.tquadrat.bloodpressure.Diagnosis.combineDiagnosis;
+import static org.tquadrat.bloodpressure.DataStore.retrieveDataStore;
+import static org.tquadrat.bloodpressure.Diagnosis.assessPressure;
+import static org.tquadrat.foundation.lang.Objects.isNull;
 import static org.tquadrat.foundation.lang.Objects.nonNull;
 import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
 import static org.tquadrat.foundation.lang.Objects.requireNotEmptyArgument;
@@ -41,31 +39,40 @@ import static org.tquadrat.foundation.util.StringUtils.format;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.reflect.UndeclaredThrowableException;
 import java.nio.file.Path;
-import java.sql.Connection;
 import java.sql.SQLException;
+import java.time.DayOfWeek;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.time.ZoneId;
-import java.time.temporal.TemporalAccessor;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.EnumMap;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 
 import org.apiguardian.api.API;
 import org.tquadrat.bloodpressure.Configuration;
+import org.tquadrat.bloodpressure.DataStore;
 import org.tquadrat.bloodpressure.DataNode;
 import org.tquadrat.bloodpressure.Diagnosis;
 import org.tquadrat.bloodpressure.Report;
 import org.tquadrat.bloodpressure.ReportFormat;
+import org.tquadrat.bloodpressure.internal.ReportDataCache;
 import org.tquadrat.foundation.annotation.ClassVersion;
-import org.tquadrat.foundation.exception.ImpossibleExceptionError;
 import org.tquadrat.foundation.i18n.TextUse;
 
 /**
@@ -171,6 +178,20 @@ public non-sealed abstract class ReportBase implements Report
             /*---------*\
         ====** Methods **======================================================
             \*---------*/
+        /**
+         *  Adds the given amount to the counter for the diastolic values.
+         *
+         *  @param  count   The amount to add.
+         */
+        public final void addDiastolic( final int count ) { m_DiastolicCount += count; }
+
+        /**
+         *  Adds the given amount to the counter for the systolic values.
+         *
+         *  @param  count   The amount to add.
+         */
+        public final void addSystolic( final int count ) { m_SystolicCount += count; }
+
         /**
          *  Calculates the diastolic percentage.
          *
@@ -248,9 +269,65 @@ public non-sealed abstract class ReportBase implements Report
         public final void incrementSystolic() { ++m_SystolicCount; }
     }   //  class DistributionNode
 
+    /**
+     *  The results of the
+     *  {@linkplain #loadData(DataStore, ZoneId, LocalDate, LocalDate) scan}
+     *  over the single measurements.
+     *
+     *  @param  data    The measurements, without the ignored measurements
+     *      and the outliers.
+     *  @param  sketches    The quantile sketches.
+     *  @param  weekdayHours    The statistics per weekday and time of day.
+     *  @param  outliers    The measurements that were flagged as outliers.
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.1.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = STABLE, since = "0.1.0" )
+    public static record MeasurementScan( SortedMap<LocalDateTime,DataNode> data, PressureSketches sketches, WeekdayHourCube weekdayHours, SortedMap<LocalDateTime,DataNode> outliers ) { /* Empty */ }
+    //  record MeasurementScan
+
+    /**
+     *  The
+     *  {@linkplain QuantileSketch quantile sketches}
+     *  for the single measurements.
+     *
+     *  @param  systolic    The sketch for the systolic pressure.
+     *  @param  diastolic   The sketch for the diastolic pressure.
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.1.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = STABLE, since = "0.1.0" )
+    public static record PressureSketches( QuantileSketch systolic, QuantileSketch diastolic ) { /* Empty */ }
+    //  record PressureSketches
+
         /*-----------*\
     ====** Constants **========================================================
         \*-----------*/
+    /**
+     *  The length of the long window for the moving averages, in days:
+     *  {@value}.
+     */
+    protected static final int LONG_MOVING_AVERAGE = 30;
+
+    /**
+     *  The percentages for the percentile bands that are shown in the
+     *  reports.
+     */
+    protected static final List<Integer> PERCENTILE_BANDS = List.of( 5, 25, 50, 75, 95 );
+
+    /**
+     *  The length of the short window for the moving averages, in days:
+     *  {@value}.
+     */
+    protected static final int SHORT_MOVING_AVERAGE = 7;
 
         /*------------*\
     ====** Attributes **=======================================================
@@ -260,6 +337,14 @@ public non-sealed abstract class ReportBase implements Report
      */
     private final Configuration m_Configuration;
 
+    /**
+     *  The caches for the daily aggregates, one per cache file; they are
+     *  shared by all reports. The cache file is determined by the data
+     *  folder, the database name, the storage engine and the person, so two
+     *  storages do never share a cache.
+     */
+    private static final Map<Path,ReportDataCache> m_DataCaches = new HashMap<>();
+
     /**
      *  The registry for the report generators.
      */
@@ -300,161 +385,171 @@ public non-sealed abstract class ReportBase implements Report
     ====** Methods **==========================================================
         \*---------*/
     /**
-     *  Makes an assessment of the given
-     *  {@link DataNode}.
+     *  Adds the labels for the bands of the current
+     *  {@linkplain Diagnosis#getGuideline() guideline}
+     *  to the contents of a report: for each
+     *  {@link Diagnosis},
+     *  the keys {@code Diag_<i>name</i>_SystolicRange} and
+     *  {@code Diag_<i>name</i>_DiastolicRange} get the labels escaped for
+     *  HTML, and the keys {@code Diag_<i>name</i>_SystolicRangeText} and
+     *  {@code Diag_<i>name</i>_DiastolicRangeText} get them padded for a
+     *  text report.
      *
-     *  @param  data    The data to assess.
-     *  @return The assessment.
+     *  @param  contents    The contents of the report.
      */
-    protected Diagnosis assessData( final DataNode data )
+    protected static final void addBandLabels( final Map<String,String> contents )
     {
-        final var systolicDiagnosis = assessSystolicPressure( data.systolic() );
-        final var diastolicDiagnosis = assessDiastolicPressure( data.diastolic() );
-        final var retValue = combineDiagnosis( systolicDiagnosis, diastolicDiagnosis );
+        requireNonNullArgument( contents, "contents" );
 
-        //---* Done *----------------------------------------------------------
-        return retValue;
-    }   //  assessData()
+        final var guideline = Diagnosis.getGuideline();
+        for( final var diagnosis : Diagnosis.values() )
+        {
+            final var systolic = guideline.getSystolicLabel( diagnosis );
+            final var diastolic = guideline.getDiastolicLabel( diagnosis );
+            contents.put( format( "Diag_%s_SystolicRange", diagnosis.name() ), escapeLabel( systolic ) );
+            contents.put( format( "Diag_%s_DiastolicRange", diagnosis.name() ), escapeLabel( diastolic ) );
+            contents.put( format( "Diag_%s_SystolicRangeText", diagnosis.name() ), format( "%-9s", systolic ) );
+            contents.put( format( "Diag_%s_DiastolicRangeText", diagnosis.name() ), format( "%-9s", diastolic ) );
+        }
+    }   //  addBandLabels()
 
     /**
-     *  Calculates the plain average for the given values.
+     *  Adds the percentile bands from the given sketches to the contents of
+     *  a report: for each percentage from
+     *  {@link #PERCENTILE_BANDS},
+     *  the keys are {@code Percentile<i>n</i>Systolic} and
+     *  {@code Percentile<i>n</i>Diastolic}, with the given prefix. The key
+     *  {@code PercentileError} gets the bound for the relative error of the
+     *  approximation.
      *
-     *  @param  data    The input data.
-     *  @return The average.
+     *  @param  contents    The contents of the report.
+     *  @param  prefix  The prefix for the keys; may be empty.
+     *  @param  sketches    The sketches for the measurements.
      */
-    protected final DataNode calculateAverage( final Map<? extends TemporalAccessor,DataNode> data )
+    protected static final void addPercentiles( final Map<String,String> contents, final String prefix, final PressureSketches sketches )
     {
-        final var retValue = calculateAverage( requireNonNullArgument( data, "data" ).values().toArray( DataNode []::new ) );
+        requireNonNullArgument( contents, "contents" );
+        requireNonNullArgument( prefix, "prefix" );
+        requireNonNullArgument( sketches, "sketches" );
 
-        //---* Done *----------------------------------------------------------
-        return retValue;
-    }   //  calculateAverage()
+        for( final var percentage : PERCENTILE_BANDS )
+        {
+            contents.put( format( "%sPercentile%dSystolic", prefix, percentage ), format( "% 3d", sketches.systolic().getQuantile( percentage ) ) );
+            contents.put( format( "%sPercentile%dDiastolic", prefix, percentage ), format( "% 3d", sketches.diastolic().getQuantile( percentage ) ) );
+        }
+        contents.put( prefix + "PercentileError", format( "%.1f%%", sketches.systolic().getRelativeError() * 100.0 ) );
+    }   //  addPercentiles()
 
     /**
-     *  Calculates the plain average for the given values.
+     *  Adds the
+     *  {@linkplain LinearTrend trend}
+     *  of the values per day from the given statistics to the contents of a
+     *  report: the slope in mmHg per month, the intercept on the first day
+     *  and the coefficient of determination, each for the systolic and the
+     *  diastolic pressure. A value that cannot be calculated, because there
+     *  are not enough days, is shown as &quot;-&quot;.
      *
-     *  @param  data    The input data.
-     *  @return The average.
+     *  @param  contents    The contents of the report.
+     *  @param  prefix  The prefix for the keys; may be empty.
+     *  @param  statistics  The statistics.
      */
-    protected final DataNode calculateAverage( final DataNode [] data )
+    protected static final void addTrend( final Map<String,String> contents, final String prefix, final ReportStatistics statistics )
     {
-        final var size = requireNonNullArgument( data, "data" ).length;
-        var systolicSum = 0L;
-        var diastolicSum = 0L;
-        var pulsePressureSum = 0L;
+        requireNonNullArgument( contents, "contents" );
+        requireNonNullArgument( prefix, "prefix" );
+        requireNonNullArgument( statistics, "statistics" );
 
-        for( var i = 0; i < size; ++i )
+        final var values = Map.of( "Systolic", statistics.getSystolicTrend(), "Diastolic", statistics.getDiastolicTrend() );
+        for( final var entry : values.entrySet() )
         {
-            systolicSum += data [i].systolic();
-            diastolicSum += data [i].diastolic();
-            pulsePressureSum += data [i].pulsePressure();
+            final var trend = entry.getValue();
+            contents.put( prefix + "TrendSlope" + entry.getKey(), formatDecimal( "%+5.1f", trend.getSlopePerMonth() ) );
+            contents.put( prefix + "TrendIntercept" + entry.getKey(), formatDecimal( "% 5.1f", trend.getIntercept() ) );
+            contents.put( prefix + "TrendDetermination" + entry.getKey(), formatDecimal( "% 5.2f", trend.getCoefficientOfDetermination() ) );
         }
-
-        final var retValue = new DataNode( (int) (systolicSum / size), (int) (diastolicSum / size), (int) (pulsePressureSum / size) );
-
-        //---* Done *----------------------------------------------------------
-        return retValue;
-    }   //  calculateAverage()
+    }   //  addTrend()
 
     /**
-     *  Calculates an average for the given values that is weighted to the end
-     *  of the list.
+     *  Adds the variability of the values per day from the given statistics
+     *  to the contents of a report: the standard deviation, the coefficient
+     *  of variation and the average real variability, each for the systolic
+     *  and the diastolic pressure and for the pulse pressure. A value that
+     *  cannot be calculated, because there are not enough days, is shown as
+     *  &quot;-&quot;.
      *
-     *  @param  data    The input data.
-     *  @return The average.
+     *  @param  contents    The contents of the report.
+     *  @param  prefix  The prefix for the keys; may be empty.
+     *  @param  statistics  The statistics.
      */
-    protected final DataNode calculateEndWeightedAverage( final SortedMap<? extends TemporalAccessor,DataNode> data )
+    protected static final void addVariability( final Map<String,String> contents, final String prefix, final ReportStatistics statistics )
     {
-        final var retValue = calculateEndWeightedAverage( data.values().toArray( DataNode []::new ) );
+        requireNonNullArgument( contents, "contents" );
+        requireNonNullArgument( prefix, "prefix" );
+        requireNonNullArgument( statistics, "statistics" );
 
-        //---* Done *----------------------------------------------------------
-        return retValue;
-    }   //  calculateEndWeightedAverage()
+        final var values = Map.of( "Systolic", statistics.getSystolicVariability(), "Diastolic", statistics.getDiastolicVariability(), "PulsePressure", statistics.getPulsePressureVariability() );
+        for( final var entry : values.entrySet() )
+        {
+            final var variability = entry.getValue();
+            contents.put( prefix + "StandardDeviation" + entry.getKey(), formatDecimal( "% 5.1f", variability.getStandardDeviation() ) );
+            contents.put( prefix + "CoefficientOfVariation" + entry.getKey(), formatDecimal( "% 5.1f%%", variability.getCoefficientOfVariation() ) );
+            contents.put( prefix + "AverageRealVariability" + entry.getKey(), formatDecimal( "% 5.1f", variability.getAverageRealVariability() ) );
+        }
+    }   //  addVariability()
 
     /**
-     *  Calculates an average for the given values that is weighted to the end
-     *  of the list.
+     *  Makes an assessment of the given
+     *  {@link DataNode}.
      *
-     *  @param  data    The input data.
-     *  @return The average.
+     *  @param  data    The data to assess.
+     *  @return The assessment.
      */
-    protected final DataNode calculateEndWeightedAverage( final DataNode[] data )
+    protected Diagnosis assessData( final DataNode data )
     {
-        final var size = requireNonNullArgument( data, "data" ).length;
-        var systolicSum = 0L;
-        var diastolicSum = 0L;
-        var pulsePressureSum = 0L;
-
-        for( var i = 0; i < size; ++i )
-        {
-            systolicSum += (long) data [i].systolic() * (i + 1);
-            diastolicSum += (long) data [i].diastolic() * (i + 1);
-            pulsePressureSum += (long) data [i].pulsePressure() * (i + 1);
-        }
-
-        final var divisor = (size + 1) * (size / 2);
-
-        final var retValue = new DataNode( (int) (systolicSum / divisor), (int) (diastolicSum / divisor), (int) (pulsePressureSum / divisor) );
+        final var retValue = assessPressure( data.systolic(), data.diastolic() );
 
         //---* Done *----------------------------------------------------------
         return retValue;
-    }   //  calculateEndWeightedAverage()
+    }   //  assessData()
 
     /**
-     *  Calculates a median for the given values.
+     *  Calculates the moving averages for the given values per day, as
+     *  returned from
+     *  {@link #compressAggregates(SortedMap)}
+     *  or
+     *  {@link ReportStatistics#getDailyValues()}.
      *
-     *  @param  data    The input data.
-     *  @return The median.
+     *  @param  data    The values per day.
+     *  @param  days    The length of the window in days.
+     *  @return The average over the window that ends with the respective
+     *      day, for each day in the input data.
+     *
+     *  @see RollingWindow
      */
-    protected final int calculateMedian( final int[] data )
+    protected final SortedMap<LocalDate,DataNode> calculateMovingAverages( final SortedMap<LocalDate,DataNode> data, final int days )
     {
-        final var copy = requireNonNullArgument( data, "data" ).clone();
-        sort( copy );
-        final var size = copy.length;
-        final var index = size / 2;
-
-        final var retValue = switch( size % 2 )
-            {
-                case 0 -> copy [index];
-                case 1 -> (copy [index] + copy [index + 1]) / 2;
-                default -> throw new ImpossibleExceptionError( new Exception( "Impossible value" ) );
-            };
+        final var retValue = RollingWindow.calculateMovingAverages( data, days );
 
         //---* Done *----------------------------------------------------------
         return retValue;
-    }   //  calculateMedian()
+    }   //  calculateMovingAverages()
 
     /**
-     *  Calculates a median for the given values.
+     *  Calculates the statistics for the given daily aggregates in a single
+     *  pass.
      *
-     *  @param  data    The input data.
-     *  @return The median.
+     *  @param  data    The daily aggregates.
+     *  @return The statistics.
      */
-    protected final DataNode calculateMedian( final Map<? extends TemporalAccessor,DataNode> data )
+    protected final ReportStatistics calculateStatistics( final SortedMap<LocalDate,DailyAggregate> data )
     {
-        final var size = requireNonNullArgument( data, "data" ).size();
-        final var systolicArray = new int [size];
-        final var diastolicArray = new int [size];
-        final var pulsePressureArray = new int [size];
-
-        var index = 0;
-        for( final var node : data.values() )
-        {
-            systolicArray [index] = node.systolic();
-            diastolicArray [index] = node.diastolic();
-            pulsePressureArray [index] = node.pulsePressure();
-            ++index;
-        }
-
-        final var systolic = calculateMedian( systolicArray );
-        final var diastolic = calculateMedian(diastolicArray );
-        final var pulsePressure = calculateMedian( pulsePressureArray );
-
-        final var retValue =  new DataNode( systolic, diastolic, pulsePressure );
+        final var retValue = new ReportStatistics.Accumulator()
+            .addAll( data )
+            .getResult();
 
         //---* Done *----------------------------------------------------------
         return retValue;
-    }   //  calculateMedian()
+    }   //  calculateStatistics()
 
     /**
      *  Checks whether the given destination is valid according to the given
@@ -502,23 +597,52 @@ public non-sealed abstract class ReportBase implements Report
     }   //  checkDestination()
 
     /**
-     *  Distributes the data based on the diagnosis.
+     *  Returns the colour for the cells of a heatmap that show values with
+     *  the given assessment.
+     *
+     *  @param  diagnosis   The assessment.
+     *  @return The colour, as an HTML colour code.
+     */
+    private static final String colourOf( final Diagnosis diagnosis )
+    {
+        final var retValue = switch( diagnosis )
+        {
+            case LOW -> "#9ecae1";
+            case OPTIMAL -> "#74c476";
+            case NORMAL -> "#c7e9c0";
+            case NORMAL_HIGH -> "#fff7bc";
+            case HIGH1 -> "#fdae6b";
+            case HIGH2 -> "#fb6a4a";
+            case HIGH3 -> "#cb181d";
+        };
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  colourOf()
+
+    /**
+     *  Distributes the data based on the diagnosis, using the histograms from
+     *  the given daily aggregates.
      *
      *  @param  data    The input data.
      *  @return The distribution.
      */
-    protected final Map<Diagnosis,DistributionNode> distributeData( final Map<LocalDateTime,DataNode> data )
+    protected final Map<Diagnosis,DistributionNode> distributeData( final Collection<DailyAggregate> data )
     {
         final Map<Diagnosis,DistributionNode> retValue = new EnumMap<>( Diagnosis.class );
-        for( final var node : data.values() )
+        var totalCount = 0;
+        for( final var aggregate : requireNonNullArgument( data, "data" ) )
         {
-            var diagnosis = assessSystolicPressure( node.systolic() );
-            retValue.computeIfAbsent( diagnosis, DistributionNode::new ).incrementSystolic();
-            diagnosis = assessDiastolicPressure( node.diastolic() );
-            retValue.computeIfAbsent( diagnosis, DistributionNode::new ).incrementDiastolic();
+            totalCount += aggregate.getCount();
+            for( final var diagnosis : Diagnosis.values() )
+            {
+                final var systolicCount = aggregate.getSystolicCount( diagnosis );
+                if( systolicCount > 0 ) retValue.computeIfAbsent( diagnosis, DistributionNode::new ).addSystolic( systolicCount );
+                final var diastolicCount = aggregate.getDiastolicCount( diagnosis );
+                if( diastolicCount > 0 ) retValue.computeIfAbsent( diagnosis, DistributionNode::new ).addDiastolic( diastolicCount );
+            }
         }
 
-        final var totalCount = data.size();
         for( final var node : retValue.values() )
         {
             node.calcSystolicPercentage( totalCount );
@@ -530,37 +654,115 @@ public non-sealed abstract class ReportBase implements Report
     }   //  distributeData()
 
     /**
-     *  Compresses the values so that there is only one entry per day.
+     *  Compresses the given daily aggregates to their averages, so that there
+     *  is only one entry per day.
      *
      *  @param  data    The input data.
      *  @return The compressed data.
      */
-    protected final SortedMap<LocalDate,DataNode> compressToDay( final SortedMap<LocalDateTime,DataNode> data )
+    protected final SortedMap<LocalDate,DataNode> compressAggregates( final SortedMap<LocalDate,DailyAggregate> data )
     {
         final var retValue = new TreeMap<LocalDate,DataNode>();
+        for( final var entry : requireNonNullArgument( data, "data" ).entrySet() )
+        {
+            retValue.put( entry.getKey(), entry.getValue().getAverage() );
+        }
 
-        LocalDate currentDay = null;
-        final var currentDayData = new ArrayList<DataNode>();
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  compressAggregates()
 
-        for( final var entry : requireNonNullArgument( data, "data" ).entrySet() )
+    /**
+     *  Executes the given tasks concurrently, for example the rendering of
+     *  the charts for several periods. The tasks run on the
+     *  {@linkplain ForkJoinPool#commonPool() common pool},
+     *  so no threads are created for a single call, and the number of
+     *  threads is limited by the number of the available processors.
+     *
+     *  @param  <T> The type of the results.
+     *  @param  tasks   The tasks.
+     *  @return The results of the tasks, in the order of the tasks.
+     *  @throws IOException One of the tasks failed with an
+     *      {@link IOException},
+     *      or the execution was interrupted.
+     */
+    protected static final <T> List<T> computeConcurrently( final List<? extends Callable<T>> tasks ) throws IOException
+    {
+        requireNonNullArgument( tasks, "tasks" );
+
+        final List<T> retValue = new ArrayList<>( tasks.size() );
+        if( !tasks.isEmpty() )
         {
-            final var day = entry.getKey().toLocalDate();
-            if( !day.equals( currentDay ) && !currentDayData.isEmpty() )
+            try
             {
-                retValue.put( currentDay, calculateAverage( currentDayData.toArray( DataNode []::new ) ) );
-                currentDayData.clear();
+                for( final var future : ForkJoinPool.commonPool().invokeAll( tasks ) ) retValue.add( future.get() );
+            }
+            catch( final InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                final var exception = new InterruptedIOException();
+                exception.initCause( e );
+                throw exception;
+            }
+            catch( final ExecutionException e )
+            {
+                final var cause = e.getCause();
+                if( cause instanceof IOException ioException ) throw ioException;
+                if( cause instanceof RuntimeException runtimeException ) throw runtimeException;
+                if( cause instanceof Error error ) throw error;
+                throw new UndeclaredThrowableException( cause );
             }
-            currentDay = day;
-            currentDayData.add( entry.getValue() );
-        }
-        if( nonNull( currentDay ) )
-        {
-            retValue.put( currentDay, calculateAverage( currentDayData.toArray( DataNode []::new ) ) );
         }
 
         //---* Done *----------------------------------------------------------
         return retValue;
-    }   //  compressToDay()
+    }   //  computeConcurrently()
+
+    /**
+     *  Returns the number of measurements in the given daily aggregates.
+     *
+     *  @param  data    The input data.
+     *  @return The number of measurements.
+     */
+    protected final int countMeasurements( final SortedMap<LocalDate,DailyAggregate> data )
+    {
+        var retValue = 0;
+        for( final var aggregate : requireNonNullArgument( data, "data" ).values() ) retValue += aggregate.getCount();
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  countMeasurements()
+
+    /**
+     *  Escapes the characters of a band label that have a special meaning
+     *  in HTML.
+     *
+     *  @param  label   The label.
+     *  @return The escaped label.
+     */
+    private static final String escapeLabel( final String label )
+    {
+        final var retValue = label.replace( "<", "&lt;" ).replace( ">", "&gt;" );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  escapeLabel()
+
+    /**
+     *  Formats the given decimal value with the given pattern.
+     *
+     *  @param  pattern The format pattern.
+     *  @param  value   The value.
+     *  @return The formatted value; it is &quot;-&quot; if the value is
+     *      {@link Double#NaN}.
+     */
+    private static final String formatDecimal( final String pattern, final double value )
+    {
+        final var retValue = Double.isNaN( value ) ? "-" : format( pattern, value );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  formatDecimal()
 
     /**
      *  {@inheritDoc}
@@ -582,56 +784,164 @@ public non-sealed abstract class ReportBase implements Report
     public String getStyle() { return m_Style; }
 
     /**
-     *  Loads the data from the database.
+     *  Returns the storage for the blood pressure data.
      *
-     *  @param  connection  The database connection.
+     *  @return The storage.
+     */
+    protected final DataStore getDataStore()
+    {
+        final var retValue = retrieveDataStore( m_Configuration.getStorage() ).orElseThrow();
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  getDataStore()
+
+    /**
+     *  <p>{@summary Loads the data of the configured person from the storage
+     *  for the given period.} Ignored measurements are skipped; the outliers
+     *  are collected separately. The same scan fills the
+     *  {@linkplain QuantileSketch quantile sketches}
+     *  and the
+     *  {@linkplain WeekdayHourCube statistics per weekday and time of day}.
+     *  The loading is repeated when the data was modified concurrently.</p>
+     *  <p>A
+     *  {@linkplain DataStore#downsample(String, Instant, ZoneId) downsampled}
+     *  day is represented by a single entry at noon that holds the average
+     *  values for that day. In the sketches, these values are counted once
+     *  for each measurement of that day; as the times of the measurements
+     *  are lost for such a day, it is missing in the statistics per weekday
+     *  and time of day.</p>
+     *
+     *  @param  store   The storage for the data.
      *  @param  timezone    The time zone for the report.
      *  @param  start   The start date.
      *  @param  end The end date.
-     *  @return The data.
-     *  @throws SQLException    Problems when accessing the database.
+     *  @return The results of the scan.
+     *  @throws IOException Problems when accessing the storage.
      */
-    protected final SortedMap<LocalDateTime,DataNode> loadData( final Connection connection, final ZoneId timezone, final LocalDate start, final LocalDate end ) throws SQLException
+    protected final MeasurementScan loadData( final DataStore store, final ZoneId timezone, final LocalDate start, final LocalDate end ) throws IOException
     {
-        final var startTime = requireNonNullArgument( start, "start" )
-            .atTime( 0, 0 )
-            .atZone( timezone );
-        final var endTime = (requireNonNullArgument( end, "end" ).equals( LocalDate.MAX ) ? end : end.plusDays( 1 ))
-            .atTime( 0,0 )
-            .atZone( timezone );
-
-        final var sql = format(
-            """
-            SELECT * FROM  %1$s
-              WHERE %2$s > ?
-                AND %2$s < ?\
-            """, TABLE_BLOODPRESSURE_DATA, COLUMN_BLOODPRESSURE_DATA_PRIMARY_KEY );
-        final SortedMap<LocalDateTime,DataNode> retValue = new TreeMap<>();
-        try( final var statement = requireNonNullArgument( connection, "connection" ).prepareStatement( sql ) )
+        requireNonNullArgument( timezone, "timezone" );
+        final var startTime = requireNonNullArgument( start, "start" ).equals( LocalDate.MIN )
+            ? null
+            : start.atStartOfDay( timezone ).toInstant();
+        final var endTime = requireNonNullArgument( end, "end" ).equals( LocalDate.MAX )
+            ? null
+            : end.plusDays( 1 ).atStartOfDay( timezone ).toInstant();
+
+        requireNonNullArgument( store, "store" );
+        final var person = m_Configuration.getPerson();
+        MeasurementScan retValue;
+        long dataVersion;
+        do
         {
-            statement.setObject( 1, startTime );
-            statement.setObject( 2, endTime );
-            try( final var resultSet = statement.executeQuery() )
+            dataVersion = store.getDataVersion( person );
+            final SortedMap<LocalDateTime,DataNode> data = new TreeMap<>();
+            final var sketches = new PressureSketches( new QuantileSketch(), new QuantileSketch() );
+            final var weekdayHours = new WeekdayHourCube();
+            final SortedMap<LocalDateTime,DataNode> outliers = new TreeMap<>();
+            store.scan( person, startTime, endTime, ( epochSecond, systolic, diastolic, isIgnored, isOutlier ) ->
             {
-                while( resultSet.next() )
+                if( !isIgnored )
                 {
-                    final var isIgnored = resultSet.getBoolean( 4 );
-                    if( !isIgnored )
+                    final var time = LocalDateTime.ofInstant( Instant.ofEpochSecond( epochSecond ), timezone );
+                    if( isOutlier )
                     {
-                        final var timestamp = resultSet.getObject( 1, LocalDateTime.class );
-                        final var systolic = resultSet.getInt( 2 );
-                        final var diastolic = resultSet.getInt( 3 );
-                        final var dataNode = new DataNode( systolic, diastolic );
-                        retValue.put( timestamp, dataNode );
+                        outliers.put( time, new DataNode( systolic, diastolic ) );
+                    }
+                    else
+                    {
+                        data.put( time, new DataNode( systolic, diastolic ) );
+                        sketches.systolic().add( Math.max( systolic, 0 ) );
+                        sketches.diastolic().add( Math.max( diastolic, 0 ) );
+                        weekdayHours.add( time.getDayOfWeek(), time.getHour(), systolic, diastolic );
                     }
                 }
+            } );
+
+            //---* Add the downsampled days *----------------------------------
+            for( final var aggregate : store.getDownsampledDays( person, isNull( startTime ) ? null : start, isNull( endTime ) ? null : end ).values() )
+            {
+                final var average = aggregate.getAverage();
+                data.put( aggregate.getDay().atTime( LocalTime.NOON ), average );
+                sketches.systolic().add( Math.max( average.systolic(), 0 ), aggregate.getCount() );
+                sketches.diastolic().add( Math.max( average.diastolic(), 0 ), aggregate.getCount() );
             }
+            retValue = new MeasurementScan( data, sketches, weekdayHours, outliers );
         }
+        while( store.getDataVersion( person ) != dataVersion );
 
         //---* Done *----------------------------------------------------------
         return retValue;
     }   //  loadData()
 
+    /**
+     *  <p>{@summary Loads the daily aggregates of the configured person for
+     *  the given period.}</p>
+     *  <p>The aggregates are taken from the
+     *  {@linkplain ReportDataCache cache}
+     *  that is kept in the data folder; only the days that were modified
+     *  since the cache was written will be aggregated again.</p>
+     *
+     *  @param  store   The storage for the data.
+     *  @param  timezone    The time zone for the report.
+     *  @param  start   The start date.
+     *  @param  end The end date.
+     *  @return The daily aggregates.
+     *  @throws IOException Problems when accessing the storage.
+     */
+    protected final SortedMap<LocalDate,DailyAggregate> loadDailyData( final DataStore store, final ZoneId timezone, final LocalDate start, final LocalDate end ) throws IOException
+    {
+        requireNonNullArgument( store, "store" );
+        requireNonNullArgument( timezone, "timezone" );
+        final var person = m_Configuration.getPerson();
+        final var allDays = retrieveDataCache( store, person ).retrieve( store, person, timezone );
+        final SortedMap<LocalDate,DailyAggregate> retValue = allDays.subMap( requireNonNullArgument( start, "start" ), true, requireNonNullArgument( end, "end" ), true );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  loadDailyData()
+
+    /**
+     *  Loads the daily aggregates of the configured person for the given
+     *  period and builds the
+     *  {@linkplain AggregationPyramid aggregation pyramid}
+     *  from them.
+     *
+     *  @param  store   The storage for the data.
+     *  @param  timezone    The time zone for the report.
+     *  @param  start   The start date.
+     *  @param  end The end date.
+     *  @return The aggregation pyramid.
+     *  @throws IOException Problems when accessing the storage.
+     */
+    protected final AggregationPyramid loadPyramid( final DataStore store, final ZoneId timezone, final LocalDate start, final LocalDate end ) throws IOException
+    {
+        final var retValue = new AggregationPyramid( loadDailyData( store, timezone, start, end ) );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  loadPyramid()
+
+    /**
+     *  Opens a
+     *  {@linkplain DataStore.Snapshot snapshot}
+     *  of the storage for the blood pressure data. All data for a report
+     *  should be read from the same snapshot; the report then shows the data
+     *  as it was at a single point in time, and reading it does not
+     *  interfere with a concurrent import.
+     *
+     *  @return The snapshot; it has to be closed after use.
+     *  @throws IOException Problems when accessing the storage.
+     */
+    protected final DataStore.Snapshot openSnapshot() throws IOException
+    {
+        final var retValue = getDataStore().openSnapshot();
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  openSnapshot()
+
     /**
      *  Registers a report generator.
      *
@@ -643,6 +953,78 @@ public non-sealed abstract class ReportBase implements Report
         m_Registry.put( style, report );
     }   //  registerReport()
 
+    /**
+     *  Renders the given statistics per weekday and time of day as a
+     *  heatmap, in form of an HTML table. Each cell shows the average
+     *  systolic and diastolic values, and its colour reflects their
+     *  assessment; the number of measurements is shown as the tooltip.
+     *
+     *  @param  weekdayHours    The statistics per weekday and time of day.
+     *  @return The HTML table.
+     */
+    protected final String renderHeatmap( final WeekdayHourCube weekdayHours )
+    {
+        final var locale = getConfiguration().getLocale();
+        final var hoursPerBucket = requireNonNullArgument( weekdayHours, "weekdayHours" ).getHoursPerBucket();
+        final var buffer = new StringBuilder( "<table border=\"1\">\n  <thead>\n    <tr>\n      <th/>\n" );
+        for( var bucket = 0; bucket < weekdayHours.getBucketCount(); ++bucket )
+        {
+            buffer.append( format( "      <th>%02d-%02d</th>\n", bucket * hoursPerBucket, (bucket + 1) * hoursPerBucket ) );
+        }
+        buffer.append( "    </tr>\n  </thead>\n  <tbody>\n" );
+        for( final var weekday : DayOfWeek.values() )
+        {
+            buffer.append( format( "    <tr>\n      <th>%s</th>\n", weekday.getDisplayName( SHORT, locale ) ) );
+            for( var bucket = 0; bucket < weekdayHours.getBucketCount(); ++bucket )
+            {
+                final var count = weekdayHours.getCount( weekday, bucket );
+                final var average = weekdayHours.getAverage( weekday, bucket );
+                if( average.isPresent() )
+                {
+                    final var node = average.get();
+                    buffer.append( format( "      <td align=\"center\" style=\"background-color:%s\" title=\"%d\">%d/%d</td>\n", colourOf( assessData( node ) ), count, node.systolic(), node.diastolic() ) );
+                }
+                else
+                {
+                    buffer.append( "      <td/>\n" );
+                }
+            }
+            buffer.append( "    </tr>\n" );
+        }
+        buffer.append( "  </tbody>\n</table>" );
+        final var retValue = buffer.toString();
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  renderHeatmap()
+
+    /**
+     *  Returns the cache for the daily aggregates of the given person.
+     *
+     *  @param  store   The storage for the data; each storage engine has a
+     *      cache file of its own, and the cache is valid only for the
+     *      {@linkplain DataStore#getStoreId() storage}
+     *      it was built from.
+     *  @param  person  The key for the person; each person has a cache file
+     *      of its own.
+     *  @return The cache.
+     */
+    private final ReportDataCache retrieveDataCache( final DataStore store, final String person )
+    {
+        final ReportDataCache retValue;
+        synchronized( ReportBase.class )
+        {
+            final var cacheFile = m_Configuration.getDataFolder()
+                .resolve( format( "%s.%s.%s.cache", m_Configuration.getDatabaseName(), store.getName().toLowerCase( ROOT ), person ) )
+                .toAbsolutePath()
+                .normalize();
+            retValue = m_DataCaches.computeIfAbsent( cacheFile, ReportDataCache::new );
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  retrieveDataCache()
+
     /**
      *  Retrieves the report generator for the given style and format.
      *
@@ -692,6 +1074,7 @@ public non-sealed abstract class ReportBase implements Report
     {
         return unmodifiableSet( m_SupportedFormats );
     }   //  supportedOutputFormats()
+
 }
 //  class ReportBase
 
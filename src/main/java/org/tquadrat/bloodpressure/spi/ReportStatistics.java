@@ -0,0 +1,534 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.bloodpressure.spi;
+
+import static java.util.Collections.unmodifiableSortedMap;
+import static org.apiguardian.api.API.Status.STABLE;
+import static org.tquadrat.bloodpressure.spi.DailyAggregate.BAND_COUNT;
+import static org.tquadrat.foundation.lang.Objects.isNull;
+import static org.tquadrat.foundation.lang.Objects.nonNull;
+import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.apiguardian.api.API;
+import org.tquadrat.bloodpressure.DataNode;
+import org.tquadrat.bloodpressure.Diagnosis;
+import org.tquadrat.bloodpressure.spi.ReportBase.DistributionNode;
+import org.tquadrat.foundation.annotation.ClassVersion;
+
+/**
+ *  <p>{@summary The statistics for a report period.}</p>
+ *  <p>An instance is created by an
+ *  {@link Accumulator}
+ *  that receives the
+ *  {@linkplain DailyAggregate daily aggregates}
+ *  of the period in the order of their days; all values are collected in
+ *  that single pass. The median is taken from a
+ *  {@link ValueHistogram},
+ *  so the values need neither to be kept nor to be sorted.</p>
+ *  <p>The averages, the median, the
+ *  {@linkplain Variability variability}
+ *  and the
+ *  {@linkplain LinearTrend trend}
+ *  are calculated on the average values per day, so that days with many
+ *  measurements do not outweigh the others; the distribution is calculated
+ *  on the single measurements.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.1.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = STABLE, since = "0.1.0" )
+public final class ReportStatistics
+{
+        /*---------------*\
+    ====** Inner Classes **====================================================
+        \*---------------*/
+    /**
+     *  The accumulator for the
+     *  {@link ReportStatistics}.
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.1.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = STABLE, since = "0.1.0" )
+    public static final class Accumulator
+    {
+            /*------------*\
+        ====** Attributes **===================================================
+            \*------------*/
+        /**
+         *  The average values per day.
+         */
+        private final SortedMap<LocalDate,DataNode> m_DailyValues = new TreeMap<>();
+
+        /**
+         *  The number of days.
+         */
+        private int m_DayCount = 0;
+
+        /**
+         *  The histogram for the diastolic values, indexed by the ordinal of
+         *  the
+         *  {@link Diagnosis}.
+         */
+        private final int [] m_DiastolicBands = new int [BAND_COUNT];
+
+        /**
+         *  The trend of the average diastolic values per day.
+         */
+        private final LinearTrend m_DiastolicTrend = new LinearTrend();
+
+        /**
+         *  The histogram for the average diastolic values per day.
+         */
+        private final ValueHistogram m_DiastolicValues = new ValueHistogram();
+
+        /**
+         *  The variability of the average diastolic values per day.
+         */
+        private final Variability m_DiastolicVariability = new Variability();
+
+        /**
+         *  The first day.
+         */
+        private LocalDate m_FirstDay;
+
+        /**
+         *  The last day.
+         */
+        private LocalDate m_LastDay;
+
+        /**
+         *  The number of measurements.
+         */
+        private int m_MeasurementCount = 0;
+
+        /**
+         *  The histogram for the average pulse pressures per day.
+         */
+        private final ValueHistogram m_PulsePressureValues = new ValueHistogram();
+
+        /**
+         *  The variability of the average pulse pressures per day.
+         */
+        private final Variability m_PulsePressureVariability = new Variability();
+
+        /**
+         *  The sums of the average values per day; the index is 0 for the
+         *  systolic values, 1 for the diastolic values and 2 for the pulse
+         *  pressure.
+         */
+        private final long [] m_Sums = new long [3];
+
+        /**
+         *  The histogram for the systolic values, indexed by the ordinal of
+         *  the
+         *  {@link Diagnosis}.
+         */
+        private final int [] m_SystolicBands = new int [BAND_COUNT];
+
+        /**
+         *  The trend of the average systolic values per day.
+         */
+        private final LinearTrend m_SystolicTrend = new LinearTrend();
+
+        /**
+         *  The histogram for the average systolic values per day.
+         */
+        private final ValueHistogram m_SystolicValues = new ValueHistogram();
+
+        /**
+         *  The variability of the average systolic values per day.
+         */
+        private final Variability m_SystolicVariability = new Variability();
+
+        /**
+         *  The sums of the average values per day, weighted by the position
+         *  of the day; the index is the same as for
+         *  {@link #m_Sums}.
+         */
+        private final long [] m_WeightedSums = new long [3];
+
+            /*--------------*\
+        ====** Constructors **=================================================
+            \*--------------*/
+        /**
+         *  Creates a new instance of {@code Accumulator}.
+         */
+        public Accumulator() { /* Just exists */ }
+
+            /*---------*\
+        ====** Methods **======================================================
+            \*---------*/
+        /**
+         *  Adds the given daily aggregate. The aggregates have to be added
+         *  in the order of their days; empty aggregates are skipped.
+         *
+         *  @param  aggregate   The daily aggregate.
+         *  @throws IllegalArgumentException    The day of the aggregate is
+         *      not after the day of the previous one.
+         */
+        public final void add( final DailyAggregate aggregate )
+        {
+            final var day = requireNonNullArgument( aggregate, "aggregate" ).getDay();
+            if( nonNull( m_LastDay ) && !day.isAfter( m_LastDay ) ) throw new IllegalArgumentException( "The daily aggregates are not in the order of their days" );
+
+            if( aggregate.getCount() > 0 )
+            {
+                if( isNull( m_FirstDay ) ) m_FirstDay = day;
+                m_LastDay = day;
+
+                //---* The values per day *------------------------------------
+                final var average = aggregate.getAverage();
+                m_DailyValues.put( day, average );
+                m_SystolicValues.add( average.systolic() );
+                m_DiastolicValues.add( average.diastolic() );
+                m_PulsePressureValues.add( average.pulsePressure() );
+                ++m_DayCount;
+
+                //---* The sums for the averages *-----------------------------
+                m_Sums [0] += average.systolic();
+                m_Sums [1] += average.diastolic();
+                m_Sums [2] += average.pulsePressure();
+                m_WeightedSums [0] += (long) average.systolic() * m_DayCount;
+                m_WeightedSums [1] += (long) average.diastolic() * m_DayCount;
+                m_WeightedSums [2] += (long) average.pulsePressure() * m_DayCount;
+
+                //---* The variability *---------------------------------------
+                m_SystolicVariability.add( (double) aggregate.getSystolicSum() / aggregate.getCount() );
+                m_DiastolicVariability.add( (double) aggregate.getDiastolicSum() / aggregate.getCount() );
+                m_PulsePressureVariability.add( (double) (aggregate.getSystolicSum() - aggregate.getDiastolicSum()) / aggregate.getCount() );
+
+                //---* The trend *---------------------------------------------
+                m_SystolicTrend.add( day, (double) aggregate.getSystolicSum() / aggregate.getCount() );
+                m_DiastolicTrend.add( day, (double) aggregate.getDiastolicSum() / aggregate.getCount() );
+
+                //---* The distribution *--------------------------------------
+                m_MeasurementCount += aggregate.getCount();
+                for( final var diagnosis : Diagnosis.values() )
+                {
+                    m_SystolicBands [diagnosis.ordinal()] += aggregate.getSystolicCount( diagnosis );
+                    m_DiastolicBands [diagnosis.ordinal()] += aggregate.getDiastolicCount( diagnosis );
+                }
+            }
+        }   //  add()
+
+        /**
+         *  Adds all the given daily aggregates.
+         *
+         *  @param  data    The daily aggregates.
+         *  @return This instance.
+         *
+         *  @see #add(DailyAggregate)
+         */
+        public final Accumulator addAll( final SortedMap<LocalDate,DailyAggregate> data )
+        {
+            for( final var aggregate : requireNonNullArgument( data, "data" ).values() ) add( aggregate );
+
+            //---* Done *------------------------------------------------------
+            return this;
+        }   //  addAll()
+
+        /**
+         *  Creates the statistics from the daily aggregates that were added
+         *  so far. The accumulator should not be used afterwards.
+         *
+         *  @return The statistics.
+         */
+        public final ReportStatistics getResult()
+        {
+            final var retValue = new ReportStatistics( this );
+
+            //---* Done *------------------------------------------------------
+            return retValue;
+        }   //  getResult()
+    }
+    //  class Accumulator
+
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The average of the values per day.
+     */
+    private final DataNode m_Average;
+
+    /**
+     *  The average values per day.
+     */
+    private final SortedMap<LocalDate,DataNode> m_DailyValues;
+
+    /**
+     *  The number of days with measurements.
+     */
+    private final int m_DayCount;
+
+    /**
+     *  The trend of the average diastolic values per day.
+     */
+    private final LinearTrend m_DiastolicTrend;
+
+    /**
+     *  The variability of the average diastolic values per day.
+     */
+    private final Variability m_DiastolicVariability;
+
+    /**
+     *  The distribution of the measurements.
+     */
+    private final Map<Diagnosis,DistributionNode> m_Distribution;
+
+    /**
+     *  The first day with measurements.
+     */
+    private final LocalDate m_FirstDay;
+
+    /**
+     *  The last day with measurements.
+     */
+    private final LocalDate m_LastDay;
+
+    /**
+     *  The number of measurements.
+     */
+    private final int m_MeasurementCount;
+
+    /**
+     *  The median of the values per day.
+     */
+    private final DataNode m_Median;
+
+    /**
+     *  The variability of the average pulse pressures per day.
+     */
+    private final Variability m_PulsePressureVariability;
+
+    /**
+     *  The trend of the average systolic values per day.
+     */
+    private final LinearTrend m_SystolicTrend;
+
+    /**
+     *  The variability of the average systolic values per day.
+     */
+    private final Variability m_SystolicVariability;
+
+    /**
+     *  The average of the values per day, weighted to the end of the
+     *  period.
+     */
+    private final DataNode m_WeightedAverage;
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates a new instance of {@code ReportStatistics}.
+     *
+     *  @param  accumulator The accumulator that holds the collected values.
+     */
+    private ReportStatistics( final Accumulator accumulator )
+    {
+        m_DayCount = accumulator.m_DayCount;
+        m_DailyValues = unmodifiableSortedMap( new TreeMap<>( accumulator.m_DailyValues ) );
+        m_FirstDay = accumulator.m_FirstDay;
+        m_LastDay = accumulator.m_LastDay;
+        m_MeasurementCount = accumulator.m_MeasurementCount;
+        m_SystolicVariability = new Variability( accumulator.m_SystolicVariability );
+        m_DiastolicVariability = new Variability( accumulator.m_DiastolicVariability );
+        m_PulsePressureVariability = new Variability( accumulator.m_PulsePressureVariability );
+        m_SystolicTrend = new LinearTrend( accumulator.m_SystolicTrend );
+        m_DiastolicTrend = new LinearTrend( accumulator.m_DiastolicTrend );
+
+        if( m_DayCount > 0 )
+        {
+            m_Average = new DataNode( (int) (accumulator.m_Sums [0] / m_DayCount), (int) (accumulator.m_Sums [1] / m_DayCount), (int) (accumulator.m_Sums [2] / m_DayCount) );
+            final var divisor = (long) m_DayCount * (m_DayCount + 1) / 2;
+            m_WeightedAverage = new DataNode( (int) (accumulator.m_WeightedSums [0] / divisor), (int) (accumulator.m_WeightedSums [1] / divisor), (int) (accumulator.m_WeightedSums [2] / divisor) );
+            m_Median = new DataNode( accumulator.m_SystolicValues.getMedian(), accumulator.m_DiastolicValues.getMedian(), accumulator.m_PulsePressureValues.getMedian() );
+        }
+        else
+        {
+            m_Average = null;
+            m_WeightedAverage = null;
+            m_Median = null;
+        }
+
+        m_Distribution = new EnumMap<>( Diagnosis.class );
+        for( final var diagnosis : Diagnosis.values() )
+        {
+            final var node = new DistributionNode( diagnosis );
+            node.addSystolic( accumulator.m_SystolicBands [diagnosis.ordinal()] );
+            node.addDiastolic( accumulator.m_DiastolicBands [diagnosis.ordinal()] );
+            node.calcSystolicPercentage( m_MeasurementCount );
+            node.calcDiastolicPercentage( m_MeasurementCount );
+            m_Distribution.put( diagnosis, node );
+        }
+    }   //  ReportStatistics()
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Returns the plain average of the values per day.
+     *
+     *  @return The average; it is {@code null} if there are no
+     *      measurements.
+     */
+    public final DataNode getAverage() { return m_Average; }
+
+    /**
+     *  Returns the average values per day.
+     *
+     *  @return The values per day.
+     */
+    public final SortedMap<LocalDate,DataNode> getDailyValues() { return m_DailyValues; }
+
+    /**
+     *  Returns the number of days with measurements.
+     *
+     *  @return The number of days.
+     */
+    public final int getDayCount() { return m_DayCount; }
+
+    /**
+     *  Returns the trend of the average diastolic values per day.
+     *
+     *  @return A copy of the accumulator for the trend.
+     */
+    public final LinearTrend getDiastolicTrend() { return new LinearTrend( m_DiastolicTrend ); }
+
+    /**
+     *  Returns the variability of the average diastolic values per day.
+     *
+     *  @return A copy of the accumulator for the variability.
+     */
+    public final Variability getDiastolicVariability() { return new Variability( m_DiastolicVariability ); }
+
+    /**
+     *  Returns the distribution of the measurements, based on the
+     *  diagnosis. The map holds an entry for each diagnosis.
+     *
+     *  @return The distribution.
+     */
+    public final Map<Diagnosis,DistributionNode> getDistribution() { return m_Distribution; }
+
+    /**
+     *  Returns the first day with measurements.
+     *
+     *  @return The first day.
+     *  @throws NoSuchElementException  There are no measurements.
+     */
+    public final LocalDate getFirstDay()
+    {
+        if( isNull( m_FirstDay ) ) throw new NoSuchElementException( "No measurements" );
+
+        //---* Done *----------------------------------------------------------
+        return m_FirstDay;
+    }   //  getFirstDay()
+
+    /**
+     *  Returns the last day with measurements.
+     *
+     *  @return The last day.
+     *  @throws NoSuchElementException  There are no measurements.
+     */
+    public final LocalDate getLastDay()
+    {
+        if( isNull( m_LastDay ) ) throw new NoSuchElementException( "No measurements" );
+
+        //---* Done *----------------------------------------------------------
+        return m_LastDay;
+    }   //  getLastDay()
+
+    /**
+     *  Returns the number of measurements.
+     *
+     *  @return The number of measurements.
+     */
+    public final int getMeasurementCount() { return m_MeasurementCount; }
+
+    /**
+     *  Returns the median of the values per day.
+     *
+     *  @return The median; it is {@code null} if there are no measurements.
+     */
+    public final DataNode getMedian() { return m_Median; }
+
+    /**
+     *  Returns the variability of the average pulse pressures per day.
+     *
+     *  @return A copy of the accumulator for the variability.
+     */
+    public final Variability getPulsePressureVariability() { return new Variability( m_PulsePressureVariability ); }
+
+    /**
+     *  Returns the trend of the average systolic values per day.
+     *
+     *  @return A copy of the accumulator for the trend.
+     */
+    public final LinearTrend getSystolicTrend() { return new LinearTrend( m_SystolicTrend ); }
+
+    /**
+     *  Returns the variability of the average systolic values per day.
+     *
+     *  @return A copy of the accumulator for the variability.
+     */
+    public final Variability getSystolicVariability() { return new Variability( m_SystolicVariability ); }
+
+    /**
+     *  Returns the number of days from the first to the last day with
+     *  measurements, both inclusive.
+     *
+     *  @return The number of days; it is 0 if there are no measurements.
+     */
+    public final long getTotalDays()
+    {
+        final var retValue = m_DayCount > 0 ? ChronoUnit.DAYS.between( m_FirstDay, m_LastDay ) + 1 : 0L;
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  getTotalDays()
+
+    /**
+     *  Returns the average of the values per day, weighted to the end of
+     *  the period: the weight of a day is its position in the period.
+     *
+     *  @return The weighted average; it is {@code null} if there are no
+     *      measurements.
+     */
+    public final DataNode getWeightedAverage() { return m_WeightedAverage; }
+}
+//  class ReportStatistics
+
+/*
+ *  End of File
+ */
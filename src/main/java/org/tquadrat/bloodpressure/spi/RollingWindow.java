@@ -0,0 +1,379 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.bloodpressure.spi;
+
+import static org.apiguardian.api.API.Status.INTERNAL;
+import static org.apiguardian.api.API.Status.STABLE;
+import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
+import static org.tquadrat.foundation.util.StringUtils.format;
+
+import java.time.LocalDate;
+import java.util.NoSuchElementException;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.apiguardian.api.API;
+import org.tquadrat.bloodpressure.DataNode;
+import org.tquadrat.foundation.annotation.ClassVersion;
+
+/**
+ *  <p>{@summary A window over the last days of a series of values per day,
+ *  like the
+ *  {@linkplain ReportBase#compressAggregates(SortedMap) day-compressed data},
+ *  that moves forward day by day.}</p>
+ *  <p>The window covers a fixed number of calendar days, up to and
+ *  including the day of the latest value; days without a value are
+ *  just missing in the window. The values are kept in a ring buffer, with
+ *  running sums for the average, and with monotonic queues for the minimum
+ *  and the maximum: each value enters and leaves these exactly once, so
+ *  moving the window costs a constant time on average, independent of its
+ *  length.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.1.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = STABLE, since = "0.1.0" )
+public final class RollingWindow
+{
+        /*---------------*\
+    ====** Inner Classes **====================================================
+        \*---------------*/
+    /**
+     *  <p>{@summary A queue that holds the candidates for the minimum or the
+     *  maximum of the window.}</p>
+     *  <p>The values in the queue are monotonic: a new value removes all
+     *  values from the end of the queue that can no longer become the
+     *  extremum, because the new value is better and stays longer in the
+     *  window. The extremum is then always at the head of the queue.</p>
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.1.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = INTERNAL, since = "0.1.0" )
+    private static final class MonotonicQueue
+    {
+            /*------------*\
+        ====** Attributes **===================================================
+            \*------------*/
+        /**
+         *  The position of the head of the queue.
+         */
+        private long m_Head = 0;
+
+        /**
+         *  {@code true} if the queue holds the candidates for the maximum,
+         *  {@code false} for the minimum.
+         */
+        private final boolean m_IsMaximum;
+
+        /**
+         *  The sequence numbers of the values in the queue.
+         */
+        private final long [] m_Sequences;
+
+        /**
+         *  The position after the tail of the queue.
+         */
+        private long m_Tail = 0;
+
+        /**
+         *  The values in the queue.
+         */
+        private final int [] m_Values;
+
+            /*--------------*\
+        ====** Constructors **=================================================
+            \*--------------*/
+        /**
+         *  Creates a new instance of {@code MonotonicQueue}.
+         *
+         *  @param  capacity    The capacity of the queue; this is the
+         *      maximum number of values in the window.
+         *  @param  isMaximum   {@code true} if the queue holds the
+         *      candidates for the maximum, {@code false} for the minimum.
+         */
+        MonotonicQueue( final int capacity, final boolean isMaximum )
+        {
+            m_Sequences = new long [capacity];
+            m_Values = new int [capacity];
+            m_IsMaximum = isMaximum;
+        }   //  MonotonicQueue()
+
+            /*---------*\
+        ====** Methods **======================================================
+            \*---------*/
+        /**
+         *  Removes the values that are no longer in the window.
+         *
+         *  @param  firstSequence   The sequence number of the oldest value
+         *      in the window.
+         */
+        final void evict( final long firstSequence )
+        {
+            while( (m_Head < m_Tail) && (m_Sequences [slot( m_Head )] < firstSequence) ) ++m_Head;
+        }   //  evict()
+
+        /**
+         *  Returns the extremum.
+         *
+         *  @return The extremum.
+         */
+        final int getExtremum() { return m_Values [slot( m_Head )]; }
+
+        /**
+         *  Adds a value.
+         *
+         *  @param  sequence    The sequence number of the value.
+         *  @param  value   The value.
+         */
+        final void push( final long sequence, final int value )
+        {
+            while( (m_Head < m_Tail) && (m_IsMaximum ? m_Values [slot( m_Tail - 1 )] <= value : m_Values [slot( m_Tail - 1 )] >= value) ) --m_Tail;
+            m_Sequences [slot( m_Tail )] = sequence;
+            m_Values [slot( m_Tail )] = value;
+            ++m_Tail;
+        }   //  push()
+
+        /**
+         *  Returns the slot in the ring buffer for the given position.
+         *
+         *  @param  position    The position.
+         *  @return The slot.
+         */
+        private final int slot( final long position ) { return (int) (position % m_Values.length); }
+    }
+    //  class MonotonicQueue
+
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The days of the values in the window, as epoch days.
+     */
+    private final long [] m_Days;
+
+    /**
+     *  The sequence number of the oldest value in the window.
+     */
+    private long m_First = 0;
+
+    /**
+     *  The length of the window in days.
+     */
+    private final int m_Length;
+
+    /**
+     *  The queues for the maxima; the index is 0 for the systolic values, 1
+     *  for the diastolic values and 2 for the pulse pressure.
+     */
+    private final MonotonicQueue [] m_Maxima;
+
+    /**
+     *  The queues for the minima; the index is the same as for
+     *  {@link #m_Maxima}.
+     */
+    private final MonotonicQueue [] m_Minima;
+
+    /**
+     *  The sequence number for the next value.
+     */
+    private long m_Next = 0;
+
+    /**
+     *  The running sums of the values in the window; the index is the same
+     *  as for
+     *  {@link #m_Maxima}.
+     */
+    private final long [] m_Sums = new long [3];
+
+    /**
+     *  The values in the window; the first index is the same as for
+     *  {@link #m_Maxima}.
+     */
+    private final int [] [] m_Values;
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates a new instance of {@code RollingWindow}.
+     *
+     *  @param  length  The length of the window in days.
+     *  @throws IllegalArgumentException    The length is less than 1.
+     */
+    public RollingWindow( final int length )
+    {
+        if( length < 1 ) throw new IllegalArgumentException( format( "Invalid window length: %d", length ) );
+        m_Length = length;
+        m_Days = new long [length];
+        m_Values = new int [3] [length];
+        m_Maxima = new MonotonicQueue [3];
+        m_Minima = new MonotonicQueue [3];
+        for( var i = 0; i < 3; ++i )
+        {
+            m_Maxima [i] = new MonotonicQueue( length, true );
+            m_Minima [i] = new MonotonicQueue( length, false );
+        }
+    }   //  RollingWindow()
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Adds the value for the given day and moves the window so that it
+     *  ends with that day.
+     *
+     *  @param  day The day.
+     *  @param  value   The value for that day.
+     *  @throws IllegalArgumentException    The day is not after the day of
+     *      the previous value.
+     */
+    public final void add( final LocalDate day, final DataNode value )
+    {
+        final var epochDay = requireNonNullArgument( day, "day" ).toEpochDay();
+        requireNonNullArgument( value, "value" );
+        if( (m_Next > 0) && (epochDay <= m_Days [slot( m_Next - 1 )]) ) throw new IllegalArgumentException( "The days are not in ascending order" );
+
+        //---* Remove the values that drop out of the window *-----------------
+        while( (m_First < m_Next) && (m_Days [slot( m_First )] <= epochDay - m_Length) )
+        {
+            final var slot = slot( m_First );
+            for( var i = 0; i < 3; ++i ) m_Sums [i] -= m_Values [i] [slot];
+            ++m_First;
+        }
+
+        //---* Add the new value *---------------------------------------------
+        final var slot = slot( m_Next );
+        m_Days [slot] = epochDay;
+        m_Values [0] [slot] = value.systolic();
+        m_Values [1] [slot] = value.diastolic();
+        m_Values [2] [slot] = value.pulsePressure();
+        for( var i = 0; i < 3; ++i )
+        {
+            m_Sums [i] += m_Values [i] [slot];
+            m_Maxima [i].evict( m_First );
+            m_Maxima [i].push( m_Next, m_Values [i] [slot] );
+            m_Minima [i].evict( m_First );
+            m_Minima [i].push( m_Next, m_Values [i] [slot] );
+        }
+        ++m_Next;
+    }   //  add()
+
+    /**
+     *  Calculates the moving averages for the given values per day.
+     *
+     *  @param  data    The values per day.
+     *  @param  length  The length of the window in days.
+     *  @return The average of the window that ends with the respective
+     *      day, for each day in the input data.
+     */
+    public static final SortedMap<LocalDate,DataNode> calculateMovingAverages( final SortedMap<LocalDate,DataNode> data, final int length )
+    {
+        final var window = new RollingWindow( length );
+        final SortedMap<LocalDate,DataNode> retValue = new TreeMap<>();
+        for( final var entry : requireNonNullArgument( data, "data" ).entrySet() )
+        {
+            window.add( entry.getKey(), entry.getValue() );
+            retValue.put( entry.getKey(), window.getAverage() );
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  calculateMovingAverages()
+
+    /**
+     *  Returns the average of the values in the window.
+     *
+     *  @return The average.
+     *  @throws NoSuchElementException  The window is empty.
+     */
+    public final DataNode getAverage()
+    {
+        final var size = getSize();
+        if( size == 0 ) throw new NoSuchElementException( "The window is empty" );
+        final var retValue = new DataNode( (int) (m_Sums [0] / size), (int) (m_Sums [1] / size), (int) (m_Sums [2] / size) );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  getAverage()
+
+    /**
+     *  Returns the length of the window.
+     *
+     *  @return The length in days.
+     */
+    public final int getLength() { return m_Length; }
+
+    /**
+     *  Returns the maxima of the values in the window, separately for each
+     *  pressure value.
+     *
+     *  @return The maxima.
+     *  @throws NoSuchElementException  The window is empty.
+     */
+    public final DataNode getMaximum()
+    {
+        if( getSize() == 0 ) throw new NoSuchElementException( "The window is empty" );
+        final var retValue = new DataNode( m_Maxima [0].getExtremum(), m_Maxima [1].getExtremum(), m_Maxima [2].getExtremum() );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  getMaximum()
+
+    /**
+     *  Returns the minima of the values in the window, separately for each
+     *  pressure value.
+     *
+     *  @return The minima.
+     *  @throws NoSuchElementException  The window is empty.
+     */
+    public final DataNode getMinimum()
+    {
+        if( getSize() == 0 ) throw new NoSuchElementException( "The window is empty" );
+        final var retValue = new DataNode( m_Minima [0].getExtremum(), m_Minima [1].getExtremum(), m_Minima [2].getExtremum() );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  getMinimum()
+
+    /**
+     *  Returns the number of days with a value in the window.
+     *
+     *  @return The number of values.
+     */
+    public final int getSize() { return (int) (m_Next - m_First); }
+
+    /**
+     *  Returns the slot in the ring buffer for the given sequence number.
+     *
+     *  @param  sequence    The sequence number.
+     *  @return The slot.
+     */
+    private final int slot( final long sequence ) { return (int) (sequence % m_Length); }
+}
+//  class RollingWindow
+
+/*
+ *  End of File
+ */
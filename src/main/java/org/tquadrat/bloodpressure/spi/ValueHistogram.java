@@ -0,0 +1,207 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.bloodpressure.spi;
+
+import static org.apiguardian.api.API.Status.STABLE;
+import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
+import static org.tquadrat.foundation.util.StringUtils.format;
+
+import java.util.NoSuchElementException;
+
+import org.apiguardian.api.API;
+import org.tquadrat.foundation.annotation.ClassVersion;
+
+/**
+ *  <p>{@summary A counting histogram for pressure values, with one bin per
+ *  mmHg.}</p>
+ *  <p>Pressure values are small integers, so the exact median or any other
+ *  percentile can be taken from the counts, without keeping or sorting the
+ *  values themselves: adding a value is a single increment, and a
+ *  percentile needs one pass over the bins, independent of the number of
+ *  values. The histogram can be filled while the data is loaded.</p>
+ *  <p>The bins cover the values from {@value #MINIMUM_VALUE} to
+ *  {@value #MAXIMUM_VALUE}; this includes all values for the systolic or
+ *  diastolic pressure, and also all differences between them.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.1.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = STABLE, since = "0.1.0" )
+public final class ValueHistogram
+{
+        /*-----------*\
+    ====** Constants **========================================================
+        \*-----------*/
+    /**
+     *  The largest value that can be added to the histogram: {@value}.
+     */
+    public static final int MAXIMUM_VALUE = 511;
+
+    /**
+     *  The smallest value that can be added to the histogram: {@value}.
+     */
+    public static final int MINIMUM_VALUE = -MAXIMUM_VALUE;
+
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The bins; the index is the value minus
+     *  {@link #MINIMUM_VALUE}.
+     */
+    private final long [] m_Bins = new long [MAXIMUM_VALUE - MINIMUM_VALUE + 1];
+
+    /**
+     *  The number of values.
+     */
+    private long m_Count = 0;
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates a new, empty instance of {@code ValueHistogram}.
+     */
+    public ValueHistogram() { /* Just exists */ }
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Adds a value.
+     *
+     *  @param  value   The value.
+     *  @throws IllegalArgumentException    The value is outside the range
+     *      of the histogram.
+     */
+    public final void add( final int value )
+    {
+        if( (value < MINIMUM_VALUE) || (value > MAXIMUM_VALUE) )
+        {
+            throw new IllegalArgumentException( format( "The value %d is outside the range from %d to %d", value, MINIMUM_VALUE, MAXIMUM_VALUE ) );
+        }
+        ++m_Bins [value - MINIMUM_VALUE];
+        ++m_Count;
+    }   //  add()
+
+    /**
+     *  Returns the number of values.
+     *
+     *  @return The number of values.
+     */
+    public final long getCount() { return m_Count; }
+
+    /**
+     *  <p>{@summary Returns the median of the values.} For an even number
+     *  of values, this is the average of the two values in the middle,
+     *  rounded towards zero.</p>
+     *
+     *  @return The median.
+     *  @throws NoSuchElementException  The histogram is empty.
+     */
+    public final int getMedian()
+    {
+        final var index = m_Count / 2;
+        final var retValue = m_Count % 2 == 0
+            ? (getValueAt( index - 1 ) + getValueAt( index )) / 2
+            : getValueAt( index );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  getMedian()
+
+    /**
+     *  Returns the given percentile of the values, using the nearest rank:
+     *  this is the smallest value for that at least the given percentage of
+     *  all values are less than or equal to it.
+     *
+     *  @param  percentage  The percentage, from 0 to 100; 0 returns the
+     *      smallest value.
+     *  @return The percentile.
+     *  @throws IllegalArgumentException    The percentage is out of range.
+     *  @throws NoSuchElementException  The histogram is empty.
+     */
+    public final int getPercentile( final double percentage )
+    {
+        if( !(percentage >= 0.0 && percentage <= 100.0) ) throw new IllegalArgumentException( format( "Invalid percentage: %f", percentage ) );
+
+        final var rank = (long) Math.ceil( percentage / 100.0 * m_Count );
+        final var retValue = getValueAt( Math.max( rank - 1, 0L ) );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  getPercentile()
+
+    /**
+     *  Returns the value at the given position in the ascending order of
+     *  all values.
+     *
+     *  @param  position    The position, starting with 0.
+     *  @return The value.
+     *  @throws NoSuchElementException  There is no value at that position.
+     */
+    public final int getValueAt( final long position )
+    {
+        if( (position < 0) || (position >= m_Count) ) throw new NoSuchElementException( format( "No value at position %d", position ) );
+
+        var remaining = position;
+        var index = 0;
+        while( remaining >= m_Bins [index] ) remaining -= m_Bins [index++];
+        final var retValue = index + MINIMUM_VALUE;
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  getValueAt()
+
+    /**
+     *  Adds the values from the given histogram to this one.
+     *
+     *  @param  other   The other histogram.
+     */
+    public final void merge( final ValueHistogram other )
+    {
+        requireNonNullArgument( other, "other" );
+        for( var i = 0; i < m_Bins.length; ++i ) m_Bins [i] += other.m_Bins [i];
+        m_Count += other.m_Count;
+    }   //  merge()
+
+    /**
+     *  Creates a histogram for the given values.
+     *
+     *  @param  values  The values.
+     *  @return The histogram.
+     *  @throws IllegalArgumentException    A value is outside the range of
+     *      the histogram.
+     */
+    public static final ValueHistogram of( final int... values )
+    {
+        final var retValue = new ValueHistogram();
+        for( final var value : requireNonNullArgument( values, "values" ) ) retValue.add( value );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  of()
+}
+//  class ValueHistogram
+
+/*
+ *  End of File
+ */
@@ -0,0 +1,241 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.bloodpressure.spi;
+
+import static org.apiguardian.api.API.Status.STABLE;
+import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
+
+import org.apiguardian.api.API;
+import org.tquadrat.foundation.annotation.ClassVersion;
+
+/**
+ *  <p>{@summary A streaming accumulator for the variability of a series of
+ *  values.}</p>
+ *  <p>The mean and the variance are updated with Welford's method; unlike
+ *  the difference between the sum of the squares and the square of the sum,
+ *  this does not lose precision for values with a small spread around a
+ *  large mean. The average real variability (ARV) is the average of the
+ *  absolute differences between successive values.</p>
+ *  <p>Two accumulators can be
+ *  {@linkplain #merge(Variability) merged};
+ *  for the ARV, the values of the other accumulator have to follow those of
+ *  this one.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.1.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = STABLE, since = "0.1.0" )
+public final class Variability
+{
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The number of values.
+     */
+    private long m_Count = 0;
+
+    /**
+     *  The first value.
+     */
+    private double m_First = 0.0;
+
+    /**
+     *  The last value.
+     */
+    private double m_Last = 0.0;
+
+    /**
+     *  The mean of the values.
+     */
+    private double m_Mean = 0.0;
+
+    /**
+     *  The sum of the squared differences from the mean.
+     */
+    private double m_SquaredDifferences = 0.0;
+
+    /**
+     *  The sum of the absolute differences between successive values.
+     */
+    private double m_SuccessiveDifferences = 0.0;
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates a new, empty instance of {@code Variability}.
+     */
+    public Variability() { /* Just exists */ }
+
+    /**
+     *  Creates a copy of the given instance of {@code Variability}.
+     *
+     *  @param  other   The accumulator to copy.
+     */
+    public Variability( final Variability other )
+    {
+        merge( other );
+    }   //  Variability()
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Adds a value.
+     *
+     *  @param  value   The value.
+     */
+    public final void add( final double value )
+    {
+        if( m_Count == 0 )
+        {
+            m_First = value;
+        }
+        else
+        {
+            m_SuccessiveDifferences += Math.abs( value - m_Last );
+        }
+        m_Last = value;
+
+        ++m_Count;
+        final var delta = value - m_Mean;
+        m_Mean += delta / m_Count;
+        m_SquaredDifferences += delta * (value - m_Mean);
+    }   //  add()
+
+    /**
+     *  Returns the average real variability: the average of the absolute
+     *  differences between successive values.
+     *
+     *  @return The average real variability; it is
+     *      {@link Double#NaN}
+     *      if there are less than two values.
+     */
+    public final double getAverageRealVariability()
+    {
+        final var retValue = m_Count > 1 ? m_SuccessiveDifferences / (m_Count - 1) : Double.NaN;
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  getAverageRealVariability()
+
+    /**
+     *  Returns the coefficient of variation: the standard deviation in
+     *  percent of the mean.
+     *
+     *  @return The coefficient of variation; it is
+     *      {@link Double#NaN}
+     *      if there are less than two values or if the mean is 0.
+     */
+    public final double getCoefficientOfVariation()
+    {
+        final var retValue = m_Mean != 0.0 ? getStandardDeviation() / Math.abs( m_Mean ) * 100.0 : Double.NaN;
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  getCoefficientOfVariation()
+
+    /**
+     *  Returns the number of values.
+     *
+     *  @return The number of values.
+     */
+    public final long getCount() { return m_Count; }
+
+    /**
+     *  Returns the mean of the values.
+     *
+     *  @return The mean; it is
+     *      {@link Double#NaN}
+     *      if there are no values.
+     */
+    public final double getMean() { return m_Count > 0 ? m_Mean : Double.NaN; }
+
+    /**
+     *  Returns the sample standard deviation of the values.
+     *
+     *  @return The standard deviation; it is
+     *      {@link Double#NaN}
+     *      if there are less than two values.
+     */
+    public final double getStandardDeviation()
+    {
+        final var retValue = Math.sqrt( getVariance() );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  getStandardDeviation()
+
+    /**
+     *  Returns the sample variance of the values.
+     *
+     *  @return The variance; it is
+     *      {@link Double#NaN}
+     *      if there are less than two values.
+     */
+    public final double getVariance()
+    {
+        final var retValue = m_Count > 1 ? m_SquaredDifferences / (m_Count - 1) : Double.NaN;
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  getVariance()
+
+    /**
+     *  Adds the values from the given accumulator to this one. The values
+     *  of the other accumulator have to follow those of this one, otherwise
+     *  the average real variability is wrong; the other values are not
+     *  affected by the order.
+     *
+     *  @param  other   The other accumulator.
+     */
+    public final void merge( final Variability other )
+    {
+        if( requireNonNullArgument( other, "other" ).m_Count > 0 )
+        {
+            if( m_Count == 0 )
+            {
+                m_First = other.m_First;
+                m_SuccessiveDifferences = other.m_SuccessiveDifferences;
+                m_Mean = other.m_Mean;
+                m_SquaredDifferences = other.m_SquaredDifferences;
+            }
+            else
+            {
+                m_SuccessiveDifferences += Math.abs( other.m_First - m_Last ) + other.m_SuccessiveDifferences;
+
+                //---* Chan's formula for the combined variance *--------------
+                final var count = m_Count + other.m_Count;
+                final var delta = other.m_Mean - m_Mean;
+                m_SquaredDifferences += other.m_SquaredDifferences + delta * delta * m_Count * other.m_Count / count;
+                m_Mean += delta * other.m_Count / count;
+            }
+            m_Last = other.m_Last;
+            m_Count += other.m_Count;
+        }
+    }   //  merge()
+}
+//  class Variability
+
+/*
+ *  End of File
+ */
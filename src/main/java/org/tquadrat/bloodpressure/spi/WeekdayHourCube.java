@@ -0,0 +1,289 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.bloodpressure.spi;
+
+import static java.util.Objects.checkIndex;
+import static org.apiguardian.api.API.Status.STABLE;
+import static org.tquadrat.bloodpressure.Diagnosis.assessDiastolicPressure;
+import static org.tquadrat.bloodpressure.Diagnosis.assessSystolicPressure;
+import static org.tquadrat.bloodpressure.spi.DailyAggregate.BAND_COUNT;
+import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
+import static org.tquadrat.foundation.util.StringUtils.format;
+
+import java.time.DayOfWeek;
+import java.util.Optional;
+
+import org.apiguardian.api.API;
+import org.tquadrat.bloodpressure.DataNode;
+import org.tquadrat.bloodpressure.Diagnosis;
+import org.tquadrat.foundation.annotation.ClassVersion;
+
+/**
+ *  <p>{@summary The statistics for the measurements per weekday and time of
+ *  day.}</p>
+ *  <p>The day is divided into buckets of a fixed number of hours; for each
+ *  weekday and bucket, the cube holds the number of measurements, the sums
+ *  of the values and the distribution over the bands of
+ *  {@link Diagnosis}.
+ *  All these are kept in flat arrays of primitives, so the size of the cube
+ *  does not depend on the number of measurements.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.1.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = STABLE, since = "0.1.0" )
+public final class WeekdayHourCube
+{
+        /*-----------*\
+    ====** Constants **========================================================
+        \*-----------*/
+    /**
+     *  The default number of hours per bucket: {@value}.
+     */
+    public static final int DEFAULT_HOURS_PER_BUCKET = 2;
+
+    /**
+     *  The number of weekdays: {@value}.
+     */
+    private static final int WEEKDAY_COUNT = 7;
+
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The number of buckets per day.
+     */
+    private final int m_BucketCount;
+
+    /**
+     *  The number of measurements per cell.
+     */
+    private final long [] m_Counts;
+
+    /**
+     *  The distribution of the diastolic values per cell; the index is the
+     *  cell times
+     *  {@link DailyAggregate#BAND_COUNT}
+     *  plus the ordinal of the diagnosis.
+     */
+    private final long [] m_DiastolicBands;
+
+    /**
+     *  The sums of the diastolic values per cell.
+     */
+    private final long [] m_DiastolicSums;
+
+    /**
+     *  The number of hours per bucket.
+     */
+    private final int m_HoursPerBucket;
+
+    /**
+     *  The distribution of the systolic values per cell; the index is the
+     *  same as for
+     *  {@link #m_DiastolicBands}.
+     */
+    private final long [] m_SystolicBands;
+
+    /**
+     *  The sums of the systolic values per cell.
+     */
+    private final long [] m_SystolicSums;
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates a new, empty instance of {@code WeekdayHourCube} with the
+     *  {@linkplain #DEFAULT_HOURS_PER_BUCKET default}
+     *  number of hours per bucket.
+     */
+    public WeekdayHourCube()
+    {
+        this( DEFAULT_HOURS_PER_BUCKET );
+    }   //  WeekdayHourCube()
+
+    /**
+     *  Creates a new, empty instance of {@code WeekdayHourCube}.
+     *
+     *  @param  hoursPerBucket  The number of hours per bucket; this must be
+     *      a divisor of 24.
+     *  @throws IllegalArgumentException    The number of hours is invalid.
+     */
+    public WeekdayHourCube( final int hoursPerBucket )
+    {
+        if( (hoursPerBucket < 1) || (24 % hoursPerBucket != 0) ) throw new IllegalArgumentException( format( "Invalid number of hours per bucket: %d", hoursPerBucket ) );
+        m_HoursPerBucket = hoursPerBucket;
+        m_BucketCount = 24 / hoursPerBucket;
+
+        final var cellCount = WEEKDAY_COUNT * m_BucketCount;
+        m_Counts = new long [cellCount];
+        m_SystolicSums = new long [cellCount];
+        m_DiastolicSums = new long [cellCount];
+        m_SystolicBands = new long [cellCount * BAND_COUNT];
+        m_DiastolicBands = new long [cellCount * BAND_COUNT];
+    }   //  WeekdayHourCube()
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Adds a measurement.
+     *
+     *  @param  weekday The weekday of the measurement.
+     *  @param  hour    The hour of the measurement, from 0 to 23.
+     *  @param  systolic    The systolic value.
+     *  @param  diastolic   The diastolic value.
+     *  @throws IllegalArgumentException    The hour is out of range.
+     */
+    public final void add( final DayOfWeek weekday, final int hour, final int systolic, final int diastolic )
+    {
+        if( (hour < 0) || (hour > 23) ) throw new IllegalArgumentException( format( "Invalid hour: %d", hour ) );
+        final var cell = cellOf( weekday, hour / m_HoursPerBucket );
+        ++m_Counts [cell];
+        m_SystolicSums [cell] += systolic;
+        m_DiastolicSums [cell] += diastolic;
+        ++m_SystolicBands [cell * BAND_COUNT + assessSystolicPressure( systolic ).ordinal()];
+        ++m_DiastolicBands [cell * BAND_COUNT + assessDiastolicPressure( diastolic ).ordinal()];
+    }   //  add()
+
+    /**
+     *  Returns the index of the cell for the given weekday and bucket.
+     *
+     *  @param  weekday The weekday.
+     *  @param  bucket  The bucket.
+     *  @return The index.
+     *  @throws IndexOutOfBoundsException   The bucket is out of range.
+     */
+    private final int cellOf( final DayOfWeek weekday, final int bucket )
+    {
+        final var retValue = (requireNonNullArgument( weekday, "weekday" ).getValue() - 1) * m_BucketCount + checkIndex( bucket, m_BucketCount );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  cellOf()
+
+    /**
+     *  Returns the average values for the given weekday and bucket.
+     *
+     *  @param  weekday The weekday.
+     *  @param  bucket  The bucket, from 0 to
+     *      {@link #getBucketCount()}
+     *      minus one.
+     *  @return An instance of
+     *      {@link Optional}
+     *      that holds the averages; empty if there are no measurements for
+     *      the given cell.
+     */
+    public final Optional<DataNode> getAverage( final DayOfWeek weekday, final int bucket )
+    {
+        final var cell = cellOf( weekday, bucket );
+        final var count = m_Counts [cell];
+        final var retValue = count == 0
+            ? Optional.<DataNode>empty()
+            : Optional.of( new DataNode( (int) (m_SystolicSums [cell] / count), (int) (m_DiastolicSums [cell] / count) ) );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  getAverage()
+
+    /**
+     *  Returns the number of buckets per day.
+     *
+     *  @return The number of buckets.
+     */
+    public final int getBucketCount() { return m_BucketCount; }
+
+    /**
+     *  Returns the number of measurements for the given weekday and bucket.
+     *
+     *  @param  weekday The weekday.
+     *  @param  bucket  The bucket.
+     *  @return The number of measurements.
+     */
+    public final long getCount( final DayOfWeek weekday, final int bucket ) { return m_Counts [cellOf( weekday, bucket )]; }
+
+    /**
+     *  Returns the number of diastolic values for the given weekday and
+     *  bucket that fall into the given band.
+     *
+     *  @param  weekday The weekday.
+     *  @param  bucket  The bucket.
+     *  @param  diagnosis   The band.
+     *  @return The number of values.
+     */
+    public final long getDiastolicCount( final DayOfWeek weekday, final int bucket, final Diagnosis diagnosis )
+    {
+        return m_DiastolicBands [cellOf( weekday, bucket ) * BAND_COUNT + requireNonNullArgument( diagnosis, "diagnosis" ).ordinal()];
+    }   //  getDiastolicCount()
+
+    /**
+     *  Returns the number of hours per bucket.
+     *
+     *  @return The number of hours.
+     */
+    public final int getHoursPerBucket() { return m_HoursPerBucket; }
+
+    /**
+     *  Returns the number of systolic values for the given weekday and
+     *  bucket that fall into the given band.
+     *
+     *  @param  weekday The weekday.
+     *  @param  bucket  The bucket.
+     *  @param  diagnosis   The band.
+     *  @return The number of values.
+     */
+    public final long getSystolicCount( final DayOfWeek weekday, final int bucket, final Diagnosis diagnosis )
+    {
+        return m_SystolicBands [cellOf( weekday, bucket ) * BAND_COUNT + requireNonNullArgument( diagnosis, "diagnosis" ).ordinal()];
+    }   //  getSystolicCount()
+
+    /**
+     *  Adds the values from the given cube to this one.
+     *
+     *  @param  other   The other cube.
+     *  @throws IllegalArgumentException    The other cube has a different
+     *      number of hours per bucket.
+     */
+    public final void merge( final WeekdayHourCube other )
+    {
+        if( requireNonNullArgument( other, "other" ).m_HoursPerBucket != m_HoursPerBucket )
+        {
+            throw new IllegalArgumentException( format( "Cannot merge a cube with %d hours per bucket into one with %d hours per bucket", other.m_HoursPerBucket, m_HoursPerBucket ) );
+        }
+        for( var i = 0; i < m_Counts.length; ++i )
+        {
+            m_Counts [i] += other.m_Counts [i];
+            m_SystolicSums [i] += other.m_SystolicSums [i];
+            m_DiastolicSums [i] += other.m_DiastolicSums [i];
+        }
+        for( var i = 0; i < m_SystolicBands.length; ++i )
+        {
+            m_SystolicBands [i] += other.m_SystolicBands [i];
+            m_DiastolicBands [i] += other.m_DiastolicBands [i];
+        }
+    }   //  merge()
+}
+//  class WeekdayHourCube
+
+/*
+ *  End of File
+ */
@@ -0,0 +1,1964 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.bloodpressure.store;
+
+import static java.lang.System.out;
+import static java.nio.file.Files.createDirectories;
+import static java.sql.Connection.TRANSACTION_SERIALIZABLE;
+import static java.sql.ResultSet.CONCUR_READ_ONLY;
+import static java.sql.ResultSet.TYPE_FORWARD_ONLY;
+import static org.apiguardian.api.API.Status.INTERNAL;
+import static org.tquadrat.bloodpressure.Configuration.COLUMN_BLOODPRESSURE_DATA_PERSON;
+import static org.tquadrat.bloodpressure.Configuration.COLUMN_BLOODPRESSURE_DATA_PRIMARY_KEY;
+import static org.tquadrat.bloodpressure.Configuration.TABLE_BLOODPRESSURE_CHANGES;
+import static org.tquadrat.bloodpressure.Configuration.TABLE_BLOODPRESSURE_CUTOFF;
+import static org.tquadrat.bloodpressure.Configuration.TABLE_BLOODPRESSURE_DAILY;
+import static org.tquadrat.bloodpressure.Configuration.TABLE_BLOODPRESSURE_DATA;
+import static org.tquadrat.bloodpressure.Configuration.TABLE_BLOODPRESSURE_STORE;
+import static org.tquadrat.bloodpressure.DataStore.DEFAULT_PERSON;
+import static org.tquadrat.bloodpressure.internal.DataChangeLog.registerChange;
+import static org.tquadrat.bloodpressure.internal.DataChangeLog.retrieveDataVersion;
+import static org.tquadrat.bloodpressure.internal.DataChangeLog.retrieveEarliestChangeSince;
+import static org.tquadrat.bloodpressure.spi.DailyAggregate.BAND_COUNT;
+import static org.tquadrat.foundation.lang.CommonConstants.ZONE_UTC;
+import static org.tquadrat.foundation.lang.DebugOutput.isDebug;
+import static org.tquadrat.foundation.lang.Objects.isNull;
+import static org.tquadrat.foundation.lang.Objects.nonNull;
+import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
+import static org.tquadrat.foundation.util.StringUtils.format;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+import org.apiguardian.api.API;
+import org.tquadrat.bloodpressure.Diagnosis;
+import org.tquadrat.bloodpressure.spi.DailyAggregate;
+import org.tquadrat.bloodpressure.spi.DataStoreBase;
+import org.tquadrat.bloodpressure.spi.DataStoreSnapshot;
+import org.tquadrat.foundation.annotation.ClassVersion;
+
+/**
+ *  <p>{@summary The storage engine that keeps the blood pressure data in the
+ *  H2 database.}</p>
+ *  <p>The key for the person leads the primary key of the table, so a range
+ *  scan for one person is an index range scan that does not touch the
+ *  measurements of any other person.</p>
+ *  <p>The storage engine comes in two flavours:</p>
+ *  <ul>
+ *  <li>{@value #NAME} keeps all measurements in the table
+ *  {@value org.tquadrat.bloodpressure.Configuration#TABLE_BLOODPRESSURE_DATA}.</li>
+ *  <li>{@value #NAME_PARTITIONED} keeps the measurements in one table per
+ *  calendar year (UTC), named {@code BLOODPRESSURE_DATA_Y<year>}. All
+ *  operations are routed to the tables that overlap with the requested
+ *  range, so a range scan reads only the partitions for the years it
+ *  covers, and a whole year can be dropped or archived without touching
+ *  the other years. Measurements that are found in the unpartitioned table
+ *  on startup will be moved to the partitions.</li>
+ *  </ul>
+ *  <p>In both flavours, the downsampled days are kept in the table
+ *  {@value org.tquadrat.bloodpressure.Configuration#TABLE_BLOODPRESSURE_DAILY},
+ *  one row per person and day, with the histograms as arrays. The
+ *  downsampling runs in a single serializable transaction, so a concurrent
+ *  reader sees either the single measurements or the daily aggregates,
+ *  never both or none. The end of the downsampled range for each person is
+ *  kept in the table
+ *  {@value org.tquadrat.bloodpressure.Configuration#TABLE_BLOODPRESSURE_CUTOFF};
+ *  measurements before it will not be appended again.</p>
+ *  <p>Any
+ *  {@link SQLException}
+ *  will be wrapped into an
+ *  {@link IOException}.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.1.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = INTERNAL, since = "0.1.0" )
+public final class H2DataStore extends DataStoreBase
+{
+        /*---------------*\
+    ====** Inner Classes **====================================================
+        \*---------------*/
+    /**
+     *  The snapshot of the H2 database; all reads use the same connection,
+     *  with a transaction on isolation level {@code SNAPSHOT}. The snapshot
+     *  holds the read lock of
+     *  {@link H2DataStore#m_PartitionLock}
+     *  until it is closed, as the transaction does not protect the
+     *  partitions against DDL statements; therefore, it has to be closed by
+     *  the thread that opened it.
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.1.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = INTERNAL, since = "0.1.0" )
+    private final class SessionSnapshot extends DataStoreSnapshot
+    {
+            /*------------*\
+        ====** Attributes **===================================================
+            \*------------*/
+        /**
+         *  The database connection.
+         */
+        private final Connection m_Connection;
+
+        /**
+         *  {@code true} if the snapshot was closed already, {@code false}
+         *  otherwise.
+         */
+        private boolean m_IsClosed = false;
+
+            /*--------------*\
+        ====** Constructors **=================================================
+            \*--------------*/
+        /**
+         *  Creates a new instance of {@code SessionSnapshot}.
+         *
+         *  @throws SQLException    Problems when accessing the database.
+         */
+        public SessionSnapshot() throws SQLException
+        {
+            super( H2DataStore.this.getName() );
+            m_PartitionLock.readLock().lock();
+            try
+            {
+                m_Connection = getConfiguration().retrieveConnection();
+                try
+                {
+                    m_Connection.setAutoCommit( false );
+                    m_Connection.setReadOnly( true );
+                    try( final var statement = m_Connection.createStatement() )
+                    {
+                        statement.execute( "SET SESSION CHARACTERISTICS AS TRANSACTION ISOLATION LEVEL SNAPSHOT" );
+
+                        //---* The first read determines the snapshot *--------
+                        try( final var resultSet = statement.executeQuery( format( "SELECT COUNT(*) FROM %s", TABLE_BLOODPRESSURE_CHANGES ) ) )
+                        {
+                            resultSet.next();
+                        }
+                    }
+                }
+                catch( final SQLException e )
+                {
+                    m_Connection.close();
+                    throw e;
+                }
+            }
+            catch( final SQLException e )
+            {
+                m_PartitionLock.readLock().unlock();
+                throw e;
+            }
+        }   //  SessionSnapshot()
+
+            /*---------*\
+        ====** Methods **======================================================
+            \*---------*/
+        /**
+         *  {@inheritDoc}
+         */
+        @Override
+        public final void close() throws IOException
+        {
+            if( !m_IsClosed )
+            {
+                m_IsClosed = true;
+                try( m_Connection )
+                {
+                    m_Connection.rollback();
+                }
+                catch( final SQLException e )
+                {
+                    throw new IOException( e );
+                }
+                finally
+                {
+                    m_PartitionLock.readLock().unlock();
+                }
+            }
+        }   //  close()
+
+        /**
+         *  {@inheritDoc}
+         */
+        @Override
+        public final long getDataVersion( final String person ) throws IOException
+        {
+            try
+            {
+                final var retValue = retrieveDataVersion( m_Connection, person );
+
+                //---* Done *--------------------------------------------------
+                return retValue;
+            }
+            catch( final SQLException e )
+            {
+                throw new IOException( e );
+            }
+        }   //  getDataVersion()
+
+        /**
+         *  {@inheritDoc}
+         */
+        @Override
+        public final SortedMap<LocalDate,DailyAggregate> getDownsampledDays( final String person, final LocalDate from, final LocalDate to ) throws IOException
+        {
+            try
+            {
+                final var retValue = retrieveDownsampledDays( m_Connection, requireNonNullArgument( person, "person" ), from, to );
+
+                //---* Done *--------------------------------------------------
+                return retValue;
+            }
+            catch( final SQLException e )
+            {
+                throw new IOException( e );
+            }
+        }   //  getDownsampledDays()
+
+        /**
+         *  {@inheritDoc}
+         */
+        @Override
+        public final Optional<Instant> getEarliestChangeSince( final String person, final long dataVersion ) throws IOException
+        {
+            try
+            {
+                final var retValue = retrieveEarliestChangeSince( m_Connection, person, dataVersion )
+                    .map( ZonedDateTime::toInstant );
+
+                //---* Done *--------------------------------------------------
+                return retValue;
+            }
+            catch( final SQLException e )
+            {
+                throw new IOException( e );
+            }
+        }   //  getEarliestChangeSince()
+
+        /**
+         *  {@inheritDoc}
+         */
+        @Override
+        public final Optional<Instant> getFirstTimestamp( final String person ) throws IOException
+        {
+            try
+            {
+                final var retValue = retrieveTimestamp( m_Connection, person, "MIN" );
+
+                //---* Done *--------------------------------------------------
+                return retValue;
+            }
+            catch( final SQLException e )
+            {
+                throw new IOException( e );
+            }
+        }   //  getFirstTimestamp()
+
+        /**
+         *  {@inheritDoc}
+         */
+        @Override
+        public final Optional<Instant> getLastTimestamp( final String person ) throws IOException
+        {
+            try
+            {
+                final var retValue = retrieveTimestamp( m_Connection, person, "MAX" );
+
+                //---* Done *--------------------------------------------------
+                return retValue;
+            }
+            catch( final SQLException e )
+            {
+                throw new IOException( e );
+            }
+        }   //  getLastTimestamp()
+
+        /**
+         *  {@inheritDoc}
+         */
+        @Override
+        public final String getStoreId() { return H2DataStore.this.getStoreId(); }
+
+        /**
+         *  {@inheritDoc}
+         *  <p>All reads of the snapshot share a single connection that must
+         *  not be used concurrently, so the scans are never run in
+         *  parallel.</p>
+         */
+        @Override
+        protected final boolean isConcurrentScanSupported() { return false; }
+
+        /**
+         *  {@inheritDoc}
+         */
+        @Override
+        public final SortedSet<Integer> listPartitions() throws IOException
+        {
+            try
+            {
+                final var retValue = m_IsPartitioned ? H2DataStore.listPartitions( m_Connection, false ) : super.listPartitions();
+
+                //---* Done *--------------------------------------------------
+                return retValue;
+            }
+            catch( final SQLException e )
+            {
+                throw new IOException( e );
+            }
+        }   //  listPartitions()
+
+        /**
+         *  {@inheritDoc}
+         */
+        @Override
+        public final void scan( final String person, final Instant from, final Instant to, final RecordConsumer consumer ) throws IOException
+        {
+            scan( person, from, to, getConfiguration().getScanFetchSize(), consumer );
+        }   //  scan()
+
+        /**
+         *  {@inheritDoc}
+         */
+        @Override
+        public final void scan( final String person, final Instant from, final Instant to, final int fetchSize, final RecordConsumer consumer ) throws IOException
+        {
+            requireNonNullArgument( consumer, "consumer" );
+
+            try
+            {
+                H2DataStore.this.scan( m_Connection, resolveTables( m_Connection, from, to ), person, from, to, fetchSize, consumer );
+            }
+            catch( final SQLException e )
+            {
+                throw new IOException( e );
+            }
+        }   //  scan()
+    }
+    //  class SessionSnapshot
+
+        /*-----------*\
+    ====** Constants **========================================================
+        \*-----------*/
+    /**
+     *  The suffix for the temporary table that is used while a partition is
+     *  compacted: {@value}.
+     */
+    private static final String COMPACTION_SUFFIX = "_COMPACT";
+
+    /**
+     *  <p>{@summary The default number of rows that will be fetched from the
+     *  database at once for a dump: {@value}.}</p>
+     *  <p>The value was not measured; it is a round number chosen from the
+     *  size of the rows. A row of the scan holds a timestamp, two small
+     *  numbers and two flags, that is about a hundred bytes as Java
+     *  objects, so a block of 10,000 rows takes about one MiB per
+     *  partition of the dump, while a year of measurements, even from a
+     *  device that measures every few minutes, is read in a few dozen
+     *  round trips.</p>
+     */
+    public static final int DEFAULT_DUMP_FETCH_SIZE = 10_000;
+
+    /**
+     *  <p>{@summary The default number of rows that will be fetched from the
+     *  database at once when the measurements are scanned for a report or
+     *  for the downsampling: {@value}.}</p>
+     *  <p>The value was not measured either. A report usually reads some
+     *  weeks up to a few years of manual measurements, that is some dozen up
+     *  to a few thousand rows; with a block of 1,000 rows, such a period is
+     *  read in a few round trips, and the several scans of a report that
+     *  run concurrently do not hold a buffer of the size of that for a
+     *  dump each.</p>
+     */
+    public static final int DEFAULT_SCAN_FETCH_SIZE = 1_000;
+
+    /**
+     *  The name of this storage engine: {@value}.
+     */
+    public static final String NAME = "H2";
+
+    /**
+     *  The name of the partitioned flavour of this storage engine: {@value}.
+     */
+    public static final String NAME_PARTITIONED = "H2_YEARLY";
+
+    /**
+     *  The value in the table for the end of the downsampled range that
+     *  marks a person for whom nothing was downsampled yet. The row exists
+     *  anyway, so that a transaction has always something to lock.
+     */
+    private static final OffsetDateTime NO_CUTOFF = LocalDate.of( 1, 1, 1 ).atStartOfDay( ZONE_UTC ).toOffsetDateTime();
+
+    /**
+     *  The pattern for the name of a partition table, or for the temporary
+     *  table of a partition that is compacted.
+     */
+    private static final Pattern PARTITION_NAME_PATTERN = Pattern.compile( format( "%s_Y(\\d{4,})(%s)?", TABLE_BLOODPRESSURE_DATA, COMPACTION_SUFFIX ) );
+
+    /**
+     *  The SQL state for the violation of a unique constraint: {@value}.
+     */
+    private static final String SQLSTATE_DUPLICATE_KEY = "23505";
+
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  {@code true} if the data is partitioned by year, {@code false} if it
+     *  is kept in a single table.
+     */
+    private final boolean m_IsPartitioned;
+
+    /**
+     *  The lock that guards the partitions. The operations that write rows
+     *  and the open snapshots hold the read lock, while the operations that
+     *  copy, replace or remove whole partitions hold the write lock; as DDL
+     *  statements commit implicitly, a transaction cannot protect these.
+     */
+    private final ReentrantReadWriteLock m_PartitionLock = new ReentrantReadWriteLock();
+
+    /**
+     *  The identity of the database; it is read on
+     *  {@linkplain #initialize() initialisation}.
+     */
+    private String m_StoreId = "";
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates a new instance of {@code H2DataStore}.
+     *
+     *  @param  isPartitioned   {@code true} if the data should be partitioned
+     *      by year, {@code false} if it should be kept in a single table.
+     */
+    public H2DataStore( final boolean isPartitioned )
+    {
+        super( isPartitioned ? NAME_PARTITIONED : NAME );
+        m_IsPartitioned = isPartitioned;
+    }   //  H2DataStore()
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  {@inheritDoc}
+     *  <p>Measurements before the end of the downsampled range are
+     *  discarded; their days are already contained in the downsampled days,
+     *  so re-importing them would count them twice.</p>
+     */
+    @Override
+    public final void append( final String person, final Batch batch ) throws IOException
+    {
+        requireNonNullArgument( person, "person" );
+        requireNonNullArgument( batch, "batch" );
+        if( batch.size() > 0 )
+        {
+            m_PartitionLock.readLock().lock();
+            try
+            {
+                try( final var connection = getConfiguration().retrieveConnection() )
+                {
+                    //---* Skip the measurements downsampled already *---------
+                    final var cutoff = retrieveCutoff( connection, person, false );
+                    final var years = new int [batch.size()];
+                    final var isKept = new boolean [batch.size()];
+                    var earliestChange = Long.MAX_VALUE;
+                    for( var i = 0; i < years.length; ++i )
+                    {
+                        final var timestamp = batch.getTimestamp( i );
+                        isKept [i] = timestamp >= cutoff;
+                        years [i] = m_IsPartitioned ? yearOf( timestamp ) : 0;
+                        if( isKept [i] ) earliestChange = Math.min( earliestChange, timestamp );
+                    }
+
+                    if( earliestChange != Long.MAX_VALUE )
+                    {
+                        final var distinctYears = IntStream.range( 0, years.length )
+                            .filter( i -> isKept [i] )
+                            .map( i -> years [i] )
+                            .distinct()
+                            .toArray();
+
+                        //---* Create the partitions; DDL commits implicitly *-
+                        if( m_IsPartitioned )
+                        {
+                            for( final var year : distinctYears ) createTable( connection, tableFor( year ) );
+                        }
+
+                        seedCutoff( connection, person );
+                        connection.setAutoCommit( false );
+                        try
+                        {
+                            //---* The cutoff may have moved meanwhile *-------
+                            final var lockedCutoff = retrieveCutoff( connection, person, true );
+                            for( final var year : distinctYears )
+                            {
+                                final var sql = format(
+                                    """
+                                    MERGE INTO %1$s( %3$s, %2$s, systolic_pressure, diastolic_pressure, ignored, outlier )
+                                    KEY( %3$s, %2$s )
+                                    VALUES( ?, ?, ?, ?, ?, ? )\
+                                    """, tableFor( year ), COLUMN_BLOODPRESSURE_DATA_PRIMARY_KEY, COLUMN_BLOODPRESSURE_DATA_PERSON );
+                                try( final var statement = connection.prepareStatement( sql ) )
+                                {
+                                    for( var i = 0; i < years.length; ++i )
+                                    {
+                                        if( (years [i] != year) || !isKept [i] || (batch.getTimestamp( i ) < lockedCutoff) ) continue;
+                                        statement.setString( 1, person );
+                                        statement.setObject( 2, toDateTime( batch.getTimestamp( i ) ) );
+                                        statement.setInt( 3, batch.getSystolic( i ) );
+                                        statement.setInt( 4, batch.getDiastolic( i ) );
+                                        statement.setBoolean( 5, batch.isIgnored( i ) );
+                                        statement.setBoolean( 6, batch.isOutlier( i ) );
+                                        statement.addBatch();
+                                    }
+                                    statement.executeBatch();
+                                }
+                            }
+
+                            //---* Record the change *-------------------------
+                            registerChange( connection, person, Instant.ofEpochSecond( earliestChange ).atZone( ZONE_UTC ) );
+                            connection.commit();
+                        }
+                        catch( final SQLException e )
+                        {
+                            connection.rollback();
+                            throw e;
+                        }
+                    }
+                }
+                catch( final SQLException e )
+                {
+                    throw new IOException( e );
+                }
+            }
+            finally
+            {
+                m_PartitionLock.readLock().unlock();
+            }
+        }
+    }   //  append()
+
+    /**
+     *  {@inheritDoc}
+     *  <p>The partition is written to a GZIP compressed SQL script that can
+     *  be loaded again with {@code RUNSCRIPT FROM <file> COMPRESSION GZIP}.</p>
+     */
+    @Override
+    public final Path archivePartition( final int year, final Path folder ) throws IOException
+    {
+        final Path retValue;
+        if( m_IsPartitioned )
+        {
+            lockPartitions();
+            try
+            {
+                if( !listPartitions().contains( year ) ) throw new IOException( format( "There is no partition for the year %d", year ) );
+
+                retValue = createDirectories( requireNonNullArgument( folder, "folder" ) ).resolve( format( "%s.sql.gz", tableFor( year ) ) );
+                final var sql = format( "SCRIPT TO '%1$s' COMPRESSION GZIP TABLE %2$s", retValue.toAbsolutePath().toString().replace( "'", "''" ), tableFor( year ) );
+                try( final var connection = getConfiguration().retrieveConnection();
+                     final var statement = connection.createStatement() )
+                {
+                    statement.execute( sql );
+                }
+                catch( final SQLException e )
+                {
+                    throw new IOException( e );
+                }
+                dropPartition( year );
+            }
+            finally
+            {
+                m_PartitionLock.writeLock().unlock();
+            }
+        }
+        else
+        {
+            retValue = super.archivePartition( year, folder );
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  archivePartition()
+
+    /**
+     *  Sets the values for the range condition that was created by
+     *  {@link #createRangeCondition(Instant, Instant)}.
+     *
+     *  @param  statement   The statement.
+     *  @param  person  The key for the person.
+     *  @param  from    The start of the range.
+     *  @param  to  The end of the range.
+     *  @throws SQLException    Problems when accessing the database.
+     */
+    private static final void bindRange( final PreparedStatement statement, final String person, final Instant from, final Instant to ) throws SQLException
+    {
+        var index = 0;
+        statement.setString( ++index, requireNonNullArgument( person, "person" ) );
+        if( nonNull( from ) ) statement.setObject( ++index, OffsetDateTime.ofInstant( from, ZONE_UTC ) );
+        if( nonNull( to ) ) statement.setObject( ++index, OffsetDateTime.ofInstant( to, ZONE_UTC ) );
+    }   //  bindRange()
+
+    /**
+     *  {@inheritDoc}
+     *  <p>The rows of the partition are copied to a new table in the order
+     *  of the primary key, so the measurements of each person are stored
+     *  next to each other; then the new table replaces the old one. No
+     *  measurements can be written, deleted or downsampled meanwhile.</p>
+     */
+    @Override
+    public final void compactPartition( final int year ) throws IOException
+    {
+        if( m_IsPartitioned )
+        {
+            lockPartitions();
+            try
+            {
+                if( listPartitions().contains( year ) )
+                {
+                    final var table = tableFor( year );
+                    final var compacted = table + COMPACTION_SUFFIX;
+                    try( final var connection = getConfiguration().retrieveConnection() )
+                    {
+                        createTable( connection, compacted );
+                        try( final var statement = connection.createStatement() )
+                        {
+                            statement.execute( format(
+                                """
+                                INSERT INTO %2$s( %3$s, %4$s, systolic_pressure, diastolic_pressure, ignored, outlier )
+                                  SELECT %3$s, %4$s, systolic_pressure, diastolic_pressure, ignored, outlier FROM %1$s
+                                    ORDER BY %3$s, %4$s\
+                                """, table, compacted, COLUMN_BLOODPRESSURE_DATA_PERSON, COLUMN_BLOODPRESSURE_DATA_PRIMARY_KEY ) );
+
+                            //---* Replace the table; see recoverCompaction() *
+                            statement.execute( format( "DROP TABLE %s", table ) );
+                            statement.execute( format( "ALTER TABLE %s RENAME TO %s", compacted, table ) );
+                        }
+                    }
+                    catch( final SQLException e )
+                    {
+                        throw new IOException( e );
+                    }
+                }
+            }
+            finally
+            {
+                m_PartitionLock.writeLock().unlock();
+            }
+        }
+        else
+        {
+            super.compactPartition( year );
+        }
+    }   //  compactPartition()
+
+    /**
+     *  Creates the tables for the downsampled days and for the end of the
+     *  downsampled range, if they do not exist yet.
+     *
+     *  @param  connection  The database connection.
+     *  @throws SQLException    Problems when accessing the database.
+     */
+    private static final void createDailyTable( final Connection connection ) throws SQLException
+    {
+        final var cutoffDdl = format(
+            """
+            CREATE TABLE IF NOT EXISTS %1$s
+            (
+              %2$s VARCHAR(64) NOT NULL,
+              cutoff TIMESTAMP WITH TIME ZONE NOT NULL,
+              PRIMARY KEY( %2$s )
+            )
+            """, TABLE_BLOODPRESSURE_CUTOFF, COLUMN_BLOODPRESSURE_DATA_PERSON );
+        final var ddl = format(
+            """
+            CREATE TABLE IF NOT EXISTS %1$s
+            (
+              %2$s VARCHAR(64) NOT NULL,
+              measuring_day DATE NOT NULL,
+              measurement_count INTEGER NOT NULL,
+              systolic_sum BIGINT NOT NULL,
+              diastolic_sum BIGINT NOT NULL,
+              systolic_min SMALLINT NOT NULL,
+              systolic_max SMALLINT NOT NULL,
+              diastolic_min SMALLINT NOT NULL,
+              diastolic_max SMALLINT NOT NULL,
+              systolic_bands INTEGER ARRAY NOT NULL,
+              diastolic_bands INTEGER ARRAY NOT NULL,
+              PRIMARY KEY( %2$s, measuring_day )
+            )
+            """, TABLE_BLOODPRESSURE_DAILY, COLUMN_BLOODPRESSURE_DATA_PERSON );
+        try( final var statement = connection.createStatement() )
+        {
+            statement.execute( ddl );
+            statement.execute( cutoffDdl );
+        }
+    }   //  createDailyTable()
+
+    /**
+     *  Creates the {@code WHERE} clause for the given range; it always
+     *  restricts the rows to those of a single person.
+     *
+     *  @param  from    The start of the range.
+     *  @param  to  The end of the range.
+     *  @return The {@code WHERE} clause.
+     */
+    private static final String createRangeCondition( final Instant from, final Instant to )
+    {
+        final String retValue;
+        if( nonNull( from ) && nonNull( to ) )
+        {
+            retValue = format( " WHERE %2$s = ? AND %1$s >= ? AND %1$s < ?", COLUMN_BLOODPRESSURE_DATA_PRIMARY_KEY, COLUMN_BLOODPRESSURE_DATA_PERSON );
+        }
+        else if( nonNull( from ) )
+        {
+            retValue = format( " WHERE %2$s = ? AND %1$s >= ?", COLUMN_BLOODPRESSURE_DATA_PRIMARY_KEY, COLUMN_BLOODPRESSURE_DATA_PERSON );
+        }
+        else if( nonNull( to ) )
+        {
+            retValue = format( " WHERE %2$s = ? AND %1$s < ?", COLUMN_BLOODPRESSURE_DATA_PRIMARY_KEY, COLUMN_BLOODPRESSURE_DATA_PERSON );
+        }
+        else
+        {
+            retValue = format( " WHERE %1$s = ?", COLUMN_BLOODPRESSURE_DATA_PERSON );
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  createRangeCondition()
+
+    /**
+     *  Creates the table for the identity of the database, if it does not
+     *  exist yet, and assigns a new identity to the database if it does not
+     *  have one.
+     *
+     *  @param  connection  The database connection.
+     *  @throws SQLException    Problems when accessing the database.
+     */
+    private static final void createStoreTable( final Connection connection ) throws SQLException
+    {
+        final var ddl = format(
+            """
+            CREATE TABLE IF NOT EXISTS %1$s
+            (
+              store_id VARCHAR(36) NOT NULL
+            )
+            """, TABLE_BLOODPRESSURE_STORE );
+        try( final var statement = connection.createStatement() )
+        {
+            statement.execute( ddl );
+        }
+
+        //---* Concurrent initialisations agree on the smallest identity *-----
+        final var sql = format( "INSERT INTO %1$s( store_id ) SELECT ? WHERE NOT EXISTS( SELECT 1 FROM %1$s )", TABLE_BLOODPRESSURE_STORE );
+        try( final var statement = connection.prepareStatement( sql ) )
+        {
+            statement.setString( 1, UUID.randomUUID().toString() );
+            statement.executeUpdate();
+        }
+    }   //  createStoreTable()
+
+    /**
+     *  Creates a table for the measurements with the given name, if it does
+     *  not exist yet.
+     *
+     *  @param  connection  The database connection.
+     *  @param  table   The name of the table.
+     *  @throws SQLException    Problems when accessing the database.
+     */
+    private static final void createTable( final Connection connection, final String table ) throws SQLException
+    {
+        final var ddl = format(
+            """
+            CREATE TABLE IF NOT EXISTS %1$s
+            (
+              %3$s VARCHAR(64) NOT NULL,
+              %2$s TIMESTAMP WITH TIME ZONE NOT NULL,
+              systolic_pressure SMALLINT NOT NULL,
+              diastolic_pressure SMALLINT NOT NULL,
+              ignored BOOLEAN NOT NULL,
+              outlier BOOLEAN DEFAULT FALSE NOT NULL,
+              PRIMARY KEY( %3$s, %2$s )
+            )
+            """, table, COLUMN_BLOODPRESSURE_DATA_PRIMARY_KEY, COLUMN_BLOODPRESSURE_DATA_PERSON );
+        try( final var statement = connection.createStatement() )
+        {
+            statement.execute( ddl );
+        }
+    }   //  createTable()
+
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    public final long delete( final String person, final Instant from, final Instant to ) throws IOException
+    {
+        final var earliestChange = isNull( from ) ? getFirstTimestamp( person ).orElse( null ) : from;
+        var retValue = 0L;
+        m_PartitionLock.readLock().lock();
+        try
+        {
+            try( final var connection = getConfiguration().retrieveConnection() )
+            {
+                final var tables = resolveTables( connection, from, to );
+                connection.setAutoCommit( false );
+                try
+                {
+                    for( final var table : tables )
+                    {
+                        try( final var statement = connection.prepareStatement( format( "DELETE FROM %1$s%2$s", table, createRangeCondition( from, to ) ) ) )
+                        {
+                            bindRange( statement, person, from, to );
+                            retValue += statement.executeLargeUpdate();
+                        }
+                    }
+                    if( (retValue > 0) && nonNull( earliestChange ) ) registerChange( connection, person, earliestChange.atZone( ZONE_UTC ) );
+                    connection.commit();
+                }
+                catch( final SQLException e )
+                {
+                    connection.rollback();
+                    throw e;
+                }
+            }
+            catch( final SQLException e )
+            {
+                throw new IOException( e );
+            }
+        }
+        finally
+        {
+            m_PartitionLock.readLock().unlock();
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  delete()
+
+    /**
+     *  {@inheritDoc}
+     *  <p>The measurements are aggregated, merged with any existing
+     *  aggregates for the same days and deleted in one serializable
+     *  transaction.</p>
+     */
+    @Override
+    public final long downsample( final String person, final Instant before, final ZoneId timezone ) throws IOException
+    {
+        requireNonNullArgument( person, "person" );
+        final var cutoff = startOfDay( before, timezone );
+        var retValue = 0L;
+        m_PartitionLock.readLock().lock();
+        try
+        {
+            try( final var connection = getConfiguration().retrieveConnection() )
+            {
+                connection.setTransactionIsolation( TRANSACTION_SERIALIZABLE );
+                seedCutoff( connection, person );
+                connection.setAutoCommit( false );
+                try
+                {
+                    final var previousCutoff = retrieveCutoff( connection, person, true );
+
+                    //---* Aggregate the measurements *------------------------
+                    final var tables = resolveTables( connection, null, cutoff );
+                    final SortedMap<LocalDate,DailyAggregate> days = new TreeMap<>();
+                    final var aggregator = aggregateInto( days, timezone );
+                    final var earliestChange = new long [] {Long.MAX_VALUE};
+                    scan( connection, tables, person, null, cutoff, getConfiguration().getScanFetchSize(), ( epochSecond, systolic, diastolic, isIgnored, isOutlier ) ->
+                    {
+                        earliestChange [0] = Math.min( earliestChange [0], epochSecond );
+
+                        //---* Already contained in the aggregates *-----------
+                        if( epochSecond >= previousCutoff ) aggregator.accept( epochSecond, systolic, diastolic, isIgnored, isOutlier );
+                    } );
+
+                    if( earliestChange [0] != Long.MAX_VALUE )
+                    {
+                        //---* Merge with the days downsampled before *--------
+                        if( !days.isEmpty() )
+                        {
+                            for( final var aggregate : retrieveDownsampledDays( connection, person, days.firstKey(), days.lastKey() ).values() )
+                            {
+                                final var day = days.get( aggregate.getDay() );
+                                if( nonNull( day ) ) day.merge( aggregate );
+                            }
+                        }
+                        writeDownsampledDays( connection, person, days.values() );
+                        writeCutoff( connection, person, Math.max( previousCutoff, cutoff.getEpochSecond() ) );
+
+                        //---* Remove the measurements *-----------------------
+                        for( final var table : tables )
+                        {
+                            try( final var statement = connection.prepareStatement( format( "DELETE FROM %1$s%2$s", table, createRangeCondition( null, cutoff ) ) ) )
+                            {
+                                bindRange( statement, person, null, cutoff );
+                                retValue += statement.executeLargeUpdate();
+                            }
+                        }
+                        registerChange( connection, person, Instant.ofEpochSecond( earliestChange [0] ).atZone( ZONE_UTC ) );
+                    }
+                    connection.commit();
+                }
+                catch( final SQLException | IOException e )
+                {
+                    connection.rollback();
+                    throw e;
+                }
+            }
+            catch( final SQLException e )
+            {
+                throw new IOException( e );
+            }
+        }
+        finally
+        {
+            m_PartitionLock.readLock().unlock();
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  downsample()
+
+    /**
+     *  {@inheritDoc}
+     *  <p>A change is recorded for each person that had measurements in the
+     *  partition.</p>
+     */
+    @Override
+    public final void dropPartition( final int year ) throws IOException
+    {
+        if( m_IsPartitioned )
+        {
+            lockPartitions();
+            try
+            {
+                if( listPartitions().contains( year ) )
+                {
+                    final var table = tableFor( year );
+                    try( final var connection = getConfiguration().retrieveConnection() )
+                    {
+                        final List<String> persons = new ArrayList<>();
+                        try( final var statement = connection.createStatement();
+                             final var resultSet = statement.executeQuery( format( "SELECT DISTINCT %2$s FROM %1$s", table, COLUMN_BLOODPRESSURE_DATA_PERSON ) ) )
+                        {
+                            while( resultSet.next() ) persons.add( resultSet.getString( 1 ) );
+                        }
+
+                        try( final var statement = connection.createStatement() )
+                        {
+                            statement.execute( format( "DROP TABLE %s", table ) );
+                        }
+
+                        final var earliestChange = startOfYear( year ).atZone( ZONE_UTC );
+                        for( final var person : persons ) registerChange( connection, person, earliestChange );
+                    }
+                    catch( final SQLException e )
+                    {
+                        throw new IOException( e );
+                    }
+                }
+            }
+            finally
+            {
+                m_PartitionLock.writeLock().unlock();
+            }
+        }
+        else
+        {
+            super.dropPartition( year );
+        }
+    }   //  dropPartition()
+
+    /**
+     *  {@inheritDoc}
+     *  <p>The measurements are counted in the database, without
+     *  transferring them.</p>
+     */
+    @Override
+    protected final long estimateMeasurementCount( final String person, final Instant from, final Instant to ) throws IOException
+    {
+        var retValue = 0L;
+        try( final var connection = getConfiguration().retrieveConnection() )
+        {
+            for( final var table : resolveTables( connection, from, to ) )
+            {
+                try( final var statement = connection.prepareStatement( format( "SELECT COUNT(*) FROM %1$s%2$s", table, createRangeCondition( from, to ) ) ) )
+                {
+                    bindRange( statement, person, from, to );
+                    try( final var resultSet = statement.executeQuery() )
+                    {
+                        if( resultSet.next() ) retValue += resultSet.getLong( 1 );
+                    }
+                }
+            }
+        }
+        catch( final SQLException e )
+        {
+            throw new IOException( e );
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  estimateMeasurementCount()
+
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    public final long getDataVersion( final String person ) throws IOException
+    {
+        try( final var connection = getConfiguration().retrieveConnection() )
+        {
+            final var retValue = retrieveDataVersion( connection, person );
+
+            //---* Done *------------------------------------------------------
+            return retValue;
+        }
+        catch( final SQLException e )
+        {
+            throw new IOException( e );
+        }
+    }   //  getDataVersion()
+
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    public final SortedMap<LocalDate,DailyAggregate> getDownsampledDays( final String person, final LocalDate from, final LocalDate to ) throws IOException
+    {
+        try( final var connection = getConfiguration().retrieveConnection() )
+        {
+            final var retValue = retrieveDownsampledDays( connection, requireNonNullArgument( person, "person" ), from, to );
+
+            //---* Done *------------------------------------------------------
+            return retValue;
+        }
+        catch( final SQLException e )
+        {
+            throw new IOException( e );
+        }
+    }   //  getDownsampledDays()
+
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    public final Optional<Instant> getEarliestChangeSince( final String person, final long dataVersion ) throws IOException
+    {
+        try( final var connection = getConfiguration().retrieveConnection() )
+        {
+            final var retValue = retrieveEarliestChangeSince( connection, person, dataVersion )
+                .map( ZonedDateTime::toInstant );
+
+            //---* Done *------------------------------------------------------
+            return retValue;
+        }
+        catch( final SQLException e )
+        {
+            throw new IOException( e );
+        }
+    }   //  getEarliestChangeSince()
+
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    public final Optional<Instant> getFirstTimestamp( final String person ) throws IOException
+    {
+        final var retValue = retrieveTimestamp( person, "MIN" );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  getFirstTimestamp()
+
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    public final Optional<Instant> getLastTimestamp( final String person ) throws IOException
+    {
+        final var retValue = retrieveTimestamp( person, "MAX" );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  getLastTimestamp()
+
+    /**
+     *  {@inheritDoc}
+     *  <p>The identity is a random UUID that is kept in the table
+     *  {@value org.tquadrat.bloodpressure.Configuration#TABLE_BLOODPRESSURE_STORE};
+     *  it is assigned when the database is initialised for the first time
+     *  without being read-only.</p>
+     */
+    @Override
+    public final String getStoreId() { return m_StoreId; }
+
+    /**
+     *  Checks whether the given table has the given column.
+     *
+     *  @param  connection  The database connection.
+     *  @param  table   The name of the table.
+     *  @param  column  The name of the column.
+     *  @return {@code true} if the column exists, {@code false} otherwise.
+     *  @throws SQLException    Problems when accessing the database.
+     */
+    private static final boolean hasColumn( final Connection connection, final String table, final String column ) throws SQLException
+    {
+        final var sql = format(
+            """
+            SELECT COUNT(*) FROM information_schema.columns
+              WHERE TABLE_NAME = '%1$s'
+                AND COLUMN_NAME = '%2$s'
+                AND TABLE_SCHEMA = 'PUBLIC'\
+            """, table, column );
+
+        @SuppressWarnings( "UnusedAssignment" )
+        boolean retValue = false;
+        try( final var sqlStatement = connection.createStatement();
+             final var resultSet = sqlStatement.executeQuery( sql ) )
+        {
+            retValue = resultSet.next() && (resultSet.getInt( 1 ) > 0);
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  hasColumn()
+
+    /**
+     *  {@inheritDoc}
+     *  <p>Checks whether the database tables exist, and creates them if
+     *  necessary. Tables from a database without the key for the person
+     *  will be migrated; the existing measurements are assigned to the
+     *  {@linkplain org.tquadrat.bloodpressure.DataStore#DEFAULT_PERSON default person}.
+     *  For the partitioned flavour, an interrupted compaction is completed,
+     *  and any measurements in the unpartitioned table are moved to the
+     *  partitions. Tables without the column for the outlier flag get that
+     *  column.</p>
+     *  <p>On a
+     *  {@linkplain org.tquadrat.bloodpressure.Configuration#isReadOnly() read-only}
+     *  database, nothing of this is done; the database has to be initialized
+     *  already.</p>
+     */
+    @Override
+    public final void initialize() throws IOException
+    {
+        try( final var connection = getConfiguration().retrieveConnection() )
+        {
+            var sql = format(
+                """
+                SELECT TABLE_NAME FROM information_schema.tables
+                  WHERE TABLE_NAME IN ( '%1$s', '%2$s' )
+                    AND TABLE_SCHEMA = 'PUBLIC'\
+                """, TABLE_BLOODPRESSURE_DATA, TABLE_BLOODPRESSURE_CHANGES );
+
+            final Collection<String> tables = new TreeSet<>();
+            try( final var sqlStatement = connection.createStatement() )
+            {
+                try( final var resultSet = sqlStatement.executeQuery( sql ) )
+                {
+                    while( resultSet.next() ) tables.add( resultSet.getString( 1 ) );
+                }
+            }
+            final var databaseIsInitialized = (tables.size() == 2) && hasColumn( connection, TABLE_BLOODPRESSURE_DATA, COLUMN_BLOODPRESSURE_DATA_PERSON ); // All tables exist …
+
+            if( isDebug() )
+            {
+                sql =
+                    """
+                    SELECT table_schema, table_name FROM information_schema.tables\
+                    """;
+
+                try( final var sqlStatement = connection.createStatement() )
+                {
+                    try( final var resultSet = sqlStatement.executeQuery( sql ) )
+                    {
+                        while( resultSet.next() )
+                        {
+                            out.printf( "Schema: %s – Name: %s%n", resultSet.getString( 1 ), resultSet.getString( 2 ) );
+                        }
+                    }
+                }
+            }
+
+            if( connection.isReadOnly() )
+            {
+                //---* No maintenance on a read-only database *----------------
+                if( !databaseIsInitialized ) throw new IOException( "The database is opened read-only, but it is not initialized" );
+            }
+            else
+            {
+                //---* Migrate the existing tables, create the missing ones *--
+                migrateToPersonKey( connection, tables );
+                getConfiguration().initializeDatabase( connection );
+                createDailyTable( connection );
+                createStoreTable( connection );
+
+                if( m_IsPartitioned ) recoverCompaction( connection );
+                migrateToOutlierFlag( connection );
+                if( m_IsPartitioned ) migrateToPartitions( connection );
+            }
+
+            m_StoreId = retrieveStoreId( connection );
+        }
+        catch( final SQLException e )
+        {
+            throw new IOException( e );
+        }
+    }   //  initialize()
+
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    public final SortedSet<Integer> listPartitions() throws IOException
+    {
+        final SortedSet<Integer> retValue;
+        if( m_IsPartitioned )
+        {
+            try( final var connection = getConfiguration().retrieveConnection() )
+            {
+                retValue = listPartitions( connection, false );
+            }
+            catch( final SQLException e )
+            {
+                throw new IOException( e );
+            }
+        }
+        else
+        {
+            retValue = super.listPartitions();
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  listPartitions()
+
+    /**
+     *  Returns the years for the partition tables, or for the temporary
+     *  tables of compacted partitions.
+     *
+     *  @param  connection  The database connection.
+     *  @param  compacted   {@code true} for the temporary tables of compacted
+     *      partitions, {@code false} for the partition tables.
+     *  @return The years, in ascending order.
+     *  @throws SQLException    Problems when accessing the database.
+     */
+    private static final SortedSet<Integer> listPartitions( final Connection connection, final boolean compacted ) throws SQLException
+    {
+        final var sql = format(
+            """
+            SELECT TABLE_NAME FROM information_schema.tables
+              WHERE TABLE_NAME LIKE '%1$s\\_Y%%'
+                AND TABLE_SCHEMA = 'PUBLIC'\
+            """, TABLE_BLOODPRESSURE_DATA.replace( "_", "\\_" ) );
+        final SortedSet<Integer> retValue = new TreeSet<>();
+        try( final var statement = connection.createStatement();
+             final var resultSet = statement.executeQuery( sql ) )
+        {
+            while( resultSet.next() )
+            {
+                final var matcher = PARTITION_NAME_PATTERN.matcher( resultSet.getString( 1 ) );
+                if( matcher.matches() && (nonNull( matcher.group( 2 ) ) == compacted) ) retValue.add( Integer.valueOf( matcher.group( 1 ) ) );
+            }
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  listPartitions()
+
+    /**
+     *  Acquires the write lock of
+     *  {@link #m_PartitionLock}.
+     *  It waits until all snapshots are closed and no rows are written.
+     *
+     *  @throws IOException The current thread holds the read lock itself,
+     *      as it has a snapshot open; waiting for the lock would never end.
+     */
+    private final void lockPartitions() throws IOException
+    {
+        if( m_PartitionLock.getReadHoldCount() > 0 ) throw new IOException( "The partitions cannot be modified while the current thread has a snapshot open" );
+        m_PartitionLock.writeLock().lock();
+    }   //  lockPartitions()
+
+    /**
+     *  Adds the column for the outlier flag to the tables of a database that
+     *  was created before the outliers were detected; the existing
+     *  measurements are not flagged. Nothing happens for a table that has
+     *  the column already.
+     *
+     *  @param  connection  The database connection.
+     *  @throws SQLException    Problems when accessing the database.
+     */
+    private static final void migrateToOutlierFlag( final Connection connection ) throws SQLException
+    {
+        final List<String> tables = new ArrayList<>();
+        tables.add( TABLE_BLOODPRESSURE_DATA );
+        for( final var year : listPartitions( connection, false ) ) tables.add( tableFor( year, true ) );
+        try( final var statement = connection.createStatement() )
+        {
+            for( final var table : tables )
+            {
+                statement.execute( format( "ALTER TABLE %1$s ADD COLUMN IF NOT EXISTS outlier BOOLEAN DEFAULT FALSE NOT NULL AFTER ignored", table ) );
+            }
+        }
+    }   //  migrateToOutlierFlag()
+
+    /**
+     *  Moves the measurements from the unpartitioned table to the partition
+     *  tables; nothing happens if the unpartitioned table is empty.
+     *
+     *  @param  connection  The database connection.
+     *  @throws SQLException    Problems when accessing the database.
+     */
+    private static final void migrateToPartitions( final Connection connection ) throws SQLException
+    {
+        final var sql = format( "SELECT MIN( %2$s ), MAX( %2$s ) FROM %1$s", TABLE_BLOODPRESSURE_DATA, COLUMN_BLOODPRESSURE_DATA_PRIMARY_KEY );
+        OffsetDateTime min = null;
+        OffsetDateTime max = null;
+        try( final var statement = connection.createStatement();
+             final var resultSet = statement.executeQuery( sql ) )
+        {
+            if( resultSet.next() )
+            {
+                min = resultSet.getObject( 1, OffsetDateTime.class );
+                max = resultSet.getObject( 2, OffsetDateTime.class );
+            }
+        }
+
+        if( nonNull( min ) && nonNull( max ) )
+        {
+            final var firstYear = yearOf( min.toEpochSecond() );
+            final var lastYear = yearOf( max.toEpochSecond() );
+            for( var year = firstYear; year <= lastYear; ++year ) createTable( connection, tableFor( year, true ) );
+
+            connection.setAutoCommit( false );
+            try
+            {
+                for( var year = firstYear; year <= lastYear; ++year )
+                {
+                    final var move = format(
+                        """
+                        MERGE INTO %2$s( %3$s, %4$s, systolic_pressure, diastolic_pressure, ignored, outlier )
+                        KEY( %3$s, %4$s )
+                          SELECT %3$s, %4$s, systolic_pressure, diastolic_pressure, ignored, outlier FROM %1$s
+                            WHERE %4$s >= ? AND %4$s < ?\
+                        """, TABLE_BLOODPRESSURE_DATA, tableFor( year, true ), COLUMN_BLOODPRESSURE_DATA_PERSON, COLUMN_BLOODPRESSURE_DATA_PRIMARY_KEY );
+                    try( final var statement = connection.prepareStatement( move ) )
+                    {
+                        statement.setObject( 1, OffsetDateTime.ofInstant( startOfYear( year ), ZONE_UTC ) );
+                        statement.setObject( 2, OffsetDateTime.ofInstant( startOfYear( year + 1 ), ZONE_UTC ) );
+                        statement.executeUpdate();
+                    }
+                }
+                try( final var statement = connection.createStatement() )
+                {
+                    statement.executeUpdate( format( "DELETE FROM %s", TABLE_BLOODPRESSURE_DATA ) );
+                }
+                connection.commit();
+            }
+            catch( final SQLException e )
+            {
+                connection.rollback();
+                throw e;
+            }
+        }
+    }   //  migrateToPartitions()
+
+    /**
+     *  Adds the key for the person to the tables of a database that was
+     *  created before several persons were supported; nothing happens for a
+     *  table that does not exist or that has the key already. A database
+     *  that was created by the first version of this program has only the
+     *  table for the measurements, with the timestamp as the primary key.
+     *
+     *  @param  connection  The database connection.
+     *  @param  tables  The names of the existing tables.
+     *  @throws SQLException    Problems when accessing the database.
+     */
+    private static final void migrateToPersonKey( final Connection connection, final Collection<String> tables ) throws SQLException
+    {
+        final List<String> ddl = new ArrayList<>();
+        if( tables.contains( TABLE_BLOODPRESSURE_DATA ) && !hasColumn( connection, TABLE_BLOODPRESSURE_DATA, COLUMN_BLOODPRESSURE_DATA_PERSON ) )
+        {
+            ddl.add( format( "ALTER TABLE %1$s ADD COLUMN %2$s VARCHAR(64) DEFAULT '%3$s' NOT NULL BEFORE %4$s", TABLE_BLOODPRESSURE_DATA, COLUMN_BLOODPRESSURE_DATA_PERSON, DEFAULT_PERSON, COLUMN_BLOODPRESSURE_DATA_PRIMARY_KEY ) );
+            ddl.add( format( "ALTER TABLE %1$s DROP PRIMARY KEY", TABLE_BLOODPRESSURE_DATA ) );
+            ddl.add( format( "ALTER TABLE %1$s ADD PRIMARY KEY( %2$s, %3$s )", TABLE_BLOODPRESSURE_DATA, COLUMN_BLOODPRESSURE_DATA_PERSON, COLUMN_BLOODPRESSURE_DATA_PRIMARY_KEY ) );
+        }
+        if( tables.contains( TABLE_BLOODPRESSURE_CHANGES ) && !hasColumn( connection, TABLE_BLOODPRESSURE_CHANGES, COLUMN_BLOODPRESSURE_DATA_PERSON ) )
+        {
+            ddl.add( format( "ALTER TABLE %1$s ADD COLUMN %2$s VARCHAR(64) DEFAULT '%3$s' NOT NULL AFTER change_id", TABLE_BLOODPRESSURE_CHANGES, COLUMN_BLOODPRESSURE_DATA_PERSON, DEFAULT_PERSON ) );
+        }
+        try( final var statement = connection.createStatement() )
+        {
+            for( final var command : ddl ) statement.execute( command );
+        }
+    }   //  migrateToPersonKey()
+
+    /**
+     *  Completes a compaction that was interrupted. The old partition is
+     *  dropped only after all rows were copied to the temporary table, so
+     *  if the old partition still exists, the temporary table is discarded;
+     *  otherwise, it replaces the old partition.
+     *
+     *  @param  connection  The database connection.
+     *  @throws SQLException    Problems when accessing the database.
+     *
+     *  @see #compactPartition(int)
+     */
+    private static final void recoverCompaction( final Connection connection ) throws SQLException
+    {
+        final var partitions = listPartitions( connection, false );
+        for( final var year : listPartitions( connection, true ) )
+        {
+            final var table = tableFor( year, true );
+            try( final var statement = connection.createStatement() )
+            {
+                if( partitions.contains( year ) )
+                {
+                    statement.execute( format( "DROP TABLE %s%s", table, COMPACTION_SUFFIX ) );
+                }
+                else
+                {
+                    statement.execute( format( "ALTER TABLE %1$s%2$s RENAME TO %1$s", table, COMPACTION_SUFFIX ) );
+                }
+            }
+        }
+    }   //  recoverCompaction()
+
+    /**
+     *  {@inheritDoc}
+     *  <p>The snapshot keeps a connection to the database with a read-only
+     *  transaction on isolation level {@code SNAPSHOT}. The MVStore keeps
+     *  the versions of the rows that are visible to that transaction, so
+     *  the reads neither block nor are blocked by concurrent modifications
+     *  of rows. The partitions are not compacted, dropped or archived while
+     *  a snapshot is open; these operations wait until all snapshots are
+     *  closed. A snapshot has to be closed by the thread that opened it.</p>
+     */
+    @Override
+    public final Snapshot openSnapshot() throws IOException
+    {
+        try
+        {
+            final var retValue = new SessionSnapshot();
+
+            //---* Done *------------------------------------------------------
+            return retValue;
+        }
+        catch( final SQLException e )
+        {
+            throw new IOException( e );
+        }
+    }   //  openSnapshot()
+
+    /**
+     *  Returns the tables that hold the measurements for the given range,
+     *  in the order of their timestamps.
+     *
+     *  @param  connection  The database connection.
+     *  @param  from    The start of the range.
+     *  @param  to  The end of the range.
+     *  @return The names of the tables.
+     *  @throws SQLException    Problems when accessing the database.
+     */
+    private final List<String> resolveTables( final Connection connection, final Instant from, final Instant to ) throws SQLException
+    {
+        final List<String> retValue = new ArrayList<>();
+        if( m_IsPartitioned )
+        {
+            for( final var year : listPartitions( connection, false ) )
+            {
+                if( (isNull( from ) || startOfYear( year + 1 ).isAfter( from )) && (isNull( to ) || startOfYear( year ).isBefore( to )) )
+                {
+                    retValue.add( tableFor( year ) );
+                }
+            }
+        }
+        else
+        {
+            retValue.add( TABLE_BLOODPRESSURE_DATA );
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  resolveTables()
+
+    /**
+     *  Reads the end of the downsampled range for the given person.
+     *
+     *  @param  connection  The database connection.
+     *  @param  person  The key for the person.
+     *  @param  forUpdate   {@code true} if the row should be locked until the
+     *      end of the current transaction, {@code false} otherwise.
+     *  @return The end of the downsampled range, in seconds since the begin
+     *      of the epoch; {@link Long#MIN_VALUE} if nothing was downsampled
+     *      yet.
+     *  @throws SQLException    Problems when accessing the database.
+     */
+    private static final long retrieveCutoff( final Connection connection, final String person, final boolean forUpdate ) throws SQLException
+    {
+        final var sql = format( "SELECT cutoff FROM %1$s WHERE %2$s = ?%3$s", TABLE_BLOODPRESSURE_CUTOFF, COLUMN_BLOODPRESSURE_DATA_PERSON, forUpdate ? " FOR UPDATE" : "" );
+        var retValue = Long.MIN_VALUE;
+        try( final var statement = connection.prepareStatement( sql ) )
+        {
+            statement.setString( 1, person );
+            try( final var resultSet = statement.executeQuery() )
+            {
+                if( resultSet.next() )
+                {
+                    final var cutoff = resultSet.getObject( 1, OffsetDateTime.class );
+                    if( !cutoff.isEqual( NO_CUTOFF ) ) retValue = cutoff.toEpochSecond();
+                }
+            }
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  retrieveCutoff()
+
+    /**
+     *  Reads the identity of the database.
+     *
+     *  @param  connection  The database connection.
+     *  @return The identity; it is empty if the database does not have one
+     *      yet, as it was opened read-only before it was assigned.
+     *  @throws SQLException    Problems when accessing the database.
+     */
+    private static final String retrieveStoreId( final Connection connection ) throws SQLException
+    {
+        final var sql = format(
+            """
+            SELECT COUNT(*) FROM information_schema.tables
+              WHERE TABLE_NAME = '%1$s'
+                AND TABLE_SCHEMA = 'PUBLIC'\
+            """, TABLE_BLOODPRESSURE_STORE );
+
+        var retValue = "";
+        try( final var statement = connection.createStatement() )
+        {
+            final boolean hasTable;
+            try( final var resultSet = statement.executeQuery( sql ) )
+            {
+                hasTable = resultSet.next() && (resultSet.getInt( 1 ) > 0);
+            }
+            if( hasTable )
+            {
+                try( final var resultSet = statement.executeQuery( format( "SELECT MIN( store_id ) FROM %s", TABLE_BLOODPRESSURE_STORE ) ) )
+                {
+                    if( resultSet.next() && nonNull( resultSet.getString( 1 ) ) ) retValue = resultSet.getString( 1 );
+                }
+            }
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  retrieveStoreId()
+
+    /**
+     *  Reads the downsampled days in the given range.
+     *
+     *  @param  connection  The database connection.
+     *  @param  person  The key for the person.
+     *  @param  from    The first day of the range; {@code null} for an
+     *      open range.
+     *  @param  to  The last day of the range (inclusive); {@code null} for
+     *      an open range.
+     *  @return The daily aggregates.
+     *  @throws SQLException    Problems when accessing the database.
+     */
+    private static final SortedMap<LocalDate,DailyAggregate> retrieveDownsampledDays( final Connection connection, final String person, final LocalDate from, final LocalDate to ) throws SQLException
+    {
+        final var sql = format(
+            """
+            SELECT measuring_day, measurement_count, systolic_sum, diastolic_sum,
+                systolic_min, systolic_max, diastolic_min, diastolic_max,
+                systolic_bands, diastolic_bands
+              FROM %1$s
+              WHERE %2$s = ?%3$s%4$s\
+            """, TABLE_BLOODPRESSURE_DAILY, COLUMN_BLOODPRESSURE_DATA_PERSON, isNull( from ) ? "" : " AND measuring_day >= ?", isNull( to ) ? "" : " AND measuring_day <= ?" );
+        final SortedMap<LocalDate,DailyAggregate> retValue = new TreeMap<>();
+        try( final var statement = connection.prepareStatement( sql ) )
+        {
+            var index = 0;
+            statement.setString( ++index, person );
+            if( nonNull( from ) ) statement.setObject( ++index, from );
+            if( nonNull( to ) ) statement.setObject( ++index, to );
+            try( final var resultSet = statement.executeQuery() )
+            {
+                while( resultSet.next() )
+                {
+                    final var day = resultSet.getObject( 1, LocalDate.class );
+                    retValue.put( day, new DailyAggregate( day, resultSet.getInt( 2 ), resultSet.getLong( 3 ), resultSet.getLong( 4 ),
+                        resultSet.getInt( 5 ), resultSet.getInt( 6 ), resultSet.getInt( 7 ), resultSet.getInt( 8 ),
+                        toBands( (Object []) resultSet.getArray( 9 ).getArray() ), toBands( (Object []) resultSet.getArray( 10 ).getArray() ) ) );
+                }
+            }
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  retrieveDownsampledDays()
+
+    /**
+     *  Retrieves the result of the given aggregate function on the
+     *  timestamps of the given person. For the partitioned flavour, the
+     *  partitions are searched from the first (for {@code MIN}) or from the
+     *  last (for {@code MAX}) year on, until a result was found.
+     *
+     *  @param  connection  The database connection.
+     *  @param  person  The key for the person.
+     *  @param  function    The aggregate function, either {@code MIN} or
+     *      {@code MAX}.
+     *  @return An instance of
+     *      {@link Optional}
+     *      that holds the timestamp.
+     *  @throws SQLException    Problems when accessing the database.
+     */
+    private final Optional<Instant> retrieveTimestamp( final Connection connection, final String person, final String function ) throws SQLException
+    {
+        requireNonNullArgument( person, "person" );
+        Optional<Instant> retValue = Optional.empty();
+        final var tables = resolveTables( connection, null, null );
+        if( "MAX".equals( function ) ) Collections.reverse( tables );
+        for( var i = 0; (i < tables.size()) && retValue.isEmpty(); ++i )
+        {
+            final var sql = format( "SELECT %3$s( %2$s ) FROM %1$s WHERE %4$s = ?", tables.get( i ), COLUMN_BLOODPRESSURE_DATA_PRIMARY_KEY, function, COLUMN_BLOODPRESSURE_DATA_PERSON );
+            try( final var statement = connection.prepareStatement( sql ) )
+            {
+                statement.setString( 1, person );
+                try( final var resultSet = statement.executeQuery() )
+                {
+                    if( resultSet.next() )
+                    {
+                        retValue = Optional.ofNullable( resultSet.getObject( 1, OffsetDateTime.class ) )
+                            .map( OffsetDateTime::toInstant );
+                    }
+                }
+            }
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  retrieveTimestamp()
+
+    /**
+     *  Retrieves the result of the given aggregate function on the
+     *  timestamps of the given person, using a connection of its own.
+     *
+     *  @param  person  The key for the person.
+     *  @param  function    The aggregate function, either {@code MIN} or
+     *      {@code MAX}.
+     *  @return An instance of
+     *      {@link Optional}
+     *      that holds the timestamp.
+     *  @throws IOException Problems when accessing the database.
+     */
+    private final Optional<Instant> retrieveTimestamp( final String person, final String function ) throws IOException
+    {
+        try( final var connection = getConfiguration().retrieveConnection() )
+        {
+            final var retValue = retrieveTimestamp( connection, person, function );
+
+            //---* Done *------------------------------------------------------
+            return retValue;
+        }
+        catch( final SQLException e )
+        {
+            throw new IOException( e );
+        }
+    }   //  retrieveTimestamp()
+
+    /**
+     *  {@inheritDoc}
+     *  <p>The rows are read in blocks of the
+     *  {@linkplain org.tquadrat.bloodpressure.Configuration#getScanFetchSize() configured size}.</p>
+     */
+    @Override
+    public final void scan( final String person, final Instant from, final Instant to, final RecordConsumer consumer ) throws IOException
+    {
+        scan( person, from, to, getConfiguration().getScanFetchSize(), consumer );
+    }   //  scan()
+
+    /**
+     *  {@inheritDoc}
+     *  <p>Each scan uses a connection of its own, so several scans may run
+     *  concurrently. For the partitioned flavour, only the partitions that
+     *  overlap with the range are read.</p>
+     */
+    @Override
+    public final void scan( final String person, final Instant from, final Instant to, final int fetchSize, final RecordConsumer consumer ) throws IOException
+    {
+        requireNonNullArgument( consumer, "consumer" );
+
+        try( final var connection = getConfiguration().retrieveConnection() )
+        {
+            scan( connection, resolveTables( connection, from, to ), person, from, to, fetchSize, consumer );
+        }
+        catch( final SQLException e )
+        {
+            throw new IOException( e );
+        }
+    }   //  scan()
+
+    /**
+     *  Passes all measurements in the given range from the given tables, in
+     *  the order of their timestamps, to the given consumer.
+     *
+     *  @param  connection  The database connection.
+     *  @param  tables  The tables, in the order of their timestamps.
+     *  @param  person  The key for the person.
+     *  @param  from    The start of the range.
+     *  @param  to  The end of the range.
+     *  @param  fetchSize   The number of rows that will be fetched at once.
+     *  @param  consumer    The consumer for the measurements.
+     *  @throws SQLException    Problems when accessing the database.
+     *  @throws IOException Thrown by the consumer.
+     */
+    private final void scan( final Connection connection, final List<String> tables, final String person, final Instant from, final Instant to, final int fetchSize, final RecordConsumer consumer ) throws SQLException, IOException
+    {
+        for( final var table : tables )
+        {
+            final var sql = format(
+                """
+                SELECT %2$s, systolic_pressure, diastolic_pressure, ignored, outlier FROM %1$s%3$s
+                  ORDER BY %2$s\
+                """, table, COLUMN_BLOODPRESSURE_DATA_PRIMARY_KEY, createRangeCondition( from, to ) );
+            try( final var statement = connection.prepareStatement( sql, TYPE_FORWARD_ONLY, CONCUR_READ_ONLY ) )
+            {
+                statement.setFetchSize( fetchSize );
+                bindRange( statement, person, from, to );
+                try( final var resultSet = statement.executeQuery() )
+                {
+                    while( resultSet.next() )
+                    {
+                        consumer.accept( resultSet.getObject( 1, OffsetDateTime.class ).toEpochSecond(), resultSet.getInt( 2 ), resultSet.getInt( 3 ), resultSet.getBoolean( 4 ), resultSet.getBoolean( 5 ) );
+                    }
+                }
+            }
+        }
+    }   //  scan()
+
+    /**
+     *  <p>{@summary Adds the row for the end of the downsampled range of the
+     *  given person, if it does not exist yet.} Before the first
+     *  downsampling, there is no such row, and
+     *  {@code SELECT … FOR UPDATE}
+     *  would lock nothing; so an import could add measurements to a range
+     *  that a concurrent downsampling removes without having aggregated
+     *  them.</p>
+     *  <p>The row is added in its own transaction; if another connection
+     *  adds it concurrently, the resulting violation of the primary key is
+     *  ignored.</p>
+     *
+     *  @param  connection  The database connection; it must be in
+     *      auto-commit mode.
+     *  @param  person  The key for the person.
+     *  @throws SQLException    Problems when accessing the database.
+     */
+    private static final void seedCutoff( final Connection connection, final String person ) throws SQLException
+    {
+        final var sql = format( "INSERT INTO %1$s( %2$s, cutoff ) SELECT ?, ? WHERE NOT EXISTS( SELECT 1 FROM %1$s WHERE %2$s = ? )", TABLE_BLOODPRESSURE_CUTOFF, COLUMN_BLOODPRESSURE_DATA_PERSON );
+        try( final var statement = connection.prepareStatement( sql ) )
+        {
+            statement.setString( 1, person );
+            statement.setObject( 2, NO_CUTOFF );
+            statement.setString( 3, person );
+            statement.executeUpdate();
+        }
+        catch( final SQLException e )
+        {
+            if( !SQLSTATE_DUPLICATE_KEY.equals( e.getSQLState() ) ) throw e;
+        }
+    }   //  seedCutoff()
+
+    /**
+     *  Returns the start of the given year (UTC).
+     *
+     *  @param  year    The year.
+     *  @return The start of the year.
+     */
+    private static final Instant startOfYear( final int year ) { return LocalDate.of( year, 1, 1 ).atStartOfDay( ZONE_UTC ).toInstant(); }
+
+    /**
+     *  Returns the table that holds the measurements for the given year.
+     *
+     *  @param  year    The year; it is ignored if the data is not
+     *      partitioned.
+     *  @return The name of the table.
+     */
+    private final String tableFor( final int year ) { return tableFor( year, m_IsPartitioned ); }
+
+    /**
+     *  Returns the table that holds the measurements for the given year.
+     *
+     *  @param  year    The year.
+     *  @param  isPartitioned   {@code true} if the data is partitioned by
+     *      year, {@code false} otherwise.
+     *  @return The name of the table.
+     */
+    private static final String tableFor( final int year, final boolean isPartitioned )
+    {
+        final var retValue = isPartitioned ? format( "%s_Y%04d", TABLE_BLOODPRESSURE_DATA, year ) : TABLE_BLOODPRESSURE_DATA;
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  tableFor()
+
+    /**
+     *  Converts the value of an {@code INTEGER ARRAY} column to a histogram.
+     *
+     *  @param  values  The values from the column.
+     *  @return The histogram.
+     *  @throws SQLException    The array does not have one entry per band.
+     */
+    private static final int [] toBands( final Object [] values ) throws SQLException
+    {
+        if( values.length != BAND_COUNT ) throw new SQLException( format( "Invalid number of bands: %d", values.length ) );
+        final var retValue = new int [BAND_COUNT];
+        for( var i = 0; i < BAND_COUNT; ++i ) retValue [i] = ((Number) values [i]).intValue();
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  toBands()
+
+    /**
+     *  Converts the given timestamp to the type that is used for the
+     *  database.
+     *
+     *  @param  epochSecond The timestamp as seconds since the begin of the
+     *      epoch.
+     *  @return The timestamp.
+     */
+    private static final OffsetDateTime toDateTime( final long epochSecond )
+    {
+        final var retValue = OffsetDateTime.ofInstant( Instant.ofEpochSecond( epochSecond ), ZONE_UTC );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  toDateTime()
+
+    /**
+     *  Writes the end of the downsampled range for the given person.
+     *
+     *  @param  connection  The database connection.
+     *  @param  person  The key for the person.
+     *  @param  cutoff  The end of the downsampled range, in seconds since
+     *      the begin of the epoch.
+     *  @throws SQLException    Problems when accessing the database.
+     */
+    private static final void writeCutoff( final Connection connection, final String person, final long cutoff ) throws SQLException
+    {
+        final var sql = format( "MERGE INTO %1$s( %2$s, cutoff ) KEY( %2$s ) VALUES( ?, ? )", TABLE_BLOODPRESSURE_CUTOFF, COLUMN_BLOODPRESSURE_DATA_PERSON );
+        try( final var statement = connection.prepareStatement( sql ) )
+        {
+            statement.setString( 1, person );
+            statement.setObject( 2, toDateTime( cutoff ) );
+            statement.executeUpdate();
+        }
+    }   //  writeCutoff()
+
+    /**
+     *  Writes the given daily aggregates to the table for the downsampled
+     *  days, replacing the rows for the same days.
+     *
+     *  @param  connection  The database connection.
+     *  @param  person  The key for the person.
+     *  @param  days    The daily aggregates.
+     *  @throws SQLException    Problems when accessing the database.
+     */
+    private static final void writeDownsampledDays( final Connection connection, final String person, final Collection<DailyAggregate> days ) throws SQLException
+    {
+        final var sql = format(
+            """
+            MERGE INTO %1$s( %2$s, measuring_day, measurement_count, systolic_sum, diastolic_sum,
+                systolic_min, systolic_max, diastolic_min, diastolic_max,
+                systolic_bands, diastolic_bands )
+            KEY( %2$s, measuring_day )
+            VALUES( ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ? )\
+            """, TABLE_BLOODPRESSURE_DAILY, COLUMN_BLOODPRESSURE_DATA_PERSON );
+        final var diagnoses = Diagnosis.values();
+        try( final var statement = connection.prepareStatement( sql ) )
+        {
+            for( final var aggregate : days )
+            {
+                final var systolicBands = new Integer [BAND_COUNT];
+                final var diastolicBands = new Integer [BAND_COUNT];
+                for( var b = 0; b < BAND_COUNT; ++b )
+                {
+                    systolicBands [b] = Integer.valueOf( aggregate.getSystolicCount( diagnoses [b] ) );
+                    diastolicBands [b] = Integer.valueOf( aggregate.getDiastolicCount( diagnoses [b] ) );
+                }
+                statement.setString( 1, person );
+                statement.setObject( 2, aggregate.getDay() );
+                statement.setInt( 3, aggregate.getCount() );
+                statement.setLong( 4, aggregate.getSystolicSum() );
+                statement.setLong( 5, aggregate.getDiastolicSum() );
+                statement.setInt( 6, aggregate.getSystolicMinimum() );
+                statement.setInt( 7, aggregate.getSystolicMaximum() );
+                statement.setInt( 8, aggregate.getDiastolicMinimum() );
+                statement.setInt( 9, aggregate.getDiastolicMaximum() );
+                statement.setArray( 10, connection.createArrayOf( "INTEGER", systolicBands ) );
+                statement.setArray( 11, connection.createArrayOf( "INTEGER", diastolicBands ) );
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }   //  writeDownsampledDays()
+
+    /**
+     *  Returns the year (UTC) for the given timestamp.
+     *
+     *  @param  epochSecond The timestamp as seconds since the begin of the
+     *      epoch.
+     *  @return The year.
+     */
+    private static final int yearOf( final long epochSecond ) { return Instant.ofEpochSecond( epochSecond ).atZone( ZONE_UTC ).getYear(); }
+}
+//  class H2DataStore
+
+/*
+ *  End of File
+ */
@@ -0,0 +1,1761 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.bloodpressure.store;
+
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.file.Files.createDirectories;
+import static java.nio.file.Files.exists;
+import static java.nio.file.Files.isDirectory;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.apiguardian.api.API.Status.INTERNAL;
+import static org.tquadrat.bloodpressure.DataStore.DEFAULT_PERSON;
+import static org.tquadrat.bloodpressure.DataStore.isValidPerson;
+import static org.tquadrat.bloodpressure.internal.DataChangeLog.INITIAL_DATA_VERSION;
+import static org.tquadrat.bloodpressure.spi.DailyAggregate.BAND_COUNT;
+import static org.tquadrat.foundation.lang.CommonConstants.ZONE_UTC;
+import static org.tquadrat.foundation.lang.Objects.isNull;
+import static org.tquadrat.foundation.lang.Objects.nonNull;
+import static org.tquadrat.foundation.lang.Objects.requireNonNullArgument;
+import static org.tquadrat.foundation.util.StringUtils.format;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+import org.apiguardian.api.API;
+import org.tquadrat.bloodpressure.DataStore;
+import org.tquadrat.bloodpressure.Diagnosis;
+import org.tquadrat.bloodpressure.spi.DailyAggregate;
+import org.tquadrat.bloodpressure.spi.DataStoreBase;
+import org.tquadrat.bloodpressure.spi.DataStoreSnapshot;
+import org.tquadrat.foundation.annotation.ClassVersion;
+
+/**
+ *  <p>{@summary An embedded storage engine that keeps the blood pressure
+ *  data in append-only segment files, one per person and calendar year
+ *  (UTC).}</p>
+ *  <p>The segment files for a person are kept in the folder
+ *  {@code <dataFolder>/<databaseName>.segments/<person>}, so any operation
+ *  for one person will never touch the files of another person, and no
+ *  file is kept open between two operations. Each file starts with a
+ *  header of {@value #HEADER_SIZE} bytes (magic number, format version and
+ *  the number of sorted records), followed by records of
+ *  {@value #RECORD_SIZE} bytes each (timestamp, systolic and diastolic
+ *  value, flags for ignored measurements and outliers). The records at the
+ *  begin of the file are sorted by their timestamps and unique; the records
+ *  after that sorted region (the <i>tail</i>) are in the order they were
+ *  appended, and a record in the tail replaces any earlier record with the
+ *  same timestamp.</p>
+ *  <p>Data that is newer than anything in a segment extends the sorted
+ *  region directly; anything else goes to the tail. When the tail grows
+ *  beyond {@value #COMPACTION_THRESHOLD} records, or when records are
+ *  deleted, the segment is rewritten into a new file that replaces the
+ *  old one atomically. A segment whose year is deleted completely is just
+ *  removed.</p>
+ *  <p>The years are the partitions of this storage: dropping, archiving or
+ *  compacting a year touches only the segment files for that year.</p>
+ *  <p>Range scans map the segment files into memory, locate the start of
+ *  the range in the sorted region by a binary search, and merge the sorted
+ *  region with the (sorted) tail. A segment that is about to be rewritten
+ *  or deleted is read into a copy instead, so the writer itself holds no
+ *  mapping of a file it replaces; on some platforms, Windows for example,
+ *  a mapped file can neither be replaced nor deleted. A
+ *  {@linkplain #openSnapshot() snapshot}
+ *  keeps the mapped segment files, as they were when it accessed the data
+ *  of a person for the first time.</p>
+ *  <p>The changes are recorded in the file {@value #CHANGE_LOG_NAME} in the
+ *  folder of the person; the data version is the number of entries in that
+ *  file.</p>
+ *  <p>The downsampled days are kept in the file {@value #DAILY_FILE_NAME}
+ *  in the folder of the person; it has a header of
+ *  {@value #DAILY_HEADER_SIZE} bytes (magic number, format version, number
+ *  of bands, number of records and the end of the downsampled range),
+ *  followed by one record per day, sorted by the day. When measurements are
+ *  downsampled, the new version of that file is written first, next to the
+ *  old one; then the measurements are removed from the segments, and
+ *  finally the new file replaces the old one. A new version that is found
+ *  on startup means that the downsampling was interrupted; it will be
+ *  completed. Measurements before the end of the downsampled range, as
+ *  given in the header of that file, will not be appended again.</p>
+ *  <p>The
+ *  {@linkplain #getStoreId() identity}
+ *  of the storage is kept in the file {@value #STORE_ID_NAME} in the folder
+ *  {@code <dataFolder>/<databaseName>.segments}.</p>
+ *
+ *  @version $Id$
+ *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @UMLGraph.link
+ *  @since 0.1.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@API( status = INTERNAL, since = "0.1.0" )
+public final class SegmentDataStore extends DataStoreBase
+{
+        /*---------------*\
+    ====** Inner Classes **====================================================
+        \*---------------*/
+    /**
+     *  The state of the data of a single person, as seen by a
+     *  {@linkplain SegmentSnapshot snapshot}.
+     *
+     *  @param  dataVersion The data version at the time the state was
+     *      taken.
+     *  @param  segments    The mapped segments, by year.
+     *  @param  downsampledDays The downsampled days.
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.1.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = INTERNAL, since = "0.1.0" )
+    private static record PersonState( long dataVersion, SortedMap<Integer,Segment> segments, SortedMap<LocalDate,DailyAggregate> downsampledDays ) {}
+
+    /**
+     *  A segment file that was mapped into memory.
+     *
+     *  @param  buffer  The mapped buffer; it covers the header and all
+     *      complete records.
+     *  @param  sortedCount The number of records in the sorted region.
+     *  @param  recordCount The number of complete records.
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.1.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = INTERNAL, since = "0.1.0" )
+    private static record Segment( ByteBuffer buffer, int sortedCount, int recordCount ) {}
+
+    /**
+     *  <p>{@summary The snapshot of the segment files.}</p>
+     *  <p>On the first access to the data of a person, the segment files of
+     *  that person are mapped into memory, under the read lock for that
+     *  person. A segment file is only extended at its end, replaced
+     *  atomically by a new file, or deleted, so the mapped range of the
+     *  records keeps the state from that moment; the number of sorted
+     *  records is taken from the header at that time, too. The downsampled
+     *  days are read at the same time.</p>
+     *
+     *  @version $Id$
+     *  @extauthor Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @UMLGraph.link
+     *  @since 0.1.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    @API( status = INTERNAL, since = "0.1.0" )
+    private final class SegmentSnapshot extends DataStoreSnapshot
+    {
+            /*------------*\
+        ====** Attributes **===================================================
+            \*------------*/
+        /**
+         *  The state of the data, by person.
+         */
+        private final Map<String,PersonState> m_States = new HashMap<>();
+
+            /*--------------*\
+        ====** Constructors **=================================================
+            \*--------------*/
+        /**
+         *  Creates a new instance of {@code SegmentSnapshot}.
+         */
+        public SegmentSnapshot()
+        {
+            super( SegmentDataStore.this.getName() );
+        }   //  SegmentSnapshot()
+
+            /*---------*\
+        ====** Methods **======================================================
+            \*---------*/
+        /**
+         *  {@inheritDoc}
+         */
+        @Override
+        public final synchronized void close() throws IOException { m_States.clear(); }
+
+        /**
+         *  {@inheritDoc}
+         */
+        @Override
+        public final long getDataVersion( final String person ) throws IOException
+        {
+            final var retValue = retrieveState( person ).dataVersion();
+
+            //---* Done *------------------------------------------------------
+            return retValue;
+        }   //  getDataVersion()
+
+        /**
+         *  {@inheritDoc}
+         */
+        @Override
+        public final SortedMap<LocalDate,DailyAggregate> getDownsampledDays( final String person, final LocalDate from, final LocalDate to ) throws IOException
+        {
+            final SortedMap<LocalDate,DailyAggregate> retValue = new TreeMap<>();
+            for( final var aggregate : retrieveState( person ).downsampledDays().values() )
+            {
+                if( isInRange( aggregate.getDay(), from, to ) )
+                {
+                    //---* The aggregates are mutable, so a copy is returned *-
+                    retValue.computeIfAbsent( aggregate.getDay(), DailyAggregate::new ).merge( aggregate );
+                }
+            }
+
+            //---* Done *------------------------------------------------------
+            return retValue;
+        }   //  getDownsampledDays()
+
+        /**
+         *  {@inheritDoc}
+         *  <p>The change log is not part of the snapshot; the storage is
+         *  asked instead when the given version is older than the
+         *  snapshot. The result may then include modifications after the
+         *  snapshot was taken, but these cause no more than an unnecessary
+         *  recalculation.</p>
+         */
+        @Override
+        public final Optional<Instant> getEarliestChangeSince( final String person, final long dataVersion ) throws IOException
+        {
+            final var retValue = dataVersion >= retrieveState( person ).dataVersion()
+                ? Optional.<Instant>empty()
+                : SegmentDataStore.this.getEarliestChangeSince( person, dataVersion );
+
+            //---* Done *------------------------------------------------------
+            return retValue;
+        }   //  getEarliestChangeSince()
+
+        /**
+         *  {@inheritDoc}
+         */
+        @Override
+        public final Optional<Instant> getFirstTimestamp( final String person ) throws IOException
+        {
+            Optional<Instant> retValue = Optional.empty();
+            final var segments = retrieveState( person ).segments().values().iterator();
+            while( segments.hasNext() && retValue.isEmpty() ) retValue = retrieveTimestamp( segments.next(), true );
+
+            //---* Done *------------------------------------------------------
+            return retValue;
+        }   //  getFirstTimestamp()
+
+        /**
+         *  {@inheritDoc}
+         */
+        @Override
+        public final Optional<Instant> getLastTimestamp( final String person ) throws IOException
+        {
+            Optional<Instant> retValue = Optional.empty();
+            final List<Segment> segments = new ArrayList<>( retrieveState( person ).segments().values() );
+            for( var i = segments.size() - 1; (i >= 0) && retValue.isEmpty(); --i )
+            {
+                retValue = retrieveTimestamp( segments.get( i ), false );
+            }
+
+            //---* Done *------------------------------------------------------
+            return retValue;
+        }   //  getLastTimestamp()
+
+        /**
+         *  {@inheritDoc}
+         */
+        @Override
+        public final String getStoreId() { return SegmentDataStore.this.getStoreId(); }
+
+        /**
+         *  {@inheritDoc}
+         */
+        @Override
+        public final SortedSet<Integer> listPartitions() throws IOException { return SegmentDataStore.this.listPartitions(); }
+
+        /**
+         *  Returns the state of the data of the given person; it is taken
+         *  on the first call for that person.
+         *
+         *  @param  person  The key for the person.
+         *  @return The state of the data.
+         *  @throws IOException Problems when accessing the segment files.
+         */
+        private final synchronized PersonState retrieveState( final String person ) throws IOException
+        {
+            var retValue = m_States.get( requireNonNullArgument( person, "person" ) );
+            if( isNull( retValue ) )
+            {
+                final var folder = personFolder( person );
+                final var lock = getLock( person );
+                lock.readLock().lock();
+                try
+                {
+                    final SortedMap<Integer,Segment> segments = new TreeMap<>();
+                    for( final var year : listSegments( folder, Long.MIN_VALUE, Long.MAX_VALUE ) )
+                    {
+                        final var segment = mapSegment( segmentFile( folder, year ) );
+                        if( nonNull( segment ) ) segments.put( year, segment );
+                    }
+                    final var dailyFile = getDailyFile( folder );
+                    final SortedMap<LocalDate,DailyAggregate> downsampledDays = new TreeMap<>();
+                    if( exists( dailyFile ) ) readDailyFile( dailyFile, downsampledDays );
+                    retValue = new PersonState( SegmentDataStore.this.getDataVersion( person ), segments, downsampledDays );
+                }
+                finally
+                {
+                    lock.readLock().unlock();
+                }
+                m_States.put( person, retValue );
+            }
+
+            //---* Done *------------------------------------------------------
+            return retValue;
+        }   //  retrieveState()
+
+        /**
+         *  {@inheritDoc}
+         */
+        @Override
+        public final void scan( final String person, final Instant from, final Instant to, final RecordConsumer consumer ) throws IOException
+        {
+            requireNonNullArgument( consumer, "consumer" );
+            final var start = isNull( from ) ? Long.MIN_VALUE : from.getEpochSecond();
+            final var end = isNull( to ) ? Long.MAX_VALUE : to.getEpochSecond();
+
+            for( final var entry : retrieveState( person ).segments().entrySet() )
+            {
+                final int year = entry.getKey();
+                if( (startOfYear( year + 1 ) > start) && (startOfYear( year ) < end) )
+                {
+                    readSegment( entry.getValue(), start, end, consumer );
+                }
+            }
+        }   //  scan()
+    }
+    //  class SegmentSnapshot
+
+        /*-----------*\
+    ====** Constants **========================================================
+        \*-----------*/
+    /**
+     *  The name of the change log file: {@value}.
+     */
+    private static final String CHANGE_LOG_NAME = "changes.log";
+
+    /**
+     *  The size of an entry in the change log: {@value}.
+     */
+    private static final int CHANGE_RECORD_SIZE = 2 * Long.BYTES;
+
+    /**
+     *  The number of records in the tail of a segment that triggers a
+     *  compaction: {@value}.
+     */
+    public static final int COMPACTION_THRESHOLD = 4_096;
+
+    /**
+     *  The name of the file for the downsampled days: {@value}.
+     */
+    private static final String DAILY_FILE_NAME = "downsampled.agg";
+
+    /**
+     *  The size of the header of the file for the downsampled days:
+     *  {@value}.
+     */
+    private static final int DAILY_HEADER_SIZE = 24;
+
+    /**
+     *  The magic number for the file for the downsampled days.
+     */
+    private static final int DAILY_MAGIC = 0x42504441;
+
+    /**
+     *  The size of a single record in the file for the downsampled days.
+     */
+    private static final int DAILY_RECORD_SIZE = 3 * Long.BYTES + Integer.BYTES + 4 * Short.BYTES + 2 * BAND_COUNT * Integer.BYTES;
+
+    /**
+     *  The flag for an ignored measurement.
+     */
+    private static final byte FLAG_IGNORED = 0x01;
+
+    /**
+     *  The flag for a measurement that was detected as an outlier.
+     */
+    private static final byte FLAG_OUTLIER = 0x02;
+
+    /**
+     *  The version of the file format: {@value}.
+     */
+    public static final int FORMAT_VERSION = 1;
+
+    /**
+     *  The size of the segment file header: {@value}.
+     */
+    private static final int HEADER_SIZE = 16;
+
+    /**
+     *  The magic number for a segment file.
+     */
+    private static final int MAGIC = 0x42505347;
+
+    /**
+     *  The name of this storage engine: {@value}.
+     */
+    public static final String NAME = "SEGMENTS";
+
+    /**
+     *  The size of a single record: {@value}.
+     */
+    private static final int RECORD_SIZE = 16;
+
+    /**
+     *  The pattern for the name of a segment file.
+     */
+    private static final Pattern SEGMENT_NAME_PATTERN = Pattern.compile( "(-?\\d+)\\.seg" );
+
+    /**
+     *  The name of the file that holds the identity of the storage:
+     *  {@value}.
+     */
+    private static final String STORE_ID_NAME = "store.id";
+
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The root folder for the segment files.
+     */
+    private Path m_Folder;
+
+    /**
+     *  The locks that guard the segment files, one per person.
+     */
+    private final Map<String,ReadWriteLock> m_Locks = new ConcurrentHashMap<>();
+
+    /**
+     *  The identity of the storage; it is read on
+     *  {@linkplain #initialize() initialisation}.
+     */
+    private String m_StoreId = "";
+
+        /*--------------*\
+    ====** Constructors **=====================================================
+        \*--------------*/
+    /**
+     *  Creates a new instance of {@code SegmentDataStore}.
+     */
+    public SegmentDataStore()
+    {
+        super( NAME );
+        m_Folder = null;
+    }   //  SegmentDataStore()
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  {@inheritDoc}
+     *  <p>Measurements before the end of the downsampled range are
+     *  discarded; their days are already contained in the downsampled days,
+     *  so re-importing them would count them twice.</p>
+     */
+    @Override
+    public final void append( final String person, final Batch batch ) throws IOException
+    {
+        final var folder = personFolder( person );
+        requireNonNullArgument( batch, "batch" );
+        final var size = batch.size();
+        if( size > 0 )
+        {
+            final var timestamps = new long [size];
+            for( var i = 0; i < size; ++i ) timestamps [i] = batch.getTimestamp( i );
+
+            final var lock = getLock( person );
+            lock.writeLock().lock();
+            try
+            {
+                final var cutoff = readCutoff( folder );
+                final var order = IntStream.of( sortUnique( timestamps, size ) )
+                    .filter( index -> timestamps [index] >= cutoff )
+                    .toArray();
+                if( order.length > 0 )
+                {
+                    createDirectories( folder );
+                    var start = 0;
+                    while( start < order.length )
+                    {
+                        final var year = yearOf( timestamps [order [start]] );
+                        final var endOfYear = startOfYear( year + 1 );
+                        var end = start;
+                        while( (end < order.length) && (timestamps [order [end]] < endOfYear) ) ++end;
+                        appendToSegment( folder, year, batch, order, start, end );
+                        start = end;
+                    }
+                    registerChange( folder, timestamps [order [0]] );
+                }
+            }
+            finally
+            {
+                lock.writeLock().unlock();
+            }
+        }
+    }   //  append()
+
+    /**
+     *  Appends the given records to the segment for the given year.
+     *
+     *  @param  folder  The folder for the segments of the person.
+     *  @param  year    The year.
+     *  @param  batch   The records.
+     *  @param  order   The indexes of the records, ordered by their
+     *      timestamps.
+     *  @param  start   The first entry in {@code order} that belongs to the
+     *      segment.
+     *  @param  end The first entry in {@code order} that does not belong to
+     *      the segment anymore.
+     *  @throws IOException Problems when writing the segment.
+     */
+    private static final void appendToSegment( final Path folder, final int year, final Batch batch, final int [] order, final int start, final int end ) throws IOException
+    {
+        final var file = segmentFile( folder, year );
+        final var count = end - start;
+        var mustCompact = false;
+        try( final var channel = FileChannel.open( file, CREATE, READ, WRITE ) )
+        {
+            var sortedCount = 0L;
+            var recordCount = 0L;
+            if( channel.size() < HEADER_SIZE )
+            {
+                writeHeader( channel, 0L );
+            }
+            else
+            {
+                sortedCount = readHeader( channel, file );
+
+                //---* Discard an incomplete record *--------------------------
+                recordCount = (channel.size() - HEADER_SIZE) / RECORD_SIZE;
+                channel.truncate( HEADER_SIZE + recordCount * RECORD_SIZE );
+            }
+
+            //---* Check whether the new records extend the sorted region *----
+            var extendsSortedRegion = recordCount == sortedCount;
+            if( extendsSortedRegion && (sortedCount > 0) )
+            {
+                final var last = ByteBuffer.allocate( Long.BYTES );
+                channel.read( last, HEADER_SIZE + (sortedCount - 1) * RECORD_SIZE );
+                extendsSortedRegion = batch.getTimestamp( order [start] ) > last.getLong( 0 );
+            }
+
+            final var buffer = ByteBuffer.allocate( count * RECORD_SIZE );
+            for( var i = start; i < end; ++i )
+            {
+                final var index = order [i];
+                buffer.putLong( batch.getTimestamp( index ) )
+                    .putShort( (short) batch.getSystolic( index ) )
+                    .putShort( (short) batch.getDiastolic( index ) )
+                    .put( flagsOf( batch, index ) )
+                    .put( new byte [3] );
+            }
+            buffer.flip();
+            var position = HEADER_SIZE + recordCount * RECORD_SIZE;
+            while( buffer.hasRemaining() ) position += channel.write( buffer, position );
+
+            if( extendsSortedRegion )
+            {
+                writeHeader( channel, sortedCount + count );
+            }
+            else
+            {
+                mustCompact = recordCount + count - sortedCount > COMPACTION_THRESHOLD;
+            }
+        }
+        if( mustCompact ) rewriteSegment( file, Long.MIN_VALUE, Long.MIN_VALUE );
+    }   //  appendToSegment()
+
+    /**
+     *  {@inheritDoc}
+     *  <p>The segment files of all persons for the given year are moved to
+     *  the folder {@code <databaseName>.segments.<year>} in the given
+     *  folder, as {@code <person>.seg}.</p>
+     */
+    @Override
+    public final Path archivePartition( final int year, final Path folder ) throws IOException
+    {
+        final var persons = listPersons( year );
+        if( persons.isEmpty() ) throw new IOException( format( "There is no partition for the year %d", year ) );
+
+        final var retValue = createDirectories( requireNonNullArgument( folder, "folder" ).resolve( format( "%s.segments.%d", getConfiguration().getDatabaseName(), year ) ) );
+        for( final var person : persons )
+        {
+            final var lock = getLock( person );
+            lock.writeLock().lock();
+            try
+            {
+                final var personFolder = personFolder( person );
+                Files.move( segmentFile( personFolder, year ), retValue.resolve( format( "%s.seg", person ) ), REPLACE_EXISTING );
+                registerChange( personFolder, startOfYear( year ) );
+            }
+            finally
+            {
+                lock.writeLock().unlock();
+            }
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  archivePartition()
+
+    /**
+     *  {@inheritDoc}
+     *  <p>The tails of the segment files of all persons for the given year
+     *  are merged into the sorted regions.</p>
+     */
+    @Override
+    public final void compactPartition( final int year ) throws IOException
+    {
+        for( final var person : listPersons( year ) )
+        {
+            final var lock = getLock( person );
+            lock.writeLock().lock();
+            try
+            {
+                final var file = segmentFile( personFolder( person ), year );
+                if( exists( file ) ) rewriteSegment( file, Long.MIN_VALUE, Long.MIN_VALUE );
+            }
+            finally
+            {
+                lock.writeLock().unlock();
+            }
+        }
+    }   //  compactPartition()
+
+    /**
+     *  Reads the given segment file into a buffer on the heap; an
+     *  incomplete record at the end of the file is not read. Unlike
+     *  {@link #mapSegment(Path)},
+     *  this does not leave a mapping behind that would prevent the file
+     *  from being replaced or deleted until the buffer is garbage
+     *  collected.
+     *
+     *  @param  file    The segment file.
+     *  @return The segment; it is {@code null} if the file is empty.
+     *  @throws IOException The file cannot be read, or it is not a valid
+     *      segment file.
+     */
+    private static final Segment copySegment( final Path file ) throws IOException
+    {
+        Segment retValue = null;
+        try( final var channel = FileChannel.open( file, READ ) )
+        {
+            if( channel.size() >= HEADER_SIZE )
+            {
+                final var sortedCount = readHeader( channel, file );
+                final var recordCount = (int) ((channel.size() - HEADER_SIZE) / RECORD_SIZE);
+                final var buffer = ByteBuffer.allocate( recordPosition( recordCount ) );
+                while( buffer.hasRemaining() )
+                {
+                    if( channel.read( buffer, buffer.position() ) < 0 ) throw new EOFException( format( "Segment file '%s' was truncated", file ) );
+                }
+                retValue = new Segment( buffer.clear(), (int) Math.min( sortedCount, recordCount ), recordCount );
+            }
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  copySegment()
+
+    /**
+     *  {@inheritDoc}
+     *  <p>A segment that is completely covered by the given range is removed
+     *  as a whole, all others are rewritten.</p>
+     */
+    @Override
+    public final long delete( final String person, final Instant from, final Instant to ) throws IOException
+    {
+        final var folder = personFolder( person );
+        final var start = isNull( from ) ? Long.MIN_VALUE : from.getEpochSecond();
+        final var end = isNull( to ) ? Long.MAX_VALUE : to.getEpochSecond();
+        var retValue = 0L;
+
+        final var lock = getLock( person );
+        lock.writeLock().lock();
+        try
+        {
+            final var years = listSegments( folder, start, end );
+            final var earliestChange = isNull( from ) && !years.isEmpty()
+                ? retrieveTimestamp( copySegment( segmentFile( folder, years.get( 0 ) ) ), true ).map( Instant::getEpochSecond ).orElse( start )
+                : start;
+            for( final var year : years )
+            {
+                final var file = segmentFile( folder, year );
+                if( (start <= startOfYear( year )) && (end >= startOfYear( year + 1 )) )
+                {
+                    final var counter = new long [1];
+                    readSegment( copySegment( file ), Long.MIN_VALUE, Long.MAX_VALUE, ( epochSecond, systolic, diastolic, isIgnored, isOutlier ) -> ++counter [0] );
+                    Files.delete( file );
+                    retValue += counter [0];
+                }
+                else
+                {
+                    retValue += rewriteSegment( file, start, end );
+                }
+            }
+            if( retValue > 0 ) registerChange( folder, earliestChange );
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  delete()
+
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    public final long downsample( final String person, final Instant before, final ZoneId timezone ) throws IOException
+    {
+        final var folder = personFolder( person );
+        final var cutoff = startOfDay( before, timezone ).getEpochSecond();
+        var retValue = 0L;
+
+        final var lock = getLock( person );
+        lock.writeLock().lock();
+        try
+        {
+            final var dailyFile = getDailyFile( folder );
+            final SortedMap<LocalDate,DailyAggregate> allDays = new TreeMap<>();
+            final var previousCutoff = exists( dailyFile ) ? readDailyFile( dailyFile, allDays ) : Long.MIN_VALUE;
+
+            //---* Aggregate the measurements *--------------------------------
+            final SortedMap<LocalDate,DailyAggregate> days = new TreeMap<>();
+            final var aggregator = aggregateInto( days, timezone );
+            final var counter = new long [1];
+            final var earliestChange = new long [] {Long.MAX_VALUE};
+            for( final var year : listSegments( folder, Long.MIN_VALUE, cutoff ) )
+            {
+                readSegment( copySegment( segmentFile( folder, year ) ), Long.MIN_VALUE, cutoff, ( epochSecond, systolic, diastolic, isIgnored, isOutlier ) ->
+                {
+                    ++counter [0];
+                    earliestChange [0] = Math.min( earliestChange [0], epochSecond );
+
+                    //---* Already contained in the aggregates *---------------
+                    if( epochSecond >= previousCutoff ) aggregator.accept( epochSecond, systolic, diastolic, isIgnored, isOutlier );
+                } );
+            }
+
+            if( counter [0] > 0 )
+            {
+                //---* Merge with the days that were downsampled before *------
+                for( final var aggregate : days.values() )
+                {
+                    allDays.computeIfAbsent( aggregate.getDay(), DailyAggregate::new ).merge( aggregate );
+                }
+
+                //---* Replace the measurements; see recoverDownsampling() *---
+                final var tempFile = dailyFile.resolveSibling( dailyFile.getFileName() + ".tmp" );
+                writeDailyFile( tempFile, allDays, Math.max( cutoff, previousCutoff ) );
+                removeMeasurements( folder, cutoff );
+                Files.move( tempFile, dailyFile, REPLACE_EXISTING, ATOMIC_MOVE );
+                registerChange( folder, earliestChange [0] );
+                retValue = counter [0];
+            }
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  downsample()
+
+    /**
+     *  {@inheritDoc}
+     *  <p>The segment files of all persons for the given year are deleted,
+     *  and a change is recorded for each of these persons.</p>
+     */
+    @Override
+    public final void dropPartition( final int year ) throws IOException
+    {
+        for( final var person : listPersons( year ) )
+        {
+            final var lock = getLock( person );
+            lock.writeLock().lock();
+            try
+            {
+                final var personFolder = personFolder( person );
+                if( Files.deleteIfExists( segmentFile( personFolder, year ) ) ) registerChange( personFolder, startOfYear( year ) );
+            }
+            finally
+            {
+                lock.writeLock().unlock();
+            }
+        }
+    }   //  dropPartition()
+
+    /**
+     *  {@inheritDoc}
+     *  <p>The estimate is taken from the sizes of the segment files that
+     *  overlap with the range, without reading them; it counts all records
+     *  of these years, including those in the tail that replace an earlier
+     *  record.</p>
+     */
+    @Override
+    protected final long estimateMeasurementCount( final String person, final Instant from, final Instant to ) throws IOException
+    {
+        final var folder = personFolder( person );
+        final var start = isNull( from ) ? Long.MIN_VALUE : from.getEpochSecond();
+        final var end = isNull( to ) ? Long.MAX_VALUE : to.getEpochSecond();
+
+        var retValue = 0L;
+        for( final var year : listSegments( folder, start, end ) )
+        {
+            final var file = segmentFile( folder, year );
+            if( exists( file ) ) retValue += Math.max( 0L, Files.size( file ) - HEADER_SIZE ) / RECORD_SIZE;
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  estimateMeasurementCount()
+
+    /**
+     *  Returns the flags for the measurement with the given index.
+     *
+     *  @param  batch   The measurements.
+     *  @param  index   The index.
+     *  @return The flags.
+     */
+    private static final byte flagsOf( final Batch batch, final int index )
+    {
+        var retValue = (byte) 0;
+        if( batch.isIgnored( index ) ) retValue |= FLAG_IGNORED;
+        if( batch.isOutlier( index ) ) retValue |= FLAG_OUTLIER;
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  flagsOf()
+
+    /**
+     *  Returns the file for the change log of a person.
+     *
+     *  @param  folder  The folder for the segments of the person.
+     *  @return The change log file.
+     */
+    private static final Path getChangeLog( final Path folder ) { return folder.resolve( CHANGE_LOG_NAME ); }
+
+    /**
+     *  Returns the file for the downsampled days of a person.
+     *
+     *  @param  folder  The folder for the segments of the person.
+     *  @return The file for the downsampled days.
+     */
+    private static final Path getDailyFile( final Path folder ) { return folder.resolve( DAILY_FILE_NAME ); }
+
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    public final long getDataVersion( final String person ) throws IOException
+    {
+        final var changeLog = getChangeLog( personFolder( person ) );
+        final var retValue = exists( changeLog ) ? Files.size( changeLog ) / CHANGE_RECORD_SIZE : INITIAL_DATA_VERSION;
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  getDataVersion()
+
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    public final SortedMap<LocalDate,DailyAggregate> getDownsampledDays( final String person, final LocalDate from, final LocalDate to ) throws IOException
+    {
+        final var dailyFile = getDailyFile( personFolder( person ) );
+        final SortedMap<LocalDate,DailyAggregate> retValue = new TreeMap<>();
+
+        final var lock = getLock( person );
+        lock.readLock().lock();
+        try
+        {
+            if( exists( dailyFile ) )
+            {
+                final SortedMap<LocalDate,DailyAggregate> allDays = new TreeMap<>();
+                readDailyFile( dailyFile, allDays );
+                for( final var aggregate : allDays.values() )
+                {
+                    if( isInRange( aggregate.getDay(), from, to ) ) retValue.put( aggregate.getDay(), aggregate );
+                }
+            }
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  getDownsampledDays()
+
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    public final Optional<Instant> getEarliestChangeSince( final String person, final long dataVersion ) throws IOException
+    {
+        Optional<Instant> retValue = Optional.empty();
+        final var changeLog = getChangeLog( personFolder( person ) );
+        if( exists( changeLog ) )
+        {
+            try( final var channel = FileChannel.open( changeLog, READ ) )
+            {
+                final var entryCount = channel.size() / CHANGE_RECORD_SIZE;
+                if( entryCount > dataVersion )
+                {
+                    final var buffer = channel.map( READ_ONLY, 0, entryCount * CHANGE_RECORD_SIZE );
+                    var earliest = Long.MAX_VALUE;
+                    for( var i = Math.max( 0L, dataVersion ); i < entryCount; ++i )
+                    {
+                        earliest = Math.min( earliest, buffer.getLong( (int) (i * CHANGE_RECORD_SIZE) ) );
+                    }
+                    retValue = Optional.of( Instant.ofEpochSecond( earliest ) );
+                }
+            }
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  getEarliestChangeSince()
+
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    public final Optional<Instant> getFirstTimestamp( final String person ) throws IOException
+    {
+        final var folder = personFolder( person );
+        Optional<Instant> retValue = Optional.empty();
+        final var lock = getLock( person );
+        lock.readLock().lock();
+        try
+        {
+            final var segments = listSegments( folder, Long.MIN_VALUE, Long.MAX_VALUE );
+            for( var i = 0; (i < segments.size()) && retValue.isEmpty(); ++i )
+            {
+                retValue = retrieveTimestamp( mapSegment( segmentFile( folder, segments.get( i ) ) ), true );
+            }
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  getFirstTimestamp()
+
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    public final Optional<Instant> getLastTimestamp( final String person ) throws IOException
+    {
+        final var folder = personFolder( person );
+        Optional<Instant> retValue = Optional.empty();
+        final var lock = getLock( person );
+        lock.readLock().lock();
+        try
+        {
+            final var segments = listSegments( folder, Long.MIN_VALUE, Long.MAX_VALUE );
+            for( var i = segments.size() - 1; (i >= 0) && retValue.isEmpty(); --i )
+            {
+                retValue = retrieveTimestamp( mapSegment( segmentFile( folder, segments.get( i ) ) ), false );
+            }
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  getLastTimestamp()
+
+    /**
+     *  Returns the lock for the segment files of the given person.
+     *
+     *  @param  person  The key for the person.
+     *  @return The lock.
+     */
+    private final ReadWriteLock getLock( final String person ) { return m_Locks.computeIfAbsent( person, key -> new ReentrantReadWriteLock() ); }
+
+    /**
+     *  {@inheritDoc}
+     *  <p>The identity is a random UUID that is kept in the file
+     *  {@value #STORE_ID_NAME} in the root folder; it is assigned when the
+     *  storage is initialised for the first time.</p>
+     */
+    @Override
+    public final String getStoreId() { return m_StoreId; }
+
+    /**
+     *  {@inheritDoc}
+     *  <p>Creates the folder for the segment files, if necessary. Segment
+     *  files from a storage without persons are moved to the folder of the
+     *  {@linkplain org.tquadrat.bloodpressure.DataStore#DEFAULT_PERSON default person}.
+     *  An interrupted downsampling will be completed.</p>
+     */
+    @Override
+    public final void initialize() throws IOException
+    {
+        final var folder = getConfiguration().getDataFolder().resolve( format( "%s.segments", getConfiguration().getDatabaseName() ) );
+        if( exists( folder ) && !isDirectory( folder ) ) throw new IOException( format( "'%s' is not a folder", folder.toString() ) );
+        createDirectories( folder );
+
+        //---* Migrate the files from a storage without persons *--------------
+        final List<Path> files;
+        try( final var entries = Files.list( folder ) )
+        {
+            files = entries.filter( file -> SEGMENT_NAME_PATTERN.matcher( file.getFileName().toString() ).matches() || file.getFileName().toString().equals( CHANGE_LOG_NAME ) )
+                .toList();
+        }
+        if( !files.isEmpty() )
+        {
+            final var target = createDirectories( folder.resolve( DEFAULT_PERSON ) );
+            for( final var file : files ) Files.move( file, target.resolve( file.getFileName() ), ATOMIC_MOVE );
+        }
+
+        m_Folder = folder;
+        m_StoreId = retrieveStoreId( folder );
+
+        //---* Complete any interrupted downsampling *-------------------------
+        for( final var person : listPersons() ) recoverDownsampling( personFolder( person ) );
+    }   //  initialize()
+
+    /**
+     *  {@inheritDoc}
+     *  <p>The partitions are the years for which at least one person has a
+     *  segment file.</p>
+     */
+    @Override
+    public final SortedSet<Integer> listPartitions() throws IOException
+    {
+        final SortedSet<Integer> retValue = new TreeSet<>();
+        for( final var person : listPersons() ) retValue.addAll( listSegments( personFolder( person ), Long.MIN_VALUE, Long.MAX_VALUE ) );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  listPartitions()
+
+    /**
+     *  Returns the keys for all persons that have a folder in this storage.
+     *
+     *  @return The keys for the persons.
+     *  @throws IOException Problems when reading the folder.
+     */
+    private final List<String> listPersons() throws IOException
+    {
+        final List<String> retValue;
+        try( final var entries = Files.list( m_Folder ) )
+        {
+            retValue = entries.filter( Files::isDirectory )
+                .map( folder -> folder.getFileName().toString() )
+                .filter( DataStore::isValidPerson )
+                .sorted()
+                .toList();
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  listPersons()
+
+    /**
+     *  Returns the keys for all persons that have a segment file for the
+     *  given year.
+     *
+     *  @param  year    The year.
+     *  @return The keys for the persons.
+     *  @throws IOException Problems when reading the folder.
+     */
+    private final List<String> listPersons( final int year ) throws IOException
+    {
+        final List<String> retValue = new ArrayList<>();
+        for( final var person : listPersons() )
+        {
+            if( exists( segmentFile( personFolder( person ), year ) ) ) retValue.add( person );
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  listPersons()
+
+    /**
+     *  Returns the years of the segments that overlap with the given range,
+     *  in ascending order.
+     *
+     *  @param  folder  The folder for the segments of the person.
+     *  @param  from    The start of the range, in seconds since the begin of
+     *      the epoch.
+     *  @param  to  The end of the range, in seconds since the begin of the
+     *      epoch.
+     *  @return The years.
+     *  @throws IOException Problems when reading the folder.
+     */
+    private static final List<Integer> listSegments( final Path folder, final long from, final long to ) throws IOException
+    {
+        final List<Integer> retValue = new ArrayList<>();
+        if( isDirectory( folder ) )
+        {
+            try( final var files = Files.list( folder ) )
+            {
+                files.map( file -> SEGMENT_NAME_PATTERN.matcher( file.getFileName().toString() ) )
+                    .filter( matcher -> matcher.matches() )
+                    .mapToInt( matcher -> Integer.parseInt( matcher.group( 1 ) ) )
+                    .filter( year -> (startOfYear( year + 1 ) > from) && (startOfYear( year ) < to) )
+                    .sorted()
+                    .forEach( retValue::add );
+            }
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  listSegments()
+
+    /**
+     *  Maps the given segment file into memory; an incomplete record at the
+     *  end of the file is not mapped. A segment that will be rewritten or
+     *  deleted must be read with
+     *  {@link #copySegment(Path)}
+     *  instead.
+     *
+     *  @param  file    The segment file.
+     *  @return The mapped segment; it is {@code null} if the file is empty.
+     *  @throws IOException The file cannot be read, or it is not a valid
+     *      segment file.
+     */
+    private static final Segment mapSegment( final Path file ) throws IOException
+    {
+        Segment retValue = null;
+        try( final var channel = FileChannel.open( file, READ ) )
+        {
+            if( channel.size() >= HEADER_SIZE )
+            {
+                final var sortedCount = readHeader( channel, file );
+                final var recordCount = (int) ((channel.size() - HEADER_SIZE) / RECORD_SIZE);
+                retValue = new Segment( channel.map( READ_ONLY, 0, recordPosition( recordCount ) ), (int) Math.min( sortedCount, recordCount ), recordCount );
+            }
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  mapSegment()
+
+    /**
+     *  {@inheritDoc}
+     *  <p>The snapshot maps the segment files into memory instead of copying
+     *  the measurements; see
+     *  {@link SegmentSnapshot}.</p>
+     */
+    @Override
+    public final Snapshot openSnapshot() throws IOException { return new SegmentSnapshot(); }
+
+    /**
+     *  Returns the folder for the segment files of the given person.
+     *
+     *  @param  person  The key for the person.
+     *  @return The folder; it does not necessarily exist.
+     *  @throws IllegalArgumentException    The key for the person is
+     *      invalid.
+     */
+    private final Path personFolder( final String person )
+    {
+        if( !isValidPerson( person ) ) throw new IllegalArgumentException( format( "Invalid key for a person: '%s'", person ) );
+        final var retValue = m_Folder.resolve( person );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  personFolder()
+
+    /**
+     *  Reads the end of the downsampled range from the header of the file
+     *  for the downsampled days of a person.
+     *
+     *  @param  folder  The folder for the segments of the person.
+     *  @return The end of the downsampled range, in seconds since the begin
+     *      of the epoch; {@link Long#MIN_VALUE} if nothing was downsampled
+     *      yet.
+     *  @throws IOException The file cannot be read, or it is not valid.
+     */
+    private static final long readCutoff( final Path folder ) throws IOException
+    {
+        var retValue = Long.MIN_VALUE;
+        final var file = getDailyFile( folder );
+        if( exists( file ) )
+        {
+            try( final var channel = FileChannel.open( file, READ ) )
+            {
+                final var header = ByteBuffer.allocate( DAILY_HEADER_SIZE );
+                while( header.hasRemaining() && (channel.read( header, header.position() ) > 0) ) { /* Read on */ }
+                if( header.hasRemaining() || (header.getInt( 0 ) != DAILY_MAGIC) || (header.getInt( 4 ) != FORMAT_VERSION) )
+                {
+                    throw new IOException( format( "'%s' is not a valid file for downsampled days", file.toString() ) );
+                }
+                retValue = header.getLong( 16 );
+            }
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  readCutoff()
+
+    /**
+     *  Reads the file for the downsampled days.
+     *
+     *  @param  file    The file.
+     *  @param  target  The map that takes the daily aggregates.
+     *  @return The end of the downsampled range, in seconds since the begin
+     *      of the epoch.
+     *  @throws IOException The file cannot be read, or it is not valid.
+     */
+    private static final long readDailyFile( final Path file, final SortedMap<LocalDate,DailyAggregate> target ) throws IOException
+    {
+        final var buffer = ByteBuffer.wrap( Files.readAllBytes( file ) );
+        if( (buffer.capacity() < DAILY_HEADER_SIZE)
+            || (buffer.getInt( 0 ) != DAILY_MAGIC)
+            || (buffer.getInt( 4 ) != FORMAT_VERSION)
+            || (buffer.getInt( 8 ) != BAND_COUNT)
+            || (buffer.capacity() != DAILY_HEADER_SIZE + (long) buffer.getInt( 12 ) * DAILY_RECORD_SIZE) )
+        {
+            throw new IOException( format( "'%s' is not a valid file for downsampled days", file.toString() ) );
+        }
+        final var recordCount = buffer.getInt( 12 );
+        final var retValue = buffer.getLong( 16 );
+
+        buffer.position( DAILY_HEADER_SIZE );
+        for( var i = 0; i < recordCount; ++i )
+        {
+            final var day = LocalDate.ofEpochDay( buffer.getLong() );
+            final var count = buffer.getInt();
+            final var systolicSum = buffer.getLong();
+            final var diastolicSum = buffer.getLong();
+            final var systolicMinimum = buffer.getShort();
+            final var systolicMaximum = buffer.getShort();
+            final var diastolicMinimum = buffer.getShort();
+            final var diastolicMaximum = buffer.getShort();
+            final var systolicBands = new int [BAND_COUNT];
+            final var diastolicBands = new int [BAND_COUNT];
+            for( var b = 0; b < BAND_COUNT; ++b ) systolicBands [b] = buffer.getInt();
+            for( var b = 0; b < BAND_COUNT; ++b ) diastolicBands [b] = buffer.getInt();
+            target.put( day, new DailyAggregate( day, count, systolicSum, diastolicSum, systolicMinimum, systolicMaximum, diastolicMinimum, diastolicMaximum, systolicBands, diastolicBands ) );
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  readDailyFile()
+
+    /**
+     *  Reads the header of a segment file and returns the number of sorted
+     *  records.
+     *
+     *  @param  channel The channel for the segment file.
+     *  @param  file    The segment file.
+     *  @return The number of sorted records.
+     *  @throws IOException The file cannot be read, or it is not a valid
+     *      segment file.
+     */
+    private static final long readHeader( final FileChannel channel, final Path file ) throws IOException
+    {
+        final var header = ByteBuffer.allocate( HEADER_SIZE );
+        while( header.hasRemaining() && (channel.read( header, header.position() ) > 0) ) { /* Read on */ }
+        if( header.hasRemaining() || (header.getInt( 0 ) != MAGIC) || (header.getInt( 4 ) != FORMAT_VERSION) )
+        {
+            throw new IOException( format( "'%s' is not a valid segment file", file.toString() ) );
+        }
+        final var retValue = header.getLong( 8 );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  readHeader()
+
+    /**
+     *  Passes the records from the given segment that are in the given range
+     *  to the given consumer, ordered by their timestamps.
+     *
+     *  @param  segment The mapped segment; may be {@code null}.
+     *  @param  from    The start of the range, in seconds since the begin of
+     *      the epoch.
+     *  @param  to  The end of the range, in seconds since the begin of the
+     *      epoch.
+     *  @param  consumer    The consumer for the records.
+     *  @throws IOException Problems when reading the segment, or thrown by
+     *      the consumer.
+     */
+    private static final void readSegment( final Segment segment, final long from, final long to, final RecordConsumer consumer ) throws IOException
+    {
+        if( nonNull( segment ) )
+        {
+            final var buffer = segment.buffer();
+            final var recordCount = segment.recordCount();
+            final var sortedCount = segment.sortedCount();
+
+            //---* Sort the tail *---------------------------------------------
+            final var tailCount = recordCount - sortedCount;
+            final var tailTimestamps = new long [tailCount];
+            for( var i = 0; i < tailCount; ++i ) tailTimestamps [i] = buffer.getLong( recordPosition( sortedCount + i ) );
+            final var tail = sortUnique( tailTimestamps, tailCount );
+
+            //---* Locate the start of the range *-----------------------------
+            var low = 0;
+            var high = sortedCount;
+            while( low < high )
+            {
+                final var middle = (low + high) >>> 1;
+                if( buffer.getLong( recordPosition( middle ) ) < from ) low = middle + 1; else high = middle;
+            }
+            var sortedIndex = low;
+            var tailIndex = 0;
+            while( (tailIndex < tail.length) && (tailTimestamps [tail [tailIndex]] < from) ) ++tailIndex;
+
+            //---* Merge the sorted region and the tail *----------------------
+            while( true )
+            {
+                final var sortedTimestamp = sortedIndex < sortedCount ? buffer.getLong( recordPosition( sortedIndex ) ) : Long.MAX_VALUE;
+                final var tailTimestamp = tailIndex < tail.length ? tailTimestamps [tail [tailIndex]] : Long.MAX_VALUE;
+                final var timestamp = Math.min( sortedTimestamp, tailTimestamp );
+                if( timestamp >= to ) break;
+
+                final int position;
+                if( tailTimestamp <= sortedTimestamp )
+                {
+                    position = recordPosition( sortedCount + tail [tailIndex++] );
+                    if( tailTimestamp == sortedTimestamp ) ++sortedIndex;
+                }
+                else
+                {
+                    position = recordPosition( sortedIndex++ );
+                }
+                final var flags = buffer.get( position + 12 );
+                consumer.accept( timestamp, buffer.getShort( position + 8 ), buffer.getShort( position + 10 ), (flags & FLAG_IGNORED) != 0, (flags & FLAG_OUTLIER) != 0 );
+            }
+        }
+    }   //  readSegment()
+
+    /**
+     *  Returns the position of the record with the given index in a segment
+     *  file.
+     *
+     *  @param  index   The index of the record.
+     *  @return The position.
+     */
+    private static final int recordPosition( final int index ) { return HEADER_SIZE + index * RECORD_SIZE; }
+
+    /**
+     *  <p>{@summary Completes a downsampling that was interrupted.} The
+     *  measurements are removed from the segments only after the new
+     *  version of the file for the downsampled days was written completely,
+     *  so if that new version is valid, the removal is repeated, the new
+     *  version replaces the old one, and a change is recorded, as for a
+     *  completed downsampling; otherwise, the new version is discarded.</p>
+     *  <p>The measurements that were removed before the interruption are
+     *  unknown, so the change is assumed to start with the first year that
+     *  still has measurements to remove, or with the day before the first
+     *  downsampled day, whichever is earlier.</p>
+     *
+     *  @param  folder  The folder for the segments of the person.
+     *  @throws IOException Problems when accessing the files.
+     *
+     *  @see #downsample(String, Instant, ZoneId)
+     */
+    private final void recoverDownsampling( final Path folder ) throws IOException
+    {
+        final var dailyFile = getDailyFile( folder );
+        final var tempFile = dailyFile.resolveSibling( dailyFile.getFileName() + ".tmp" );
+        if( exists( tempFile ) )
+        {
+            final SortedMap<LocalDate,DailyAggregate> days = new TreeMap<>();
+            long cutoff;
+            try
+            {
+                cutoff = readDailyFile( tempFile, days );
+            }
+            catch( final IOException ignored )
+            {
+                cutoff = Long.MIN_VALUE;
+            }
+            if( cutoff == Long.MIN_VALUE )
+            {
+                Files.delete( tempFile );
+            }
+            else
+            {
+                //---* The time zone of the days is unknown *------------------
+                var earliestChange = cutoff;
+                final var years = listSegments( folder, Long.MIN_VALUE, cutoff );
+                if( !years.isEmpty() ) earliestChange = Math.min( earliestChange, startOfYear( years.get( 0 ) ) );
+                if( !days.isEmpty() ) earliestChange = Math.min( earliestChange, days.firstKey().minusDays( 1 ).atStartOfDay( ZONE_UTC ).toEpochSecond() );
+
+                removeMeasurements( folder, cutoff );
+                Files.move( tempFile, dailyFile, REPLACE_EXISTING, ATOMIC_MOVE );
+                registerChange( folder, earliestChange );
+            }
+        }
+    }   //  recoverDownsampling()
+
+    /**
+     *  Adds an entry to the change log of a person.
+     *
+     *  @param  folder  The folder for the segments of the person.
+     *  @param  earliestChange  The earliest timestamp of the modified
+     *      measurements, in seconds since the begin of the epoch.
+     *  @throws IOException Problems when writing the change log.
+     */
+    private final void registerChange( final Path folder, final long earliestChange ) throws IOException
+    {
+        final var buffer = ByteBuffer.allocate( CHANGE_RECORD_SIZE )
+            .putLong( earliestChange )
+            .putLong( Instant.now( getConfiguration().getClock() ).getEpochSecond() )
+            .flip();
+        try( final var channel = FileChannel.open( getChangeLog( folder ), CREATE, WRITE, APPEND ) )
+        {
+            while( buffer.hasRemaining() ) channel.write( buffer );
+        }
+    }   //  registerChange()
+
+    /**
+     *  Removes all measurements before the given timestamp from the
+     *  segments of a person.
+     *
+     *  @param  folder  The folder for the segments of the person.
+     *  @param  cutoff  The end of the range of measurements to remove, in
+     *      seconds since the begin of the epoch.
+     *  @throws IOException Problems when rewriting the segments.
+     */
+    private static final void removeMeasurements( final Path folder, final long cutoff ) throws IOException
+    {
+        for( final var year : listSegments( folder, Long.MIN_VALUE, cutoff ) )
+        {
+            final var file = segmentFile( folder, year );
+            if( startOfYear( year + 1 ) <= cutoff )
+            {
+                Files.delete( file );
+            }
+            else
+            {
+                rewriteSegment( file, Long.MIN_VALUE, cutoff );
+            }
+        }
+    }   //  removeMeasurements()
+
+    /**
+     *  Reads the identity of the storage from the given root folder; a new
+     *  identity will be assigned if there is none yet.
+     *
+     *  @param  folder  The root folder.
+     *  @return The identity.
+     *  @throws IOException Problems when accessing the identity file.
+     */
+    private static final String retrieveStoreId( final Path folder ) throws IOException
+    {
+        final var file = folder.resolve( STORE_ID_NAME );
+        if( !exists( file ) )
+        {
+            //---* Concurrent initialisations agree on the first identity *----
+            final var tempFile = Files.createTempFile( folder, STORE_ID_NAME, ".tmp" );
+            try
+            {
+                Files.writeString( tempFile, UUID.randomUUID().toString() );
+                Files.move( tempFile, file );
+            }
+            catch( final FileAlreadyExistsException ignored )
+            {
+                Files.delete( tempFile );
+            }
+        }
+        final var retValue = Files.readString( file ).strip();
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  retrieveStoreId()
+
+    /**
+     *  Returns the first or the last timestamp from the given segment.
+     *
+     *  @param  segment The mapped segment; may be {@code null}.
+     *  @param  first   {@code true} for the first timestamp,
+     *      {@code false} for the last.
+     *  @return An instance of
+     *      {@link Optional}
+     *      that holds the timestamp; it is empty if the segment is empty.
+     */
+    private static final Optional<Instant> retrieveTimestamp( final Segment segment, final boolean first )
+    {
+        Optional<Instant> retValue = Optional.empty();
+        if( nonNull( segment ) && (segment.recordCount() > 0) )
+        {
+            final var buffer = segment.buffer();
+            final var recordCount = segment.recordCount();
+            final var sortedCount = segment.sortedCount();
+
+            //---* The sorted region has its extremes at its ends *------------
+            var result = first ? Long.MAX_VALUE : Long.MIN_VALUE;
+            if( sortedCount > 0 ) result = buffer.getLong( recordPosition( first ? 0 : sortedCount - 1 ) );
+
+            //---* Records are never removed without a rewrite *---------------
+            for( var i = sortedCount; i < recordCount; ++i )
+            {
+                final var timestamp = buffer.getLong( recordPosition( i ) );
+                result = first ? Math.min( result, timestamp ) : Math.max( result, timestamp );
+            }
+            retValue = Optional.of( Instant.ofEpochSecond( result ) );
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  retrieveTimestamp()
+
+    /**
+     *  Rewrites the given segment file, with all records sorted and unique;
+     *  the records in the given range will be omitted. If no records are
+     *  left, the file will be deleted.
+     *
+     *  @param  file    The segment file.
+     *  @param  from    The start of the range of records to omit.
+     *  @param  to  The end of the range of records to omit.
+     *  @return The number of omitted records.
+     *  @throws IOException Problems when rewriting the segment.
+     */
+    private static final long rewriteSegment( final Path file, final long from, final long to ) throws IOException
+    {
+        final var records = new Batch( COMPACTION_THRESHOLD );
+        final var omitted = new long [1];
+        readSegment( copySegment( file ), Long.MIN_VALUE, Long.MAX_VALUE, ( epochSecond, systolic, diastolic, isIgnored, isOutlier ) ->
+        {
+            if( (epochSecond >= from) && (epochSecond < to) )
+            {
+                ++omitted [0];
+            }
+            else
+            {
+                records.add( epochSecond, systolic, diastolic, isIgnored, isOutlier );
+            }
+        } );
+
+        if( records.size() == 0 )
+        {
+            Files.deleteIfExists( file );
+        }
+        else
+        {
+            final var buffer = ByteBuffer.allocate( HEADER_SIZE + records.size() * RECORD_SIZE )
+                .putInt( MAGIC )
+                .putInt( FORMAT_VERSION )
+                .putLong( records.size() );
+            for( var i = 0; i < records.size(); ++i )
+            {
+                buffer.putLong( records.getTimestamp( i ) )
+                    .putShort( (short) records.getSystolic( i ) )
+                    .putShort( (short) records.getDiastolic( i ) )
+                    .put( flagsOf( records, i ) )
+                    .put( new byte [3] );
+            }
+            buffer.flip();
+
+            final var tempFile = file.resolveSibling( file.getFileName() + ".tmp" );
+            try( final var channel = FileChannel.open( tempFile, CREATE, WRITE, TRUNCATE_EXISTING ) )
+            {
+                while( buffer.hasRemaining() ) channel.write( buffer );
+                channel.force( true );
+            }
+            Files.move( tempFile, file, REPLACE_EXISTING, ATOMIC_MOVE );
+        }
+        final var retValue = omitted [0];
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  rewriteSegment()
+
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    public final void scan( final String person, final Instant from, final Instant to, final RecordConsumer consumer ) throws IOException
+    {
+        final var folder = personFolder( person );
+        requireNonNullArgument( consumer, "consumer" );
+        final var start = isNull( from ) ? Long.MIN_VALUE : from.getEpochSecond();
+        final var end = isNull( to ) ? Long.MAX_VALUE : to.getEpochSecond();
+
+        final var lock = getLock( person );
+        lock.readLock().lock();
+        try
+        {
+            for( final var year : listSegments( folder, start, end ) )
+            {
+                readSegment( mapSegment( segmentFile( folder, year ) ), start, end, consumer );
+            }
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }   //  scan()
+
+    /**
+     *  Returns the segment file for the given year.
+     *
+     *  @param  folder  The folder for the segments of the person.
+     *  @param  year    The year.
+     *  @return The segment file.
+     */
+    private static final Path segmentFile( final Path folder, final int year ) { return folder.resolve( format( "%d.seg", year ) ); }
+
+    /**
+     *  Sorts the given timestamps and removes the duplicates; for equal
+     *  timestamps, the last one wins.
+     *
+     *  @param  timestamps  The timestamps.
+     *  @param  size    The number of valid entries in {@code timestamps}.
+     *  @return The indexes of the remaining timestamps, in ascending order of
+     *      the timestamps.
+     */
+    private static final int [] sortUnique( final long [] timestamps, final int size )
+    {
+        //---* The sort is stable *--------------------------------------------
+        final var order = Batch.orderByTimestamp( timestamps, size );
+        var count = 0;
+        for( var i = 0; i < size; ++i )
+        {
+            if( (i + 1 < size) && (timestamps [order [i + 1]] == timestamps [order [i]]) ) continue;
+            order [count++] = order [i];
+        }
+        final var retValue = Arrays.copyOf( order, count );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  sortUnique()
+
+    /**
+     *  Returns the begin of the given year (UTC).
+     *
+     *  @param  year    The year.
+     *  @return The begin of the year in seconds since the begin of the epoch.
+     */
+    private static final long startOfYear( final int year ) { return LocalDate.of( year, 1, 1 ).atStartOfDay( ZONE_UTC ).toEpochSecond(); }
+
+    /**
+     *  Writes the file for the downsampled days.
+     *
+     *  @param  file    The file.
+     *  @param  days    The daily aggregates.
+     *  @param  cutoff  The end of the downsampled range, in seconds since
+     *      the begin of the epoch.
+     *  @throws IOException Problems when writing the file.
+     */
+    private static final void writeDailyFile( final Path file, final SortedMap<LocalDate,DailyAggregate> days, final long cutoff ) throws IOException
+    {
+        final var buffer = ByteBuffer.allocate( DAILY_HEADER_SIZE + days.size() * DAILY_RECORD_SIZE )
+            .putInt( DAILY_MAGIC )
+            .putInt( FORMAT_VERSION )
+            .putInt( BAND_COUNT )
+            .putInt( days.size() )
+            .putLong( cutoff );
+        final var diagnoses = Diagnosis.values();
+        for( final var aggregate : days.values() )
+        {
+            buffer.putLong( aggregate.getDay().toEpochDay() )
+                .putInt( aggregate.getCount() )
+                .putLong( aggregate.getSystolicSum() )
+                .putLong( aggregate.getDiastolicSum() )
+                .putShort( (short) aggregate.getSystolicMinimum() )
+                .putShort( (short) aggregate.getSystolicMaximum() )
+                .putShort( (short) aggregate.getDiastolicMinimum() )
+                .putShort( (short) aggregate.getDiastolicMaximum() );
+            for( final var diagnosis : diagnoses ) buffer.putInt( aggregate.getSystolicCount( diagnosis ) );
+            for( final var diagnosis : diagnoses ) buffer.putInt( aggregate.getDiastolicCount( diagnosis ) );
+        }
+        buffer.flip();
+
+        try( final var channel = FileChannel.open( file, CREATE, WRITE, TRUNCATE_EXISTING ) )
+        {
+            while( buffer.hasRemaining() ) channel.write( buffer );
+            channel.force( true );
+        }
+    }   //  writeDailyFile()
+
+    /**
+     *  Writes the header of a segment file.
+     *
+     *  @param  channel The channel for the segment file.
+     *  @param  sortedCount The number of sorted records.
+     *  @throws IOException Problems when writing the header.
+     */
+    private static final void writeHeader( final FileChannel channel, final long sortedCount ) throws IOException
+    {
+        final var header = ByteBuffer.allocate( HEADER_SIZE )
+            .putInt( MAGIC )
+            .putInt( FORMAT_VERSION )
+            .putLong( sortedCount )
+            .flip();
+        var position = 0L;
+        while( header.hasRemaining() ) position += channel.write( header, position );
+    }   //  writeHeader()
+
+    /**
+     *  Returns the year (UTC) for the given timestamp.
+     *
+     *  @param  epochSecond The timestamp in seconds since the begin of the
+     *      epoch.
+     *  @return The year.
+     */
+    private static final int yearOf( final long epochSecond ) { return Instant.ofEpochSecond( epochSecond ).atZone( ZONE_UTC ).getYear(); }
+}
+//  class SegmentDataStore
+
+/*
+ *  End of File
+ */
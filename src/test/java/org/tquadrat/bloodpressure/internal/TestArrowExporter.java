@@ -0,0 +1,197 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.bloodpressure.internal;
+
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.tquadrat.foundation.lang.CommonConstants.UTF8;
+import static org.tquadrat.foundation.lang.CommonConstants.ZONE_UTC;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.tquadrat.bloodpressure.Configuration;
+import org.tquadrat.bloodpressure.DataStore.Batch;
+import org.tquadrat.bloodpressure.store.SegmentDataStore;
+import org.tquadrat.foundation.annotation.ClassVersion;
+import org.tquadrat.foundation.testutil.TestBaseClass;
+
+/**
+ *  Some tests for the class
+ *  {@link ArrowExporter}.
+ *
+ *  @author Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @since 0.1.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@DisplayName( "org.tquadrat.bloodpressure.internal.TestArrowExporter" )
+public class TestArrowExporter extends TestBaseClass
+{
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Returns the position of the given field of a FlatBuffers table.
+     *
+     *  @param  buffer  The buffer.
+     *  @param  table   The position of the table.
+     *  @param  id  The id of the field.
+     *  @return The position of the field; -1 if the field is not present.
+     */
+    private static final int field( final ByteBuffer buffer, final int table, final int id )
+    {
+        final var vtable = table - buffer.getInt( table );
+        final var entry = Short.BYTES * (2 + id);
+        final var offset = entry < buffer.getShort( vtable ) ? buffer.getShort( vtable + entry ) : 0;
+        final var retValue = offset == 0 ? -1 : table + offset;
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  field()
+
+    /**
+     *  Follows the reference at the given position of a FlatBuffers
+     *  buffer.
+     *
+     *  @param  buffer  The buffer.
+     *  @param  position    The position of the reference.
+     *  @return The position of the referenced table, vector or string.
+     */
+    private static final int follow( final ByteBuffer buffer, final int position ) { return position + buffer.getInt( position ); }
+
+    /**
+     *  Initialises the test.
+     *
+     *  @throws Exception   Something went unexpectedly wrong.
+     */
+    @BeforeAll
+    static final void init() throws Exception
+    {
+        Configuration.getInstance().setDataFolder( Files.createTempDirectory( "TestArrowExporter" ) );
+    }   //  init()
+
+    /**
+     *  Reads a string from a FlatBuffers buffer.
+     *
+     *  @param  buffer  The buffer.
+     *  @param  position    The position of the string.
+     *  @return The string.
+     */
+    private static final String readString( final ByteBuffer buffer, final int position )
+    {
+        final var bytes = new byte [buffer.getInt( position )];
+        buffer.get( position + Integer.BYTES, bytes );
+        final var retValue = new String( bytes, UTF8 );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  readString()
+
+    /**
+     *  Tests the structure of an exported file: the magic numbers, the
+     *  footer and its offset, the schema and the number of rows in the
+     *  record batches.
+     *
+     *  @throws Exception   Something went unexpectedly wrong.
+     */
+    @Test
+    final void testFileStructure() throws Exception
+    {
+        skipThreadTest();
+
+        final var store = new SegmentDataStore();
+        store.initialize();
+
+        final var rowCount = 10;
+        final var batch = new Batch( rowCount );
+        final var start = LocalDateTime.of( 2021, 1, 1, 8, 0 ).atZone( ZONE_UTC ).toEpochSecond();
+        for( var i = 0; i < rowCount; ++i ) batch.add( start + i * 43_200L, 120 + i, 80 + i, i == 3, i == 7 );
+        store.append( "arrow", batch );
+
+        final var file = Files.createTempFile( "TestArrowExporter", ".arrow" );
+        final var exported = new ArrowExporter( 4, 3, statistics -> {} ).export( store, "arrow", file );
+        assertEquals( rowCount, exported.rowCount() );
+
+        final var bytes = Files.readAllBytes( file );
+        final var buffer = ByteBuffer.wrap( bytes ).order( LITTLE_ENDIAN );
+        final var magic = "ARROW1".getBytes( UTF8 );
+
+        //---* The magic number at the begin and the end *---------------------
+        assertTrue( Arrays.equals( Arrays.copyOf( magic, 8 ), Arrays.copyOf( bytes, 8 ) ) );
+        assertTrue( Arrays.equals( magic, Arrays.copyOfRange( bytes, bytes.length - magic.length, bytes.length ) ) );
+
+        //---* The footer follows the end-of-stream marker *-------------------
+        final var footerLength = buffer.getInt( bytes.length - magic.length - Integer.BYTES );
+        final var footerOffset = bytes.length - magic.length - Integer.BYTES - footerLength;
+        assertEquals( 0, footerOffset % 8 );
+        assertEquals( 0xFFFFFFFF, buffer.getInt( footerOffset - 8 ) );
+        assertEquals( 0, buffer.getInt( footerOffset - 4 ) );
+        final var footer = ByteBuffer.wrap( bytes, footerOffset, footerLength ).slice().order( LITTLE_ENDIAN );
+        final var root = follow( footer, 0 );
+
+        //---* The schema has the five fields *--------------------------------
+        final var schema = follow( footer, field( footer, root, 1 ) );
+        final var fields = follow( footer, field( footer, schema, 1 ) );
+        assertEquals( 5, footer.getInt( fields ) );
+        final List<String> names = new ArrayList<>();
+        for( var i = 0; i < 5; ++i )
+        {
+            final var fieldTable = follow( footer, fields + Integer.BYTES * (1 + i) );
+            names.add( readString( footer, follow( footer, field( footer, fieldTable, 0 ) ) ) );
+        }
+        assertEquals( List.of( "measuring_datetime", "systolic_pressure", "diastolic_pressure", "ignored", "outlier" ), names );
+
+        //---* The record batches hold all the rows *--------------------------
+        final var blocks = follow( footer, field( footer, root, 3 ) );
+        final var blockCount = footer.getInt( blocks );
+        assertEquals( 3, blockCount );
+        var rows = 0L;
+        for( var i = 0; i < blockCount; ++i )
+        {
+            final var position = blocks + Integer.BYTES + i * 3 * Long.BYTES;
+            final var offset = (int) footer.getLong( position );
+            final var metaDataLength = footer.getInt( position + Long.BYTES );
+            final var bodyLength = footer.getLong( position + 2 * Long.BYTES );
+            assertEquals( 0, offset % 8 );
+            assertTrue( offset + metaDataLength + bodyLength <= footerOffset );
+            assertEquals( 0xFFFFFFFF, buffer.getInt( offset ) );
+            assertEquals( metaDataLength - 2 * Integer.BYTES, buffer.getInt( offset + Integer.BYTES ) );
+
+            final var message = ByteBuffer.wrap( bytes, offset + 2 * Integer.BYTES, metaDataLength - 2 * Integer.BYTES ).slice().order( LITTLE_ENDIAN );
+            final var messageRoot = follow( message, 0 );
+            assertEquals( 3, message.get( field( message, messageRoot, 1 ) ) );
+            assertEquals( bodyLength, message.getLong( field( message, messageRoot, 3 ) ) );
+            final var recordBatch = follow( message, field( message, messageRoot, 2 ) );
+            rows += message.getLong( field( message, recordBatch, 0 ) );
+        }
+        assertEquals( rowCount, rows );
+    }   //  testFileStructure()
+}
+//  class TestArrowExporter
+
+/*
+ *  End of File
+ */
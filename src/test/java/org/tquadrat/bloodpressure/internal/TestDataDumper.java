@@ -0,0 +1,172 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.bloodpressure.internal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.tquadrat.foundation.lang.CommonConstants.UTF8;
+import static org.tquadrat.foundation.lang.CommonConstants.ZONE_UTC;
+import static org.tquadrat.foundation.util.StringUtils.format;
+
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.tquadrat.bloodpressure.Configuration;
+import org.tquadrat.bloodpressure.DataStore;
+import org.tquadrat.bloodpressure.DataStore.Batch;
+import org.tquadrat.bloodpressure.DumpCompression;
+import org.tquadrat.bloodpressure.store.SegmentDataStore;
+import org.tquadrat.foundation.annotation.ClassVersion;
+import org.tquadrat.foundation.testutil.TestBaseClass;
+
+/**
+ *  Some tests for the classes
+ *  {@link DataDumper}
+ *  and
+ *  {@link DataRestorer}.
+ *
+ *  @author Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @since 0.1.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@DisplayName( "org.tquadrat.bloodpressure.internal.TestDataDumper" )
+public class TestDataDumper extends TestBaseClass
+{
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Returns the measurements of the given person, one string per
+     *  measurement.
+     *
+     *  @param  store   The storage.
+     *  @param  person  The key for the person.
+     *  @return The measurements.
+     *  @throws Exception   Something went unexpectedly wrong.
+     */
+    private static final List<String> describe( final DataStore store, final String person ) throws Exception
+    {
+        final List<String> retValue = new ArrayList<>();
+        store.scan( person, null, null, ( epochSecond, systolic, diastolic, isIgnored, isOutlier ) -> retValue.add( format( "%d %d/%d ignored=%b outlier=%b", epochSecond, systolic, diastolic, isIgnored, isOutlier ) ) );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  describe()
+
+    /**
+     *  Initialises the test.
+     *
+     *  @throws Exception   Something went unexpectedly wrong.
+     */
+    @BeforeAll
+    static final void init() throws Exception
+    {
+        Configuration.getInstance().setDataFolder( Files.createTempDirectory( "TestDataDumper" ) );
+    }   //  init()
+
+    /**
+     *  Tests that the outliers are detected again when a dump without the
+     *  flag for outliers is restored.
+     *
+     *  @throws Exception   Something went unexpectedly wrong.
+     */
+    @Test
+    final void testOldDump() throws Exception
+    {
+        skipThreadTest();
+
+        final var store = new SegmentDataStore();
+        store.initialize();
+
+        final var dump = Files.createTempFile( "TestDataDumper", ".sql" );
+        final var lines = new ArrayList<String>();
+        lines.add( "MERGE INTO BLOODPRESSURE_DATA( PERSON_ID, MEASURING_DATETIME, systolic_pressure, diastolic_pressure, ignored )" );
+        lines.add( "KEY( PERSON_ID, MEASURING_DATETIME )" );
+        lines.add( "VALUES" );
+        for( var day = 1; day <= 12; ++day )
+        {
+            lines.add( format( "('old', '2021-03-%02d 08:00:00Z', %d, 80, FALSE ),", day, 120 + day % 3 ) );
+        }
+        lines.add( "('old', '2021-03-13 08:00:00Z', 300, 80, FALSE )," );
+        lines.add( "('old', '2021-03-14 08:00:00Z', 290, 80, TRUE )," );
+        lines.add( "('old', '2021-03-15 08:00:00Z', 121, 81, FALSE );" );
+        Files.write( dump, lines, UTF8 );
+
+        //---* Without the detection, no row is flagged *----------------------
+        new DataRestorer( 4, 2, 0, statistics -> {} ).restore( store, "unflagged", dump );
+        var rows = describe( store, "unflagged" );
+        assertEquals( 15, rows.size() );
+        for( final var row : rows ) assertTrue( row.endsWith( "outlier=false" ), row );
+
+        //---* With the detection, only the implausible row is flagged *-------
+        new DataRestorer( 4, 2, 10, statistics -> {} ).restore( store, "flagged", dump );
+        rows = describe( store, "flagged" );
+        assertEquals( 15, rows.size() );
+        for( var i = 0; i < rows.size(); ++i )
+        {
+            assertTrue( rows.get( i ).endsWith( i == 12 ? "outlier=true" : "outlier=false" ), rows.get( i ) );
+        }
+    }   //  testOldDump()
+
+    /**
+     *  Tests that the data, including the flags, survives a dump and a
+     *  restore.
+     *
+     *  @throws Exception   Something went unexpectedly wrong.
+     */
+    @Test
+    final void testRoundTrip() throws Exception
+    {
+        skipThreadTest();
+
+        final var store = new SegmentDataStore();
+        store.initialize();
+
+        final var batch = new Batch( 60 );
+        final var start = LocalDateTime.of( 2021, 1, 1, 8, 0 ).atZone( ZONE_UTC ).toEpochSecond();
+        for( var i = 0; i < 60; ++i )
+        {
+            batch.add( start + i * 43_200L, 120 + i % 7, 80 + i % 5, i % 11 == 0, i % 13 == 0 );
+        }
+        store.append( "source", batch );
+        final var expected = describe( store, "source" );
+
+        for( final var compression : DumpCompression.values() )
+        {
+            final var person = format( "target_%s", compression.name() );
+            final var dump = Files.createTempFile( "TestDataDumper", ".sql" );
+            final var dumped = new DataDumper( compression, 3, 10, statistics -> {} ).dump( store, "source", dump );
+            assertEquals( expected.size(), dumped.rowCount() );
+
+            //---* The outlier detection must not touch flagged rows *---------
+            final var restored = new DataRestorer( 7, 2, 10, statistics -> {} ).restore( store, person, dump );
+            assertEquals( expected.size(), restored.rowCount() );
+            assertEquals( expected, describe( store, person ) );
+        }
+    }   //  testRoundTrip()
+}
+//  class TestDataDumper
+
+/*
+ *  End of File
+ */
@@ -0,0 +1,564 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.bloodpressure.internal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.tquadrat.foundation.lang.CommonConstants.UTF8;
+import static org.tquadrat.foundation.lang.CommonConstants.ZONE_UTC;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.SortedMap;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.tquadrat.bloodpressure.Configuration;
+import org.tquadrat.bloodpressure.DataStore;
+import org.tquadrat.bloodpressure.DataStore.Batch;
+import org.tquadrat.bloodpressure.Diagnosis;
+import org.tquadrat.bloodpressure.ReportFormat;
+import org.tquadrat.bloodpressure.spi.DailyAggregate;
+import org.tquadrat.bloodpressure.spi.Guideline;
+import org.tquadrat.bloodpressure.spi.ReportBase;
+import org.tquadrat.bloodpressure.spi.ReportBase.MeasurementScan;
+import org.tquadrat.bloodpressure.store.SegmentDataStore;
+import org.tquadrat.foundation.annotation.ClassVersion;
+import org.tquadrat.foundation.testutil.TestBaseClass;
+
+/**
+ *  Some tests for the class
+ *  {@link ReportDataCache}.
+ *
+ *  @author Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @since 0.1.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@DisplayName( "org.tquadrat.bloodpressure.internal.TestReportDataCache" )
+public class TestReportDataCache extends TestBaseClass
+{
+        /*---------------*\
+    ====** Inner Classes **====================================================
+        \*---------------*/
+    /**
+     *  A report that gives access to
+     *  {@link ReportBase#loadData(DataStore, ZoneId, LocalDate, LocalDate)}.
+     *
+     *  @author Thomas Thrien - thomas.thrien@tquadrat.org
+     *  @since 0.1.0
+     */
+    @ClassVersion( sourceVersion = "$Id$" )
+    private static final class DataLoader extends ReportBase
+    {
+        /**
+         *  Creates a new instance of {@code DataLoader}.
+         */
+        public DataLoader() { super( "TEST", ReportFormat.TEXT ); }
+
+        /**
+         *  {@inheritDoc}
+         */
+        @Override
+        public final void generateReport( final File destination, final ReportFormat format ) { throw new UnsupportedOperationException(); }
+
+        /**
+         *  Loads the measurements of the configured person in the given
+         *  range.
+         *
+         *  @param  store   The storage.
+         *  @param  start   The start date.
+         *  @param  end The end date.
+         *  @return The results of the scan.
+         *  @throws IOException Problems when accessing the storage.
+         */
+        public final MeasurementScan loadMeasurements( final DataStore store, final LocalDate start, final LocalDate end ) throws IOException
+        {
+            final var retValue = loadData( store, ZONE_UTC, start, end );
+
+            //---* Done *------------------------------------------------------
+            return retValue;
+        }   //  loadMeasurements()
+
+        /**
+         *  Returns the timestamps of the data for the configured person in
+         *  the given range.
+         *
+         *  @param  store   The storage.
+         *  @param  start   The start date.
+         *  @param  end The end date.
+         *  @return The timestamps.
+         *  @throws IOException Problems when accessing the storage.
+         */
+        public final List<LocalDateTime> loadTimestamps( final DataStore store, final LocalDate start, final LocalDate end ) throws IOException
+        {
+            final var retValue = List.copyOf( loadData( store, ZONE_UTC, start, end ).data().keySet() );
+
+            //---* Done *------------------------------------------------------
+            return retValue;
+        }   //  loadTimestamps()
+    }
+    //  class DataLoader
+
+        /*------------*\
+    ====** Attributes **=======================================================
+        \*------------*/
+    /**
+     *  The folder for the cache files.
+     */
+    private static Path m_Folder;
+
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Creates a batch with two measurements on each of the given days.
+     *
+     *  @param  days    The days.
+     *  @return The batch.
+     */
+    private static final Batch createBatch( final LocalDate... days )
+    {
+        final var retValue = new Batch( days.length * 2 );
+        for( final var day : days )
+        {
+            retValue.add( toEpochSecond( day, LocalTime.of( 8, 0 ) ), 120, 80, false );
+            retValue.add( toEpochSecond( day, LocalTime.of( 20, 0 ) ), 130, 85, false );
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  createBatch()
+
+    /**
+     *  Creates a storage that records the start of the range for each call
+     *  to
+     *  {@link DataStore#aggregate(String, Instant, Instant, ZoneId)}.
+     *  As
+     *  {@link DataStore}
+     *  is sealed, the proxy implements
+     *  {@link DataStore.Snapshot};
+     *  nevertheless, all calls are passed to the storage itself.
+     *
+     *  @param  aggregations    The list that takes the start of the ranges;
+     *      an open start is recorded as {@link Instant#MIN}.
+     *  @return The storage.
+     *  @throws IOException The storage could not be initialised.
+     */
+    private static final DataStore createStore( final List<Instant> aggregations ) throws IOException
+    {
+        final var store = new SegmentDataStore();
+        store.initialize();
+        final var retValue = (DataStore) Proxy.newProxyInstance( DataStore.class.getClassLoader(), new Class<?> [] {DataStore.Snapshot.class}, ( proxy, method, arguments ) ->
+        {
+            Object result = null;
+            if( method.getName().equals( "aggregate" ) ) aggregations.add( arguments [1] == null ? Instant.MIN : (Instant) arguments [1] );
+            if( method.getDeclaringClass().isInstance( store ) )
+            {
+                try
+                {
+                    result = method.invoke( store, arguments );
+                }
+                catch( final InvocationTargetException e )
+                {
+                    throw e.getCause();
+                }
+            }
+            return result;
+        } );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  createStore()
+
+    /**
+     *  Describes the given daily aggregates, as
+     *  {@link DailyAggregate}
+     *  does not implement {@code equals()}.
+     *
+     *  @param  days    The daily aggregates.
+     *  @return The descriptions, one per day.
+     */
+    private static final List<String> describe( final SortedMap<LocalDate,DailyAggregate> days )
+    {
+        final List<String> retValue = new ArrayList<>();
+        for( final var day : days.values() )
+        {
+            final var description = new StringBuilder( day.getDay().toString() )
+                .append( ':' ).append( day.getCount() )
+                .append( ':' ).append( day.getSystolicSum() )
+                .append( ':' ).append( day.getDiastolicSum() )
+                .append( ':' ).append( day.getSystolicMinimum() )
+                .append( ':' ).append( day.getSystolicMaximum() )
+                .append( ':' ).append( day.getDiastolicMinimum() )
+                .append( ':' ).append( day.getDiastolicMaximum() );
+            for( final var diagnosis : Diagnosis.values() )
+            {
+                description.append( ':' ).append( day.getSystolicCount( diagnosis ) )
+                    .append( '/' ).append( day.getDiastolicCount( diagnosis ) );
+            }
+            retValue.add( description.toString() );
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  describe()
+
+    /**
+     *  Initialises the test.
+     *
+     *  @throws Exception   Something went unexpectedly wrong.
+     */
+    @BeforeAll
+    static final void init() throws Exception
+    {
+        m_Folder = Files.createTempDirectory( "TestReportDataCache" );
+        Configuration.getInstance().setDataFolder( m_Folder );
+    }   //  init()
+
+    /**
+     *  Returns the number of measurements for each day.
+     *
+     *  @param  days    The daily aggregates.
+     *  @return The numbers of measurements.
+     */
+    private static final List<Integer> retrieveCounts( final SortedMap<LocalDate,DailyAggregate> days )
+    {
+        final List<Integer> retValue = new ArrayList<>();
+        for( final var day : days.values() ) retValue.add( day.getCount() );
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  retrieveCounts()
+
+    /**
+     *  Tests that a corrupted or truncated cache file is not used.
+     *
+     *  @throws Exception   Something went unexpectedly wrong.
+     */
+    @Test
+    final void testCorruptedFile() throws Exception
+    {
+        skipThreadTest();
+
+        final var person = "corrupted";
+        final List<Instant> aggregations = new ArrayList<>();
+        final var store = createStore( aggregations );
+        final var first = LocalDate.of( 2022, 4, 1 );
+        store.append( person, createBatch( first, first.plusDays( 1 ), first.plusDays( 3 ) ) );
+        final var expected = store.aggregate( person, null, null, ZONE_UTC );
+
+        final var cacheFile = m_Folder.resolve( "corrupted.cache" );
+        new ReportDataCache( cacheFile ).retrieve( store, person, ZONE_UTC );
+        final var original = Files.readAllBytes( cacheFile );
+
+        //---* A valid file is used as it is *---------------------------------
+        aggregations.clear();
+        assertEquals( describe( expected ), describe( new ReportDataCache( cacheFile ).retrieve( store, person, ZONE_UTC ) ) );
+        assertTrue( aggregations.isEmpty() );
+
+        final List<byte []> corruptedFiles = new ArrayList<>();
+
+        //---* Truncated header *----------------------------------------------
+        corruptedFiles.add( Arrays.copyOf( original, 100 ) );
+
+        //---* Truncated record *----------------------------------------------
+        corruptedFiles.add( Arrays.copyOf( original, original.length - 1 ) );
+
+        //---* Wrong magic number *--------------------------------------------
+        var bytes = original.clone();
+        ByteBuffer.wrap( bytes ).putInt( 0, 0x12345678 );
+        corruptedFiles.add( bytes );
+
+        //---* Wrong format version *------------------------------------------
+        bytes = original.clone();
+        ByteBuffer.wrap( bytes ).putInt( 4, ReportDataCache.FORMAT_VERSION - 1 );
+        corruptedFiles.add( bytes );
+
+        //---* Wrong number of records *---------------------------------------
+        bytes = original.clone();
+        ByteBuffer.wrap( bytes ).putInt( 24, ByteBuffer.wrap( original ).getInt( 24 ) + 1 );
+        corruptedFiles.add( bytes );
+
+        //---* Invalid time zone *---------------------------------------------
+        bytes = original.clone();
+        ByteBuffer.wrap( bytes ).put( 32, "No/Zone".getBytes( UTF8 ) );
+        corruptedFiles.add( bytes );
+
+        for( final var corruptedFile : corruptedFiles )
+        {
+            Files.write( cacheFile, corruptedFile );
+            aggregations.clear();
+            assertEquals( describe( expected ), describe( new ReportDataCache( cacheFile ).retrieve( store, person, ZONE_UTC ) ) );
+            assertEquals( List.of( Instant.MIN ), aggregations );
+
+            //---* The file was rebuilt *--------------------------------------
+            assertTrue( Arrays.equals( original, Files.readAllBytes( cacheFile ) ) );
+        }
+    }   //  testCorruptedFile()
+
+    /**
+     *  Tests that the cache is rebuilt completely when the time zone or the
+     *  guideline changes.
+     *
+     *  @throws Exception   Something went unexpectedly wrong.
+     */
+    @Test
+    final void testInvalidation() throws Exception
+    {
+        skipThreadTest();
+
+        final var person = "invalidation";
+        final List<Instant> aggregations = new ArrayList<>();
+        final var store = createStore( aggregations );
+        final var first = LocalDate.of( 2022, 5, 1 );
+        store.append( person, createBatch( first, first.plusDays( 1 ) ) );
+
+        final var candidate = new ReportDataCache( m_Folder.resolve( "invalidation.cache" ) );
+        candidate.retrieve( store, person, ZONE_UTC );
+
+        //---* Another time zone shifts the measurements at 20:00 *------------
+        aggregations.clear();
+        final var timezone = ZoneId.of( "Asia/Tokyo" );
+        final var days = candidate.retrieve( store, person, timezone );
+        assertEquals( List.of( Instant.MIN ), aggregations );
+        assertEquals( List.of( first, first.plusDays( 1 ), first.plusDays( 2 ) ), List.copyOf( days.keySet() ) );
+        assertEquals( List.of( 1, 2, 1 ), retrieveCounts( days ) );
+
+        aggregations.clear();
+        candidate.retrieve( store, person, timezone );
+        assertTrue( aggregations.isEmpty() );
+
+        //---* Another guideline changes the bands *---------------------------
+        final var guideline = Diagnosis.getGuideline();
+        try
+        {
+            Diagnosis.setGuideline( Guideline.AHA.getKey().equals( guideline.getKey() ) ? Guideline.ESC : Guideline.AHA );
+            aggregations.clear();
+            final var result = candidate.retrieve( store, person, timezone );
+            assertEquals( List.of( Instant.MIN ), aggregations );
+            assertEquals( describe( store.aggregate( person, null, null, timezone ) ), describe( result ) );
+
+            //---* The file is rejected as well *------------------------------
+            Diagnosis.setGuideline( guideline );
+            aggregations.clear();
+            new ReportDataCache( m_Folder.resolve( "invalidation.cache" ) ).retrieve( store, person, timezone );
+            assertEquals( List.of( Instant.MIN ), aggregations );
+        }
+        finally
+        {
+            Diagnosis.setGuideline( guideline );
+        }
+    }   //  testInvalidation()
+
+    /**
+     *  Tests that
+     *  {@link ReportBase#loadData(DataStore, ZoneId, LocalDate, LocalDate)}
+     *  includes a measurement that was taken exactly at the start of the
+     *  first day; the recalculation of the stale tail relies on that.
+     *
+     *  @throws Exception   Something went unexpectedly wrong.
+     */
+    @Test
+    final void testLoadData() throws Exception
+    {
+        skipThreadTest();
+
+        final var store = createStore( new ArrayList<>() );
+        final var person = Configuration.getInstance().getPerson();
+        final var day = LocalDate.of( 2022, 6, 1 );
+        final var batch = new Batch( 3 );
+        batch.add( toEpochSecond( day.minusDays( 1 ), LocalTime.of( 23, 59, 59 ) ), 120, 80, false );
+        batch.add( toEpochSecond( day, LocalTime.MIDNIGHT ), 121, 81, false );
+        batch.add( toEpochSecond( day.plusDays( 1 ), LocalTime.MIDNIGHT ), 122, 82, false );
+        store.append( person, batch );
+
+        final var candidate = new DataLoader();
+        assertEquals( List.of( day.atStartOfDay() ), candidate.loadTimestamps( store, day, day ) );
+        assertEquals( List.of( day.atStartOfDay(), day.plusDays( 1 ).atStartOfDay() ), candidate.loadTimestamps( store, day, day.plusDays( 1 ) ) );
+    }   //  testLoadData()
+
+    /**
+     *  Tests that the scan in
+     *  {@link ReportBase#loadData(DataStore, ZoneId, LocalDate, LocalDate)}
+     *  fills the sketches and the statistics per weekday and time of day,
+     *  and collects the outliers separately.
+     *
+     *  @throws Exception   Something went unexpectedly wrong.
+     */
+    @Test
+    final void testMeasurementScan() throws Exception
+    {
+        skipThreadTest();
+
+        final var store = createStore( new ArrayList<>() );
+        final var person = Configuration.getInstance().getPerson();
+        final var day = LocalDate.of( 2022, 8, 3 );
+        final var batch = new Batch( 5 );
+        batch.add( toEpochSecond( day, LocalTime.of( 8, 0 ) ), 120, 80, false, false );
+        batch.add( toEpochSecond( day, LocalTime.of( 8, 30 ) ), 124, 82, false, false );
+        batch.add( toEpochSecond( day, LocalTime.of( 20, 0 ) ), 130, 85, false, false );
+        batch.add( toEpochSecond( day, LocalTime.of( 21, 0 ) ), 200, 85, true, false );
+        batch.add( toEpochSecond( day, LocalTime.of( 22, 0 ) ), 250, 60, false, true );
+        store.append( person, batch );
+
+        final var candidate = new DataLoader().loadMeasurements( store, day, day );
+        assertEquals( 3, candidate.data().size() );
+        assertEquals( List.of( day.atTime( 22, 0 ) ), List.copyOf( candidate.outliers().keySet() ) );
+        assertEquals( 3L, candidate.sketches().systolic().getCount() );
+        assertEquals( 3L, candidate.sketches().diastolic().getCount() );
+
+        final var weekdayHours = candidate.weekdayHours();
+        final var morning = 8 / weekdayHours.getHoursPerBucket();
+        final var evening = 20 / weekdayHours.getHoursPerBucket();
+        assertEquals( 2L, weekdayHours.getCount( day.getDayOfWeek(), morning ) );
+        assertEquals( 1L, weekdayHours.getCount( day.getDayOfWeek(), evening ) );
+        assertEquals( 0L, weekdayHours.getCount( day.getDayOfWeek().plus( 1 ), morning ) );
+    }   //  testMeasurementScan()
+
+    /**
+     *  Tests that the cache is rebuilt completely when the storage was
+     *  replaced by another one that happens to have the same data version.
+     *
+     *  @throws Exception   Something went unexpectedly wrong.
+     */
+    @Test
+    final void testReplacedStore() throws Exception
+    {
+        skipThreadTest();
+
+        final var person = "replaced";
+        final List<Instant> aggregations = new ArrayList<>();
+        final var store = createStore( aggregations );
+        final var first = LocalDate.of( 2022, 7, 1 );
+        store.append( person, createBatch( first, first.plusDays( 1 ) ) );
+
+        final var cacheFile = m_Folder.resolve( "replaced.cache" );
+        final var candidate = new ReportDataCache( cacheFile );
+        candidate.retrieve( store, person, ZONE_UTC );
+
+        //---* The other storage lives in another folder *---------------------
+        final DataStore replacement;
+        try
+        {
+            Configuration.getInstance().setDataFolder( Files.createTempDirectory( "TestReportDataCache" ) );
+            replacement = createStore( aggregations );
+        }
+        finally
+        {
+            Configuration.getInstance().setDataFolder( m_Folder );
+        }
+        replacement.append( person, createBatch( first.plusDays( 5 ) ) );
+        assertEquals( store.getDataVersion( person ), replacement.getDataVersion( person ) );
+        assertFalse( store.getStoreId().equals( replacement.getStoreId() ) );
+
+        aggregations.clear();
+        final var days = candidate.retrieve( replacement, person, ZONE_UTC );
+        assertEquals( List.of( Instant.MIN ), aggregations );
+        assertEquals( List.of( first.plusDays( 5 ) ), List.copyOf( days.keySet() ) );
+
+        //---* The file is rejected as well *----------------------------------
+        final var expected = store.aggregate( person, null, null, ZONE_UTC );
+        aggregations.clear();
+        assertEquals( describe( expected ), describe( new ReportDataCache( cacheFile ).retrieve( store, person, ZONE_UTC ) ) );
+        assertEquals( List.of( Instant.MIN ), aggregations );
+    }   //  testReplacedStore()
+
+    /**
+     *  Tests that only the days from the earliest change on are
+     *  recalculated.
+     *
+     *  @throws Exception   Something went unexpectedly wrong.
+     */
+    @Test
+    final void testStaleTail() throws Exception
+    {
+        skipThreadTest();
+
+        final var person = "tail";
+        final List<Instant> aggregations = new ArrayList<>();
+        final var store = createStore( aggregations );
+        final var first = LocalDate.of( 2022, 3, 1 );
+        store.append( person, createBatch( first, first.plusDays( 1 ), first.plusDays( 2 ), first.plusDays( 3 ), first.plusDays( 4 ) ) );
+
+        final var candidate = new ReportDataCache( m_Folder.resolve( "tail.cache" ) );
+        NavigableMap<LocalDate,DailyAggregate> days = candidate.retrieve( store, person, ZONE_UTC );
+        assertEquals( List.of( Instant.MIN ), aggregations );
+        assertEquals( List.of( 2, 2, 2, 2, 2 ), retrieveCounts( days ) );
+
+        //---* Nothing changed *-----------------------------------------------
+        aggregations.clear();
+        assertEquals( describe( days ), describe( candidate.retrieve( store, person, ZONE_UTC ) ) );
+        assertTrue( aggregations.isEmpty() );
+
+        //---* A measurement exactly at midnight starts the stale tail *-------
+        final var changed = first.plusDays( 3 );
+        final var batch = new Batch( 1 );
+        batch.add( toEpochSecond( changed, LocalTime.MIDNIGHT ), 140, 90, false );
+        store.append( person, batch );
+        aggregations.clear();
+        days = candidate.retrieve( store, person, ZONE_UTC );
+        assertEquals( List.of( changed.atStartOfDay( ZONE_UTC ).toInstant() ), aggregations );
+        assertEquals( List.of( 2, 2, 2, 3, 2 ), retrieveCounts( days ) );
+
+        //---* Several changes; the earliest one counts *----------------------
+        store.append( person, createBatch( first.plusDays( 5 ) ) );
+        final var earlier = new Batch( 1 );
+        earlier.add( toEpochSecond( first.plusDays( 1 ), LocalTime.NOON ), 125, 82, false );
+        store.append( person, earlier );
+        aggregations.clear();
+        days = candidate.retrieve( store, person, ZONE_UTC );
+        assertEquals( List.of( first.plusDays( 1 ).atStartOfDay( ZONE_UTC ).toInstant() ), aggregations );
+        assertEquals( List.of( 2, 3, 2, 3, 2, 2 ), retrieveCounts( days ) );
+        assertEquals( describe( store.aggregate( person, null, null, ZONE_UTC ) ), describe( days ) );
+
+        //---* The data in the file is the same *------------------------------
+        aggregations.clear();
+        assertEquals( describe( days ), describe( new ReportDataCache( m_Folder.resolve( "tail.cache" ) ).retrieve( store, person, ZONE_UTC ) ) );
+        assertTrue( aggregations.isEmpty() );
+    }   //  testStaleTail()
+
+    /**
+     *  Returns the timestamp for the given day and time in UTC.
+     *
+     *  @param  day The day.
+     *  @param  time    The time.
+     *  @return The timestamp in seconds since the begin of the epoch.
+     */
+    private static final long toEpochSecond( final LocalDate day, final LocalTime time ) { return LocalDateTime.of( day, time ).atZone( ZONE_UTC ).toEpochSecond(); }
+}
+//  class TestReportDataCache
+
+/*
+ *  End of File
+ */
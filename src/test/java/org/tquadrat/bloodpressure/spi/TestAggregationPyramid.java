@@ -0,0 +1,126 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.bloodpressure.spi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.tquadrat.bloodpressure.spi.AggregationPyramid.Resolution.DAY;
+import static org.tquadrat.bloodpressure.spi.AggregationPyramid.Resolution.MONTH;
+import static org.tquadrat.bloodpressure.spi.AggregationPyramid.Resolution.QUARTER;
+import static org.tquadrat.bloodpressure.spi.AggregationPyramid.Resolution.WEEK;
+import static org.tquadrat.bloodpressure.spi.AggregationPyramid.Resolution.YEAR;
+
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.tquadrat.bloodpressure.spi.AggregationPyramid.Resolution;
+import org.tquadrat.foundation.annotation.ClassVersion;
+import org.tquadrat.foundation.testutil.TestBaseClass;
+
+/**
+ *  Some tests for the class
+ *  {@link AggregationPyramid}.
+ *
+ *  @author Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @since 0.1.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@DisplayName( "org.tquadrat.bloodpressure.spi.TestAggregationPyramid" )
+public class TestAggregationPyramid extends TestBaseClass
+{
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Compares the levels of the pyramid with the daily aggregates that
+     *  are merged per period.
+     *
+     *  @throws Exception   Something went unexpectedly wrong.
+     */
+    @Test
+    final void testLevels() throws Exception
+    {
+        skipThreadTest();
+
+        final var random = new Random( 4711 );
+        final var days = new TreeMap<LocalDate,DailyAggregate>();
+        for( var day = LocalDate.of( 2019, 11, 20 ); day.isBefore( LocalDate.of( 2022, 2, 10 ) ); day = day.plusDays( 1 + random.nextInt( 3 ) ) )
+        {
+            final var aggregate = new DailyAggregate( day );
+            for( var i = random.nextInt( 4 ); i >= 0; --i ) aggregate.add( 100 + random.nextInt( 80 ), 60 + random.nextInt( 40 ) );
+            days.put( day, aggregate );
+        }
+
+        final var candidate = new AggregationPyramid( days );
+        assertEquals( days, candidate.getAggregates( DAY ) );
+        for( final var resolution : Resolution.values() )
+        {
+            var count = 0;
+            for( final var entry : candidate.getAggregates( resolution ).entrySet() )
+            {
+                final var start = entry.getKey();
+                final var period = days.subMap( start, true, resolution.getEnd( start ), true );
+                assertEquals( period, candidate.getDays( resolution, start ) );
+                assertEquals( period, candidate.getDays( resolution, resolution.getEnd( start ) ) );
+
+                final var aggregate = entry.getValue();
+                assertEquals( period.values().stream().mapToInt( DailyAggregate::getCount ).sum(), aggregate.getCount() );
+                assertEquals( period.values().stream().mapToLong( DailyAggregate::getSystolicSum ).sum(), aggregate.getSystolicSum() );
+                assertEquals( period.values().stream().mapToLong( DailyAggregate::getDiastolicSum ).sum(), aggregate.getDiastolicSum() );
+                assertEquals( period.values().stream().mapToInt( DailyAggregate::getSystolicMaximum ).max().getAsInt(), aggregate.getSystolicMaximum() );
+                assertEquals( period.values().stream().mapToInt( DailyAggregate::getDiastolicMinimum ).min().getAsInt(), aggregate.getDiastolicMinimum() );
+                assertEquals( aggregate, candidate.getAggregate( resolution, resolution.getEnd( start ) ).orElseThrow() );
+                count += period.size();
+            }
+            assertEquals( days.size(), count );
+        }
+        assertTrue( candidate.getAggregate( YEAR, LocalDate.of( 2023, 6, 1 ) ).isEmpty() );
+        assertTrue( candidate.getDays( MONTH, LocalDate.of( 2019, 10, 1 ) ).isEmpty() );
+    }   //  testLevels()
+
+    /**
+     *  Tests the periods for the resolutions.
+     *
+     *  @throws Exception   Something went unexpectedly wrong.
+     */
+    @Test
+    final void testResolutions() throws Exception
+    {
+        skipThreadTest();
+
+        final var day = LocalDate.of( 2021, 1, 1 );
+        assertEquals( day, DAY.getStart( day ) );
+        assertEquals( day, DAY.getEnd( day ) );
+        assertEquals( LocalDate.of( 2020, 12, 28 ), WEEK.getStart( day ) );
+        assertEquals( LocalDate.of( 2021, 1, 3 ), WEEK.getEnd( day ) );
+        assertEquals( LocalDate.of( 2024, 2, 29 ), MONTH.getEnd( LocalDate.of( 2024, 2, 10 ) ) );
+        assertEquals( LocalDate.of( 2022, 7, 1 ), QUARTER.getStart( LocalDate.of( 2022, 9, 30 ) ) );
+        assertEquals( LocalDate.of( 2022, 9, 30 ), QUARTER.getEnd( LocalDate.of( 2022, 7, 1 ) ) );
+        assertEquals( LocalDate.of( 2021, 10, 1 ), QUARTER.shift( LocalDate.of( 2022, 1, 1 ), -1 ) );
+        assertEquals( LocalDate.of( 2022, 1, 1 ), YEAR.getStart( LocalDate.of( 2022, 12, 31 ) ) );
+        assertEquals( LocalDate.of( 2022, 12, 31 ), YEAR.getEnd( LocalDate.of( 2022, 1, 1 ) ) );
+    }   //  testResolutions()
+}
+//  class TestAggregationPyramid
+
+/*
+ *  End of File
+ */
@@ -0,0 +1,132 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.bloodpressure.spi;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.tquadrat.bloodpressure.Diagnosis.HIGH1;
+import static org.tquadrat.bloodpressure.Diagnosis.HIGH2;
+import static org.tquadrat.bloodpressure.Diagnosis.HIGH3;
+import static org.tquadrat.bloodpressure.Diagnosis.LOW;
+import static org.tquadrat.bloodpressure.Diagnosis.NORMAL;
+import static org.tquadrat.bloodpressure.Diagnosis.NORMAL_HIGH;
+import static org.tquadrat.bloodpressure.Diagnosis.OPTIMAL;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.tquadrat.foundation.annotation.ClassVersion;
+import org.tquadrat.foundation.testutil.TestBaseClass;
+
+/**
+ *  Some tests for the class
+ *  {@link Guideline}.
+ *
+ *  @author Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @since 0.1.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@DisplayName( "org.tquadrat.bloodpressure.spi.TestGuideline" )
+public class TestGuideline extends TestBaseClass
+{
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Tests the classification and the labels for the predefined
+     *  guidelines.
+     *
+     *  @throws Exception   Something went unexpectedly wrong.
+     */
+    @Test
+    final void testClassification() throws Exception
+    {
+        skipThreadTest();
+
+        var candidate = Guideline.ESC;
+        assertEquals( LOW, candidate.assessSystolicPressure( -1 ) );
+        assertEquals( LOW, candidate.assessSystolicPressure( 104 ) );
+        assertEquals( OPTIMAL, candidate.assessSystolicPressure( 105 ) );
+        assertEquals( NORMAL, candidate.assessSystolicPressure( 129 ) );
+        assertEquals( NORMAL_HIGH, candidate.assessSystolicPressure( 130 ) );
+        assertEquals( HIGH1, candidate.assessSystolicPressure( 159 ) );
+        assertEquals( HIGH2, candidate.assessSystolicPressure( 179 ) );
+        assertEquals( HIGH3, candidate.assessSystolicPressure( 180 ) );
+        assertEquals( HIGH3, candidate.assessSystolicPressure( 1_000 ) );
+        assertEquals( NORMAL, candidate.assessDiastolicPressure( 84 ) );
+        assertEquals( HIGH2, candidate.assessDiastolicPressure( 100 ) );
+        assertEquals( "(< 105)", candidate.getSystolicLabel( LOW ) );
+        assertEquals( "(105-119)", candidate.getSystolicLabel( OPTIMAL ) );
+        assertEquals( "(>= 110)", candidate.getDiastolicLabel( HIGH3 ) );
+        assertEquals( "ESC:105,120,130,140,160,180/65,80,85,90,100,110", candidate.getKey() );
+
+        //---* AHA has no separate band for NORMAL *---------------------------
+        candidate = Guideline.AHA;
+        assertEquals( OPTIMAL, candidate.assessSystolicPressure( 119 ) );
+        assertEquals( NORMAL_HIGH, candidate.assessSystolicPressure( 120 ) );
+        assertEquals( HIGH2, candidate.assessSystolicPressure( 180 ) );
+        assertEquals( OPTIMAL, candidate.assessDiastolicPressure( 79 ) );
+        assertEquals( HIGH1, candidate.assessDiastolicPressure( 80 ) );
+        assertEquals( "(-)", candidate.getSystolicLabel( NORMAL ) );
+        assertEquals( "(120-129)", candidate.getSystolicLabel( NORMAL_HIGH ) );
+        assertEquals( "(>= 181)", candidate.getSystolicLabel( HIGH3 ) );
+
+        assertSame( Guideline.AHA, Guideline.forId( "aha" ).orElseThrow() );
+        assertSame( Guideline.ESC, Guideline.forId( "ESC" ).orElseThrow() );
+        assertFalse( Guideline.forId( Guideline.CUSTOM_ID ).isPresent() );
+    }   //  testClassification()
+
+    /**
+     *  Tests the custom guidelines.
+     *
+     *  @throws Exception   Something went unexpectedly wrong.
+     */
+    @Test
+    final void testCustom() throws Exception
+    {
+        skipThreadTest();
+
+        final var systolic = Guideline.parseBounds( " 100, 115,125 ,135,150,170 " );
+        assertArrayEquals( new int [] {100, 115, 125, 135, 150, 170}, systolic );
+        final var diastolic = Guideline.parseBounds( "60,75,80,85,95,105" );
+        final var candidate = Guideline.of( systolic, diastolic );
+        assertEquals( Guideline.CUSTOM_ID, candidate.getId() );
+        assertEquals( "CUSTOM:100,115,125,135,150,170/60,75,80,85,95,105", candidate.getKey() );
+
+        //---* The guideline keeps a copy of the bounds *----------------------
+        systolic [0] = 200;
+        for( var value = 0; value < 300; ++value )
+        {
+            final var expected = value < 100 ? LOW : value < 115 ? OPTIMAL : value < 125 ? NORMAL : value < 135 ? NORMAL_HIGH : value < 150 ? HIGH1 : value < 170 ? HIGH2 : HIGH3;
+            assertEquals( expected, candidate.assessSystolicPressure( value ) );
+        }
+
+        assertThrows( IllegalArgumentException.class, () -> Guideline.parseBounds( "100,abc" ) );
+        assertThrows( IllegalArgumentException.class, () -> Guideline.of( new int [] {100, 115, 125}, diastolic ) );
+        assertThrows( IllegalArgumentException.class, () -> Guideline.of( new int [] {100, 115, 125, 120, 150, 170}, diastolic ) );
+        assertThrows( IllegalArgumentException.class, () -> Guideline.of( new int [] {0, 115, 125, 135, 150, 170}, diastolic ) );
+        assertThrows( IllegalArgumentException.class, () -> Guideline.of( new int [] {100, 115, 125, 135, 150, 256}, diastolic ) );
+    }   //  testCustom()
+}
+//  class TestGuideline
+
+/*
+ *  End of File
+ */
@@ -0,0 +1,123 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.bloodpressure.spi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.tquadrat.foundation.annotation.ClassVersion;
+import org.tquadrat.foundation.testutil.TestBaseClass;
+
+/**
+ *  Some tests for the class
+ *  {@link LinearTrend}.
+ *
+ *  @author Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @since 0.1.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@DisplayName( "org.tquadrat.bloodpressure.spi.TestLinearTrend" )
+public class TestLinearTrend extends TestBaseClass
+{
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Tests the trend for values that are exactly on a line.
+     *
+     *  @throws Exception   Something went unexpectedly wrong.
+     */
+    @Test
+    final void testExactLine() throws Exception
+    {
+        skipThreadTest();
+
+        final var candidate = new LinearTrend();
+        assertTrue( Double.isNaN( candidate.getSlope() ) );
+        final var firstDay = LocalDate.of( 2022, 1, 1 );
+        candidate.add( firstDay, 140.0 );
+        assertTrue( Double.isNaN( candidate.getSlope() ) );
+        assertTrue( Double.isNaN( candidate.getIntercept() ) );
+
+        for( var i = 1; i < 90; ++i ) candidate.add( firstDay.plusDays( i ), 140.0 - 0.1 * i );
+        assertEquals( 90L, candidate.getCount() );
+        assertEquals( -0.1, candidate.getSlope(), 1.0e-9 );
+        assertEquals( -0.1 * LinearTrend.DAYS_PER_MONTH, candidate.getSlopePerMonth(), 1.0e-9 );
+        assertEquals( 140.0, candidate.getIntercept(), 1.0e-9 );
+        assertEquals( 1.0, candidate.getCoefficientOfDetermination(), 1.0e-9 );
+    }   //  testExactLine()
+
+    /**
+     *  Compares the trend with the textbook formulas, and tests that merged
+     *  accumulators give the same result as a single one.
+     *
+     *  @throws Exception   Something went unexpectedly wrong.
+     */
+    @Test
+    final void testMerge() throws Exception
+    {
+        skipThreadTest();
+
+        final var random = new Random( 4711 );
+        final var total = new LinearTrend();
+        final var parts = new LinearTrend [] {new LinearTrend(), new LinearTrend(), new LinearTrend()};
+        var sumX = 0.0;
+        var sumY = 0.0;
+        var sumXX = 0.0;
+        var sumXY = 0.0;
+        var sumYY = 0.0;
+        final var firstDay = LocalDate.of( 2019, 3, 15 );
+        final var count = 1_000;
+        for( var i = 0; i < count; ++i )
+        {
+            final var value = 135.0 + 0.02 * i + random.nextGaussian() * 8.0;
+            total.add( firstDay.plusDays( i ), value );
+            parts [i * parts.length / count].add( firstDay.plusDays( i ), value );
+            sumX += i;
+            sumY += value;
+            sumXX += (double) i * i;
+            sumXY += i * value;
+            sumYY += value * value;
+        }
+        final var slope = (count * sumXY - sumX * sumY) / (count * sumXX - sumX * sumX);
+        final var intercept = (sumY - slope * sumX) / count;
+        final var correlation = (count * sumXY - sumX * sumY) / Math.sqrt( (count * sumXX - sumX * sumX) * (count * sumYY - sumY * sumY) );
+        assertEquals( slope, total.getSlope(), 1.0e-9 );
+        assertEquals( intercept, total.getIntercept(), 1.0e-6 );
+        assertEquals( correlation * correlation, total.getCoefficientOfDetermination(), 1.0e-9 );
+
+        final var candidate = new LinearTrend();
+        candidate.merge( parts [2] );
+        candidate.merge( parts [0] );
+        candidate.merge( parts [1] );
+        assertEquals( total.getCount(), candidate.getCount() );
+        assertEquals( total.getSlope(), candidate.getSlope(), 1.0e-9 );
+        assertEquals( total.getIntercept(), candidate.getIntercept(), 1.0e-6 );
+        assertEquals( total.getCoefficientOfDetermination(), candidate.getCoefficientOfDetermination(), 1.0e-9 );
+    }   //  testMerge()
+}
+//  class TestLinearTrend
+
+/*
+ *  End of File
+ */
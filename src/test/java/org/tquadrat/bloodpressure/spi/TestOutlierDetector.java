@@ -0,0 +1,134 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.bloodpressure.spi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.tquadrat.bloodpressure.DataStore.Batch;
+import org.tquadrat.foundation.annotation.ClassVersion;
+import org.tquadrat.foundation.testutil.TestBaseClass;
+
+/**
+ *  Some tests for the class
+ *  {@link OutlierDetector}.
+ *
+ *  @author Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @since 0.1.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@DisplayName( "org.tquadrat.bloodpressure.spi.TestOutlierDetector" )
+public class TestOutlierDetector extends TestBaseClass
+{
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Tests the detection of anomalous measurements.
+     *
+     *  @throws Exception   Something went unexpectedly wrong.
+     */
+    @Test
+    final void testAnomalies() throws Exception
+    {
+        skipThreadTest();
+
+        final var random = new Random( 4711 );
+        final var candidate = new OutlierDetector();
+        for( var i = 0; i < OutlierDetector.WARM_UP - 1; ++i ) assertFalse( candidate.add( 130 + random.nextInt( 11 ) - 5, 85 + random.nextInt( 7 ) - 3 ) );
+
+        //---* Still warming up: only implausible values are detected *--------
+        assertFalse( candidate.test( 200, 85 ) );
+        assertTrue( candidate.test( 300, 85 ) );
+
+        for( var i = 0; i < 100; ++i ) assertFalse( candidate.add( 130 + random.nextInt( 11 ) - 5, 85 + random.nextInt( 7 ) - 3 ) );
+        assertEquals( OutlierDetector.DEFAULT_WINDOW_SIZE, candidate.getSize() );
+        assertTrue( candidate.test( 200, 85 ) );
+        assertTrue( candidate.test( 130, 125 ) );
+        assertFalse( candidate.test( 138, 88 ) );
+
+        //---* A lasting change is accepted after some measurements *----------
+        var flagged = 0;
+        for( var i = 0; i < OutlierDetector.DEFAULT_WINDOW_SIZE; ++i ) if( candidate.add( 165, 100 ) ) ++flagged;
+        assertTrue( flagged > 0 );
+        assertTrue( flagged < OutlierDetector.DEFAULT_WINDOW_SIZE / 2 + 1 );
+        assertFalse( candidate.test( 165, 100 ) );
+    }   //  testAnomalies()
+
+    /**
+     *  Tests the flags in a batch.
+     *
+     *  @throws Exception   Something went unexpectedly wrong.
+     */
+    @Test
+    final void testBatch() throws Exception
+    {
+        skipThreadTest();
+
+        final var candidate = new Batch( 4 );
+        final var start = 1_600_000_000L;
+        for( var i = 39; i >= 0; --i ) candidate.add( start + i * 3_600L, 125 + (i % 5), 80 + (i % 3), false );
+        candidate.add( start + 40 * 3_600L, 190, 82, false );
+        candidate.add( start + 41 * 3_600L, 250, 82, true );
+        candidate.add( start + 42 * 3_600L, 80, 90, false );
+
+        assertEquals( 2, candidate.flagOutliers( new OutlierDetector() ) );
+        for( var i = 0; i < 40; ++i ) assertFalse( candidate.isOutlier( i ) );
+        assertTrue( candidate.isOutlier( 40 ) );
+        assertFalse( candidate.isOutlier( 41 ) );
+        assertTrue( candidate.isIgnored( 41 ) );
+        assertTrue( candidate.isOutlier( 42 ) );
+    }   //  testBatch()
+
+    /**
+     *  Tests the plausibility checks and the invalid arguments.
+     *
+     *  @throws Exception   Something went unexpectedly wrong.
+     */
+    @Test
+    final void testPlausibility() throws Exception
+    {
+        skipThreadTest();
+
+        assertTrue( OutlierDetector.isPlausible( 120, 80 ) );
+        assertTrue( OutlierDetector.isPlausible( OutlierDetector.SYSTOLIC_MAXIMUM, OutlierDetector.DIASTOLIC_MAXIMUM ) );
+        assertFalse( OutlierDetector.isPlausible( OutlierDetector.SYSTOLIC_MINIMUM - 1, 40 ) );
+        assertFalse( OutlierDetector.isPlausible( 120, OutlierDetector.DIASTOLIC_MINIMUM - 1 ) );
+        assertFalse( OutlierDetector.isPlausible( 80, 80 ) );
+        assertFalse( OutlierDetector.isPlausible( 80, 120 ) );
+
+        final var candidate = new OutlierDetector();
+        assertTrue( candidate.add( 12, 8 ) );
+        assertEquals( 0, candidate.getSize() );
+
+        assertThrows( IllegalArgumentException.class, () -> new OutlierDetector( OutlierDetector.WARM_UP - 1, OutlierDetector.DEFAULT_THRESHOLD ) );
+        assertThrows( IllegalArgumentException.class, () -> new OutlierDetector( OutlierDetector.DEFAULT_WINDOW_SIZE, 0.0 ) );
+        assertThrows( IllegalArgumentException.class, () -> new OutlierDetector( OutlierDetector.DEFAULT_WINDOW_SIZE, Double.NaN ) );
+    }   //  testPlausibility()
+}
+//  class TestOutlierDetector
+
+/*
+ *  End of File
+ */
@@ -0,0 +1,111 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.bloodpressure.spi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.tquadrat.bloodpressure.spi.AggregationPyramid.Resolution.MONTH;
+import static org.tquadrat.bloodpressure.spi.AggregationPyramid.Resolution.QUARTER;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.tquadrat.bloodpressure.spi.PeriodBuckets.Period;
+import org.tquadrat.foundation.annotation.ClassVersion;
+import org.tquadrat.foundation.testutil.TestBaseClass;
+
+/**
+ *  Some tests for the class
+ *  {@link PeriodBuckets}.
+ *
+ *  @author Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @since 0.1.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@DisplayName( "org.tquadrat.bloodpressure.spi.TestPeriodBuckets" )
+public class TestPeriodBuckets extends TestBaseClass
+{
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Tests the creation of the buckets.
+     *
+     *  @throws Exception   Something went unexpectedly wrong.
+     */
+    @Test
+    final void testCreation() throws Exception
+    {
+        skipThreadTest();
+
+        var candidate = PeriodBuckets.of( QUARTER, LocalDate.of( 2022, 5, 17 ), 3 );
+        assertEquals( "[2021-10-01..2021-12-31, 2022-01-01..2022-03-31, 2022-04-01..2022-06-30]", candidate.getPeriods().toString() );
+        assertEquals( LocalDate.of( 2021, 10, 1 ), candidate.getFirstDay() );
+        assertEquals( LocalDate.of( 2022, 6, 30 ), candidate.getLastDay() );
+
+        candidate = PeriodBuckets.of( MONTH, LocalDate.of( 2022, 3, 1 ), 1 );
+        assertEquals( List.of( new Period( LocalDate.of( 2022, 3, 1 ), LocalDate.of( 2022, 3, 31 ) ) ), candidate.getPeriods() );
+
+        //---* The periods will be sorted *------------------------------------
+        candidate = PeriodBuckets.parse( " 2022-05-01..2022-05-31 , 2022-01-01 .. 2022-01-15" );
+        assertEquals( "[2022-01-01..2022-01-15, 2022-05-01..2022-05-31]", candidate.getPeriods().toString() );
+
+        assertThrows( IllegalArgumentException.class, () -> PeriodBuckets.of( QUARTER, LocalDate.of( 2022, 5, 17 ), 0 ) );
+        assertThrows( IllegalArgumentException.class, () -> PeriodBuckets.parse( "2022-01-01" ) );
+        assertThrows( IllegalArgumentException.class, () -> PeriodBuckets.parse( "2022-01-01..2022-13-01" ) );
+        assertThrows( IllegalArgumentException.class, () -> PeriodBuckets.parse( "2022-02-01..2022-01-01" ) );
+        assertThrows( IllegalArgumentException.class, () -> PeriodBuckets.parse( "2022-01-01..2022-01-31,2022-01-31..2022-02-28" ) );
+    }   //  testCreation()
+
+    /**
+     *  Tests the distribution of data to the buckets.
+     *
+     *  @throws Exception   Something went unexpectedly wrong.
+     */
+    @Test
+    final void testDistribute() throws Exception
+    {
+        skipThreadTest();
+
+        final var candidate = PeriodBuckets.parse( "2022-01-10..2022-01-12,2022-01-15..2022-01-15,2022-01-20..2022-01-21" );
+        final SortedMap<LocalDate,Integer> data = new TreeMap<>();
+        for( var day = 1; day <= 31; ++day ) data.put( LocalDate.of( 2022, 1, day ), Integer.valueOf( day ) );
+
+        final var buckets = candidate.distribute( data, day -> day );
+        assertEquals( 3, buckets.size() );
+        assertEquals( List.of( 10, 11, 12 ), List.copyOf( buckets.get( 0 ).values() ) );
+        assertEquals( List.of( 15 ), List.copyOf( buckets.get( 1 ).values() ) );
+        assertEquals( List.of( 20, 21 ), List.copyOf( buckets.get( 2 ).values() ) );
+
+        //---* Empty periods get empty buckets *-------------------------------
+        final var empty = candidate.distribute( new TreeMap<LocalDate,Integer>( data.headMap( LocalDate.of( 2022, 1, 11 ) ) ), day -> day );
+        assertEquals( List.of( 10 ), List.copyOf( empty.get( 0 ).values() ) );
+        assertTrue( empty.get( 1 ).isEmpty() );
+        assertTrue( empty.get( 2 ).isEmpty() );
+    }   //  testDistribute()
+}
+//  class TestPeriodBuckets
+
+/*
+ *  End of File
+ */
@@ -0,0 +1,151 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.bloodpressure.spi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.tquadrat.foundation.annotation.ClassVersion;
+import org.tquadrat.foundation.testutil.TestBaseClass;
+
+/**
+ *  Some tests for the class
+ *  {@link QuantileSketch}.
+ *
+ *  @author Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @since 0.1.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@DisplayName( "org.tquadrat.bloodpressure.spi.TestQuantileSketch" )
+public class TestQuantileSketch extends TestBaseClass
+{
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Compares the quantiles from the sketch with the exact ones from a
+     *  {@link ValueHistogram}.
+     *
+     *  @throws Exception   Something went unexpectedly wrong.
+     */
+    @Test
+    final void testErrorBound() throws Exception
+    {
+        skipThreadTest();
+
+        final var random = new Random( 4711 );
+        for( var precision = QuantileSketch.MINIMUM_PRECISION; precision <= 10; ++precision )
+        {
+            final var candidate = new QuantileSketch( precision );
+            final var reference = new ValueHistogram();
+            for( var i = 0; i < 10_000; ++i )
+            {
+                final var value = 40 + random.nextInt( 200 ) + (random.nextInt( 100 ) == 0 ? 250 : 0);
+                candidate.add( value );
+                reference.add( value );
+            }
+            assertEquals( reference.getCount(), candidate.getCount() );
+
+            for( final var percentage : new double [] {0.0, 5.0, 25.0, 50.0, 75.0, 95.0, 99.9, 100.0} )
+            {
+                final var exact = reference.getPercentile( percentage );
+                final var estimate = candidate.getQuantile( percentage );
+                assertTrue( Math.abs( estimate - exact ) <= exact * candidate.getRelativeError(), () -> "precision %d, p%s: %d instead of %d".formatted( candidate.getPrecision(), percentage, estimate, exact ) );
+            }
+        }
+    }   //  testErrorBound()
+
+    /**
+     *  Tests that the values below 2<sup>precision</sup> are exact.
+     *
+     *  @throws Exception   Something went unexpectedly wrong.
+     */
+    @Test
+    final void testExactValues() throws Exception
+    {
+        skipThreadTest();
+
+        final var candidate = new QuantileSketch();
+        for( var value = 0; value < 128; ++value ) candidate.add( value );
+        for( var value = 0; value < 128; ++value ) assertEquals( value, candidate.getQuantile( (value + 1) * 100.0 / 128 ) );
+        assertEquals( 0, candidate.getQuantile( 0.0 ) );
+    }   //  testExactValues()
+
+    /**
+     *  Tests the invalid arguments.
+     *
+     *  @throws Exception   Something went unexpectedly wrong.
+     */
+    @Test
+    final void testInvalidArguments() throws Exception
+    {
+        skipThreadTest();
+
+        assertThrows( IllegalArgumentException.class, () -> new QuantileSketch( QuantileSketch.MINIMUM_PRECISION - 1 ) );
+        assertThrows( IllegalArgumentException.class, () -> new QuantileSketch( QuantileSketch.MAXIMUM_PRECISION + 1 ) );
+
+        final var candidate = new QuantileSketch();
+        assertThrows( NoSuchElementException.class, () -> candidate.getQuantile( 50.0 ) );
+        assertThrows( IllegalArgumentException.class, () -> candidate.add( -1 ) );
+        assertThrows( IllegalArgumentException.class, () -> candidate.add( 1, -1 ) );
+        candidate.add( 120 );
+        assertThrows( IllegalArgumentException.class, () -> candidate.getQuantile( -0.1 ) );
+        assertThrows( IllegalArgumentException.class, () -> candidate.merge( new QuantileSketch( 5 ) ) );
+    }   //  testInvalidArguments()
+
+    /**
+     *  Tests that merged sketches give the same quantiles as a single sketch
+     *  with all values.
+     *
+     *  @throws Exception   Something went unexpectedly wrong.
+     */
+    @Test
+    final void testMerge() throws Exception
+    {
+        skipThreadTest();
+
+        final var random = new Random( 815 );
+        final var total = new QuantileSketch();
+        final var parts = new QuantileSketch [] {new QuantileSketch(), new QuantileSketch(), new QuantileSketch()};
+        for( var i = 0; i < 30_000; ++i )
+        {
+            final var value = (long) (Math.abs( random.nextGaussian() ) * 1_000_000);
+            total.add( value );
+            parts [i % parts.length].add( value );
+        }
+        final var candidate = new QuantileSketch();
+        for( final var part : parts ) candidate.merge( part );
+
+        assertEquals( total.getCount(), candidate.getCount() );
+        for( var percentage = 0.0; percentage <= 100.0; percentage += 2.5 )
+        {
+            assertEquals( total.getQuantile( percentage ), candidate.getQuantile( percentage ) );
+        }
+    }   //  testMerge()
+}
+//  class TestQuantileSketch
+
+/*
+ *  End of File
+ */
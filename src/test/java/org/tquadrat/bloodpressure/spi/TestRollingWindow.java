@@ -0,0 +1,129 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.bloodpressure.spi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDate;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.tquadrat.bloodpressure.DataNode;
+import org.tquadrat.foundation.annotation.ClassVersion;
+import org.tquadrat.foundation.testutil.TestBaseClass;
+
+/**
+ *  Some tests for the class
+ *  {@link RollingWindow}.
+ *
+ *  @author Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @since 0.1.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@DisplayName( "org.tquadrat.bloodpressure.spi.TestRollingWindow" )
+public class TestRollingWindow extends TestBaseClass
+{
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Tests the invalid arguments.
+     *
+     *  @throws Exception   Something went unexpectedly wrong.
+     */
+    @Test
+    final void testInvalidArguments() throws Exception
+    {
+        skipThreadTest();
+
+        assertThrows( IllegalArgumentException.class, () -> new RollingWindow( 0 ) );
+
+        final var candidate = new RollingWindow( 7 );
+        assertThrows( NoSuchElementException.class, candidate::getAverage );
+        assertThrows( NoSuchElementException.class, candidate::getMaximum );
+        assertThrows( NoSuchElementException.class, candidate::getMinimum );
+
+        final var day = LocalDate.of( 2022, 3, 1 );
+        candidate.add( day, new DataNode( 120, 80 ) );
+        assertThrows( IllegalArgumentException.class, () -> candidate.add( day, new DataNode( 120, 80 ) ) );
+        assertThrows( IllegalArgumentException.class, () -> candidate.add( day.minusDays( 1 ), new DataNode( 120, 80 ) ) );
+    }   //  testInvalidArguments()
+
+    /**
+     *  Compares the window with a plain calculation over the days in the
+     *  window, for a series with gaps.
+     *
+     *  @throws Exception   Something went unexpectedly wrong.
+     */
+    @Test
+    final void testWindow() throws Exception
+    {
+        skipThreadTest();
+
+        final var random = new Random( 4711 );
+        final var data = new TreeMap<LocalDate,DataNode>();
+        var day = LocalDate.of( 2020, 1, 1 );
+        for( var i = 0; i < 1_000; ++i )
+        {
+            data.put( day, new DataNode( 100 + random.nextInt( 80 ), 60 + random.nextInt( 40 ) ) );
+            day = day.plusDays( 1 + (random.nextInt( 5 ) == 0 ? random.nextInt( 10 ) : 0) );
+        }
+
+        for( final var length : new int [] {1, 7, 30} )
+        {
+            final var candidate = new RollingWindow( length );
+            for( final var entry : data.entrySet() )
+            {
+                candidate.add( entry.getKey(), entry.getValue() );
+
+                final var window = data.subMap( entry.getKey().minusDays( length - 1 ), true, entry.getKey(), true ).values();
+                assertEquals( window.size(), candidate.getSize() );
+                final var sums = new long [3];
+                final var maxima = new int [] {Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE};
+                final var minima = new int [] {Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE};
+                for( final var node : window )
+                {
+                    final var values = new int [] {node.systolic(), node.diastolic(), node.pulsePressure()};
+                    for( var i = 0; i < 3; ++i )
+                    {
+                        sums [i] += values [i];
+                        maxima [i] = Math.max( maxima [i], values [i] );
+                        minima [i] = Math.min( minima [i], values [i] );
+                    }
+                }
+                final var size = window.size();
+                assertEquals( new DataNode( (int) (sums [0] / size), (int) (sums [1] / size), (int) (sums [2] / size) ), candidate.getAverage() );
+                assertEquals( new DataNode( maxima [0], maxima [1], maxima [2] ), candidate.getMaximum() );
+                assertEquals( new DataNode( minima [0], minima [1], minima [2] ), candidate.getMinimum() );
+            }
+
+            final var averages = RollingWindow.calculateMovingAverages( data, length );
+            assertEquals( data.keySet(), averages.keySet() );
+            assertEquals( candidate.getAverage(), averages.get( averages.lastKey() ) );
+        }
+    }   //  testWindow()
+}
+//  class TestRollingWindow
+
+/*
+ *  End of File
+ */
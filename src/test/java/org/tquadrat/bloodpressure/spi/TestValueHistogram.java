@@ -0,0 +1,143 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.bloodpressure.spi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.tquadrat.bloodpressure.spi.ValueHistogram.MAXIMUM_VALUE;
+import static org.tquadrat.bloodpressure.spi.ValueHistogram.MINIMUM_VALUE;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.tquadrat.foundation.annotation.ClassVersion;
+import org.tquadrat.foundation.testutil.TestBaseClass;
+
+/**
+ *  Some tests for the class
+ *  {@link ValueHistogram}.
+ *
+ *  @author Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @since 0.1.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@DisplayName( "org.tquadrat.bloodpressure.spi.TestValueHistogram" )
+public class TestValueHistogram extends TestBaseClass
+{
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Tests the limits of the histogram.
+     *
+     *  @throws Exception   Something went unexpectedly wrong.
+     */
+    @Test
+    final void testLimits() throws Exception
+    {
+        skipThreadTest();
+
+        final var candidate = ValueHistogram.of( MINIMUM_VALUE, MAXIMUM_VALUE );
+        assertEquals( MINIMUM_VALUE, candidate.getPercentile( 0.0 ) );
+        assertEquals( MAXIMUM_VALUE, candidate.getPercentile( 100.0 ) );
+        assertEquals( 0, candidate.getMedian() );
+
+        assertThrows( IllegalArgumentException.class, () -> candidate.add( MINIMUM_VALUE - 1 ) );
+        assertThrows( IllegalArgumentException.class, () -> candidate.add( MAXIMUM_VALUE + 1 ) );
+        assertThrows( IllegalArgumentException.class, () -> candidate.getPercentile( 100.1 ) );
+        assertThrows( NoSuchElementException.class, () -> new ValueHistogram().getMedian() );
+        assertThrows( NoSuchElementException.class, () -> candidate.getValueAt( 2 ) );
+    }   //  testLimits()
+
+    /**
+     *  Compares the median from the histogram with that from the sorted
+     *  values.
+     *
+     *  @throws Exception   Something went unexpectedly wrong.
+     */
+    @Test
+    final void testMedian() throws Exception
+    {
+        skipThreadTest();
+
+        assertEquals( 120, ValueHistogram.of( 120 ).getMedian() );
+        assertEquals( 125, ValueHistogram.of( 130, 120 ).getMedian() );
+        assertEquals( 120, ValueHistogram.of( 140, 110, 120 ).getMedian() );
+
+        final var random = new Random( 4711 );
+        for( var size = 1; size < 200; ++size )
+        {
+            final var values = new int [size];
+            for( var i = 0; i < size; ++i ) values [i] = 60 + random.nextInt( 140 );
+            final var candidate = ValueHistogram.of( values );
+            assertEquals( size, candidate.getCount() );
+
+            final var sorted = values.clone();
+            Arrays.sort( sorted );
+            final var expected = size % 2 == 0
+                ? (sorted [size / 2 - 1] + sorted [size / 2]) / 2
+                : sorted [size / 2];
+            assertEquals( expected, candidate.getMedian() );
+            for( var i = 0; i < size; ++i ) assertEquals( sorted [i], candidate.getValueAt( i ) );
+        }
+    }   //  testMedian()
+
+    /**
+     *  Tests the merging of histograms.
+     *
+     *  @throws Exception   Something went unexpectedly wrong.
+     */
+    @Test
+    final void testMerge() throws Exception
+    {
+        skipThreadTest();
+
+        final var candidate = ValueHistogram.of( 110, 120 );
+        candidate.merge( ValueHistogram.of( 130, 140, 150 ) );
+        assertEquals( 5, candidate.getCount() );
+        assertEquals( 130, candidate.getMedian() );
+        assertEquals( 150, candidate.getPercentile( 100.0 ) );
+    }   //  testMerge()
+
+    /**
+     *  Tests the percentiles, using the nearest rank.
+     *
+     *  @throws Exception   Something went unexpectedly wrong.
+     */
+    @Test
+    final void testPercentile() throws Exception
+    {
+        skipThreadTest();
+
+        final var candidate = ValueHistogram.of( 15, 20, 35, 40, 50 );
+        assertEquals( 15, candidate.getPercentile( 0.0 ) );
+        assertEquals( 15, candidate.getPercentile( 5.0 ) );
+        assertEquals( 20, candidate.getPercentile( 30.0 ) );
+        assertEquals( 20, candidate.getPercentile( 40.0 ) );
+        assertEquals( 35, candidate.getPercentile( 50.0 ) );
+        assertEquals( 50, candidate.getPercentile( 100.0 ) );
+    }   //  testPercentile()
+}
+//  class TestValueHistogram
+
+/*
+ *  End of File
+ */
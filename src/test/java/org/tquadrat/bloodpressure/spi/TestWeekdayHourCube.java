@@ -0,0 +1,119 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.bloodpressure.spi;
+
+import static java.time.DayOfWeek.FRIDAY;
+import static java.time.DayOfWeek.MONDAY;
+import static java.time.DayOfWeek.SUNDAY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.tquadrat.bloodpressure.Diagnosis.HIGH1;
+import static org.tquadrat.bloodpressure.Diagnosis.NORMAL;
+import static org.tquadrat.bloodpressure.Diagnosis.OPTIMAL;
+
+import java.time.DayOfWeek;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.tquadrat.bloodpressure.DataNode;
+import org.tquadrat.foundation.annotation.ClassVersion;
+import org.tquadrat.foundation.testutil.TestBaseClass;
+
+/**
+ *  Some tests for the class
+ *  {@link WeekdayHourCube}.
+ *
+ *  @author Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @since 0.1.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@DisplayName( "org.tquadrat.bloodpressure.spi.TestWeekdayHourCube" )
+public class TestWeekdayHourCube extends TestBaseClass
+{
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Tests the cells of the cube.
+     *
+     *  @throws Exception   Something went unexpectedly wrong.
+     */
+    @Test
+    final void testCells() throws Exception
+    {
+        skipThreadTest();
+
+        final var candidate = new WeekdayHourCube( 3 );
+        assertEquals( 8, candidate.getBucketCount() );
+        candidate.add( MONDAY, 6, 110, 70 );
+        candidate.add( MONDAY, 8, 150, 92 );
+        candidate.add( FRIDAY, 23, 125, 81 );
+
+        assertEquals( 2L, candidate.getCount( MONDAY, 2 ) );
+        assertEquals( new DataNode( 130, 81 ), candidate.getAverage( MONDAY, 2 ).orElseThrow() );
+        assertEquals( 1L, candidate.getSystolicCount( MONDAY, 2, OPTIMAL ) );
+        assertEquals( 1L, candidate.getSystolicCount( MONDAY, 2, HIGH1 ) );
+        assertEquals( 1L, candidate.getDiastolicCount( MONDAY, 2, HIGH1 ) );
+        assertEquals( 1L, candidate.getSystolicCount( FRIDAY, 7, NORMAL ) );
+        for( final var weekday : DayOfWeek.values() )
+        {
+            for( var bucket = 0; bucket < candidate.getBucketCount(); ++bucket )
+            {
+                if( !(weekday == MONDAY && bucket == 2) && !(weekday == FRIDAY && bucket == 7) )
+                {
+                    assertEquals( 0L, candidate.getCount( weekday, bucket ) );
+                    assertTrue( candidate.getAverage( weekday, bucket ).isEmpty() );
+                }
+            }
+        }
+
+        final var other = new WeekdayHourCube( 3 );
+        other.add( SUNDAY, 0, 120, 80 );
+        other.add( MONDAY, 7, 130, 90 );
+        candidate.merge( other );
+        assertEquals( 3L, candidate.getCount( MONDAY, 2 ) );
+        assertEquals( 1L, candidate.getCount( SUNDAY, 0 ) );
+        assertEquals( new DataNode( 130, 84 ), candidate.getAverage( MONDAY, 2 ).orElseThrow() );
+    }   //  testCells()
+
+    /**
+     *  Tests the invalid arguments.
+     *
+     *  @throws Exception   Something went unexpectedly wrong.
+     */
+    @Test
+    final void testInvalidArguments() throws Exception
+    {
+        skipThreadTest();
+
+        assertThrows( IllegalArgumentException.class, () -> new WeekdayHourCube( 0 ) );
+        assertThrows( IllegalArgumentException.class, () -> new WeekdayHourCube( 5 ) );
+
+        final var candidate = new WeekdayHourCube();
+        assertThrows( IllegalArgumentException.class, () -> candidate.add( MONDAY, 24, 120, 80 ) );
+        assertThrows( IllegalArgumentException.class, () -> candidate.add( MONDAY, -1, 120, 80 ) );
+        assertThrows( IndexOutOfBoundsException.class, () -> candidate.getCount( MONDAY, candidate.getBucketCount() ) );
+        assertThrows( IllegalArgumentException.class, () -> candidate.merge( new WeekdayHourCube( 1 ) ) );
+    }   //  testInvalidArguments()
+}
+//  class TestWeekdayHourCube
+
+/*
+ *  End of File
+ */
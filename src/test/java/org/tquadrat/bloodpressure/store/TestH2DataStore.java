@@ -0,0 +1,253 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.bloodpressure.store;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.tquadrat.bloodpressure.Configuration.COLUMN_BLOODPRESSURE_DATA_PRIMARY_KEY;
+import static org.tquadrat.bloodpressure.Configuration.TABLE_BLOODPRESSURE_DATA;
+import static org.tquadrat.bloodpressure.DataStore.DEFAULT_PERSON;
+import static org.tquadrat.bloodpressure.internal.DataChangeLog.INITIAL_DATA_VERSION;
+import static org.tquadrat.foundation.lang.CommonConstants.ZONE_UTC;
+import static org.tquadrat.foundation.util.StringUtils.format;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.tquadrat.bloodpressure.Configuration;
+import org.tquadrat.bloodpressure.DataStore.Batch;
+import org.tquadrat.foundation.annotation.ClassVersion;
+import org.tquadrat.foundation.testutil.TestBaseClass;
+
+/**
+ *  Some tests for the class
+ *  {@link H2DataStore}.
+ *
+ *  @author Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @since 0.1.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@DisplayName( "org.tquadrat.bloodpressure.store.TestH2DataStore" )
+public class TestH2DataStore extends TestBaseClass
+{
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Tests that a database with the schema of the first version of the
+     *  program is migrated: the measurements belong to the default person
+     *  afterwards, and the measurements of other persons can be added.
+     *
+     *  @throws Exception   Something went unexpectedly wrong.
+     */
+    @Test
+    final void testBaselineSchema() throws Exception
+    {
+        skipThreadTest();
+
+        final var configuration = Configuration.getInstance();
+        configuration.setDataFolder( Files.createTempDirectory( "TestH2DataStore" ) );
+
+        //---* Create the database as the first version did *------------------
+        final var timestamp = LocalDateTime.of( 2020, 1, 1, 8, 0 ).atZone( ZONE_UTC ).toEpochSecond();
+        try( final var connection = configuration.retrieveConnection();
+             final var statement = connection.createStatement() )
+        {
+            statement.execute( format(
+                """
+                CREATE TABLE %1$s
+                (
+                  %2$s TIMESTAMP WITH TIME ZONE PRIMARY KEY,
+                  systolic_pressure SMALLINT NOT NULL,
+                  diastolic_pressure SMALLINT NOT NULL,
+                  ignored BOOLEAN NOT NULL
+                )
+                """, TABLE_BLOODPRESSURE_DATA, COLUMN_BLOODPRESSURE_DATA_PRIMARY_KEY ) );
+            statement.execute( format( "INSERT INTO %s VALUES( TIMESTAMP WITH TIME ZONE '2020-01-01 08:00:00+00', 120, 80, FALSE )", TABLE_BLOODPRESSURE_DATA ) );
+        }
+
+        final var candidate = new H2DataStore( false );
+        candidate.initialize();
+
+        final List<Long> timestamps = new ArrayList<>();
+        candidate.scan( DEFAULT_PERSON, null, null, ( epochSecond, systolic, diastolic, isIgnored, isOutlier ) ->
+        {
+            assertEquals( 120, systolic );
+            assertEquals( 80, diastolic );
+            timestamps.add( epochSecond );
+        } );
+        assertEquals( List.of( timestamp ), timestamps );
+        assertEquals( INITIAL_DATA_VERSION, candidate.getDataVersion( DEFAULT_PERSON ) );
+
+        //---* Another person may have a measurement at the same time *--------
+        final var person = "other";
+        final var batch = new Batch( 1 );
+        batch.add( timestamp, 130, 85, false );
+        candidate.append( person, batch );
+        assertTrue( candidate.getEarliestChangeSince( person, INITIAL_DATA_VERSION ).isPresent() );
+        assertEquals( 1, candidate.aggregate( person, null, null, ZONE_UTC ).size() );
+        assertEquals( List.of( LocalDate.of( 2020, 1, 1 ) ), List.copyOf( candidate.aggregate( DEFAULT_PERSON, null, null, ZONE_UTC ).keySet() ) );
+
+        //---* A second initialisation does not change anything *--------------
+        new H2DataStore( false ).initialize();
+        timestamps.clear();
+        candidate.scan( person, null, null, ( epochSecond, systolic, diastolic, isIgnored, isOutlier ) -> timestamps.add( epochSecond ) );
+        assertEquals( List.of( timestamp ), timestamps );
+    }   //  testBaselineSchema()
+
+    /**
+     *  Tests that a partition is not compacted while a snapshot is open:
+     *  the compaction waits until the snapshot is closed, and it fails
+     *  when the thread that holds the snapshot tries it itself.
+     *
+     *  @throws Exception   Something went unexpectedly wrong.
+     */
+    @Test
+    final void testCompactionWithOpenSnapshot() throws Exception
+    {
+        skipThreadTest();
+
+        Configuration.getInstance().setDataFolder( Files.createTempDirectory( "TestH2DataStore" ) );
+        final var candidate = new H2DataStore( true );
+        candidate.initialize();
+
+        final var person = "compaction";
+        final var timestamp = LocalDateTime.of( 2021, 5, 1, 8, 0 ).atZone( ZONE_UTC ).toEpochSecond();
+        final var batch = new Batch( 2 );
+        batch.add( timestamp, 120, 80, false );
+        batch.add( timestamp + 43_200L, 130, 85, false );
+        candidate.append( person, batch );
+
+        final var executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            final Future<?> compaction;
+            try( final var snapshot = candidate.openSnapshot() )
+            {
+                assertThrows( IOException.class, () -> candidate.compactPartition( 2021 ) );
+
+                compaction = executor.submit( () ->
+                {
+                    candidate.compactPartition( 2021 );
+                    return null;
+                } );
+                Thread.sleep( 200L );
+                assertFalse( compaction.isDone() );
+
+                final List<Long> timestamps = new ArrayList<>();
+                snapshot.scan( person, null, null, ( epochSecond, systolic, diastolic, isIgnored, isOutlier ) -> timestamps.add( epochSecond ) );
+                assertEquals( List.of( timestamp, timestamp + 43_200L ), timestamps );
+            }
+
+            //---* The compaction proceeds after the snapshot was closed *-----
+            compaction.get( 30, SECONDS );
+            final List<Long> timestamps = new ArrayList<>();
+            candidate.scan( person, null, null, ( epochSecond, systolic, diastolic, isIgnored, isOutlier ) -> timestamps.add( epochSecond ) );
+            assertEquals( List.of( timestamp, timestamp + 43_200L ), timestamps );
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }   //  testCompactionWithOpenSnapshot()
+
+    /**
+     *  Tests that an import that runs concurrently with the first
+     *  downsampling for a person does neither leave measurements before the
+     *  end of the downsampled range nor count them twice: the imported
+     *  measurements are either contained in the daily aggregates, or they
+     *  were discarded.
+     *
+     *  @throws Exception   Something went unexpectedly wrong.
+     */
+    @Test
+    final void testFirstDownsampleRace() throws Exception
+    {
+        skipThreadTest();
+
+        Configuration.getInstance().setDataFolder( Files.createTempDirectory( "TestH2DataStore" ) );
+        final var candidate = new H2DataStore( false );
+        candidate.initialize();
+
+        final var cutoff = LocalDate.of( 2021, 4, 1 ).atStartOfDay( ZONE_UTC ).toInstant();
+        final var executor = Executors.newFixedThreadPool( 2 );
+        try
+        {
+            for( var round = 0; round < 20; ++round )
+            {
+                final var person = format( "race_%d", round );
+                final var existing = new Batch( 4 );
+                final var imported = new Batch( 4 );
+                for( var day = 1; day <= 4; ++day )
+                {
+                    existing.add( LocalDateTime.of( 2021, 3, day, 8, 0 ).atZone( ZONE_UTC ).toEpochSecond(), 120, 80, false );
+                    imported.add( LocalDateTime.of( 2021, 3, day + 4, 8, 0 ).atZone( ZONE_UTC ).toEpochSecond(), 130, 85, false );
+                }
+                candidate.append( person, existing );
+
+                final var start = new CountDownLatch( 1 );
+                final Future<?> downsampling = executor.submit( () ->
+                {
+                    start.await();
+                    return candidate.downsample( person, cutoff, ZONE_UTC );
+                } );
+                final Future<?> appending = executor.submit( () ->
+                {
+                    start.await();
+                    candidate.append( person, imported );
+                    return null;
+                } );
+                start.countDown();
+                downsampling.get( 30, SECONDS );
+                appending.get( 30, SECONDS );
+
+                //---* Nothing is left before the cutoff *---------------------
+                final List<Long> timestamps = new ArrayList<>();
+                candidate.scan( person, null, cutoff, ( epochSecond, systolic, diastolic, isIgnored, isOutlier ) -> timestamps.add( epochSecond ) );
+                assertTrue( timestamps.isEmpty(), timestamps.toString() );
+
+                //---* Each measurement is counted at most once *--------------
+                final var days = candidate.getDownsampledDays( person, null, null );
+                final var count = days.values().stream().mapToInt( aggregate -> aggregate.getCount() ).sum();
+                assertTrue( (count == 4) || (count == 8), Integer.toString( count ) );
+                assertEquals( count, days.size() );
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }   //  testFirstDownsampleRace()
+}
+//  class TestH2DataStore
+
+/*
+ *  End of File
+ */
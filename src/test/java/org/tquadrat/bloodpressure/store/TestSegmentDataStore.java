@@ -0,0 +1,265 @@
+/*
+ * ============================================================================
+ * Copyright © 2002-2022 by Thomas Thrien.
+ * All Rights Reserved.
+ * ============================================================================
+ * Licensed to the public under the agreements of the GNU Lesser General Public
+ * License, version 3.0 (the "License"). You may obtain a copy of the License at
+ *
+ *      http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.tquadrat.bloodpressure.store;
+
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.tquadrat.foundation.lang.CommonConstants.ZONE_UTC;
+import static org.tquadrat.foundation.util.StringUtils.format;
+
+import java.nio.file.Files;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.tquadrat.bloodpressure.Configuration;
+import org.tquadrat.bloodpressure.DataStore.Batch;
+import org.tquadrat.foundation.annotation.ClassVersion;
+import org.tquadrat.foundation.testutil.TestBaseClass;
+
+/**
+ *  Some tests for the class
+ *  {@link SegmentDataStore}.
+ *
+ *  @author Thomas Thrien - thomas.thrien@tquadrat.org
+ *  @since 0.1.0
+ */
+@ClassVersion( sourceVersion = "$Id$" )
+@DisplayName( "org.tquadrat.bloodpressure.store.TestSegmentDataStore" )
+public class TestSegmentDataStore extends TestBaseClass
+{
+        /*---------*\
+    ====** Methods **==========================================================
+        \*---------*/
+    /**
+     *  Creates a batch with two measurements on each of the given days.
+     *
+     *  @param  days    The days.
+     *  @return The batch.
+     */
+    private static final Batch createBatch( final LocalDate... days )
+    {
+        final var retValue = new Batch( days.length * 2 );
+        for( final var day : days )
+        {
+            retValue.add( LocalDateTime.of( day, LocalTime.of( 8, 0 ) ).atZone( ZONE_UTC ).toEpochSecond(), 120, 80, false );
+            retValue.add( LocalDateTime.of( day, LocalTime.of( 20, 0 ) ).atZone( ZONE_UTC ).toEpochSecond(), 130, 85, false );
+        }
+
+        //---* Done *----------------------------------------------------------
+        return retValue;
+    }   //  createBatch()
+
+    /**
+     *  Initialises the test.
+     *
+     *  @throws Exception   Something went unexpectedly wrong.
+     */
+    @BeforeAll
+    static final void init() throws Exception
+    {
+        Configuration.getInstance().setDataFolder( Files.createTempDirectory( "TestSegmentDataStore" ) );
+    }   //  init()
+
+    /**
+     *  Tests that the aggregation of a range that is long enough to be split
+     *  into chunks yields the same daily aggregates as a sequential
+     *  aggregation, including the days that straddle the borders of the
+     *  chunks.
+     *
+     *  @throws Exception   Something went unexpectedly wrong.
+     */
+    @Test
+    final void testParallelAggregation() throws Exception
+    {
+        skipThreadTest();
+
+        final var person = "parallel";
+        final var candidate = new SegmentDataStore();
+        candidate.initialize();
+
+        //---* Ten years, one measurement every two hours *--------------------
+        final var timezone = ZoneId.of( "Europe/Berlin" );
+        final var start = LocalDate.of( 2010, 1, 1 ).atStartOfDay( ZONE_UTC ).toEpochSecond();
+        final var end = LocalDate.of( 2020, 1, 1 ).atStartOfDay( ZONE_UTC ).toEpochSecond();
+        final var batch = new Batch( (int) ((end - start) / 7_200L) );
+        final Map<LocalDate,Integer> expected = new TreeMap<>();
+        for( var timestamp = start; timestamp < end; timestamp += 7_200L )
+        {
+            batch.add( timestamp, 120, 80, false );
+            expected.merge( Instant.ofEpochSecond( timestamp ).atZone( timezone ).toLocalDate(), Integer.valueOf( 1 ), Integer::sum );
+        }
+        candidate.append( person, batch );
+
+        final var days = candidate.aggregate( person, null, null, timezone );
+        final Map<LocalDate,Integer> actual = new TreeMap<>();
+        for( final var day : days.values() ) actual.put( day.getDay(), Integer.valueOf( day.getCount() ) );
+        assertEquals( expected, actual );
+    }   //  testParallelAggregation()
+
+    /**
+     *  Tests that a downsampling that was interrupted after the new file for
+     *  the downsampled days was written is completed on the next
+     *  initialisation, and that this is recorded as a change.
+     *
+     *  @throws Exception   Something went unexpectedly wrong.
+     */
+    @Test
+    final void testRecoverDownsampling() throws Exception
+    {
+        skipThreadTest();
+
+        final var person = "recover";
+        final var candidate = new SegmentDataStore();
+        candidate.initialize();
+
+        final var first = LocalDate.of( 2022, 5, 10 );
+        final var second = first.plusDays( 1 );
+        final var third = first.plusDays( 2 );
+        candidate.append( person, createBatch( first, second, third ) );
+
+        //---* Keep the segment, as it was before the downsampling *-----------
+        final var configuration = Configuration.getInstance();
+        final var folder = configuration.getDataFolder().resolve( format( "%s.segments", configuration.getDatabaseName() ) ).resolve( person );
+        final var segment = folder.resolve( "2022.seg" );
+        final var copy = Files.copy( segment, folder.resolve( "2022.copy" ) );
+        final var cutoff = third.atStartOfDay( ZONE_UTC ).toInstant();
+        assertEquals( 4L, candidate.downsample( person, cutoff, ZONE_UTC ) );
+
+        //---* Simulate the interruption before the removal *------------------
+        final var dailyFile = folder.resolve( "downsampled.agg" );
+        Files.move( dailyFile, dailyFile.resolveSibling( "downsampled.agg.tmp" ) );
+        Files.move( copy, segment, REPLACE_EXISTING );
+        final var dataVersion = candidate.getDataVersion( person );
+
+        new SegmentDataStore().initialize();
+        assertTrue( candidate.getDataVersion( person ) > dataVersion );
+        assertTrue( candidate.getEarliestChangeSince( person, dataVersion ).orElseThrow().compareTo( first.atStartOfDay( ZONE_UTC ).toInstant() ) <= 0 );
+        assertEquals( List.of( first, second ), List.copyOf( candidate.getDownsampledDays( person, null, null ).keySet() ) );
+        final List<Long> timestamps = new ArrayList<>();
+        candidate.scan( person, null, null, ( epochSecond, systolic, diastolic, isIgnored, isOutlier ) -> timestamps.add( Long.valueOf( epochSecond ) ) );
+        assertEquals( 2, timestamps.size() );
+        assertEquals( LocalDateTime.of( third, LocalTime.of( 8, 0 ) ).atZone( ZONE_UTC ).toInstant(), candidate.getFirstTimestamp( person ).orElseThrow() );
+    }   //  testRecoverDownsampling()
+
+    /**
+     *  Tests that measurements that were downsampled already are not
+     *  counted again when they are imported again.
+     *
+     *  @throws Exception   Something went unexpectedly wrong.
+     */
+    @Test
+    final void testReimportAfterDownsample() throws Exception
+    {
+        skipThreadTest();
+
+        final var person = "reimport";
+        final var candidate = new SegmentDataStore();
+        candidate.initialize();
+
+        final var first = LocalDate.of( 2022, 1, 10 );
+        final var second = first.plusDays( 1 );
+        final var third = first.plusDays( 2 );
+        final var batch = createBatch( first, second, third );
+        candidate.append( person, batch );
+
+        final var cutoff = third.atStartOfDay( ZONE_UTC ).toInstant();
+        assertEquals( 4L, candidate.downsample( person, cutoff, ZONE_UTC ) );
+
+        //---* The import is repeated *----------------------------------------
+        final var dataVersion = candidate.getDataVersion( person );
+        candidate.append( person, batch );
+        assertEquals( 0L, candidate.downsample( person, cutoff, ZONE_UTC ) );
+
+        var days = candidate.aggregate( person, null, null, ZONE_UTC );
+        assertEquals( 3, days.size() );
+        for( final var day : days.values() ) assertEquals( 2, day.getCount() );
+        assertEquals( 2, candidate.getDownsampledDays( person, null, null ).size() );
+
+        //---* Only the day after the cutoff was modified again *--------------
+        assertTrue( candidate.getEarliestChangeSince( person, dataVersion ).orElseThrow().compareTo( cutoff ) >= 0 );
+
+        //---* A later downsampling does not count the days twice *------------
+        candidate.append( person, batch );
+        assertEquals( 2L, candidate.downsample( person, third.plusDays( 1 ).atStartOfDay( ZONE_UTC ).toInstant(), ZONE_UTC ) );
+        days = candidate.aggregate( person, null, null, ZONE_UTC );
+        assertEquals( 3, days.size() );
+        for( final var day : days.values() ) assertEquals( 2, day.getCount() );
+        assertEquals( 3, candidate.getDownsampledDays( person, null, null ).size() );
+    }   //  testReimportAfterDownsample()
+
+    /**
+     *  Tests that a snapshot is not affected by later modifications.
+     *
+     *  @throws Exception   Something went unexpectedly wrong.
+     */
+    @Test
+    final void testSnapshot() throws Exception
+    {
+        skipThreadTest();
+
+        final var person = "snapshot";
+        final var candidate = new SegmentDataStore();
+        candidate.initialize();
+
+        final var first = LocalDate.of( 2022, 3, 10 );
+        final var second = first.plusDays( 1 );
+        final var third = first.plusDays( 2 );
+        candidate.append( person, createBatch( first, second, third ) );
+
+        try( final var snapshot = candidate.openSnapshot() )
+        {
+            final var dataVersion = snapshot.getDataVersion( person );
+
+            //---* Extend the segment, add to its tail, then rewrite it *------
+            candidate.append( person, createBatch( third.plusDays( 1 ) ) );
+            candidate.append( person, createBatch( first ) );
+            assertEquals( 2L, candidate.downsample( person, second.atStartOfDay( ZONE_UTC ).toInstant(), ZONE_UTC ) );
+            assertEquals( 2L, candidate.delete( person, third.atStartOfDay( ZONE_UTC ).toInstant(), third.plusDays( 1 ).atStartOfDay( ZONE_UTC ).toInstant() ) );
+
+            assertEquals( dataVersion, snapshot.getDataVersion( person ) );
+            assertTrue( snapshot.getDownsampledDays( person, null, null ).isEmpty() );
+            final var days = snapshot.aggregate( person, null, null, ZONE_UTC );
+            assertEquals( List.of( first, second, third ), List.copyOf( days.keySet() ) );
+            for( final var day : days.values() ) assertEquals( 2, day.getCount() );
+            assertEquals( LocalDateTime.of( first, LocalTime.of( 8, 0 ) ).atZone( ZONE_UTC ).toInstant(), snapshot.getFirstTimestamp( person ).orElseThrow() );
+            assertEquals( LocalDateTime.of( third, LocalTime.of( 20, 0 ) ).atZone( ZONE_UTC ).toInstant(), snapshot.getLastTimestamp( person ).orElseThrow() );
+            assertTrue( snapshot.getEarliestChangeSince( person, dataVersion ).isEmpty() );
+
+            //---* The storage itself reflects the modifications *-------------
+            final var current = candidate.aggregate( person, null, null, ZONE_UTC );
+            assertEquals( List.of( first, second, third.plusDays( 1 ) ), List.copyOf( current.keySet() ) );
+            assertTrue( candidate.getEarliestChangeSince( person, dataVersion ).isPresent() );
+        }
+    }   //  testSnapshot()
+}
+//  class TestSegmentDataStore
+
+/*
+ *  End of File
+ */